@@ -0,0 +1,48 @@
+#!/usr/bin/env bash
+# Builds the fast-start distribution with an application class-data-sharing (AppCDS) archive.
+#
+#   scripts/build-cds-archive.sh [--skip-package]
+#
+# 1. packages the application (skipped with --skip-package if target/*.jar is current)
+# 2. unpacks the Spring Boot jar into target/faststart: the application classes as app.jar and
+#    the dependencies in lib/, because a CDS archive can only be created from a plain class path of jars
+# 3. runs the application once with the faststart profile as training run: it warms up, exits and
+#    dumps all loaded classes into target/faststart/app.jsa (needs JDK 13 or newer)
+#
+# Start an instance with the archive from the project directory, see docs/fast-start.md:
+#
+#   java -XX:SharedArchiveFile=target/faststart/app.jsa -cp "$(cat target/faststart/classpath.txt)" \
+#        de.hypoport.repaymentschedule.RepaymentScheduleApplication --spring.profiles.active=faststart
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+MAIN_CLASS=de.hypoport.repaymentschedule.RepaymentScheduleApplication
+TARGET=target/faststart
+
+if [ "${1:-}" != "--skip-package" ]; then
+    mvn -B -q -DskipTests package
+fi
+
+JAR=$(ls target/repayment-schedule-*.jar | grep -v original | head -n 1)
+rm -rf "$TARGET"
+mkdir -p "$TARGET/exploded" "$TARGET/lib"
+(cd "$TARGET/exploded" && jar -xf "../../../$JAR")
+jar -cf "$TARGET/app.jar" -C "$TARGET/exploded/BOOT-INF/classes" .
+cp "$TARGET"/exploded/BOOT-INF/lib/*.jar "$TARGET/lib/"
+rm -rf "$TARGET/exploded"
+
+# the class path of the training run has to be a prefix of the class path using the archive, so it is written once and reused
+CLASSPATH_FILE="$TARGET/classpath.txt"
+{ echo -n "$TARGET/app.jar"; for lib in $(ls "$TARGET"/lib/*.jar | sort); do echo -n ":$lib"; done; } > "$CLASSPATH_FILE"
+
+java -XX:ArchiveClassesAtExit="$TARGET/app.jsa" -Xlog:cds=error -cp "$(cat "$CLASSPATH_FILE")" "$MAIN_CLASS" \
+    --spring.profiles.active=faststart \
+    --repaymentschedule.warmup.exit=true \
+    --repaymentschedule.warmup.requests=200 \
+    --server.port=0 \
+    --spring.datasource.url=jdbc:h2:mem:training \
+    --repaymentschedule.jobs.directory="$TARGET/training-jobs"
+rm -rf "$TARGET/training-jobs"
+
+echo "archive: $TARGET/app.jsa ($(du -h "$TARGET/app.jsa" | cut -f1)), class path: $CLASSPATH_FILE"
@@ -0,0 +1,79 @@
+#!/usr/bin/env python3
+"""Compares a JMH json result with the committed benchmark baseline.
+
+Run the benchmarks first:   mvn -Pbenchmark test-compile exec:exec
+Compare with the baseline:  scripts/compare-benchmarks.py target/jmh-result.json
+Replace the baseline:       scripts/compare-benchmarks.py target/jmh-result.json --write-baseline
+
+Fails with exit code 1 if the average time or the allocated bytes per operation of a benchmark
+grow by more than the given thresholds. Benchmarks missing in the baseline are only reported.
+"""
+import argparse
+import json
+import sys
+
+DEFAULT_BASELINE = "src/jmh/baseline.json"
+
+
+def summarize(result_file):
+    with open(result_file) as f:
+        results = json.load(f)
+    summary = {}
+    for result in results:
+        params = result.get("params") or {}
+        key = result["benchmark"] + "".join(":%s=%s" % (name, params[name]) for name in sorted(params))
+        allocation = result.get("secondaryMetrics", {}).get("gc.alloc.rate.norm")
+        summary[key] = {
+            "score": result["primaryMetric"]["score"],
+            "unit": result["primaryMetric"]["scoreUnit"],
+            "allocatedBytesPerOperation": allocation["score"] if allocation else None,
+        }
+    return summary
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__, formatter_class=argparse.RawDescriptionHelpFormatter)
+    parser.add_argument("result", help="json result of a JMH run")
+    parser.add_argument("--baseline", default=DEFAULT_BASELINE, help="baseline file (default: %(default)s)")
+    parser.add_argument("--time-threshold", type=float, default=25.0, help="allowed increase of the average time in percent (default: %(default)s)")
+    parser.add_argument("--allocation-threshold", type=float, default=10.0, help="allowed increase of allocated bytes per operation in percent (default: %(default)s)")
+    parser.add_argument("--write-baseline", action="store_true", help="replace the baseline by the given result")
+    args = parser.parse_args()
+
+    current = summarize(args.result)
+    if args.write_baseline:
+        with open(args.baseline, "w") as f:
+            json.dump(current, f, indent=2, sort_keys=True)
+            f.write("\n")
+        print("baseline written to %s" % args.baseline)
+        return 0
+
+    with open(args.baseline) as f:
+        baseline = json.load(f)
+    regressions = 0
+    for key in sorted(current):
+        now = current[key]
+        before = baseline.get(key)
+        if before is None:
+            print("NEW        %-90s %12.3f %s" % (key, now["score"], now["unit"]))
+            continue
+        time_change = (now["score"] - before["score"]) / before["score"] * 100
+        status = "OK"
+        if time_change > args.time_threshold:
+            status = "SLOWER"
+        allocation_change = 0.0
+        if now["allocatedBytesPerOperation"] is not None and before.get("allocatedBytesPerOperation"):
+            allocation_change = (now["allocatedBytesPerOperation"] - before["allocatedBytesPerOperation"]) / before["allocatedBytesPerOperation"] * 100
+            if allocation_change > args.allocation_threshold:
+                status = "ALLOCATES" if status == "OK" else status + "+ALLOCATES"
+        if status != "OK":
+            regressions += 1
+        print("%-10s %-90s %12.3f %s (%+.1f%%), %+.1f%% B/op" % (status, key, now["score"], now["unit"], time_change, allocation_change))
+    if regressions:
+        print("%d benchmark(s) regressed" % regressions)
+        return 1
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
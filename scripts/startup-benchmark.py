@@ -0,0 +1,148 @@
+#!/usr/bin/env python3
+"""Measures the startup time and the time to the first response of the application.
+
+Package the application first:         mvn -B -DskipTests package
+For the faststart-cds mode also run:    scripts/build-cds-archive.sh --skip-package
+Run the benchmark:                      scripts/startup-benchmark.py --runs 10
+
+Each run starts a new JVM on a free port with an in-memory database and polls until the first
+repayment schedule is served and until /actuator/health reports UP, then stops the JVM. The modes are
+  jar            java -jar with the default configuration
+  faststart      java -jar with the faststart profile (lazy initialization and warm-up)
+  faststart-cds  the faststart profile on the unpacked class path with the class-data-sharing archive
+Modes whose files are missing are skipped. Per mode the minimum, median and maximum of
+  started   seconds logged by Spring Boot as "Started RepaymentScheduleApplication in ..."
+  response  seconds from the start of the JVM to the first 200 of /repaymentSchedule/view
+  ready     seconds from the start of the JVM to the first UP of /actuator/health
+are printed and written as json, so the results of different builds can be compared.
+"""
+import argparse
+import glob
+import json
+import os
+import re
+import socket
+import statistics
+import subprocess
+import sys
+import tempfile
+import time
+import urllib.error
+import urllib.request
+
+MAIN_CLASS = "de.hypoport.repaymentschedule.RepaymentScheduleApplication"
+FASTSTART_DIRECTORY = "target/faststart"
+VIEW_PATH = "/repaymentSchedule/view?loanAmount=100000&debitInterestInPercentage=2.12&initialRepaymentInPercentage=2&durationInYears=10"
+HEALTH_PATH = "/actuator/health"
+STARTED_PATTERN = re.compile(r"Started RepaymentScheduleApplication in ([0-9.]+) seconds")
+
+
+def find_jar():
+    jars = [jar for jar in glob.glob("target/repayment-schedule-*.jar") if not jar.endswith(".original")]
+    return jars[0] if jars else None
+
+
+def commands(modes):
+    jar = find_jar()
+    archive = os.path.join(FASTSTART_DIRECTORY, "app.jsa")
+    classpath_file = os.path.join(FASTSTART_DIRECTORY, "classpath.txt")
+    available = {}
+    if jar:
+        available["jar"] = ["java", "-jar", jar]
+        available["faststart"] = ["java", "-jar", jar, "--spring.profiles.active=faststart"]
+    if os.path.exists(archive) and os.path.exists(classpath_file):
+        with open(classpath_file) as f:
+            classpath = f.read().strip()
+        available["faststart-cds"] = ["java", "-XX:SharedArchiveFile=" + archive, "-Xlog:cds=error", "-cp", classpath, MAIN_CLASS,
+                                      "--spring.profiles.active=faststart"]
+    for mode in modes:
+        if mode not in available:
+            print("skipping %s, package the application or build the archive first" % mode, file=sys.stderr)
+    return [(mode, available[mode]) for mode in modes if mode in available]
+
+
+def free_port():
+    with socket.socket() as s:
+        s.bind(("localhost", 0))
+        return s.getsockname()[1]
+
+
+def is_ok(url):
+    try:
+        with urllib.request.urlopen(url, timeout=5) as response:
+            response.read()
+            return response.status == 200
+    except (urllib.error.URLError, ConnectionError, socket.timeout):
+        return False
+
+
+def run(command, timeout):
+    port = free_port()
+    base_url = "http://localhost:%d" % port
+    with tempfile.TemporaryDirectory() as jobs_directory, tempfile.TemporaryFile("w+") as log:
+        arguments = command + ["--server.port=%d" % port, "--spring.datasource.url=jdbc:h2:mem:startup",
+                               "--repaymentschedule.jobs.directory=" + jobs_directory]
+        start = time.monotonic()
+        process = subprocess.Popen(arguments, stdout=log, stderr=subprocess.STDOUT)
+        try:
+            response = ready = None
+            while response is None or ready is None:
+                if process.poll() is not None:
+                    raise RuntimeError("application exited with %d" % process.returncode)
+                if time.monotonic() - start > timeout:
+                    raise RuntimeError("application not ready after %d seconds" % timeout)
+                if response is None and is_ok(base_url + VIEW_PATH):
+                    response = time.monotonic() - start
+                if ready is None and is_ok(base_url + HEALTH_PATH):
+                    ready = time.monotonic() - start
+                if response is None or ready is None:
+                    time.sleep(0.01)
+        finally:
+            process.terminate()
+            process.wait()
+        log.seek(0)
+        started = STARTED_PATTERN.search(log.read())
+    return {"started": float(started.group(1)) if started else None, "response": response, "ready": ready}
+
+
+def summarize(values):
+    values = [value for value in values if value is not None]
+    if not values:
+        return None
+    return {"min": min(values), "median": statistics.median(values), "max": max(values)}
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__, formatter_class=argparse.RawDescriptionHelpFormatter)
+    parser.add_argument("--runs", type=int, default=5, help="runs per mode (default: %(default)s)")
+    parser.add_argument("--modes", default="jar,faststart,faststart-cds", help="comma separated modes (default: %(default)s)")
+    parser.add_argument("--timeout", type=int, default=120, help="maximum seconds of one run (default: %(default)s)")
+    parser.add_argument("--output", default="target/startup-result.json", help="json result file (default: %(default)s)")
+    args = parser.parse_args()
+
+    os.chdir(os.path.join(os.path.dirname(os.path.abspath(__file__)), ".."))
+    result = {}
+    for mode, command in commands(args.modes.split(",")):
+        runs = [run(command, args.timeout) for _ in range(args.runs)]
+        result[mode] = {"runs": len(runs)}
+        for metric in ("started", "response", "ready"):
+            result[mode][metric] = summarize([r[metric] for r in runs])
+    if not result:
+        print("nothing to measure", file=sys.stderr)
+        return 1
+
+    print("%-14s %-9s %8s %8s %8s" % ("mode", "seconds", "min", "median", "max"))
+    for mode, summary in result.items():
+        for metric in ("started", "response", "ready"):
+            if summary[metric]:
+                print("%-14s %-9s %8.3f %8.3f %8.3f" % (mode, metric, summary[metric]["min"], summary[metric]["median"], summary[metric]["max"]))
+    os.makedirs(os.path.dirname(args.output), exist_ok=True)
+    with open(args.output, "w") as f:
+        json.dump(result, f, indent=2)
+        f.write("\n")
+    print("result written to %s" % args.output)
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
@@ -0,0 +1,57 @@
+package de.hypoport.repaymentschedule;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the summaries of a portfolio of loans with different durations, amortized one by one (1 lane) and side by side.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AmortizationKernelBenchmark {
+
+    private final static int LOANS = 10000;
+
+    @Param({"1", "16", "256"})
+    private int lanes;
+
+    private AmortizationKernel kernel;
+    private long[] loanAmounts;
+    private double[] debitInterests;
+    private double[] initialRepayments;
+    private int[] durations;
+    private long[] summaries;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(17);
+        kernel = new AmortizationKernel(lanes);
+        loanAmounts = new long[LOANS];
+        debitInterests = new double[LOANS];
+        initialRepayments = new double[LOANS];
+        durations = new int[LOANS];
+        summaries = new long[LOANS * 3];
+        for (int index = 0; index < LOANS; index++) {
+            loanAmounts[index] = 5_000_000 + (long) (random.nextDouble() * 50_000_000);
+            debitInterests[index] = 0.5 + random.nextInt(400) / 100.0;
+            initialRepayments[index] = 1 + random.nextInt(300) / 100.0;
+            durations[index] = (5 + random.nextInt(26)) * 12;
+        }
+    }
+
+    @Benchmark
+    public long[] computeSummaries() {
+        kernel.computeSummaries(LOANS, loanAmounts, debitInterests, initialRepayments, durations, summaries);
+        return summaries;
+    }
+}
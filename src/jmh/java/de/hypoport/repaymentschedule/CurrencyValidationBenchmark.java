@@ -0,0 +1,28 @@
+package de.hypoport.repaymentschedule;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the currency check of the loan amount.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CurrencyValidationBenchmark {
+
+    @Param({"100000.0", "99999.5", "1234.567"})
+    private double loanAmount;
+
+    @Benchmark
+    public boolean isInvalidCurrencyValue() {
+        return RepaymentScheduleController.isInvalidCurrencyValue(loanAmount);
+    }
+}
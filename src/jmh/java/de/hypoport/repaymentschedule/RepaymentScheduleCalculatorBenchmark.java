@@ -0,0 +1,84 @@
+package de.hypoport.repaymentschedule;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Clock;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the calculation of repayment schedules for different durations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RepaymentScheduleCalculatorBenchmark {
+
+    @Param({"1", "10", "30", "60"})
+    private int durationInYears;
+
+    private RepaymentInformation repaymentInformation;
+    private RepaymentInformation lateEvent;
+    private RepaymentInformation changedLateEvent;
+    private RepaymentSchedule lateEventSchedule;
+
+    @Setup
+    public void setUp() {
+        repaymentInformation = new RepaymentInformation();
+        repaymentInformation.setLoanAmount(100000.0);
+        repaymentInformation.setDebitInterestInPercentage(2.12);
+        repaymentInformation.setInitialRepaymentInPercentage(2.0);
+        repaymentInformation.setDurationInYears(durationInYears);
+        lateEvent = withEvent(durationInYears * 12 - 6, 5000.0);
+        changedLateEvent = withEvent(durationInYears * 12 - 6, 7500.0);
+        lateEventSchedule = RepaymentScheduleCalculator.computeRepaymentSchedule(lateEvent);
+    }
+
+    private RepaymentInformation withEvent(final int month, final double specialRepayment) {
+        RepaymentInformation information = new RepaymentInformation();
+        information.setLoanAmount(repaymentInformation.getLoanAmount());
+        information.setDebitInterestInPercentage(repaymentInformation.getDebitInterestInPercentage());
+        information.setInitialRepaymentInPercentage(repaymentInformation.getInitialRepaymentInPercentage());
+        information.setDurationInYears(durationInYears);
+        information.setEvents(Collections.singletonList(new RepaymentEvent(month, specialRepayment, null)));
+        return information;
+    }
+
+    @Benchmark
+    public RepaymentSchedule computeRepaymentSchedule() {
+        return RepaymentScheduleCalculator.computeRepaymentSchedule(repaymentInformation);
+    }
+
+    @Benchmark
+    public RepaymentSchedule computeFixedPointRepaymentSchedule() {
+        return FixedPointRepaymentCalculator.DEFAULT.computeRepaymentSchedule(repaymentInformation, Clock.systemDefaultZone());
+    }
+
+    @Benchmark
+    public RepaymentSummary computeSummary() {
+        return RepaymentScheduleCalculator.computeSummary(repaymentInformation);
+    }
+
+    @Benchmark
+    public void computeRepaymentScheduleToSink(final Blackhole blackhole) {
+        RepaymentScheduleCalculator.computeRepaymentSchedule(repaymentInformation, (epochMonth, annuityRate, interests, repayment, remainingLoan) -> blackhole.consume(remainingLoan));
+    }
+
+    @Benchmark
+    public RepaymentSchedule computeChangedLateEvent() {
+        return RepaymentScheduleCalculator.computeRepaymentSchedule(changedLateEvent);
+    }
+
+    @Benchmark
+    public RepaymentSchedule recomputeChangedLateEvent() {
+        return RepaymentScheduleCalculator.recomputeRepaymentSchedule(lateEventSchedule, lateEvent, changedLateEvent);
+    }
+}
@@ -0,0 +1,48 @@
+package de.hypoport.repaymentschedule;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading all rates of a calculated repayment schedule like the template does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RepaymentScheduleModelBenchmark {
+
+    @Param({"10", "60"})
+    private int durationInYears;
+
+    private RepaymentSchedule repaymentSchedule;
+
+    @Setup
+    public void setUp() {
+        RepaymentInformation repaymentInformation = new RepaymentInformation();
+        repaymentInformation.setLoanAmount(100000.0);
+        repaymentInformation.setDebitInterestInPercentage(2.12);
+        repaymentInformation.setInitialRepaymentInPercentage(2.0);
+        repaymentInformation.setDurationInYears(durationInYears);
+        repaymentSchedule = RepaymentScheduleCalculator.computeRepaymentSchedule(repaymentInformation);
+    }
+
+    @Benchmark
+    public void getAllMonthlyEntries(final Blackhole blackhole) {
+        for (MonthlyEntry monthlyEntry : repaymentSchedule.getAllMonthlyEntries()) {
+            blackhole.consume(monthlyEntry.getDate());
+            blackhole.consume(monthlyEntry.getRemainingLoanInCent());
+            blackhole.consume(monthlyEntry.getInterestsInCent());
+            blackhole.consume(monthlyEntry.getRepaymentInCent());
+            blackhole.consume(monthlyEntry.getAnnuityRateInCent());
+        }
+    }
+}
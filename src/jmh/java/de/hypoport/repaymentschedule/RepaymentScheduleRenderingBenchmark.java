@@ -0,0 +1,77 @@
+package de.hypoport.repaymentschedule;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.context.IExpressionContext;
+import org.thymeleaf.linkbuilder.StandardLinkBuilder;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rendering the page showRepaymentSchedule.html including the calculation, like a post request does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RepaymentScheduleRenderingBenchmark {
+
+    private final static int PAGE_SIZE = 60;
+
+    @Param({"10", "60"})
+    private int durationInYears;
+
+    private SpringTemplateEngine templateEngine;
+    private RepaymentInformation repaymentInformation;
+
+    @Setup
+    public void setUp() {
+        ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+        templateResolver.setPrefix("templates/");
+        templateResolver.setTemplateMode(TemplateMode.HTML);
+        templateResolver.setCharacterEncoding("UTF-8");
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        templateEngine.setLinkBuilder(new RootContextLinkBuilder());
+        repaymentInformation = new RepaymentInformation();
+        repaymentInformation.setLoanAmount(100000.0);
+        repaymentInformation.setDebitInterestInPercentage(2.12);
+        repaymentInformation.setInitialRepaymentInPercentage(2.0);
+        repaymentInformation.setDurationInYears(durationInYears);
+    }
+
+    @Benchmark
+    public String renderShowRepaymentSchedule() {
+        Context context = new Context();
+        context.setVariable("repaymentinformation", repaymentInformation);
+        RepaymentSchedule repaymentSchedule = RepaymentScheduleCalculator.computeRepaymentSchedule(repaymentInformation);
+        context.setVariable("repaymentSchedule", repaymentSchedule);
+        context.setVariable("repaymentPage", SchedulePage.of(repaymentSchedule, 0, PAGE_SIZE));
+        context.setVariable("scheduleQuery", RepaymentScheduleController.toQuery(repaymentInformation));
+        StringWriter writer = new StringWriter();
+        templateEngine.process("showRepaymentSchedule.html", context, writer);
+        return writer.toString();
+    }
+
+    /**
+     * Builds context-relative links like /repaymentSchedule/view for the root context, a plain context has no servlet request.
+     */
+    private final static class RootContextLinkBuilder extends StandardLinkBuilder {
+
+        @Override
+        protected String computeContextPath(final IExpressionContext context, final String base, final Map<String, Object> parameters) {
+            return "";
+        }
+    }
+}
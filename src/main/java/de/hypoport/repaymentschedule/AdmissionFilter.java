@@ -0,0 +1,220 @@
+package de.hypoport.repaymentschedule;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of calculation requests handled at the same time. A request gets a permit before its handling starts and returns it when the response is complete,
+ * for asynchronous responses after the streaming has finished. Requests without permit wait in order of arrival, up to a maximum number of waiting requests
+ * and up to a deadline. A request beyond the maximum or past its deadline is rejected with 503 and a Retry-After header before any work for it has started,
+ * so bursts of long repayment schedules cannot occupy all request threads and the latency of the admitted requests stays bounded.
+ * <p>
+ * Handled and waiting requests both occupy a request thread of Tomcat. Their sum is kept below server.tomcat.max-threads, so a thread is left to reject further requests.
+ */
+@Component
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(AdmissionFilter.class);
+    private final static String REJECTION_CONTENT_TYPE = "text/plain;charset=UTF-8";
+    private final static String REJECTION_MESSAGE = "too many repayment schedule calculations, retry later";
+
+    private final boolean enabled;
+    private final int maxInFlight;
+    private final int maxQueued;
+    private final long queueTimeoutMillis;
+    private final int retryAfterSeconds;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    /**
+     * Creates the filter for the request threads of given server properties.
+     *
+     * @param enabled            false admits all requests
+     * @param maxInFlight        maximum number of requests handled at the same time, 0 uses twice the number of available processors, at most half of the request threads
+     * @param maxQueued          maximum number of requests waiting for a permit, 0 rejects immediately if all permits are taken, reduced if the request threads are too few
+     * @param queueTimeoutMillis maximum time a request waits for a permit in milliseconds
+     * @param retryAfterSeconds  value of the Retry-After header of rejected requests
+     * @param serverProperties   server properties with the number of request threads
+     * @throws IllegalArgumentException if maxInFlight leaves no request thread to reject requests
+     */
+    @Autowired
+    public AdmissionFilter(@Value("${repaymentschedule.admission.enabled:true}") final boolean enabled,
+                           @Value("${repaymentschedule.admission.max-in-flight:0}") final int maxInFlight,
+                           @Value("${repaymentschedule.admission.max-queued:100}") final int maxQueued,
+                           @Value("${repaymentschedule.admission.queue-timeout-millis:2000}") final long queueTimeoutMillis,
+                           @Value("${repaymentschedule.admission.retry-after-seconds:1}") final int retryAfterSeconds,
+                           final ServerProperties serverProperties) {
+        this(enabled, maxInFlight, maxQueued, queueTimeoutMillis, retryAfterSeconds, serverProperties.getTomcat().getMaxThreads());
+    }
+
+    /**
+     * Creates the filter for given number of request threads.
+     *
+     * @param enabled            false admits all requests
+     * @param maxInFlight        maximum number of requests handled at the same time, 0 uses twice the number of available processors, at most half of the request threads
+     * @param maxQueued          maximum number of requests waiting for a permit, 0 rejects immediately if all permits are taken, reduced if the request threads are too few
+     * @param queueTimeoutMillis maximum time a request waits for a permit in milliseconds
+     * @param retryAfterSeconds  value of the Retry-After header of rejected requests
+     * @param maxThreads         number of request threads of the server
+     * @throws IllegalArgumentException if maxInFlight leaves no request thread to reject requests
+     */
+    AdmissionFilter(final boolean enabled, final int maxInFlight, final int maxQueued, final long queueTimeoutMillis, final int retryAfterSeconds, final int maxThreads) {
+        if (enabled && maxInFlight >= maxThreads) {
+            throw new IllegalArgumentException("repaymentschedule.admission.max-in-flight (" + maxInFlight + ") has to be less than server.tomcat.max-threads ("
+                    + maxThreads + ")");
+        }
+        this.enabled = enabled;
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : Math.max(1, Math.min(2 * Runtime.getRuntime().availableProcessors(), maxThreads / 2));
+        this.maxQueued = Math.max(0, Math.min(maxQueued, maxThreads - 1 - this.maxInFlight));
+        if (enabled && this.maxQueued < maxQueued) {
+            LOGGER.warn("repaymentschedule.admission.max-queued reduced from {} to {}, together with {} requests in flight it has to stay below server.tomcat.max-threads ({})",
+                    maxQueued, this.maxQueued, this.maxInFlight, maxThreads);
+        }
+        this.queueTimeoutMillis = queueTimeoutMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.permits = new Semaphore(this.maxInFlight, true);
+    }
+
+    /**
+     * Returns the maximum number of requests handled at the same time.
+     *
+     * @return number of permits
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Returns the maximum number of requests waiting for a permit.
+     *
+     * @return maximum number of waiting requests
+     */
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    /**
+     * Returns the number of requests currently handled.
+     *
+     * @return number of taken permits
+     */
+    public int getInFlightCount() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    /**
+     * Returns the number of requests currently waiting for a permit.
+     *
+     * @return number of waiting requests
+     */
+    public int getWaitingCount() {
+        return waiting.get();
+    }
+
+    /**
+     * Returns the number of rejected requests since start.
+     *
+     * @return number of rejected requests
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(final HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response, final FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!acquire()) {
+            reject(response);
+            return;
+        }
+        boolean released = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener());
+                released = true;
+            }
+        } finally {
+            if (!released) {
+                permits.release();
+            }
+        }
+    }
+
+    private boolean acquire() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        if (waiting.incrementAndGet() > maxQueued) {
+            waiting.decrementAndGet();
+            return false;
+        }
+        try {
+            return permits.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    /**
+     * Writes the rejection directly instead of with sendError, which would render the error page of Spring Boot and cost the saturated server more than an admitted request.
+     */
+    private void reject(final HttpServletResponse response) throws IOException {
+        rejectedCount.incrementAndGet();
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(REJECTION_CONTENT_TYPE);
+        response.getWriter().write(REJECTION_MESSAGE);
+    }
+
+    /**
+     * Returns the permit of an asynchronous request. The container calls onComplete after timeouts and errors as well, so the permit is returned exactly once.
+     */
+    private class ReleasingListener implements AsyncListener {
+
+        @Override
+        public void onComplete(final AsyncEvent event) {
+            permits.release();
+        }
+
+        @Override
+        public void onTimeout(final AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(final AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(final AsyncEvent event) {
+        }
+    }
+}
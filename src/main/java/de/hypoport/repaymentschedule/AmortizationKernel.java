@@ -0,0 +1,207 @@
+package de.hypoport.repaymentschedule;
+
+/**
+ * Amortizes many loans side by side. The month loop of a single loan cannot run in parallel, because every rate depends on the remaining loan of the rate before.
+ * Different loans are independent though, so the kernel takes the loans as structure of arrays and advances a block of loans one month at a time: the inner loop over the lanes
+ * of a block has no dependency between its iterations, so the processor overlaps the multiplications and roundings of different loans. The loop calls Math.round(double)
+ * for every lane and is not written for vectorization, the gain comes from the overlapped latencies. The loans are ordered by duration before they are split into blocks, so the loans of a block end at about the same time.
+ * Loans with a shorter duration stay in the block and are masked without branches once their last rate is reached.
+ * Too few loans for a block are amortized one by one. All values are equal to {@link RepaymentScheduleCalculator} bit by bit.
+ * <p>
+ * A kernel keeps the state of one block and must only be used by one thread at a time.
+ */
+public final class AmortizationKernel {
+
+    /**
+     * Default number of loans per block. The state of a block fits into the first level cache.
+     */
+    public final static int DEFAULT_LANES = 256;
+
+    private final static int MIN_LANES = 4;
+
+    private final int lanes;
+    private final long[] loanAmounts;
+    private final long[] remainingLoans;
+    private final long[] annuities;
+    private final double[] interestMonths;
+    private final int[] durations;
+    private final long[] accumulatedInterests;
+
+    /**
+     * Creates a kernel.
+     *
+     * @param lanes maximum number of loans amortized side by side, 1 amortizes each loan on its own
+     */
+    public AmortizationKernel(final int lanes) {
+        if (lanes < 1) {
+            throw new IllegalArgumentException("at least one lane is required");
+        }
+        this.lanes = lanes;
+        loanAmounts = new long[lanes];
+        remainingLoans = new long[lanes];
+        annuities = new long[lanes];
+        interestMonths = new double[lanes];
+        durations = new int[lanes];
+        accumulatedInterests = new long[lanes];
+    }
+
+    /**
+     * Calculates the summaries of given loans. For each loan the monthly annuity, the accumulated interests and the remaining loan are stored in given array,
+     * with the same values as {@link RepaymentScheduleCalculator#computeSummary(RepaymentInformation)}.
+     *
+     * @param count              number of loans
+     * @param loanAmountsInCent  loan amounts in cent
+     * @param debitInterests     debit interests in percentage
+     * @param initialRepayments  initial repayments in percentage
+     * @param durationsInMonths  durations in months
+     * @param target             receives three values for each loan, the remaining loan is negative like in the summary
+     */
+    public void computeSummaries(final int count, final long[] loanAmountsInCent, final double[] debitInterests, final double[] initialRepayments,
+                                 final int[] durationsInMonths, final long[] target) {
+        amortize(count, loanAmountsInCent, debitInterests, initialRepayments, durationsInMonths, target, null);
+    }
+
+    /**
+     * Adds the monthly cash flow of given loans to given sums. Month 0 receives the loan amount as remaining loan, months 1 to the duration the interests, repayments and
+     * remaining loans of the regular rates, and the month after the duration the due remaining loan, like {@link PortfolioCashFlow}.
+     *
+     * @param count             number of loans
+     * @param loanAmountsInCent loan amounts in cent
+     * @param debitInterests    debit interests in percentage
+     * @param initialRepayments initial repayments in percentage
+     * @param durationsInMonths durations in months
+     * @param cashFlow          interests, repayments, remaining loans and due remaining loans per month, each array must be longer than the longest duration + 1
+     */
+    public void addCashFlow(final int count, final long[] loanAmountsInCent, final double[] debitInterests, final double[] initialRepayments,
+                            final int[] durationsInMonths, final long[][] cashFlow) {
+        amortize(count, loanAmountsInCent, debitInterests, initialRepayments, durationsInMonths, null, cashFlow);
+    }
+
+    private void amortize(final int count, final long[] loanAmountsInCent, final double[] debitInterests, final double[] initialRepayments, final int[] durationsInMonths,
+                          final long[] summaries, final long[][] cashFlow) {
+        int minBlockSize = Math.min(lanes, MIN_LANES);
+        int[] order = lanes > 1 && count >= minBlockSize ? orderByDuration(count, durationsInMonths) : null;
+        int offset = 0;
+        while (lanes > 1 && count - offset >= minBlockSize) {
+            int blockSize = Math.min(lanes, count - offset);
+            load(order, offset, blockSize, loanAmountsInCent, debitInterests, initialRepayments, durationsInMonths);
+            amortizeBlock(blockSize, cashFlow);
+            store(order, offset, blockSize, summaries, cashFlow);
+            offset += blockSize;
+        }
+        for (; offset < count; offset++) {
+            int index = order == null ? offset : order[offset];
+            amortizeScalar(index, loanAmountsInCent[index], debitInterests[index], initialRepayments[index], durationsInMonths[index], summaries, cashFlow);
+        }
+    }
+
+    /**
+     * Orders the loans by duration with a counting sort, the durations are only a few hundred months.
+     */
+    private static int[] orderByDuration(final int count, final int[] durationsInMonths) {
+        int maxDuration = 0;
+        for (int index = 0; index < count; index++) {
+            maxDuration = Math.max(maxDuration, durationsInMonths[index]);
+        }
+        int[] starts = new int[maxDuration + 2];
+        for (int index = 0; index < count; index++) {
+            starts[durationsInMonths[index] + 1]++;
+        }
+        for (int duration = 1; duration < starts.length; duration++) {
+            starts[duration] += starts[duration - 1];
+        }
+        int[] order = new int[count];
+        for (int index = 0; index < count; index++) {
+            order[starts[durationsInMonths[index]]++] = index;
+        }
+        return order;
+    }
+
+    private void load(final int[] order, final int offset, final int blockSize, final long[] loanAmountsInCent, final double[] debitInterests,
+                      final double[] initialRepayments, final int[] durationsInMonths) {
+        for (int lane = 0; lane < blockSize; lane++) {
+            int index = order[offset + lane];
+            long loanAmount = loanAmountsInCent[index];
+            loanAmounts[lane] = loanAmount;
+            remainingLoans[lane] = loanAmount;
+            annuities[lane] = RepaymentScheduleCalculator.computeAnnuityMonth(loanAmount, debitInterests[index], initialRepayments[index]);
+            interestMonths[lane] = RepaymentScheduleCalculator.monthlyInterestRate(debitInterests[index]);
+            durations[lane] = durationsInMonths[index];
+            accumulatedInterests[lane] = 0;
+        }
+    }
+
+    /**
+     * Advances all lanes of the block month by month up to the longest duration. The mask is -1 while a lane has rates left and 0 afterwards, so finished lanes keep their values.
+     */
+    private void amortizeBlock(final int blockSize, final long[][] cashFlow) {
+        int months = 0;
+        for (int lane = 0; lane < blockSize; lane++) {
+            months = Math.max(months, durations[lane]);
+        }
+        for (int month = 1; month <= months; month++) {
+            long interestSum = 0;
+            long repaymentSum = 0;
+            long remainingLoanSum = 0;
+            for (int lane = 0; lane < blockSize; lane++) {
+                long active = (month - 1 - durations[lane]) >> 31;
+                long interestPortion = RepaymentScheduleCalculator.roundInterest(remainingLoans[lane], interestMonths[lane]) & active;
+                long repayment = (annuities[lane] & active) - interestPortion;
+                long remainingLoan = remainingLoans[lane] - repayment;
+                remainingLoans[lane] = remainingLoan;
+                accumulatedInterests[lane] += interestPortion;
+                interestSum += interestPortion;
+                repaymentSum += repayment;
+                remainingLoanSum += remainingLoan & active;
+            }
+            if (cashFlow != null) {
+                cashFlow[0][month] += interestSum;
+                cashFlow[1][month] += repaymentSum;
+                cashFlow[2][month] += remainingLoanSum;
+            }
+        }
+    }
+
+    private void store(final int[] order, final int offset, final int blockSize, final long[] summaries, final long[][] cashFlow) {
+        for (int lane = 0; lane < blockSize; lane++) {
+            if (summaries != null) {
+                int index = order[offset + lane] * 3;
+                summaries[index] = annuities[lane];
+                summaries[index + 1] = accumulatedInterests[lane];
+                summaries[index + 2] = -remainingLoans[lane];
+            }
+            if (cashFlow != null) {
+                cashFlow[2][0] += loanAmounts[lane];
+                cashFlow[3][durations[lane] + 1] += remainingLoans[lane];
+            }
+        }
+    }
+
+    private static void amortizeScalar(final int index, final long loanAmountInCent, final double debitInterest, final double initialRepayment, final int months,
+                                       final long[] summaries, final long[][] cashFlow) {
+        long annuityMonth = RepaymentScheduleCalculator.computeAnnuityMonth(loanAmountInCent, debitInterest, initialRepayment);
+        double interestMonth = RepaymentScheduleCalculator.monthlyInterestRate(debitInterest);
+        long remainingLoan = loanAmountInCent;
+        long accumulatedInterest = 0;
+        for (int month = 1; month <= months; month++) {
+            long interestPortion = RepaymentScheduleCalculator.roundInterest(remainingLoan, interestMonth);
+            long repayment = annuityMonth - interestPortion;
+            remainingLoan -= repayment;
+            accumulatedInterest += interestPortion;
+            if (cashFlow != null) {
+                cashFlow[0][month] += interestPortion;
+                cashFlow[1][month] += repayment;
+                cashFlow[2][month] += remainingLoan;
+            }
+        }
+        if (summaries != null) {
+            summaries[index * 3] = annuityMonth;
+            summaries[index * 3 + 1] = accumulatedInterest;
+            summaries[index * 3 + 2] = -remainingLoan;
+        }
+        if (cashFlow != null) {
+            cashFlow[2][0] += loanAmountInCent;
+            cashFlow[3][months + 1] += remainingLoan;
+        }
+    }
+}
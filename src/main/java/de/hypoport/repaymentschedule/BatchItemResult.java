@@ -0,0 +1,89 @@
+package de.hypoport.repaymentschedule;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Represents the result for one {@link RepaymentInformation} of a batch request. It contains either validation errors or the calculated schedule respectively its summary.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+
+    private int index;
+    private List<String> errors;
+    private RepaymentSchedule repaymentSchedule;
+    private RepaymentSummary summary;
+
+    /**
+     * Returns the index of the repayment information in the batch request.
+     *
+     * @return index in the request
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Sets the index of the repayment information in the batch request.
+     *
+     * @param index index in the request
+     */
+    public void setIndex(final int index) {
+        this.index = index;
+    }
+
+    /**
+     * Returns the validation errors or null if the repayment information is valid.
+     *
+     * @return validation errors
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Sets the validation errors.
+     *
+     * @param errors validation errors
+     */
+    public void setErrors(final List<String> errors) {
+        this.errors = errors;
+    }
+
+    /**
+     * Returns the calculated repayment schedule or null if only the summary was requested.
+     *
+     * @return calculated repayment schedule
+     */
+    public RepaymentSchedule getRepaymentSchedule() {
+        return repaymentSchedule;
+    }
+
+    /**
+     * Sets the calculated repayment schedule.
+     *
+     * @param repaymentSchedule calculated repayment schedule
+     */
+    public void setRepaymentSchedule(final RepaymentSchedule repaymentSchedule) {
+        this.repaymentSchedule = repaymentSchedule;
+    }
+
+    /**
+     * Returns the summary of the calculated repayment schedule.
+     *
+     * @return summary of the repayment schedule
+     */
+    public RepaymentSummary getSummary() {
+        return summary;
+    }
+
+    /**
+     * Sets the summary of the calculated repayment schedule.
+     *
+     * @param summary summary of the repayment schedule
+     */
+    public void setSummary(final RepaymentSummary summary) {
+        this.summary = summary;
+    }
+}
@@ -0,0 +1,40 @@
+package de.hypoport.repaymentschedule;
+
+/**
+ * Formats amounts in cent as euro with two decimals, e.g. -99833.34. The formatting is done by hand to avoid the cost of number formats and expression evaluation.
+ */
+public final class CentFormatter {
+
+    private CentFormatter() {
+    }
+
+    /**
+     * Formats given amount in cent as euro.
+     *
+     * @param cents amount in cent
+     * @return formatted amount in euro
+     */
+    public static String format(final long cents) {
+        return append(new StringBuilder(24), cents).toString();
+    }
+
+    /**
+     * Appends given amount in cent formatted as euro.
+     *
+     * @param builder target of the formatted amount
+     * @param cents   amount in cent
+     * @return given builder
+     */
+    public static StringBuilder append(final StringBuilder builder, final long cents) {
+        if (cents < 0) {
+            builder.append('-');
+        }
+        long euros = Math.abs(cents / 100);
+        int fraction = (int) Math.abs(cents % 100);
+        builder.append(euros).append('.');
+        if (fraction < 10) {
+            builder.append('0');
+        }
+        return builder.append(fraction);
+    }
+}
@@ -0,0 +1,69 @@
+package de.hypoport.repaymentschedule;
+
+/**
+ * Collects the rates passed to a {@link ScheduleSink} in the columns of a {@link RepaymentSchedule}. The checkpoints of the schedule are recorded on the way,
+ * see {@link RepaymentSchedule#getCheckpoint(int)}.
+ */
+class ColumnSink implements ScheduleSink {
+
+    private final int[] epochMonths;
+    private final long[] remainingLoans;
+    private final long[] interests;
+    private final long[] repayments;
+    private final long[] annuityRates;
+    private final long[] checkpoints;
+    private int index;
+    private long accumulatedAnnuity;
+    private long accumulatedInterests;
+    private long accumulatedRepayment;
+
+    /**
+     * Creates the columns.
+     *
+     * @param size number of rates which will be passed
+     */
+    ColumnSink(final int size) {
+        epochMonths = new int[size];
+        remainingLoans = new long[size];
+        interests = new long[size];
+        repayments = new long[size];
+        annuityRates = new long[size];
+        checkpoints = new long[RepaymentSchedule.checkpointCount(size) * 3];
+    }
+
+    @Override
+    public void accept(final int epochMonth, final long annuityRateInCent, final long interestsInCent, final long repaymentInCent, final long remainingLoanInCent) {
+        epochMonths[index] = epochMonth;
+        annuityRates[index] = annuityRateInCent;
+        interests[index] = interestsInCent;
+        repayments[index] = repaymentInCent;
+        remainingLoans[index] = remainingLoanInCent;
+        if (index > 0 && index < epochMonths.length - 1) { // only regular rates
+            accumulatedAnnuity += annuityRateInCent;
+            accumulatedInterests += interestsInCent;
+            accumulatedRepayment += repaymentInCent;
+            if (index % RepaymentSchedule.CHECKPOINT_MONTHS == 0) {
+                int offset = index / RepaymentSchedule.CHECKPOINT_MONTHS * 3;
+                checkpoints[offset] = accumulatedAnnuity;
+                checkpoints[offset + 1] = accumulatedInterests;
+                checkpoints[offset + 2] = accumulatedRepayment;
+            }
+        }
+        index++;
+    }
+
+    /**
+     * Creates the repayment schedule of the collected rates. The columns are taken over, so the sink must not be used afterwards.
+     *
+     * @param duration duration in years
+     * @return repayment schedule
+     */
+    RepaymentSchedule toSchedule(final int duration) {
+        if (index != epochMonths.length) {
+            throw new IllegalStateException("expected " + epochMonths.length + " rates but got " + index);
+        }
+        RepaymentSchedule schedule = new RepaymentSchedule(duration, epochMonths, remainingLoans, interests, repayments, annuityRates);
+        schedule.setCheckpoints(checkpoints);
+        return schedule;
+    }
+}
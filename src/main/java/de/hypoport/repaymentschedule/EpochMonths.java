@@ -0,0 +1,83 @@
+package de.hypoport.repaymentschedule;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZonedDateTime;
+
+/**
+ * Converts between {@link YearMonth} and epoch months. An epoch month is the number of months since January 1970, so consecutive months are consecutive integers.
+ * The last days of the months from 1970 to 2199 are precomputed and shared, so looking them up creates no objects.
+ */
+public final class EpochMonths {
+
+    private final static int EPOCH_YEAR = 1970;
+    private final static int MONTHS_PER_YEAR = 12;
+    private final static int TABLE_YEARS = 230;
+    private final static LocalDate[] MONTH_ENDS = new LocalDate[TABLE_YEARS * MONTHS_PER_YEAR];
+
+    static {
+        for (int epochMonth = 0; epochMonth < MONTH_ENDS.length; epochMonth++) {
+            MONTH_ENDS[epochMonth] = toYearMonth(epochMonth).atEndOfMonth();
+        }
+    }
+
+    private EpochMonths() {
+    }
+
+    /**
+     * Returns the epoch month of given year and month.
+     *
+     * @param yearMonth year and month
+     * @return months since January 1970
+     */
+    public static int toEpochMonth(final YearMonth yearMonth) {
+        return (yearMonth.getYear() - EPOCH_YEAR) * MONTHS_PER_YEAR + yearMonth.getMonthValue() - 1;
+    }
+
+    /**
+     * Returns the current epoch month of given clock.
+     *
+     * @param clock clock with the time zone which decides the current month
+     * @return months since January 1970
+     */
+    public static int currentEpochMonth(final Clock clock) {
+        return toEpochMonth(YearMonth.now(clock));
+    }
+
+    /**
+     * Returns the number of seconds until the next month of given clock starts, when schedules get new dates.
+     *
+     * @param clock clock with the time zone which decides the current month
+     * @return whole seconds until the start of the next month
+     */
+    public static long secondsUntilNextMonth(final Clock clock) {
+        ZonedDateTime now = ZonedDateTime.now(clock);
+        ZonedDateTime nextMonth = YearMonth.from(now).plusMonths(1).atDay(1).atStartOfDay(clock.getZone());
+        return Duration.between(now, nextMonth).getSeconds();
+    }
+
+    /**
+     * Returns the year and month of given epoch month.
+     *
+     * @param epochMonth months since January 1970
+     * @return year and month
+     */
+    public static YearMonth toYearMonth(final int epochMonth) {
+        return YearMonth.of(EPOCH_YEAR + Math.floorDiv(epochMonth, MONTHS_PER_YEAR), Math.floorMod(epochMonth, MONTHS_PER_YEAR) + 1);
+    }
+
+    /**
+     * Returns the last day of given epoch month. Months from 1970 to 2199 are taken from the shared table.
+     *
+     * @param epochMonth months since January 1970
+     * @return last day of the month
+     */
+    public static LocalDate atEndOfMonth(final int epochMonth) {
+        if (epochMonth >= 0 && epochMonth < MONTH_ENDS.length) {
+            return MONTH_ENDS[epochMonth];
+        }
+        return toYearMonth(epochMonth).atEndOfMonth();
+    }
+}
@@ -0,0 +1,251 @@
+package de.hypoport.repaymentschedule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Normalized, immutable form of the {@link RepaymentEvent} list of a {@link RepaymentInformation}, used by the calculation and by {@link ScheduleCacheKey}.
+ * The events are ordered by month and merged to at most one event per month: special repayments of the same month are added, of several debit interests in the
+ * same month the last one in list order is used. Months without a new debit interests store NaN.
+ */
+final class EventTimeline {
+
+    /**
+     * Timeline without events.
+     */
+    static final EventTimeline NONE = new EventTimeline(new int[0], new long[0], new double[0]);
+
+    private final int[] months;
+    private final long[] specialRepaymentsInCent;
+    private final double[] debitInterests;
+
+    private EventTimeline(final int[] months, final long[] specialRepaymentsInCent, final double[] debitInterests) {
+        this.months = months;
+        this.specialRepaymentsInCent = specialRepaymentsInCent;
+        this.debitInterests = debitInterests;
+    }
+
+    /**
+     * Creates the timeline of the events of given valid repayment information.
+     *
+     * @param repaymentInformation valid repayment information
+     * @return timeline, {@link #NONE} if there are no events
+     */
+    static EventTimeline of(final RepaymentInformation repaymentInformation) {
+        return of(repaymentInformation, false);
+    }
+
+    /**
+     * Creates the timeline of the events of given valid repayment information with the special repayments rounded to cent like
+     * {@link FixedPointRepaymentCalculator#toCent(double)}.
+     *
+     * @param repaymentInformation valid repayment information
+     * @return timeline, {@link #NONE} if there are no events
+     */
+    static EventTimeline ofRoundedCents(final RepaymentInformation repaymentInformation) {
+        return of(repaymentInformation, true);
+    }
+
+    private static EventTimeline of(final RepaymentInformation repaymentInformation, final boolean roundedCents) {
+        List<RepaymentEvent> events = repaymentInformation.getEvents();
+        if (events == null || events.isEmpty()) {
+            return NONE;
+        }
+        RepaymentEvent[] sorted = events.toArray(new RepaymentEvent[0]);
+        Arrays.sort(sorted, Comparator.comparing(RepaymentEvent::getMonth)); // stable, the last debit interests of a month wins
+        int[] months = new int[sorted.length];
+        long[] specialRepayments = new long[sorted.length];
+        double[] debitInterests = new double[sorted.length];
+        int size = 0;
+        for (RepaymentEvent event : sorted) {
+            if (size == 0 || months[size - 1] != event.getMonth()) {
+                months[size] = event.getMonth();
+                debitInterests[size] = Double.NaN;
+                size++;
+            }
+            if (event.getSpecialRepayment() != null) {
+                specialRepayments[size - 1] += roundedCents ? FixedPointRepaymentCalculator.toCent(event.getSpecialRepayment()) : event.getSpecialRepaymentInCent();
+            }
+            if (event.getDebitInterestInPercentage() != null) {
+                debitInterests[size - 1] = event.getDebitInterestInPercentage() + 0.0; // -0.0 and 0.0 lead to the same rates
+            }
+        }
+        return new EventTimeline(Arrays.copyOf(months, size), Arrays.copyOf(specialRepayments, size), Arrays.copyOf(debitInterests, size));
+    }
+
+    /**
+     * Returns the number of months with events.
+     *
+     * @return number of months
+     */
+    int size() {
+        return months.length;
+    }
+
+    /**
+     * Returns the month of the event at given position.
+     *
+     * @param position position of the event, ordered by month
+     * @return index of the regular rate
+     */
+    int month(final int position) {
+        return months[position];
+    }
+
+    /**
+     * Returns the sum of the special repayments of the event at given position.
+     *
+     * @param position position of the event, ordered by month
+     * @return special repayment in cent, 0 for none
+     */
+    long specialRepaymentInCent(final int position) {
+        return specialRepaymentsInCent[position];
+    }
+
+    /**
+     * Returns the new debit interests of the event at given position.
+     *
+     * @param position position of the event, ordered by month
+     * @return debit interests in percentage, NaN to keep the debit interests
+     */
+    double debitInterest(final int position) {
+        return debitInterests[position];
+    }
+
+    /**
+     * Returns the position of the first event in or after given month.
+     *
+     * @param month index of the regular rate
+     * @return position of the event, {@link #size()} if there is no such event
+     */
+    int positionFrom(final int month) {
+        int position = Arrays.binarySearch(months, month);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    /**
+     * Returns the debit interests which are used for the rate before given month.
+     *
+     * @param month                index of the regular rate
+     * @param initialDebitInterest debit interests of the repayment information
+     * @return debit interests in percentage
+     */
+    double debitInterestBefore(final int month, final double initialDebitInterest) {
+        for (int position = positionFrom(month) - 1; position >= 0; position--) {
+            if (!Double.isNaN(debitInterests[position])) {
+                return debitInterests[position];
+            }
+        }
+        return initialDebitInterest;
+    }
+
+    /**
+     * Returns the first month in which this timeline differs from given timeline. The rates before this month are the same for both timelines.
+     *
+     * @param other other timeline
+     * @return index of the regular rate, {@link Integer#MAX_VALUE} if both timelines are equal
+     */
+    int firstDifference(final EventTimeline other) {
+        int common = Math.min(size(), other.size());
+        for (int position = 0; position < common; position++) {
+            if (months[position] != other.months[position]) {
+                return Math.min(months[position], other.months[position]);
+            }
+            if (specialRepaymentsInCent[position] != other.specialRepaymentsInCent[position]
+                    || Double.compare(debitInterests[position], other.debitInterests[position]) != 0) {
+                return months[position];
+            }
+        }
+        if (size() > common) {
+            return months[common];
+        }
+        return other.size() > common ? other.months[common] : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns the events of this timeline, one per month.
+     *
+     * @return new list of events ordered by month
+     */
+    List<RepaymentEvent> toEvents() {
+        List<RepaymentEvent> events = new ArrayList<>(size());
+        for (int position = 0; position < size(); position++) {
+            events.add(new RepaymentEvent(months[position], specialRepaymentsInCent[position] == 0 ? null : specialRepaymentsInCent[position] / 100.0,
+                    Double.isNaN(debitInterests[position]) ? null : debitInterests[position]));
+        }
+        return events;
+    }
+
+    /**
+     * Parses the text created by {@link #toString()}.
+     *
+     * @param text text of a timeline, empty for {@link #NONE}
+     * @return timeline
+     * @throws IllegalArgumentException if the text is no timeline
+     */
+    static EventTimeline parse(final String text) {
+        if (text == null || text.isEmpty()) {
+            return NONE;
+        }
+        String[] parts = text.split(";");
+        int[] months = new int[parts.length];
+        long[] specialRepayments = new long[parts.length];
+        double[] debitInterests = new double[parts.length];
+        try {
+            for (int position = 0; position < parts.length; position++) {
+                String[] values = parts[position].split(":", -1);
+                if (values.length != 3) {
+                    throw new IllegalArgumentException("invalid event " + parts[position]);
+                }
+                months[position] = Integer.parseInt(values[0]);
+                specialRepayments[position] = Long.parseLong(values[1]);
+                debitInterests[position] = values[2].isEmpty() ? Double.NaN : Double.parseDouble(values[2]);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid events " + text, e);
+        }
+        return new EventTimeline(months, specialRepayments, debitInterests);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof EventTimeline)) {
+            return false;
+        }
+        EventTimeline timeline = (EventTimeline) other;
+        return Arrays.equals(months, timeline.months) && Arrays.equals(specialRepaymentsInCent, timeline.specialRepaymentsInCent)
+                && Arrays.equals(debitInterests, timeline.debitInterests);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Arrays.hashCode(months);
+        result = 31 * result + Arrays.hashCode(specialRepaymentsInCent);
+        return 31 * result + Arrays.hashCode(debitInterests);
+    }
+
+    /**
+     * Returns the events as "month:special repayment in cent:debit interests" separated by ";", the debit interests are empty if they are kept.
+     *
+     * @return text of the timeline, empty for {@link #NONE}
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (int position = 0; position < size(); position++) {
+            if (position > 0) {
+                text.append(';');
+            }
+            text.append(months[position]).append(':').append(specialRepaymentsInCent[position]).append(':');
+            if (!Double.isNaN(debitInterests[position])) {
+                text.append(debitInterests[position]);
+            }
+        }
+        return text.toString();
+    }
+}
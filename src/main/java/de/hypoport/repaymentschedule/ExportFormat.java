@@ -0,0 +1,53 @@
+package de.hypoport.repaymentschedule;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Supported formats to export repayment schedules.
+ */
+public enum ExportFormat {
+
+    /**
+     * Comma separated values with a header line.
+     */
+    CSV(new MediaType("text", "csv")),
+    /**
+     * One json object per line.
+     */
+    NDJSON(new MediaType("application", "x-ndjson")),
+    /**
+     * Schedules encoded by {@link ScheduleCodec}, one after another.
+     */
+    BINARY(MediaType.APPLICATION_OCTET_STREAM);
+
+    private final MediaType mediaType;
+
+    ExportFormat(final MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    /**
+     * Returns the media type of the exported content.
+     *
+     * @return media type
+     */
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Returns the format of given name, the case will be ignored.
+     *
+     * @param name name of the format
+     * @return export format
+     * @throws IllegalArgumentException if the format is unknown
+     */
+    public static ExportFormat of(final String name) {
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("unknown export format: " + name);
+    }
+}
@@ -0,0 +1,138 @@
+package de.hypoport.repaymentschedule;
+
+import java.math.RoundingMode;
+
+/**
+ * Exact integer arithmetic for {@link FixedPointRepaymentCalculator}. A product of two longs is kept as 128 bit value in two longs and divided without intermediate rounding,
+ * so the only rounding is the explicit one of the result. The methods work on primitives only and create no objects.
+ */
+final class FixedPointMath {
+
+    private final static long LOWER_HALF = 0xFFFFFFFFL;
+    private final static long HALF_BASE = 1L << 32;
+
+    private FixedPointMath() {
+    }
+
+    /**
+     * Returns the upper 64 bits of the 128 bit product of two signed longs, like Math.multiplyHigh of Java 9.
+     *
+     * @param x first factor
+     * @param y second factor
+     * @return upper 64 bits of x * y, the lower 64 bits are x * y
+     */
+    static long multiplyHigh(final long x, final long y) {
+        long x1 = x >> 32;
+        long x2 = x & LOWER_HALF;
+        long y1 = y >> 32;
+        long y2 = y & LOWER_HALF;
+        long z2 = x2 * y2;
+        long t = x1 * y2 + (z2 >>> 32);
+        long z1 = (t & LOWER_HALF) + x2 * y1;
+        long z0 = t >> 32;
+        return x1 * y1 + z0 + (z1 >> 32);
+    }
+
+    /**
+     * Divides the unsigned 128 bit value high * 2^64 + low by an unsigned divisor. The quotient must fit into 64 bits, so high has to be lower than the divisor.
+     * Uses the long division of Knuth with 32 bit digits (Hacker's Delight, divlu).
+     *
+     * @param high    upper 64 bits of the dividend, unsigned
+     * @param low     lower 64 bits of the dividend, unsigned
+     * @param divisor divisor, unsigned and not 0
+     * @return unsigned quotient, rounded down
+     * @throws ArithmeticException if the quotient does not fit into 64 bits
+     */
+    static long divideUnsigned(final long high, final long low, final long divisor) {
+        if (Long.compareUnsigned(high, divisor) >= 0) {
+            throw new ArithmeticException("quotient does not fit into 64 bits");
+        }
+        if (high == 0) {
+            return Long.divideUnsigned(low, divisor);
+        }
+        int shift = Long.numberOfLeadingZeros(divisor);
+        long normalizedDivisor = divisor << shift;
+        long divisorHigh = normalizedDivisor >>> 32;
+        long divisorLow = normalizedDivisor & LOWER_HALF;
+        long dividendHigh = shift == 0 ? high : (high << shift) | (low >>> (64 - shift));
+        long dividendLow = low << shift;
+        long dividendLow1 = dividendLow >>> 32;
+        long dividendLow0 = dividendLow & LOWER_HALF;
+
+        long quotient1 = Long.divideUnsigned(dividendHigh, divisorHigh);
+        long remainder = dividendHigh - quotient1 * divisorHigh;
+        while (Long.compareUnsigned(quotient1, HALF_BASE) >= 0 || Long.compareUnsigned(quotient1 * divisorLow, remainder * HALF_BASE + dividendLow1) > 0) {
+            quotient1--;
+            remainder += divisorHigh;
+            if (Long.compareUnsigned(remainder, HALF_BASE) >= 0) {
+                break;
+            }
+        }
+        long partial = dividendHigh * HALF_BASE + dividendLow1 - quotient1 * normalizedDivisor;
+        long quotient0 = Long.divideUnsigned(partial, divisorHigh);
+        remainder = partial - quotient0 * divisorHigh;
+        while (Long.compareUnsigned(quotient0, HALF_BASE) >= 0 || Long.compareUnsigned(quotient0 * divisorLow, remainder * HALF_BASE + dividendLow0) > 0) {
+            quotient0--;
+            remainder += divisorHigh;
+            if (Long.compareUnsigned(remainder, HALF_BASE) >= 0) {
+                break;
+            }
+        }
+        return quotient1 * HALF_BASE + quotient0;
+    }
+
+    /**
+     * Returns multiplicand * multiplier / divisor, computed exactly with a 128 bit intermediate product and rounded once by given rounding mode.
+     *
+     * @param multiplicand first factor
+     * @param multiplier   second factor
+     * @param divisor      positive divisor
+     * @param roundingMode rounding of the quotient
+     * @return rounded quotient
+     * @throws ArithmeticException if the quotient does not fit into a long or the rounding mode is {@link RoundingMode#UNNECESSARY} and the quotient is not exact
+     */
+    static long multiplyDivide(final long multiplicand, final long multiplier, final long divisor, final RoundingMode roundingMode) {
+        if (divisor <= 0) {
+            throw new IllegalArgumentException("divisor must be positive: " + divisor);
+        }
+        if (multiplicand == Long.MIN_VALUE || multiplier == Long.MIN_VALUE) {
+            throw new ArithmeticException("factor out of range");
+        }
+        boolean negative = (multiplicand < 0) != (multiplier < 0);
+        long x = Math.abs(multiplicand);
+        long y = Math.abs(multiplier);
+        long low = x * y;
+        long quotient = divideUnsigned(multiplyHigh(x, y), low, divisor);
+        long remainder = low - quotient * divisor; // exact, the remainder is lower than the divisor
+        if (quotient < 0) {
+            throw new ArithmeticException("quotient does not fit into a long");
+        }
+        if (remainder != 0 && roundsAwayFromZero(roundingMode, negative, quotient, remainder, divisor)) {
+            quotient = Math.addExact(quotient, 1);
+        }
+        return negative ? -quotient : quotient;
+    }
+
+    private static boolean roundsAwayFromZero(final RoundingMode roundingMode, final boolean negative, final long quotient, final long remainder, final long divisor) {
+        long rest = divisor - remainder;
+        switch (roundingMode) {
+            case UP:
+                return true;
+            case DOWN:
+                return false;
+            case CEILING:
+                return !negative;
+            case FLOOR:
+                return negative;
+            case HALF_UP:
+                return remainder >= rest;
+            case HALF_DOWN:
+                return remainder > rest;
+            case HALF_EVEN:
+                return remainder > rest || (remainder == rest && (quotient & 1) == 1);
+            case UNNECESSARY:
+            default:
+                throw new ArithmeticException("rounding necessary");
+        }
+    }
+}
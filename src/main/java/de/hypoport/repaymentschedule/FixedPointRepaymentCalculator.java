@@ -0,0 +1,239 @@
+package de.hypoport.repaymentschedule;
+
+import java.math.RoundingMode;
+import java.time.Clock;
+
+/**
+ * Calculates repayment schedules like {@link RepaymentScheduleCalculator}, but entirely with scaled long values instead of double. Amounts are in cent, percentages in
+ * millionths of a percent, which is a hundredth of a basis point of a basis point. The interests and the annuity rate are computed exactly with a 128 bit intermediate product
+ * and rounded once by the configured rounding modes, see {@link FixedPointMath}. So the values are correct to the cent for all loans up to 9 * 10^16 euro
+ * and percentages with up to six decimal places, without the costs of BigDecimal.
+ */
+public class FixedPointRepaymentCalculator {
+
+    /**
+     * Number of units of a percentage of one percent.
+     */
+    public final static long RATE_UNITS_PER_PERCENT = 1_000_000L;
+
+    /**
+     * Rounds the interests half up and shortens the annuity rate, like {@link RepaymentScheduleCalculator}.
+     */
+    public final static FixedPointRepaymentCalculator DEFAULT = new FixedPointRepaymentCalculator(RoundingMode.HALF_UP, RoundingMode.DOWN);
+
+    private final static long MONTHLY_DIVISOR = 12 * 100 * RATE_UNITS_PER_PERCENT; // per year in percentage to per month as fraction
+
+    private final RoundingMode interestRounding;
+    private final RoundingMode annuityRounding;
+
+    /**
+     * Creates a calculator with given rounding modes.
+     *
+     * @param interestRounding rounding of the monthly interests to cent
+     * @param annuityRounding  rounding of the monthly annuity rate to cent
+     */
+    public FixedPointRepaymentCalculator(final RoundingMode interestRounding, final RoundingMode annuityRounding) {
+        this.interestRounding = interestRounding;
+        this.annuityRounding = annuityRounding;
+    }
+
+    /**
+     * Converts a percentage to units. Percentages with up to six decimal places are converted exactly.
+     *
+     * @param percentage percentage
+     * @return units, see {@link #RATE_UNITS_PER_PERCENT}
+     */
+    public static long toRateUnits(final double percentage) {
+        return Math.round(percentage * RATE_UNITS_PER_PERCENT);
+    }
+
+    /**
+     * Converts an amount in euro to cent. Unlike {@link RepaymentInformation#getLoanAmountInCent()} the amount is rounded, because currency values are
+     * no exact doubles, 0.29 * 100 is 28.999999999999996.
+     *
+     * @param amount amount in euro
+     * @return amount in cent
+     */
+    public static long toCent(final double amount) {
+        return Math.round(amount * 100);
+    }
+
+    /**
+     * Calculates a repayment plan like {@link RepaymentScheduleCalculator#computeRepaymentSchedule(RepaymentInformation, Clock)}.
+     *
+     * @param repaymentInformation given parameters for calculation
+     * @param clock                decides the month of the full payment
+     * @return calculated repayment schedule with monthly entries
+     * @throws ArithmeticException if a value does not fit into a long
+     */
+    public RepaymentSchedule computeRepaymentSchedule(final RepaymentInformation repaymentInformation, final Clock clock) {
+        ColumnSink columns = new ColumnSink(repaymentInformation.getDurationInYears() * 12 + 2);
+        computeRepaymentSchedule(repaymentInformation, columns, clock);
+        return columns.toSchedule(repaymentInformation.getDurationInYears());
+    }
+
+    /**
+     * Calculates a repayment plan like {@link RepaymentScheduleCalculator#computeRepaymentSchedule(RepaymentInformation, ScheduleSink, Clock)} and passes each rate to given sink.
+     *
+     * @param repaymentInformation given parameters for calculation
+     * @param sink                 receives all rates in date order
+     * @param clock                decides the month of the full payment
+     * @throws ArithmeticException if a value does not fit into a long
+     */
+    public void computeRepaymentSchedule(final RepaymentInformation repaymentInformation, final ScheduleSink sink, final Clock clock) {
+        computeRepaymentSchedule(repaymentInformation, sink, EpochMonths.currentEpochMonth(clock));
+    }
+
+    /**
+     * Recalculates a repayment plan after its parameters were changed, like {@link RepaymentScheduleCalculator#recomputeRepaymentSchedule(RepaymentSchedule,
+     * RepaymentInformation, RepaymentInformation)}. The fixed-point plan has no checkpoints, so the whole plan is calculated again in the months of the previous plan.
+     *
+     * @param previousSchedule     repayment plan calculated for the previous parameters
+     * @param repaymentInformation changed parameters
+     * @return recalculated repayment schedule
+     * @throws ArithmeticException if a value does not fit into a long
+     */
+    public RepaymentSchedule recomputeRepaymentSchedule(final RepaymentSchedule previousSchedule, final RepaymentInformation repaymentInformation) {
+        ColumnSink columns = new ColumnSink(repaymentInformation.getDurationInYears() * 12 + 2);
+        computeRepaymentSchedule(repaymentInformation, columns, previousSchedule.getEpochMonth(0));
+        return columns.toSchedule(repaymentInformation.getDurationInYears());
+    }
+
+    private void computeRepaymentSchedule(final RepaymentInformation repaymentInformation, final ScheduleSink sink, final int initialMonth) {
+        long loanAmount = toCent(repaymentInformation.getLoanAmount());
+        long debitInterest = toRateUnits(repaymentInformation.getDebitInterestInPercentage());
+        long annuityMonth = computeAnnuityMonth(loanAmount, debitInterest, toRateUnits(repaymentInformation.getInitialRepaymentInPercentage()));
+        int months = repaymentInformation.getDurationInYears() * 12;
+        EventTimeline events = EventTimeline.ofRoundedCents(repaymentInformation);
+        //first entry symbolised full payment of loan
+        sink.accept(initialMonth, -loanAmount, 0, -loanAmount, -loanAmount);
+        long accumulatedAnnuity = 0;
+        long accumulatedInterests = 0;
+        long accumulatedRepayment = 0;
+        long remainingLoan = loanAmount;
+        int position = 0;
+        for (int month = 1; month <= months; month++) {
+            long annuity = annuityMonth;
+            if (position < events.size() && events.month(position) == month) {
+                if (!Double.isNaN(events.debitInterest(position))) {
+                    debitInterest = toRateUnits(events.debitInterest(position));
+                }
+                annuity += events.specialRepaymentInCent(position);
+                position++;
+            }
+            long interestPortion = computeInterestMonth(remainingLoan, debitInterest);
+            long repayment = annuity - interestPortion;
+            remainingLoan -= repayment;
+
+            sink.accept(initialMonth + month, annuity, interestPortion, repayment, -remainingLoan);
+
+            accumulatedAnnuity += annuity;
+            accumulatedInterests += interestPortion;
+            accumulatedRepayment += repayment;
+        }
+        //calculate last entry (interests end)
+        sink.accept(initialMonth + months + 1, accumulatedAnnuity, accumulatedInterests, accumulatedRepayment, -remainingLoan);
+    }
+
+    /**
+     * Calculates the summary of the repayment plan like {@link RepaymentScheduleCalculator#computeSummary(RepaymentInformation, Clock)}. The whole plan is calculated
+     * and read at its last rate, so the cost is linear in the number of months and the rates are allocated.
+     *
+     * @param repaymentInformation given parameters for calculation
+     * @param clock                decides the month of the full payment
+     * @return summary of the repayment plan
+     * @throws ArithmeticException if a value does not fit into a long
+     */
+    public RepaymentSummary computeSummary(final RepaymentInformation repaymentInformation, final Clock clock) {
+        RepaymentSchedule schedule = computeRepaymentSchedule(repaymentInformation, clock);
+        int last = schedule.size() - 1;
+        RepaymentSummary summary = new RepaymentSummary();
+        summary.setDate(schedule.getDate(last));
+        summary.setAnnuityMonthInCent(computeAnnuityMonth(toCent(repaymentInformation.getLoanAmount()), toRateUnits(repaymentInformation.getDebitInterestInPercentage()),
+                toRateUnits(repaymentInformation.getInitialRepaymentInPercentage())));
+        summary.setAccumulatedAnnuityInCent(schedule.getAnnuityRateInCent(last));
+        summary.setAccumulatedInterestsInCent(schedule.getInterestsInCent(last));
+        summary.setAccumulatedRepaymentInCent(schedule.getRepaymentInCent(last));
+        summary.setRemainingLoanInCent(schedule.getRemainingLoanInCent(last));
+        return summary;
+    }
+
+    /**
+     * Calculates the summaries of one row of a scenario grid like {@link RepaymentScheduleCalculator#computeSummaries(long, double, double, int[], long[], int)}.
+     * The remaining loan is stepped only once up to the longest duration, so the cost is linear in the months of the longest duration.
+     *
+     * @param loanAmountInCent  loan amount in cent
+     * @param debitInterest     debit interests in units
+     * @param initialRepayment  initial repayment in units
+     * @param durationsInMonths durations in ascending order
+     * @param target            receives the monthly annuity, the accumulated interests and the remaining loan for each duration
+     * @param offset            index of the first value in target
+     * @throws ArithmeticException if a value does not fit into a long
+     */
+    public void computeSummaries(final long loanAmountInCent, final long debitInterest, final long initialRepayment, final int[] durationsInMonths,
+                                 final long[] target, final int offset) {
+        long annuityMonth = computeAnnuityMonth(loanAmountInCent, debitInterest, initialRepayment);
+        long remainingLoan = loanAmountInCent;
+        int month = 0;
+        int index = offset;
+        for (int months : durationsInMonths) {
+            remainingLoan = computeRemainingLoan(remainingLoan, annuityMonth, debitInterest, months - month);
+            month = months;
+            target[index++] = annuityMonth;
+            target[index++] = months * annuityMonth - (loanAmountInCent - remainingLoan);
+            target[index++] = -remainingLoan;
+        }
+    }
+
+    /**
+     * Calculates the remaining loan after given number of monthly rates with the same rounding as {@link #computeRepaymentSchedule(RepaymentInformation, Clock)}.
+     * The loan is stepped month by month, so the costs grow linearly with the months.
+     *
+     * @param loanInCent    remaining loan before the first rate in cent
+     * @param annuityMonth  monthly annuity rate in cent
+     * @param debitInterest debit interests in units
+     * @param months        number of monthly rates
+     * @return remaining loan in cent, positive
+     * @throws ArithmeticException if a value does not fit into a long
+     */
+    public long computeRemainingLoan(final long loanInCent, final long annuityMonth, final long debitInterest, final int months) {
+        long remainingLoan = loanInCent;
+        for (int month = 0; month < months; month++) {
+            remainingLoan -= annuityMonth - computeInterestMonth(remainingLoan, debitInterest);
+        }
+        return remainingLoan;
+    }
+
+    /**
+     * Returns the monthly annuity rate: (debit interests + initial repayment) / 100 * loan / 12, rounded once by the annuity rounding.
+     *
+     * @param loanAmountInCent loan amount in cent
+     * @param debitInterest    debit interests in units
+     * @param initialRepayment initial repayment in units
+     * @return monthly annuity rate in cent
+     */
+    public long computeAnnuityMonth(final long loanAmountInCent, final long debitInterest, final long initialRepayment) {
+        return FixedPointMath.multiplyDivide(loanAmountInCent, Math.addExact(debitInterest, initialRepayment), MONTHLY_DIVISOR, annuityRounding);
+    }
+
+    /**
+     * Returns the interests of one month: loan * debit interests / 100 / 12, rounded once by the interests rounding.
+     *
+     * @param loanInCent    remaining loan in cent
+     * @param debitInterest debit interests in units
+     * @return interests in cent
+     */
+    public long computeInterestMonth(final long loanInCent, final long debitInterest) {
+        return FixedPointMath.multiplyDivide(loanInCent, debitInterest, MONTHLY_DIVISOR, interestRounding);
+    }
+
+    /**
+     * Returns the mode and the rounding modes, e.g. "fixed-point:HALF_UP:DOWN".
+     *
+     * @return description of the calculation
+     */
+    @Override
+    public String toString() {
+        return "fixed-point:" + interestRounding + ":" + annuityRounding;
+    }
+}
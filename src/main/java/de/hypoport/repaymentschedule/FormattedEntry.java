@@ -0,0 +1,72 @@
+package de.hypoport.repaymentschedule;
+
+/**
+ * Represents a {@link MonthlyEntry} with all values formatted for display. The amounts are formatted by {@link CentFormatter}.
+ */
+public class FormattedEntry {
+
+    private final String date;
+    private final String remainingLoan;
+    private final String interests;
+    private final String repayment;
+    private final String annuityRate;
+
+    /**
+     * Formats the rate at given index of a repayment schedule.
+     *
+     * @param schedule repayment schedule
+     * @param index    index of the rate
+     */
+    public FormattedEntry(final RepaymentSchedule schedule, final int index) {
+        this.date = schedule.getDate(index).toString();
+        this.remainingLoan = CentFormatter.format(schedule.getRemainingLoanInCent(index));
+        this.interests = CentFormatter.format(schedule.getInterestsInCent(index));
+        this.repayment = CentFormatter.format(schedule.getRepaymentInCent(index));
+        this.annuityRate = CentFormatter.format(schedule.getAnnuityRateInCent(index));
+    }
+
+    /**
+     * Returns the repayment date.
+     *
+     * @return repayment date in ISO format
+     */
+    public String getDate() {
+        return date;
+    }
+
+    /**
+     * Returns the full remaining loan in euro.
+     *
+     * @return formatted remaining loan
+     */
+    public String getRemainingLoan() {
+        return remainingLoan;
+    }
+
+    /**
+     * Returns the interests portion in euro.
+     *
+     * @return formatted interests
+     */
+    public String getInterests() {
+        return interests;
+    }
+
+    /**
+     * Returns the repayment portion in euro.
+     *
+     * @return formatted repayment
+     */
+    public String getRepayment() {
+        return repayment;
+    }
+
+    /**
+     * Returns the annuity rate in euro.
+     *
+     * @return formatted annuity rate
+     */
+    public String getAnnuityRate() {
+        return annuityRate;
+    }
+}
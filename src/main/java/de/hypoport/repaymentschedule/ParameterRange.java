@@ -0,0 +1,96 @@
+package de.hypoport.repaymentschedule;
+
+import javax.validation.constraints.NotNull;
+import java.math.BigDecimal;
+
+/**
+ * Symbolizes a range of values of one parameter of a {@link ScenarioGridRequest}, from the first value to the last value in steps of given size.
+ */
+public class ParameterRange {
+
+    @NotNull
+    private Double from;
+    @NotNull
+    private Double to;
+    @NotNull
+    private Double step;
+
+    /**
+     * Returns the first value.
+     *
+     * @return first value
+     */
+    public Double getFrom() {
+        return from;
+    }
+
+    /**
+     * Sets the first value.
+     *
+     * @param from first value
+     */
+    public void setFrom(final Double from) {
+        this.from = from;
+    }
+
+    /**
+     * Returns the last value. It is only included if it is reached by the steps.
+     *
+     * @return last value
+     */
+    public Double getTo() {
+        return to;
+    }
+
+    /**
+     * Sets the last value.
+     *
+     * @param to last value
+     */
+    public void setTo(final Double to) {
+        this.to = to;
+    }
+
+    /**
+     * Returns the distance between two values.
+     *
+     * @return step size
+     */
+    public Double getStep() {
+        return step;
+    }
+
+    /**
+     * Sets the distance between two values.
+     *
+     * @param step step size
+     */
+    public void setStep(final Double step) {
+        this.step = step;
+    }
+
+    /**
+     * Returns all values of the range. The values are calculated decimal, so 1 to 5 in steps of 0.05 results in exactly the values a user would enter, like 1.05 and not 1.0500000000000003.
+     *
+     * @param maxCount maximum number of values
+     * @return values in ascending order
+     * @throws IllegalArgumentException if the step is not positive, the range is empty or contains more than maxCount values
+     */
+    public double[] values(final int maxCount) {
+        BigDecimal first = BigDecimal.valueOf(from);
+        BigDecimal last = BigDecimal.valueOf(to);
+        BigDecimal increment = BigDecimal.valueOf(step);
+        if (increment.signum() <= 0 || last.compareTo(first) < 0) {
+            throw new IllegalArgumentException("range from " + from + " to " + to + " in steps of " + step + " is empty");
+        }
+        BigDecimal steps = last.subtract(first).divideToIntegralValue(increment);
+        if (steps.compareTo(BigDecimal.valueOf(maxCount)) >= 0) {
+            throw new IllegalArgumentException("range from " + from + " to " + to + " in steps of " + step + " has more than " + maxCount + " values");
+        }
+        double[] values = new double[steps.intValue() + 1];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = first.add(increment.multiply(BigDecimal.valueOf(index))).doubleValue();
+        }
+        return values;
+    }
+}
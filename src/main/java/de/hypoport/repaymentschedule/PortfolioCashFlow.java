@@ -0,0 +1,115 @@
+package de.hypoport.repaymentschedule;
+
+/**
+ * Represents the monthly cash flow of a loan portfolio calculated by {@link PortfolioCashFlowEngine}. The months are counted from the current month:
+ * month 0 is the full payment of all loans, month 1 the first regular rate. Like in a {@link RepaymentSchedule} the remaining loan of each loan is due in the month after its last rate.
+ * All amounts are positive sums in cent.
+ */
+public class PortfolioCashFlow {
+
+    private final int startEpochMonth;
+    private final long loanCount;
+    private final long skippedLoans;
+    private final long[] interestsInCent;
+    private final long[] repaymentsInCent;
+    private final long[] remainingLoansInCent;
+    private final long[] dueRemainingLoansInCent;
+
+    /**
+     * Creates the cash flow of given monthly sums. The arrays are taken over.
+     *
+     * @param startEpochMonth         month 0 of the cash flow, see {@link EpochMonths}
+     * @param loanCount               number of aggregated loans
+     * @param skippedLoans            number of invalid loans which were not aggregated
+     * @param interestsInCent         sum of the interests portions per month
+     * @param repaymentsInCent        sum of the repayment portions per month
+     * @param remainingLoansInCent    sum of the remaining loans after the rates of each month
+     * @param dueRemainingLoansInCent sum of the remaining loans which are due at the interests end in each month
+     */
+    public PortfolioCashFlow(final int startEpochMonth, final long loanCount, final long skippedLoans, final long[] interestsInCent, final long[] repaymentsInCent,
+                             final long[] remainingLoansInCent, final long[] dueRemainingLoansInCent) {
+        this.startEpochMonth = startEpochMonth;
+        this.loanCount = loanCount;
+        this.skippedLoans = skippedLoans;
+        this.interestsInCent = interestsInCent;
+        this.repaymentsInCent = repaymentsInCent;
+        this.remainingLoansInCent = remainingLoansInCent;
+        this.dueRemainingLoansInCent = dueRemainingLoansInCent;
+    }
+
+    /**
+     * Returns the month 0 of the cash flow.
+     *
+     * @return epoch month, see {@link EpochMonths}
+     */
+    public int getStartEpochMonth() {
+        return startEpochMonth;
+    }
+
+    /**
+     * Returns the number of aggregated loans.
+     *
+     * @return number of loans
+     */
+    public long getLoanCount() {
+        return loanCount;
+    }
+
+    /**
+     * Returns the number of invalid loans which were not aggregated.
+     *
+     * @return number of skipped loans
+     */
+    public long getSkippedLoans() {
+        return skippedLoans;
+    }
+
+    /**
+     * Returns the number of months of the cash flow, including month 0.
+     *
+     * @return number of months
+     */
+    public int getMonths() {
+        return interestsInCent.length;
+    }
+
+    /**
+     * Returns the sum of the interests portions in given month.
+     *
+     * @param month month counted from the current month
+     * @return interests in cent
+     */
+    public long getInterestsInCent(final int month) {
+        return interestsInCent[month];
+    }
+
+    /**
+     * Returns the sum of the repayment portions in given month.
+     *
+     * @param month month counted from the current month
+     * @return repayments in cent
+     */
+    public long getRepaymentsInCent(final int month) {
+        return repaymentsInCent[month];
+    }
+
+    /**
+     * Returns the sum of the remaining loans after the rates of given month. Loans whose interests end is reached are not included anymore.
+     *
+     * @param month month counted from the current month
+     * @return remaining loans in cent
+     */
+    public long getRemainingLoansInCent(final int month) {
+        return remainingLoansInCent[month];
+    }
+
+    /**
+     * Returns the sum of the remaining loans which are due at the interests end in given month.
+     *
+     * @param month month counted from the current month
+     * @return due remaining loans in cent
+     */
+    public long getDueRemainingLoansInCent(final int month) {
+        return dueRemainingLoansInCent[month];
+    }
+}
@@ -0,0 +1,486 @@
+package de.hypoport.repaymentschedule;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Aggregates the monthly cash flow of a loan portfolio. The loans are read from a memory mapped {@link PortfolioLoanFile} or a csv file like {@link RepaymentInformationCsvReader} reads.
+ * The file is split into one range per worker thread. Each worker runs the same amortization as {@link RepaymentScheduleCalculator} for its loans, block by block with an
+ * {@link AmortizationKernel}, and adds the results to its own monthly sums, which are merged at the end. No objects are created per loan.
+ */
+public class PortfolioCashFlowEngine {
+
+    private final static int MAX_MONTHS = 60 * 12;
+    private final static int CASH_FLOW_MONTHS = MAX_MONTHS + 2; // full payment, regular rates and the due remaining loan
+    private final static long MAX_MAPPED_BYTES = 1L << 30;
+    private final static int MAX_CSV_LINE = 1024;
+
+    private final int threads;
+    private final int lanes;
+    private final Clock clock;
+
+    /**
+     * Creates an engine with one worker per available processor.
+     */
+    public PortfolioCashFlowEngine() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates an engine with given number of workers.
+     *
+     * @param threads number of worker threads
+     */
+    public PortfolioCashFlowEngine(final int threads) {
+        this(threads, AmortizationKernel.DEFAULT_LANES);
+    }
+
+    /**
+     * Creates an engine with given number of workers, each amortizing blocks of given number of loans side by side.
+     *
+     * @param threads number of worker threads
+     * @param lanes   number of loans per block, 1 amortizes each loan on its own, see {@link AmortizationKernel}
+     */
+    public PortfolioCashFlowEngine(final int threads, final int lanes) {
+        this(threads, lanes, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Creates an engine with given number of workers and lanes whose cash flow starts in the current month of given clock.
+     *
+     * @param threads number of worker threads
+     * @param lanes   number of loans per block, 1 amortizes each loan on its own, see {@link AmortizationKernel}
+     * @param clock   decides the month of the full payment
+     */
+    public PortfolioCashFlowEngine(final int threads, final int lanes, final Clock clock) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("at least one thread is required");
+        }
+        if (lanes < 1) {
+            throw new IllegalArgumentException("at least one lane is required");
+        }
+        this.threads = threads;
+        this.lanes = lanes;
+        this.clock = clock;
+    }
+
+    /**
+     * Aggregates the cash flow of all loans of given file. The format is detected by the magic number of {@link PortfolioLoanFile}, other files are read as csv.
+     * Invalid loans, including loan amounts with more decimals than {@link RepaymentScheduleController#isInvalidCurrencyValue(Double)} allows, are skipped and counted.
+     * A csv file may start with a header line, all other lines which are no four numbers are rejected.
+     *
+     * @param file binary or csv loan file
+     * @return monthly cash flow of the portfolio
+     * @throws IOException              if the file could not be read
+     * @throws IllegalArgumentException if a csv line could not be parsed, the message starts with its line number
+     */
+    public PortfolioCashFlow aggregate(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<Accumulator> ranges = isBinary(channel) ? splitBinary(channel) : splitCsv(channel);
+            return merge(run(ranges));
+        }
+    }
+
+    private static boolean isBinary(final FileChannel channel) throws IOException {
+        if (channel.size() < PortfolioLoanFile.HEADER_SIZE) {
+            return false;
+        }
+        ByteBuffer header = ByteBuffer.allocate(PortfolioLoanFile.HEADER_SIZE);
+        channel.read(header, 0);
+        header.flip();
+        if (header.getInt() != PortfolioLoanFile.MAGIC) {
+            return false;
+        }
+        int version = header.getInt();
+        if (version != PortfolioLoanFile.VERSION) {
+            throw new IOException("unsupported loan file version " + version);
+        }
+        return true;
+    }
+
+    private List<Accumulator> splitBinary(final FileChannel channel) throws IOException {
+        long records = (channel.size() - PortfolioLoanFile.HEADER_SIZE) / PortfolioLoanFile.RECORD_SIZE;
+        List<Accumulator> ranges = new ArrayList<>();
+        for (int worker = 0; worker < threads; worker++) {
+            long first = records * worker / threads;
+            long end = records * (worker + 1) / threads;
+            ranges.add(new BinaryAccumulator(lanes, channel, first, end));
+        }
+        return ranges;
+    }
+
+    private List<Accumulator> splitCsv(final FileChannel channel) throws IOException {
+        long size = channel.size();
+        long[] starts = new long[threads + 1];
+        starts[threads] = size;
+        for (int worker = 1; worker < threads; worker++) {
+            starts[worker] = Math.max(starts[worker - 1], nextLineStart(channel, size * worker / threads));
+        }
+        List<Accumulator> ranges = new ArrayList<>();
+        for (int worker = 0; worker < threads; worker++) {
+            ranges.add(new CsvAccumulator(lanes, channel, starts[worker], starts[worker + 1]));
+        }
+        return ranges;
+    }
+
+    private static long nextLineStart(final FileChannel channel, final long position) throws IOException {
+        if (position == 0) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_CSV_LINE);
+        long offset = position - 1; // a line starts at the position if the byte before is a line break
+        while (offset < channel.size()) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            for (int index = 0; index < read; index++) {
+                if (buffer.get(index) == '\n') {
+                    return offset + index + 1;
+                }
+            }
+            offset += read;
+        }
+        return channel.size();
+    }
+
+    private List<Accumulator> run(final List<Accumulator> ranges) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(ranges.size());
+        try {
+            List<Future<Accumulator>> futures = new ArrayList<>();
+            for (Accumulator range : ranges) {
+                futures.add(executor.submit(() -> {
+                    range.accumulate();
+                    range.flush();
+                    return range;
+                }));
+            }
+            List<Accumulator> results = new ArrayList<>();
+            for (Future<Accumulator> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("aggregation interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            if (e.getCause() instanceof IllegalArgumentException) {
+                throw (IllegalArgumentException) e.getCause();
+            }
+            throw new IllegalStateException("aggregation failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private PortfolioCashFlow merge(final List<Accumulator> accumulators) {
+        long[] interests = new long[CASH_FLOW_MONTHS];
+        long[] repayments = new long[CASH_FLOW_MONTHS];
+        long[] remainingLoans = new long[CASH_FLOW_MONTHS];
+        long[] dueRemainingLoans = new long[CASH_FLOW_MONTHS];
+        long loanCount = 0;
+        long skippedLoans = 0;
+        for (Accumulator accumulator : accumulators) {
+            for (int month = 0; month < CASH_FLOW_MONTHS; month++) {
+                interests[month] += accumulator.interests[month];
+                repayments[month] += accumulator.repayments[month];
+                remainingLoans[month] += accumulator.remainingLoans[month];
+                dueRemainingLoans[month] += accumulator.dueRemainingLoans[month];
+            }
+            loanCount += accumulator.loanCount;
+            skippedLoans += accumulator.skippedLoans;
+        }
+        return new PortfolioCashFlow(EpochMonths.currentEpochMonth(clock), loanCount, skippedLoans, interests, repayments, remainingLoans, dueRemainingLoans);
+    }
+
+    /**
+     * Monthly sums of the loans of one range of the file. Only used by one worker thread. The valid loans are collected as structure of arrays and amortized block by block
+     * by an {@link AmortizationKernel}.
+     */
+    private abstract static class Accumulator {
+
+        private final long[] interests = new long[CASH_FLOW_MONTHS];
+        private final long[] repayments = new long[CASH_FLOW_MONTHS];
+        private final long[] remainingLoans = new long[CASH_FLOW_MONTHS];
+        private final long[] dueRemainingLoans = new long[CASH_FLOW_MONTHS];
+        private final long[][] cashFlow = {interests, repayments, remainingLoans, dueRemainingLoans};
+        private final AmortizationKernel kernel;
+        private final long[] loanAmountsInCent;
+        private final double[] debitInterests;
+        private final double[] initialRepayments;
+        private final int[] durationsInMonths;
+        private int pendingLoans;
+        private long loanCount;
+        private long skippedLoans;
+
+        Accumulator(final int lanes) {
+            kernel = new AmortizationKernel(lanes);
+            loanAmountsInCent = new long[lanes];
+            debitInterests = new double[lanes];
+            initialRepayments = new double[lanes];
+            durationsInMonths = new int[lanes];
+        }
+
+        abstract void accumulate() throws IOException;
+
+        /**
+         * Adds the rates of one loan with the same rounding as {@link RepaymentScheduleCalculator#computeRepaymentSchedule(RepaymentInformation)}.
+         * The loan is amortized as soon as a block is full or by {@link #flush()}.
+         */
+        final void addLoan(final long loanAmountInCent, final double debitInterest, final double initialRepayment, final int durationInYears) {
+            if (loanAmountInCent < 100 || Double.isNaN(debitInterest) || !(initialRepayment >= 1 && initialRepayment <= 100) || durationInYears < 1 || durationInYears > 60) {
+                skippedLoans++;
+                return;
+            }
+            loanAmountsInCent[pendingLoans] = loanAmountInCent;
+            debitInterests[pendingLoans] = debitInterest;
+            initialRepayments[pendingLoans] = initialRepayment;
+            durationsInMonths[pendingLoans] = durationInYears * 12;
+            pendingLoans++;
+            loanCount++;
+            if (pendingLoans == loanAmountsInCent.length) {
+                flush();
+            }
+        }
+
+        /**
+         * Amortizes the collected loans.
+         */
+        final void flush() {
+            kernel.addCashFlow(pendingLoans, loanAmountsInCent, debitInterests, initialRepayments, durationsInMonths, cashFlow);
+            pendingLoans = 0;
+        }
+
+        void skip() {
+            skippedLoans++;
+        }
+    }
+
+    /**
+     * Reads the records of a range of a binary loan file.
+     */
+    private final static class BinaryAccumulator extends Accumulator {
+
+        private final FileChannel channel;
+        private final long firstRecord;
+        private final long endRecord;
+
+        private BinaryAccumulator(final int lanes, final FileChannel channel, final long firstRecord, final long endRecord) {
+            super(lanes);
+            this.channel = channel;
+            this.firstRecord = firstRecord;
+            this.endRecord = endRecord;
+        }
+
+        @Override
+        void accumulate() throws IOException {
+            long maxRecordsPerMap = MAX_MAPPED_BYTES / PortfolioLoanFile.RECORD_SIZE;
+            for (long record = firstRecord; record < endRecord; record += maxRecordsPerMap) {
+                long records = Math.min(maxRecordsPerMap, endRecord - record);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                        PortfolioLoanFile.HEADER_SIZE + record * PortfolioLoanFile.RECORD_SIZE, records * PortfolioLoanFile.RECORD_SIZE);
+                for (int offset = 0; offset < buffer.limit(); offset += PortfolioLoanFile.RECORD_SIZE) {
+                    addLoan(buffer.getLong(offset), buffer.getDouble(offset + 8), buffer.getDouble(offset + 16), buffer.getInt(offset + 24));
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses the lines of a range of a csv loan file directly from the mapped bytes. Like {@link RepaymentInformationCsvReader} only the first line of the file may be
+     * a header. The line number of a malformed line is only counted when it is rejected.
+     */
+    private final static class CsvAccumulator extends Accumulator {
+
+        private final static double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15};
+        private final static long MAX_EXACT_MANTISSA = 1L << 53;
+
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private final double[] values = new double[4];
+        private MappedByteBuffer buffer;
+        private long bufferPosition;
+        private int lastDecimals;
+
+        private CsvAccumulator(final int lanes, final FileChannel channel, final long start, final long end) {
+            super(lanes);
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        void accumulate() throws IOException {
+            long fileSize = channel.size();
+            long position = start;
+            while (position < end) {
+                long length = Math.min(MAX_MAPPED_BYTES, fileSize - position);
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                bufferPosition = position;
+                int lineStart = 0;
+                boolean lastWindow = position + length == fileSize;
+                while (position + lineStart < end) {
+                    int lineEnd = findLineEnd(lineStart);
+                    if (lineEnd == buffer.limit() && !lastWindow) {
+                        if (lineStart == 0) {
+                            throw new IOException("line at position " + position + " is too long");
+                        }
+                        break; // line continues in the next window
+                    }
+                    parseLine(lineStart, lineEnd);
+                    lineStart = lineEnd + 1;
+                }
+                position += lineStart;
+            }
+        }
+
+        private int findLineEnd(final int from) {
+            int index = from;
+            while (index < buffer.limit() && buffer.get(index) != '\n') {
+                index++;
+            }
+            return index;
+        }
+
+        private void parseLine(final int from, final int to) throws IOException {
+            int first = from;
+            while (first < to && isBlank(buffer.get(first))) {
+                first++;
+            }
+            if (first == to || buffer.get(first) == '#' || (bufferPosition + from == 0 && Character.isLetter(buffer.get(first)))) {
+                return; // empty, comment or header line
+            }
+            int field = 0;
+            int fieldStart = first;
+            boolean validCurrency = true;
+            for (int index = first; index <= to; index++) {
+                if (index == to || buffer.get(index) == ',') {
+                    if (field < values.length) {
+                        values[field] = parseNumber(fieldStart, index);
+                        if (Double.isNaN(values[field])) {
+                            throw new IllegalArgumentException("line " + lineNumber(from) + ": invalid number '" + text(fieldStart, index).trim() + "'");
+                        }
+                        if (field == 0) {
+                            validCurrency = lastDecimals <= 2 || !RepaymentScheduleController.isInvalidCurrencyValue(values[0]);
+                        }
+                    }
+                    field++;
+                    fieldStart = index + 1;
+                }
+            }
+            if (field != values.length) {
+                throw new IllegalArgumentException("line " + lineNumber(from) + ": expected " + values.length + " values but was " + field);
+            }
+            if (!validCurrency || values[3] != Math.rint(values[3])) {
+                skip();
+                return;
+            }
+            long loanAmountInCent = (long) (values[0] * 100); // same as RepaymentInformation.getLoanAmountInCent()
+            addLoan(loanAmountInCent, values[1], values[2], (int) values[3]);
+        }
+
+        /**
+         * Counts the line breaks before given index of the mapped bytes. Only used for error messages, so the file is simply read again from its start.
+         */
+        private long lineNumber(final int index) throws IOException {
+            long lineEnd = bufferPosition + index;
+            long lines = 1;
+            ByteBuffer chunk = ByteBuffer.allocate(MAX_CSV_LINE);
+            for (long offset = 0; offset < lineEnd; offset += chunk.limit()) {
+                chunk.clear();
+                chunk.limit((int) Math.min(chunk.capacity(), lineEnd - offset));
+                channel.read(chunk, offset);
+                chunk.flip();
+                for (int position = 0; position < chunk.limit(); position++) {
+                    if (chunk.get(position) == '\n') {
+                        lines++;
+                    }
+                }
+            }
+            return lines;
+        }
+
+        private String text(final int from, final int to) {
+            byte[] bytes = new byte[to - from];
+            for (int index = from; index < to; index++) {
+                bytes[index - from] = buffer.get(index);
+            }
+            return new String(bytes, StandardCharsets.US_ASCII);
+        }
+
+        /**
+         * Parses a decimal number. Numbers with up to 15 digits are exact as long as the mantissa fits into a double, because then a single division is correctly rounded
+         * like {@link Double#parseDouble(String)}. All other numbers fall back to {@link Double#parseDouble(String)}. Returns NaN for malformed numbers.
+         * Sets {@link #lastDecimals} to the number of decimals without trailing zeros, or to {@link Integer#MAX_VALUE} if the number was parsed by the fallback.
+         */
+        private double parseNumber(final int from, final int to) {
+            int first = from;
+            int last = to;
+            while (first < last && isBlank(buffer.get(first))) {
+                first++;
+            }
+            while (last > first && isBlank(buffer.get(last - 1))) {
+                last--;
+            }
+            boolean negative = first < last && buffer.get(first) == '-';
+            long mantissa = 0;
+            int digits = 0;
+            int decimals = -1;
+            int significantDecimals = 0;
+            lastDecimals = Integer.MAX_VALUE;
+            for (int index = negative ? first + 1 : first; index < last; index++) {
+                byte current = buffer.get(index);
+                if (current == '.' && decimals < 0) {
+                    decimals = 0;
+                } else if (current >= '0' && current <= '9' && digits < 18) {
+                    mantissa = mantissa * 10 + (current - '0');
+                    digits++;
+                    if (decimals >= 0) {
+                        decimals++;
+                        if (current != '0') {
+                            significantDecimals = decimals;
+                        }
+                    }
+                } else {
+                    return parseSlow(first, last);
+                }
+            }
+            if (digits == 0) {
+                return Double.NaN;
+            }
+            if (mantissa > MAX_EXACT_MANTISSA || decimals >= POWERS_OF_TEN.length) {
+                return parseSlow(first, last);
+            }
+            double value = decimals > 0 ? mantissa / POWERS_OF_TEN[decimals] : mantissa;
+            lastDecimals = significantDecimals;
+            return negative ? -value : value;
+        }
+
+        private double parseSlow(final int from, final int to) {
+            try {
+                return Double.parseDouble(text(from, to));
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+
+        private static boolean isBlank(final byte value) {
+            return value == ' ' || value == '\t' || value == '\r';
+        }
+    }
+}
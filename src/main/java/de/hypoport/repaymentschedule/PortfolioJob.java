@@ -0,0 +1,179 @@
+package de.hypoport.repaymentschedule;
+
+/**
+ * Symbolizes the status of a portfolio job of the {@link PortfolioJobService}: the loans of a file are calculated in chunks, the progress is the share of completed chunks.
+ */
+public class PortfolioJob {
+
+    /**
+     * State of a job.
+     */
+    public enum State {
+        /**
+         * The file is stored, its loans are validated and converted on the job pool. The number of loans and chunks is not known yet.
+         */
+        VALIDATING,
+        /**
+         * No chunk has started yet.
+         */
+        QUEUED,
+        /**
+         * At least one chunk has started.
+         */
+        RUNNING,
+        /**
+         * All chunks are completed, the result can be downloaded.
+         */
+        COMPLETED,
+        /**
+         * The file contains an invalid loan or a chunk failed, the job will not be completed.
+         */
+        FAILED
+    }
+
+    private String id;
+    private State state;
+    private long loanCount;
+    private int chunkSize;
+    private int chunkCount;
+    private int completedChunks;
+    private String error;
+
+    /**
+     * Returns the id of the job.
+     *
+     * @return id of the job
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Sets the id of the job.
+     *
+     * @param id id of the job
+     */
+    public void setId(final String id) {
+        this.id = id;
+    }
+
+    /**
+     * Returns the state of the job.
+     *
+     * @return state of the job
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Sets the state of the job.
+     *
+     * @param state state of the job
+     */
+    public void setState(final State state) {
+        this.state = state;
+    }
+
+    /**
+     * Returns the number of loans of the job.
+     *
+     * @return number of loans
+     */
+    public long getLoanCount() {
+        return loanCount;
+    }
+
+    /**
+     * Sets the number of loans of the job.
+     *
+     * @param loanCount number of loans
+     */
+    public void setLoanCount(final long loanCount) {
+        this.loanCount = loanCount;
+    }
+
+    /**
+     * Returns the number of loans per chunk.
+     *
+     * @return loans per chunk
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Sets the number of loans per chunk.
+     *
+     * @param chunkSize loans per chunk
+     */
+    public void setChunkSize(final int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Returns the number of chunks of the job.
+     *
+     * @return number of chunks
+     */
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    /**
+     * Sets the number of chunks of the job.
+     *
+     * @param chunkCount number of chunks
+     */
+    public void setChunkCount(final int chunkCount) {
+        this.chunkCount = chunkCount;
+    }
+
+    /**
+     * Returns the number of completed chunks.
+     *
+     * @return number of completed chunks
+     */
+    public int getCompletedChunks() {
+        return completedChunks;
+    }
+
+    /**
+     * Sets the number of completed chunks.
+     *
+     * @param completedChunks number of completed chunks
+     */
+    public void setCompletedChunks(final int completedChunks) {
+        this.completedChunks = completedChunks;
+    }
+
+    /**
+     * Returns the error of a failed job.
+     *
+     * @return error message or null
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Sets the error of a failed job.
+     *
+     * @param error error message or null
+     */
+    public void setError(final String error) {
+        this.error = error;
+    }
+
+    /**
+     * Returns the share of completed chunks.
+     *
+     * @return progress between 0 and 1
+     */
+    public double getProgress() {
+        if (state == State.VALIDATING) {
+            return 0;
+        }
+        return chunkCount == 0 ? 1 : (double) completedChunks / chunkCount;
+    }
+}
@@ -0,0 +1,107 @@
+package de.hypoport.repaymentschedule;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Controller for portfolio jobs which are too large for a single request. A job is submitted with a loan file, its progress is polled and its result downloaded
+ * when it is completed, see {@link PortfolioJobService}. A finished job can be deleted once its result is downloaded.
+ */
+@RestController
+@RequestMapping("/api/jobs")
+public class PortfolioJobController {
+
+    private final static MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private final PortfolioJobService jobService;
+
+    /**
+     * Creates the controller.
+     *
+     * @param jobService runs the portfolio jobs
+     */
+    public PortfolioJobController(final PortfolioJobService jobService) {
+        this.jobService = jobService;
+    }
+
+    /**
+     * Handle post request for base path + "/api/jobs". Starts a job for the loans of given csv file, see {@link RepaymentInformationCsvReader}.
+     * The file is only stored before the job is accepted, an invalid loan fails the job. The upload limits are spring.servlet.multipart.max-file-size and max-request-size.
+     *
+     * @param file      csv file with one loan per line
+     * @param chunkSize number of loans per chunk, the configured default if missing
+     * @return status of the accepted job with its url as location
+     * @throws IOException if the file could not be read or stored
+     */
+    @PostMapping
+    public ResponseEntity<PortfolioJob> submitJob(@RequestParam("file") final MultipartFile file, @RequestParam(required = false) final Integer chunkSize) throws IOException {
+        PortfolioJob job;
+        try (InputStream in = file.getInputStream()) {
+            job = jobService.submit(in, chunkSize);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        return ResponseEntity.accepted().location(ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(job.getId()).toUri()).body(job);
+    }
+
+    /**
+     * Handle get request for base path + "/api/jobs/{id}". Returns the state and progress of a job.
+     *
+     * @param id id of the job
+     * @return status of the job
+     */
+    @GetMapping("/{id}")
+    public PortfolioJob getJob(@PathVariable final String id) {
+        return jobService.getJob(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "no job with id " + id));
+    }
+
+    /**
+     * Handle get request for base path + "/api/jobs/{id}/result". Streams the result of a completed job as csv, see {@link PortfolioJobService#writeResult(String, java.io.OutputStream)}.
+     *
+     * @param id id of the job
+     * @return streamed result
+     */
+    @GetMapping("/{id}/result")
+    public ResponseEntity<StreamingResponseBody> getJobResult(@PathVariable final String id) {
+        PortfolioJob job = getJob(id);
+        if (job.getState() != PortfolioJob.State.COMPLETED) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "job " + id + " is " + job.getState());
+        }
+        return ResponseEntity.ok().contentType(TEXT_CSV).body(out -> jobService.writeResult(id, out));
+    }
+
+    /**
+     * Handle delete request for base path + "/api/jobs/{id}". Deletes a completed or failed job with its files, see {@link PortfolioJobService#delete(String)}.
+     *
+     * @param id id of the job
+     * @return no content
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteJob(@PathVariable final String id) {
+        boolean deleted;
+        try {
+            deleted = jobService.delete(id);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage(), e);
+        }
+        if (!deleted) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "no job with id " + id);
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,536 @@
+package de.hypoport.repaymentschedule;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Calculates the summaries of all loans of large portfolio files as background jobs. A submitted csv file is only stored in an own job directory, so the request returns
+ * once the upload is written. The job pool validates the file and converts it into a {@link PortfolioLoanFile}, so the loans of a chunk are read by position. The chunks are calculated on an own bounded pool,
+ * so large jobs do not occupy the request threads. The double calculation uses the {@link AmortizationKernel}, which has the same results as
+ * {@link RepaymentScheduleCalculator#computeSummary(RepaymentInformation)}, the fixed-point calculation amortizes the loans one by one by {@link ScheduleCalculation}.
+ * A job keeps the mode it was converted in, a job which is resumed in another mode fails.
+ * <p>
+ * Each completed chunk is written to a temporary file and moved to its final name, so a chunk file is either complete or missing. The parameters and the final state of a job
+ * are kept in a properties file. On start the service finds the unfinished jobs of its directory and calculates only their missing chunks, so it is created on start even if
+ * beans are initialized lazily.
+ * <p>
+ * A completed or failed job is kept until it is deleted or its retention has passed. Expired jobs are removed on start and whenever a job is submitted.
+ */
+@Service
+@Lazy(false)
+public class PortfolioJobService {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(PortfolioJobService.class);
+    private final static String UPLOAD_FILE = "upload.csv";
+    private final static String LOANS_FILE = "loans.bin";
+    private final static String STATE_FILE = "job.properties";
+    private final static String CHUNK_PREFIX = "chunk-";
+    private final static String CHUNK_SUFFIX = ".csv";
+    private final static String TEMPORARY_SUFFIX = ".tmp";
+    private final static String RESULT_HEADER = "loan,annuityMonthInCent,accumulatedInterestsInCent,remainingLoanInCent\n";
+    private final static int MAX_CHUNK_SIZE = 1_000_000;
+
+    private final RepaymentInformationValidator validator;
+    private final ScheduleCalculation calculation;
+    private final Path directory;
+    private final int chunkSize;
+    private final Duration retention;
+    private final ExecutorService pool;
+    private final ConcurrentMap<String, JobRun> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the service and resumes the unfinished jobs of given directory.
+     *
+     * @param validator   validator for the loans of a submitted file
+     * @param calculation calculates the summaries in the configured mode
+     * @param directory   directory of the job files
+     * @param chunkSize   default number of loans per chunk
+     * @param parallelism    number of calculation threads, 0 uses half of the available processors
+     * @param retentionHours hours a completed or failed job is kept, 0 keeps it until it is deleted
+     * @throws UncheckedIOException if the directory could not be read
+     */
+    public PortfolioJobService(final RepaymentInformationValidator validator, final ScheduleCalculation calculation, @Value("${repaymentschedule.jobs.directory:./data/jobs}") final String directory,
+                               @Value("${repaymentschedule.jobs.chunk-size:50000}") final int chunkSize,
+                               @Value("${repaymentschedule.jobs.parallelism:0}") final int parallelism,
+                               @Value("${repaymentschedule.jobs.retention-hours:168}") final long retentionHours) {
+        this.validator = validator;
+        this.calculation = calculation;
+        this.directory = Paths.get(directory);
+        this.chunkSize = chunkSize;
+        this.retention = Duration.ofHours(retentionHours);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(parallelism > 0 ? parallelism : Math.max(1, Runtime.getRuntime().availableProcessors() / 2), runnable -> {
+            Thread thread = new Thread(runnable, "portfolio-job-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            resumeJobs();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stops the calculations. Unfinished jobs are resumed by the next start.
+     */
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Stores given csv input and starts a job for it. The loans are validated on the job pool, a line which could not be parsed or an invalid loan fails the job.
+     * The input is read like {@link RepaymentInformationCsvReader} reads.
+     *
+     * @param csv       csv input with one loan per line
+     * @param chunkSize number of loans per chunk, null for the configured default
+     * @return status of the new job
+     * @throws IOException              if the input could not be read or the job could not be written
+     * @throws IllegalArgumentException if the chunk size is invalid
+     */
+    public PortfolioJob submit(final InputStream csv, final Integer chunkSize) throws IOException {
+        int size = chunkSize == null ? this.chunkSize : chunkSize;
+        if (size < 1 || size > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("chunk size must be between 1 and " + MAX_CHUNK_SIZE);
+        }
+        removeExpiredJobs();
+        String id = UUID.randomUUID().toString();
+        Path jobDirectory = directory.resolve(id);
+        Files.createDirectories(jobDirectory);
+        JobRun run = new JobRun(id, jobDirectory, size, calculation.getMode());
+        run.state = PortfolioJob.State.VALIDATING;
+        try {
+            Files.copy(csv, jobDirectory.resolve(UPLOAD_FILE));
+            writeState(run);
+        } catch (IOException | RuntimeException e) {
+            deleteJobDirectory(jobDirectory);
+            throw e;
+        }
+        jobs.put(id, run);
+        PortfolioJob job = run.toJob(); // before the pool may have validated it
+        pool.execute(() -> prepare(run));
+        return job;
+    }
+
+    /**
+     * Returns the status of the job with given id.
+     *
+     * @param id id of the job
+     * @return status of the job or empty if no job has the id
+     */
+    public Optional<PortfolioJob> getJob(final String id) {
+        return Optional.ofNullable(jobs.get(id)).map(JobRun::toJob);
+    }
+
+    /**
+     * Deletes a completed or failed job with its files.
+     *
+     * @param id id of the job
+     * @return false if no job has the id
+     * @throws IllegalStateException if the job is not finished yet
+     */
+    public boolean delete(final String id) {
+        JobRun run = jobs.get(id);
+        if (run == null) {
+            return false;
+        }
+        if (!run.isFinished()) {
+            throw new IllegalStateException("job " + id + " is " + run.state);
+        }
+        if (jobs.remove(id, run)) {
+            deleteJobDirectory(run.directory);
+        }
+        return true;
+    }
+
+    /**
+     * Writes the result of a completed job as csv: the index of the loan in the submitted file, its monthly annuity rate, the accumulated interests
+     * and the remaining loan at the end of the duration, all in cent.
+     *
+     * @param id  id of a completed job
+     * @param out receives the csv
+     * @throws IOException           if a chunk could not be read or written
+     * @throws IllegalStateException if the job is not completed
+     */
+    public void writeResult(final String id, final OutputStream out) throws IOException {
+        JobRun run = jobs.get(id);
+        if (run == null || run.state != PortfolioJob.State.COMPLETED) {
+            throw new IllegalStateException("job " + id + " is not completed");
+        }
+        out.write(RESULT_HEADER.getBytes(StandardCharsets.US_ASCII));
+        for (int chunk = 0; chunk < run.chunkCount; chunk++) {
+            Files.copy(chunkFile(run, chunk), out);
+        }
+        out.flush();
+    }
+
+    /**
+     * Validates and converts the stored upload of a job and schedules its chunks.
+     */
+    private void prepare(final JobRun run) {
+        try {
+            long loanCount;
+            try (InputStream csv = Files.newInputStream(run.directory.resolve(UPLOAD_FILE))) {
+                loanCount = writeLoans(csv, run.directory.resolve(LOANS_FILE));
+            }
+            run.prepared(loanCount, (int) ((loanCount + run.chunkSize - 1) / run.chunkSize), now());
+            writeState(run);
+            Files.delete(run.directory.resolve(UPLOAD_FILE));
+            schedule(run);
+        } catch (IOException | RuntimeException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                return; // shut down, the upload is validated again by the next start
+            }
+            LOGGER.info("portfolio job {} rejected: {}", run.id, e.getMessage());
+            try {
+                Files.deleteIfExists(run.directory.resolve(LOANS_FILE));
+                Files.deleteIfExists(run.directory.resolve(UPLOAD_FILE));
+            } catch (IOException deleteError) {
+                LOGGER.warn("files of rejected portfolio job {} could not be deleted", run.id, deleteError);
+            }
+            run.fail(e instanceof IllegalArgumentException ? e.getMessage() : e.toString(), now()); // after the files are gone, so a failed job keeps no loans
+            try {
+                writeState(run);
+            } catch (IOException stateError) {
+                LOGGER.error("state of portfolio job {} could not be written", run.id, stateError);
+            }
+        }
+    }
+
+    private long writeLoans(final InputStream csv, final Path file) throws IOException {
+        long[] loanCount = {0};
+        try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            PortfolioLoanFile.writeHeader(data, 0);
+            RepaymentInformationCsvReader.forEach(csv, repaymentInformation -> {
+                List<String> errors = validator.validate(repaymentInformation);
+                if (!errors.isEmpty()) {
+                    throw new IllegalArgumentException("loan " + loanCount[0] + ": " + String.join(", ", errors));
+                }
+                try {
+                    PortfolioLoanFile.writeRecord(data, repaymentInformation, calculation.toCent(repaymentInformation.getLoanAmount()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                loanCount[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        PortfolioLoanFile.writeLoanCount(file, loanCount[0]);
+        return loanCount[0];
+    }
+
+    private void resumeJobs() throws IOException {
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> jobDirectories = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path jobDirectory : jobDirectories) {
+                Path stateFile = jobDirectory.resolve(STATE_FILE);
+                if (!Files.exists(stateFile)) {
+                    continue; // submit failed before the job was started
+                }
+                JobRun run = readState(jobDirectory, stateFile);
+                if (isExpired(run)) {
+                    LOGGER.info("removing expired portfolio job {}", run.id);
+                    deleteJobDirectory(jobDirectory);
+                    continue;
+                }
+                jobs.put(run.id, run);
+                if (run.state == PortfolioJob.State.VALIDATING) {
+                    LOGGER.info("resuming validation of portfolio job {}", run.id);
+                    run.mode = calculation.getMode(); // no loan is converted yet
+                    pool.execute(() -> prepare(run));
+                } else if (run.state == PortfolioJob.State.QUEUED && !run.mode.equals(calculation.getMode())) {
+                    LOGGER.warn("portfolio job {} was started in calculation mode {} and cannot be resumed in {}", run.id, run.mode, calculation.getMode());
+                    run.fail("calculation mode changed from " + run.mode + " to " + calculation.getMode() + ", submit the file again", now());
+                    writeState(run);
+                } else if (run.state == PortfolioJob.State.QUEUED && run.completedChunks.get() == run.chunkCount) {
+                    run.complete(now()); // stopped after the last chunk was written
+                    writeState(run);
+                } else if (run.state == PortfolioJob.State.QUEUED) {
+                    LOGGER.info("resuming portfolio job {} with {} of {} chunks completed", run.id, run.completedChunks.get(), run.chunkCount);
+                    schedule(run);
+                }
+            }
+        }
+    }
+
+    private void removeExpiredJobs() {
+        for (JobRun run : jobs.values()) {
+            if (isExpired(run) && jobs.remove(run.id, run)) {
+                LOGGER.info("removing expired portfolio job {}", run.id);
+                deleteJobDirectory(run.directory);
+            }
+        }
+    }
+
+    private boolean isExpired(final JobRun run) {
+        return !retention.isZero() && run.isFinished() && now() - run.finishedAt >= retention.toMillis();
+    }
+
+    private long now() {
+        return calculation.getClock().millis();
+    }
+
+    private void schedule(final JobRun run) {
+        for (int chunk = 0; chunk < run.chunkCount; chunk++) {
+            if (!Files.exists(chunkFile(run, chunk))) {
+                int index = chunk;
+                pool.execute(() -> computeChunk(run, index));
+            }
+        }
+    }
+
+    private void computeChunk(final JobRun run, final int chunk) {
+        if (!run.start()) {
+            return;
+        }
+        try {
+            long first = (long) chunk * run.chunkSize;
+            int count = (int) Math.min(run.chunkSize, run.loanCount - first);
+            long[] loanAmountsInCent = new long[count];
+            double[] debitInterests = new double[count];
+            double[] initialRepayments = new double[count];
+            int[] durationsInMonths = new int[count];
+            readLoans(run, first, count, loanAmountsInCent, debitInterests, initialRepayments, durationsInMonths);
+            long[] summaries = new long[count * 3];
+            if (calculation.isFixedPoint()) {
+                for (int index = 0; index < count; index++) {
+                    calculation.computeSummaries(loanAmountsInCent[index], debitInterests[index], initialRepayments[index], new int[]{durationsInMonths[index]}, summaries, index * 3);
+                }
+            } else {
+                new AmortizationKernel(AmortizationKernel.DEFAULT_LANES).computeSummaries(count, loanAmountsInCent, debitInterests, initialRepayments, durationsInMonths, summaries);
+            }
+            writeChunk(run, chunk, first, summaries);
+            if (run.completedChunks.incrementAndGet() == run.chunkCount && run.complete(now())) {
+                writeState(run);
+            }
+        } catch (IOException | RuntimeException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                return; // shut down, the chunk is calculated again by the next start
+            }
+            LOGGER.error("chunk {} of portfolio job {} failed", chunk, run.id, e);
+            run.fail("chunk " + chunk + ": " + e, now());
+            try {
+                writeState(run);
+            } catch (IOException stateError) {
+                LOGGER.error("state of portfolio job {} could not be written", run.id, stateError);
+            }
+        }
+    }
+
+    private static void readLoans(final JobRun run, final long first, final int count, final long[] loanAmountsInCent, final double[] debitInterests,
+                                  final double[] initialRepayments, final int[] durationsInMonths) throws IOException {
+        ByteBuffer records = ByteBuffer.allocate(count * PortfolioLoanFile.RECORD_SIZE);
+        try (FileChannel channel = FileChannel.open(run.directory.resolve(LOANS_FILE), StandardOpenOption.READ)) {
+            long position = PortfolioLoanFile.HEADER_SIZE + first * PortfolioLoanFile.RECORD_SIZE;
+            while (records.hasRemaining()) {
+                if (channel.read(records, position + records.position()) < 0) {
+                    throw new IOException("loan file of job " + run.id + " is truncated");
+                }
+            }
+        }
+        records.flip();
+        for (int index = 0; index < count; index++) {
+            loanAmountsInCent[index] = records.getLong();
+            debitInterests[index] = records.getDouble();
+            initialRepayments[index] = records.getDouble();
+            durationsInMonths[index] = records.getInt() * 12;
+            records.getInt(); // padding
+        }
+    }
+
+    private static void writeChunk(final JobRun run, final int chunk, final long first, final long[] summaries) throws IOException {
+        Path file = chunkFile(run, chunk);
+        Path temporary = file.resolveSibling(file.getFileName() + TEMPORARY_SUFFIX);
+        try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.US_ASCII)) {
+            StringBuilder line = new StringBuilder(64);
+            for (int index = 0; index < summaries.length / 3; index++) {
+                line.append(first + index).append(',').append(summaries[index * 3]).append(',').append(summaries[index * 3 + 1]).append(',')
+                        .append(summaries[index * 3 + 2]).append('\n');
+                writer.append(line);
+                line.setLength(0);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static Path chunkFile(final JobRun run, final int chunk) {
+        return run.directory.resolve(String.format("%s%06d%s", CHUNK_PREFIX, chunk, CHUNK_SUFFIX));
+    }
+
+    /**
+     * Writes the current state of given job. The job is locked while its state is written, so concurrent writes of the same job do not share the temporary file
+     * and the last state set is the last state written.
+     */
+    private static void writeState(final JobRun run) throws IOException {
+        synchronized (run) {
+            Properties properties = new Properties();
+            properties.setProperty("id", run.id);
+            properties.setProperty("loanCount", String.valueOf(run.loanCount));
+            properties.setProperty("chunkSize", String.valueOf(run.chunkSize));
+            properties.setProperty("chunkCount", String.valueOf(run.chunkCount));
+            properties.setProperty("mode", run.mode);
+            properties.setProperty("state", run.state == PortfolioJob.State.RUNNING ? PortfolioJob.State.QUEUED.name() : run.state.name());
+            properties.setProperty("finishedAt", String.valueOf(run.finishedAt));
+            if (run.error != null) {
+                properties.setProperty("error", run.error);
+            }
+            Path file = run.directory.resolve(STATE_FILE);
+            Path temporary = run.directory.resolve(STATE_FILE + TEMPORARY_SUFFIX);
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                properties.store(out, "portfolio job");
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static JobRun readState(final Path jobDirectory, final Path stateFile) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(stateFile)) {
+            properties.load(in);
+        }
+        JobRun run = new JobRun(properties.getProperty("id"), jobDirectory, Integer.parseInt(properties.getProperty("chunkSize")),
+                properties.getProperty("mode", ScheduleCalculation.DOUBLE_MODE)); // jobs written before the fixed-point mode
+        run.prepared(Long.parseLong(properties.getProperty("loanCount")), Integer.parseInt(properties.getProperty("chunkCount")), 0);
+        run.state = PortfolioJob.State.valueOf(properties.getProperty("state"));
+        run.error = properties.getProperty("error");
+        String finishedAt = properties.getProperty("finishedAt"); // jobs written before the retention finished with their state file
+        run.finishedAt = finishedAt != null ? Long.parseLong(finishedAt) : Files.getLastModifiedTime(stateFile).toMillis();
+        int completedChunks = 0;
+        for (int chunk = 0; chunk < run.chunkCount; chunk++) {
+            if (Files.exists(chunkFile(run, chunk))) {
+                completedChunks++;
+            }
+        }
+        run.completedChunks.set(completedChunks);
+        return run;
+    }
+
+    private static void deleteJobDirectory(final Path jobDirectory) {
+        try (Stream<Path> files = Files.walk(jobDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        } catch (IOException e) {
+            LOGGER.warn("directory of portfolio job {} could not be deleted", jobDirectory, e);
+        }
+    }
+
+    /**
+     * Progress of one job, shared by the workers of its chunks.
+     */
+    private final static class JobRun {
+
+        private final String id;
+        private final Path directory;
+        private final int chunkSize;
+        private volatile String mode;
+        private final AtomicInteger completedChunks = new AtomicInteger();
+        private volatile long loanCount;
+        private volatile int chunkCount;
+        private volatile PortfolioJob.State state;
+        private volatile String error;
+        private volatile long finishedAt;
+
+        JobRun(final String id, final Path directory, final int chunkSize, final String mode) {
+            this.id = id;
+            this.directory = directory;
+            this.chunkSize = chunkSize;
+            this.mode = mode;
+        }
+
+        /**
+         * Sets the number of loans and chunks once the upload is converted and marks the job as queued, or as completed at given time if it has no loans.
+         * The state of a job read from its state file is set afterwards.
+         */
+        synchronized void prepared(final long loanCount, final int chunkCount, final long now) {
+            this.loanCount = loanCount;
+            this.chunkCount = chunkCount;
+            state = chunkCount == 0 ? PortfolioJob.State.COMPLETED : PortfolioJob.State.QUEUED;
+            finishedAt = chunkCount == 0 ? now : 0;
+        }
+
+        /**
+         * Marks the job as running when a chunk starts.
+         *
+         * @return false if the job has failed and the chunk must not be calculated
+         */
+        synchronized boolean start() {
+            if (state == PortfolioJob.State.FAILED) {
+                return false;
+            }
+            if (state == PortfolioJob.State.QUEUED) {
+                state = PortfolioJob.State.RUNNING;
+            }
+            return true;
+        }
+
+        /**
+         * Marks the job as completed after its last chunk.
+         *
+         * @return false if the job has failed meanwhile and keeps its error
+         */
+        synchronized boolean complete(final long now) {
+            if (state == PortfolioJob.State.FAILED) {
+                return false;
+            }
+            state = PortfolioJob.State.COMPLETED;
+            finishedAt = now;
+            return true;
+        }
+
+        synchronized void fail(final String message, final long now) {
+            error = message;
+            state = PortfolioJob.State.FAILED;
+            finishedAt = now;
+        }
+
+        boolean isFinished() {
+            return state == PortfolioJob.State.COMPLETED || state == PortfolioJob.State.FAILED;
+        }
+
+        PortfolioJob toJob() {
+            PortfolioJob job = new PortfolioJob();
+            job.setId(id);
+            job.setState(state);
+            job.setLoanCount(loanCount);
+            job.setChunkSize(chunkSize);
+            job.setChunkCount(chunkCount);
+            job.setCompletedChunks(completedChunks.get());
+            job.setError(error);
+            return job;
+        }
+    }
+}
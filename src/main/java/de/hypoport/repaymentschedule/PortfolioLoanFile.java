@@ -0,0 +1,116 @@
+package de.hypoport.repaymentschedule;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Describes the compact binary file format for loan portfolios and writes such files. All values are big endian.
+ * The file starts with a header of {@link #HEADER_SIZE} bytes: magic number, version and number of loans. Each loan is a record of {@link #RECORD_SIZE} bytes:
+ * loan amount in cent (long), debit interest in percentage (double), initial repayment in percentage (double), duration in years (int) and 4 bytes padding.
+ */
+public final class PortfolioLoanFile {
+
+    /**
+     * Magic number at the start of a binary loan file, "RSLF".
+     */
+    public final static int MAGIC = 0x52534C46;
+    /**
+     * Current version of the format.
+     */
+    public final static int VERSION = 1;
+    /**
+     * Size of the header in bytes.
+     */
+    public final static int HEADER_SIZE = 16;
+    /**
+     * Size of one loan record in bytes.
+     */
+    public final static int RECORD_SIZE = 32;
+
+    private PortfolioLoanFile() {
+    }
+
+    /**
+     * Writes given loans as binary loan file.
+     *
+     * @param file                    target file, will be replaced
+     * @param allRepaymentInformation valid loans
+     * @throws IOException if the file could not be written
+     */
+    public static void write(final Path file, final Iterable<RepaymentInformation> allRepaymentInformation) throws IOException {
+        long count = 0;
+        for (RepaymentInformation ignored : allRepaymentInformation) {
+            count++;
+        }
+        try (OutputStream out = Files.newOutputStream(file);
+             DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16))) {
+            writeHeader(data, count);
+            for (RepaymentInformation repaymentInformation : allRepaymentInformation) {
+                writeRecord(data, repaymentInformation);
+            }
+        }
+    }
+
+    /**
+     * Writes the header of a binary loan file.
+     *
+     * @param data  target stream at the start of the file
+     * @param count number of loans
+     * @throws IOException if the header could not be written
+     */
+    static void writeHeader(final DataOutputStream data, final long count) throws IOException {
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeLong(count);
+    }
+
+    /**
+     * Writes the record of one loan.
+     *
+     * @param data                 target stream
+     * @param repaymentInformation valid loan
+     * @throws IOException if the record could not be written
+     */
+    static void writeRecord(final DataOutputStream data, final RepaymentInformation repaymentInformation) throws IOException {
+        writeRecord(data, repaymentInformation, repaymentInformation.getLoanAmountInCent());
+    }
+
+    /**
+     * Writes the record of one loan with given loan amount in cent, e.g. rounded for the fixed-point calculation.
+     *
+     * @param data                 target stream
+     * @param repaymentInformation valid loan
+     * @param loanAmountInCent     loan amount in cent
+     * @throws IOException if the record could not be written
+     */
+    static void writeRecord(final DataOutputStream data, final RepaymentInformation repaymentInformation, final long loanAmountInCent) throws IOException {
+        data.writeLong(loanAmountInCent);
+        data.writeDouble(repaymentInformation.getDebitInterestInPercentage());
+        data.writeDouble(repaymentInformation.getInitialRepaymentInPercentage());
+        data.writeInt(repaymentInformation.getDurationInYears());
+        data.writeInt(0);
+    }
+
+    /**
+     * Replaces the number of loans in the header of a written file, for files whose loans are not known in advance.
+     *
+     * @param file  binary loan file
+     * @param count number of loans
+     * @throws IOException if the header could not be written
+     */
+    static void writeLoanCount(final Path file, final long count) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(0, count);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, 8 + buffer.position());
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package de.hypoport.repaymentschedule;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Symbolizes a change of the repayment in one month of a repayment schedule: a special repayment on top of the annuity rate, a new debit interests or both.
+ * The month is the index of the regular rate like in {@link RepaymentSchedule#getAllMonthlyEntries()}, 1 is the first regular rate.
+ * A new debit interests is used from the interests of the given rate on, the annuity rate stays the same.
+ */
+public class RepaymentEvent {
+
+    @Min(1)
+    @NotNull
+    private Integer month;
+    @Min(0)
+    private Double specialRepayment;
+    private Double debitInterestInPercentage;
+
+    /**
+     * Creates an empty event.
+     */
+    public RepaymentEvent() {
+    }
+
+    /**
+     * Creates an event with given values.
+     *
+     * @param month                     index of the regular rate
+     * @param specialRepayment          special repayment in euro, null for none
+     * @param debitInterestInPercentage new debit interests in percentage, null to keep the debit interests
+     */
+    public RepaymentEvent(final Integer month, final Double specialRepayment, final Double debitInterestInPercentage) {
+        this.month = month;
+        this.specialRepayment = specialRepayment;
+        this.debitInterestInPercentage = debitInterestInPercentage;
+    }
+
+    /**
+     * Returns the index of the regular rate.
+     *
+     * @return index of the rate, 1 is the first regular rate
+     */
+    public Integer getMonth() {
+        return month;
+    }
+
+    /**
+     * Sets the index of the regular rate.
+     *
+     * @param month index of the rate, 1 is the first regular rate
+     */
+    public void setMonth(final Integer month) {
+        this.month = month;
+    }
+
+    /**
+     * Returns the special repayment in euro.
+     *
+     * @return special repayment in euro, null for none
+     */
+    public Double getSpecialRepayment() {
+        return specialRepayment;
+    }
+
+    /**
+     * Sets the special repayment in euro.
+     *
+     * @param specialRepayment special repayment in euro, null for none
+     */
+    public void setSpecialRepayment(final Double specialRepayment) {
+        this.specialRepayment = specialRepayment;
+    }
+
+    /**
+     * Returns the new debit interests in percentage.
+     *
+     * @return debit interests in percentage, null to keep the debit interests
+     */
+    public Double getDebitInterestInPercentage() {
+        return debitInterestInPercentage;
+    }
+
+    /**
+     * Sets the new debit interests in percentage.
+     *
+     * @param debitInterestInPercentage debit interests in percentage, null to keep the debit interests
+     */
+    public void setDebitInterestInPercentage(final Double debitInterestInPercentage) {
+        this.debitInterestInPercentage = debitInterestInPercentage;
+    }
+
+    /**
+     * Returns the special repayment in cent, truncated like {@link RepaymentInformation#getLoanAmountInCent()}.
+     *
+     * @return special repayment in cent, 0 for none
+     */
+    public long getSpecialRepaymentInCent() {
+        return specialRepayment == null ? 0 : (long) (specialRepayment * 100);
+    }
+}
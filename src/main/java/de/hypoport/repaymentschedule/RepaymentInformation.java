@@ -1,8 +1,11 @@
 package de.hypoport.repaymentschedule;
 
+import javax.validation.Valid;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Symbolizes a request object with all parameters to calculate a repayment schedule. Stores all user parameters for the repayment schedule.
@@ -22,6 +25,9 @@ public class RepaymentInformation {
     @Max(60)
     @NotNull
     private Integer durationInYears;
+    @Valid
+    @NotNull
+    private List<RepaymentEvent> events = new ArrayList<>();
 
     /**
      * Returns the full loan amount in euro.
@@ -96,7 +102,26 @@ public class RepaymentInformation {
     }
 
     /**
-     * Returns the loan amount in cent.
+     * Returns the special repayments and changes of the debit interests during the duration.
+     *
+     * @return events in any order
+     */
+    public List<RepaymentEvent> getEvents() {
+        return events;
+    }
+
+    /**
+     * Sets the special repayments and changes of the debit interests during the duration.
+     *
+     * @param events events in any order
+     */
+    public void setEvents(final List<RepaymentEvent> events) {
+        this.events = events;
+    }
+
+    /**
+     * Returns the loan amount in cent, truncated like the double calculation always did, so its rates and the stored input hashes stay the same.
+     * The fixed-point calculation rounds instead, see {@link FixedPointRepaymentCalculator#toCent(double)}.
      *
      * @return loan amount in cent
      */
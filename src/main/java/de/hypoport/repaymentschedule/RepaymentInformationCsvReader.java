@@ -0,0 +1,73 @@
+package de.hypoport.repaymentschedule;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads {@link RepaymentInformation} from csv input. Each line contains loan amount, debit interest in percentage, initial repayment in percentage and duration in years separated by comma.
+ * Empty lines, lines starting with '#' and a header line are skipped.
+ */
+public final class RepaymentInformationCsvReader {
+
+    private RepaymentInformationCsvReader() {
+    }
+
+    /**
+     * Reads all repayment information of given csv input.
+     *
+     * @param in csv input
+     * @return repayment information in input order
+     * @throws IOException              if the input could not be read
+     * @throws IllegalArgumentException if a line could not be parsed
+     */
+    public static List<RepaymentInformation> read(final InputStream in) throws IOException {
+        List<RepaymentInformation> allRepaymentInformation = new ArrayList<>();
+        forEach(in, allRepaymentInformation::add);
+        return allRepaymentInformation;
+    }
+
+    /**
+     * Reads the repayment information of given csv input one by one, so large inputs are not kept in memory.
+     *
+     * @param in     csv input
+     * @param action receives each repayment information in input order
+     * @throws IOException              if the input could not be read
+     * @throws IllegalArgumentException if a line could not be parsed
+     */
+    public static void forEach(final InputStream in, final Consumer<? super RepaymentInformation> action) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#") || (lineNumber == 1 && Character.isLetter(trimmed.charAt(0)))) {
+                continue;
+            }
+            action.accept(parseLine(trimmed, lineNumber));
+        }
+    }
+
+    private static RepaymentInformation parseLine(final String line, final int lineNumber) {
+        String[] values = line.split(",");
+        if (values.length != 4) {
+            throw new IllegalArgumentException("line " + lineNumber + ": expected 4 values but was " + values.length);
+        }
+        try {
+            RepaymentInformation repaymentInformation = new RepaymentInformation();
+            repaymentInformation.setLoanAmount(Double.valueOf(values[0].trim()));
+            repaymentInformation.setDebitInterestInPercentage(Double.valueOf(values[1].trim()));
+            repaymentInformation.setInitialRepaymentInPercentage(Double.valueOf(values[2].trim()));
+            repaymentInformation.setDurationInYears(Integer.valueOf(values[3].trim()));
+            return repaymentInformation;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("line " + lineNumber + ": " + e.getMessage(), e);
+        }
+    }
+}
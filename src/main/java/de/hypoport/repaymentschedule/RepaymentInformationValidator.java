@@ -0,0 +1,72 @@
+package de.hypoport.repaymentschedule;
+
+import org.springframework.stereotype.Component;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Validates {@link RepaymentInformation} outside of the form binding, e.g. for json and file inputs. Checks the bean validation constraints, the currency value of the loan amount
+ * and that all events are within the duration.
+ */
+@Component
+public class RepaymentInformationValidator {
+
+    private final Validator validator;
+
+    /**
+     * Creates the validator.
+     *
+     * @param validator bean validator
+     */
+    public RepaymentInformationValidator(final Validator validator) {
+        this.validator = validator;
+    }
+
+    /**
+     * Validates given repayment information.
+     *
+     * @param repaymentInformation to check repayment information
+     * @return sorted validation errors, empty if the repayment information is valid
+     */
+    public List<String> validate(final RepaymentInformation repaymentInformation) {
+        return validateExcept(repaymentInformation, null);
+    }
+
+    /**
+     * Validates given repayment information without one property, e.g. the property which is solved by the {@link RepaymentSolver}.
+     *
+     * @param repaymentInformation to check repayment information
+     * @param ignoredProperty      name of the property which is not checked, null checks all properties
+     * @return sorted validation errors, empty if the repayment information is valid
+     */
+    public List<String> validateExcept(final RepaymentInformation repaymentInformation, final String ignoredProperty) {
+        if (repaymentInformation == null) {
+            return Collections.singletonList("repayment information is missing");
+        }
+        List<String> errors = new ArrayList<>();
+        for (ConstraintViolation<RepaymentInformation> violation : validator.validate(repaymentInformation)) {
+            if (!violation.getPropertyPath().toString().equals(ignoredProperty)) {
+                errors.add(violation.getPropertyPath() + ": " + violation.getMessage());
+            }
+        }
+        if (errors.isEmpty() && RepaymentScheduleController.isInvalidCurrencyValue(repaymentInformation.getLoanAmount())) {
+            errors.add("loanAmount: invalid currency value");
+        }
+        if (errors.isEmpty() && repaymentInformation.getDurationInYears() != null) {
+            List<RepaymentEvent> events = repaymentInformation.getEvents();
+            for (int index = 0; index < events.size(); index++) {
+                if (events.get(index) == null) {
+                    errors.add("events[" + index + "]: must not be null");
+                } else if (events.get(index).getMonth() > repaymentInformation.getDurationInYears() * 12) {
+                    errors.add("events[" + index + "].month: must be within the duration");
+                }
+            }
+        }
+        Collections.sort(errors);
+        return errors;
+    }
+}
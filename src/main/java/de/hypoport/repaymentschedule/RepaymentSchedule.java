@@ -1,33 +1,262 @@
 package de.hypoport.repaymentschedule;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
 
 /**
  * Represents a repayment plan. It contains all rates for the given duration.
+ * The rates are stored column by column in primitive arrays which are ordered by date. {@link MonthlyEntry} objects are only read-only views on these columns.
+ * Every twelve regular rates the accumulated values are kept as checkpoint, so a changed schedule can be recalculated from the last checkpoint before the change,
+ * see {@link RepaymentScheduleCalculator#recomputeRepaymentSchedule(RepaymentSchedule, RepaymentInformation, RepaymentInformation)}.
+ * <p>
+ * A schedule cannot be changed after its construction, so the instances of the {@link RepaymentScheduleCache} are shared between requests.
  */
 public class RepaymentSchedule {
 
-    private int duration;
-    private List<MonthlyEntry> allMonthlyEntries;
+    /**
+     * Number of regular rates between two checkpoints.
+     */
+    final static int CHECKPOINT_MONTHS = 12;
+
+    private final int duration;
+    private final int[] epochMonths;
+    private final long[] remainingLoansInCent;
+    private final long[] interestsInCent;
+    private final long[] repaymentsInCent;
+    private final long[] annuityRatesInCent;
+    private volatile long[] checkpoints;
+
+    /**
+     * Creates an empty repayment schedule.
+     */
+    public RepaymentSchedule() {
+        this(0, new int[0], new long[0], new long[0], new long[0], new long[0]);
+    }
 
     /**
-     * Returns all rates as ordered list by date.
+     * Creates a repayment schedule of given columns. All columns must have the same length, the values at the same index belong to the same rate.
+     * The columns will be ordered by date if they are not ordered yet. The arrays are taken over without copy, so only the calculation and decoding paths of this package
+     * create schedules this way and must not change the arrays afterwards.
+     *
+     * @param duration             duration in years
+     * @param epochMonths          months of the rates, see {@link EpochMonths}
+     * @param remainingLoansInCent remaining loans in cent
+     * @param interestsInCent      interests in cent
+     * @param repaymentsInCent     repayments in cent
+     * @param annuityRatesInCent   annuity rates in cent
+     */
+    RepaymentSchedule(final int duration, final int[] epochMonths, final long[] remainingLoansInCent, final long[] interestsInCent,
+                      final long[] repaymentsInCent, final long[] annuityRatesInCent) {
+        int size = epochMonths.length;
+        if (remainingLoansInCent.length != size || interestsInCent.length != size || repaymentsInCent.length != size || annuityRatesInCent.length != size) {
+            throw new IllegalArgumentException("all columns must have the same length");
+        }
+        int[] order = dateOrder(epochMonths);
+        this.duration = duration;
+        this.epochMonths = order == null ? epochMonths : reorder(epochMonths, order);
+        this.remainingLoansInCent = order == null ? remainingLoansInCent : reorder(remainingLoansInCent, order);
+        this.interestsInCent = order == null ? interestsInCent : reorder(interestsInCent, order);
+        this.repaymentsInCent = order == null ? repaymentsInCent : reorder(repaymentsInCent, order);
+        this.annuityRatesInCent = order == null ? annuityRatesInCent : reorder(annuityRatesInCent, order);
+    }
+
+    /**
+     * Creates a repayment schedule of given rates. The values will be copied and ordered by date.
+     *
+     * @param duration          duration in years
+     * @param allMonthlyEntries all repayment rates
+     * @return repayment schedule with the values of the rates
+     */
+    static RepaymentSchedule fromMonthlyEntries(final int duration, final List<MonthlyEntry> allMonthlyEntries) {
+        int size = allMonthlyEntries.size();
+        int[] epochMonths = new int[size];
+        long[] remainingLoansInCent = new long[size];
+        long[] interestsInCent = new long[size];
+        long[] repaymentsInCent = new long[size];
+        long[] annuityRatesInCent = new long[size];
+        for (int index = 0; index < size; index++) {
+            MonthlyEntry entry = allMonthlyEntries.get(index);
+            epochMonths[index] = EpochMonths.toEpochMonth(YearMonth.from(entry.getDate()));
+            remainingLoansInCent[index] = entry.getRemainingLoanInCent();
+            interestsInCent[index] = entry.getInterestsInCent();
+            repaymentsInCent[index] = entry.getRepaymentInCent();
+            annuityRatesInCent[index] = entry.getAnnuityRateInCent();
+        }
+        return new RepaymentSchedule(duration, epochMonths, remainingLoansInCent, interestsInCent, repaymentsInCent, annuityRatesInCent);
+    }
+
+    /**
+     * Returns the number of rates.
+     *
+     * @return number of rates
+     */
+    public int size() {
+        return epochMonths.length;
+    }
+
+    /**
+     * Returns the month of the rate at given index.
+     *
+     * @param index index of the rate
+     * @return epoch month, see {@link EpochMonths}
+     */
+    public int getEpochMonth(final int index) {
+        return epochMonths[index];
+    }
+
+    /**
+     * Returns the repayment date of the rate at given index.
+     *
+     * @param index index of the rate
+     * @return repayment date
+     */
+    public LocalDate getDate(final int index) {
+        return EpochMonths.atEndOfMonth(epochMonths[index]);
+    }
+
+    /**
+     * Returns the full remaining loan in cent of the rate at given index.
+     *
+     * @param index index of the rate
+     * @return full remaining loan
+     */
+    public long getRemainingLoanInCent(final int index) {
+        return remainingLoansInCent[index];
+    }
+
+    /**
+     * Returns the interests portion in cent of the rate at given index.
+     *
+     * @param index index of the rate
+     * @return interests in cent
+     */
+    public long getInterestsInCent(final int index) {
+        return interestsInCent[index];
+    }
+
+    /**
+     * Returns the repayment portion in cent of the rate at given index.
+     *
+     * @param index index of the rate
+     * @return repayment in cent
+     */
+    public long getRepaymentInCent(final int index) {
+        return repaymentsInCent[index];
+    }
+
+    /**
+     * Returns the annuity rate in cent of the rate at given index.
+     *
+     * @param index index of the rate
+     * @return annuity rate in cent
+     */
+    public long getAnnuityRateInCent(final int index) {
+        return annuityRatesInCent[index];
+    }
+
+    /**
+     * Returns a copy of this schedule whose rates are moved by given number of months. The values are shared with this schedule, only the months are copied.
+     *
+     * @param months number of months to move, negative moves into the past
+     * @return moved repayment schedule
+     */
+    public RepaymentSchedule shiftMonths(final int months) {
+        int[] shiftedMonths = new int[epochMonths.length];
+        for (int index = 0; index < epochMonths.length; index++) {
+            shiftedMonths[index] = epochMonths[index] + months;
+        }
+        RepaymentSchedule shifted = new RepaymentSchedule(duration, shiftedMonths, remainingLoansInCent, interestsInCent, repaymentsInCent, annuityRatesInCent);
+        shifted.checkpoints = checkpoints;
+        return shifted;
+    }
+
+    /**
+     * Returns the accumulated values of the regular rates up to the rate at index checkpoint * {@link #CHECKPOINT_MONTHS}. Together with the remaining loan of that rate
+     * they are the state from which the following rates can be calculated. Checkpoint 0 is the full payment, before any regular rate.
+     * The checkpoints are recorded while the schedule is calculated, otherwise they are computed once on first use.
+     *
+     * @param checkpoint number of the checkpoint
+     * @return accumulated annuity rates, interests and repayments in cent
+     * @throws IndexOutOfBoundsException if the schedule has no such checkpoint
+     */
+    long[] getCheckpoint(final int checkpoint) {
+        long[] allCheckpoints = checkpoints;
+        if (allCheckpoints == null) {
+            allCheckpoints = computeCheckpoints();
+            checkpoints = allCheckpoints;
+        }
+        if (checkpoint < 0 || checkpoint >= allCheckpoints.length / 3) {
+            throw new IndexOutOfBoundsException("Checkpoint: " + checkpoint + ", Checkpoints: " + allCheckpoints.length / 3);
+        }
+        return Arrays.copyOfRange(allCheckpoints, checkpoint * 3, checkpoint * 3 + 3);
+    }
+
+    /**
+     * Takes over the checkpoints recorded while calculating the rates of this schedule.
+     *
+     * @param checkpoints three accumulated values per checkpoint, see {@link #getCheckpoint(int)}
+     */
+    void setCheckpoints(final long[] checkpoints) {
+        this.checkpoints = checkpoints;
+    }
+
+    /**
+     * Returns the number of checkpoints of a schedule with given number of rates, including the full payment and the accumulated values.
+     *
+     * @param size number of rates
+     * @return number of checkpoints
+     */
+    static int checkpointCount(final int size) {
+        return Math.max(size - 2, 0) / CHECKPOINT_MONTHS + 1;
+    }
+
+    private long[] computeCheckpoints() {
+        long[] allCheckpoints = new long[checkpointCount(size()) * 3];
+        long accumulatedAnnuity = 0;
+        long accumulatedInterests = 0;
+        long accumulatedRepayment = 0;
+        for (int index = 1; index < size() - 1; index++) {
+            accumulatedAnnuity += annuityRatesInCent[index];
+            accumulatedInterests += interestsInCent[index];
+            accumulatedRepayment += repaymentsInCent[index];
+            if (index % CHECKPOINT_MONTHS == 0) {
+                int offset = index / CHECKPOINT_MONTHS * 3;
+                allCheckpoints[offset] = accumulatedAnnuity;
+                allCheckpoints[offset + 1] = accumulatedInterests;
+                allCheckpoints[offset + 2] = accumulatedRepayment;
+            }
+        }
+        return allCheckpoints;
+    }
+
+    /**
+     * Returns all rates as ordered list by date. The list is a read-only view, no values will be copied, but each call of {@link List#get(int)} and each step
+     * of its iterator allocates a new {@link MonthlyEntry} view. Loops over many rates should use {@link #forEachMonthlyEntry(Consumer)} or the column getters
+     * like {@link #getRemainingLoanInCent(int)}, as the page view does.
      *
      * @return ordered list with all rates for this repayment plan
      */
     public List<MonthlyEntry> getAllMonthlyEntries() {
-        return allMonthlyEntries.stream().sorted(Comparator.comparing(MonthlyEntry::getDate)).collect(Collectors.toList());
+        return new MonthlyEntryList();
     }
 
     /**
-     * Sets all rates for this repayment plan.
+     * Passes all rates ordered by date to given action. The same {@link MonthlyEntry} instance is reused for every rate, so it must not be stored by the action.
      *
-     * @param allMonthlyEntries all repayment rates
+     * @param action action for each rate
      */
-    public void setAllMonthlyEntries(final List<MonthlyEntry> allMonthlyEntries) {
-        this.allMonthlyEntries = allMonthlyEntries;
+    public void forEachMonthlyEntry(final Consumer<? super MonthlyEntry> action) {
+        MonthlyEntryView flyweight = new MonthlyEntryView(0);
+        for (int index = 0; index < size(); index++) {
+            flyweight.index = index;
+            action.accept(flyweight);
+        }
     }
 
     /**
@@ -40,11 +269,116 @@ public class RepaymentSchedule {
     }
 
     /**
-     * Sets the duration in years.
-     *
-     * @param duration duration in years
+     * Returns the stable order of the indices by month, or null if the months are already ordered.
      */
-    public void setDuration(final int duration) {
-        this.duration = duration;
+    private static int[] dateOrder(final int[] epochMonths) {
+        for (int index = 1; index < epochMonths.length; index++) {
+            if (epochMonths[index - 1] > epochMonths[index]) {
+                Integer[] order = new Integer[epochMonths.length];
+                for (int position = 0; position < order.length; position++) {
+                    order[position] = position;
+                }
+                Arrays.sort(order, Comparator.comparingInt(position -> epochMonths[position])); // stable, equal months keep their order
+                return Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+            }
+        }
+        return null;
+    }
+
+    private static int[] reorder(final int[] column, final int[] order) {
+        int[] sorted = new int[column.length];
+        for (int index = 0; index < order.length; index++) {
+            sorted[index] = column[order[index]];
+        }
+        return sorted;
+    }
+
+    private static long[] reorder(final long[] column, final int[] order) {
+        long[] sorted = new long[column.length];
+        for (int index = 0; index < order.length; index++) {
+            sorted[index] = column[order[index]];
+        }
+        return sorted;
+    }
+
+    /**
+     * Read-only list of all rates. Each element is a new view on the columns of this schedule, so the elements can be kept by the caller.
+     */
+    private class MonthlyEntryList extends AbstractList<MonthlyEntry> implements RandomAccess {
+
+        @Override
+        public MonthlyEntry get(final int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            return new MonthlyEntryView(index);
+        }
+
+        @Override
+        public int size() {
+            return RepaymentSchedule.this.size();
+        }
+    }
+
+    /**
+     * Read-only {@link MonthlyEntry} which reads its values from the columns of this schedule.
+     */
+    private class MonthlyEntryView extends MonthlyEntry {
+
+        private int index;
+
+        private MonthlyEntryView(final int index) {
+            this.index = index;
+        }
+
+        @Override
+        public long getRemainingLoanInCent() {
+            return remainingLoansInCent[index];
+        }
+
+        @Override
+        public void setRemainingLoanInCent(final long remainingLoanInCent) {
+            throw new UnsupportedOperationException("monthly entry of a repayment schedule is read-only");
+        }
+
+        @Override
+        public LocalDate getDate() {
+            return RepaymentSchedule.this.getDate(index);
+        }
+
+        @Override
+        public void setDate(final LocalDate date) {
+            throw new UnsupportedOperationException("monthly entry of a repayment schedule is read-only");
+        }
+
+        @Override
+        public long getInterestsInCent() {
+            return interestsInCent[index];
+        }
+
+        @Override
+        public void setInterestsInCent(final long interestsInCent) {
+            throw new UnsupportedOperationException("monthly entry of a repayment schedule is read-only");
+        }
+
+        @Override
+        public long getRepaymentInCent() {
+            return repaymentsInCent[index];
+        }
+
+        @Override
+        public void setRepaymentInCent(final long repaymentInCent) {
+            throw new UnsupportedOperationException("monthly entry of a repayment schedule is read-only");
+        }
+
+        @Override
+        public long getAnnuityRateInCent() {
+            return annuityRatesInCent[index];
+        }
+
+        @Override
+        public void setAnnuityRateInCent(final long annuityRate) {
+            throw new UnsupportedOperationException("monthly entry of a repayment schedule is read-only");
+        }
     }
 }
@@ -0,0 +1,183 @@
+package de.hypoport.repaymentschedule;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.Errors;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.validation.Valid;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controller which handles json requests for machine clients.
+ */
+@RestController
+@RequestMapping("/api/repaymentSchedules")
+public class RepaymentScheduleApiController {
+
+    private final static int MAX_PAGE_SIZE = 60 * 12;
+
+    private final RepaymentScheduleBatchService batchService;
+    private final RepaymentScheduleCache scheduleCache;
+    private final ScenarioGridService gridService;
+    private final ScheduleStore scheduleStore;
+    private final RepaymentInformationValidator validator;
+    private final ScheduleCalculation calculation;
+
+    /**
+     * Creates the controller.
+     *
+     * @param batchService  calculates batches of repayment schedules
+     * @param scheduleCache caches the calculated repayment schedules
+     * @param gridService   calculates scenario grids
+     * @param scheduleStore contains the issued repayment schedules
+     * @param validator     validates changed repayment information
+     * @param calculation   recalculates changed schedules in the configured mode
+     */
+    public RepaymentScheduleApiController(final RepaymentScheduleBatchService batchService, final RepaymentScheduleCache scheduleCache,
+                                          final ScenarioGridService gridService, final ScheduleStore scheduleStore, final RepaymentInformationValidator validator,
+                                          final ScheduleCalculation calculation) {
+        this.batchService = batchService;
+        this.scheduleCache = scheduleCache;
+        this.gridService = gridService;
+        this.scheduleStore = scheduleStore;
+        this.validator = validator;
+        this.calculation = calculation;
+    }
+
+    /**
+     * Handle post request for base path + "/api/repaymentSchedules/batch". Each repayment information will be validated and calculated on its own.
+     *
+     * @param allRepaymentInformation given parameters for calculation
+     * @param summaryOnly             if true only the summaries will be returned instead of the full schedules, each still calculated month by month
+     * @return one result for each repayment information in the same order
+     */
+    @PostMapping("/batch")
+    public List<BatchItemResult> createRepaymentSchedules(@RequestBody final List<RepaymentInformation> allRepaymentInformation,
+                                                          @RequestParam(defaultValue = "false") final boolean summaryOnly) {
+        if (allRepaymentInformation.size() > batchService.getMaxBatchSize()) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "at most " + batchService.getMaxBatchSize() + " repayment information per batch");
+        }
+        return batchService.computeAll(allRepaymentInformation, summaryOnly);
+    }
+
+    /**
+     * Handle post request for base path + "/api/repaymentSchedules/grid". Streams the summary metrics of each combination of the given parameter ranges.
+     *
+     * @param request loan amount and parameter ranges
+     * @return streamed grid, see {@link ScenarioGridService#writeGrid(ScenarioGrid, java.io.OutputStream)}
+     */
+    @PostMapping("/grid")
+    public ResponseEntity<StreamingResponseBody> createScenarioGrid(@Valid @RequestBody final ScenarioGridRequest request) {
+        ScenarioGrid grid;
+        try {
+            grid = ScenarioGrid.of(request);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        if (grid.getCellCount() > gridService.getMaxCells()) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "at most " + gridService.getMaxCells() + " cells per grid");
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(out -> gridService.writeGrid(grid, out));
+    }
+
+    /**
+     * Handle get request for base path + "/api/repaymentSchedules/page". Returns a page of formatted rates, used by showRepaymentSchedule.html to load further rates.
+     *
+     * @param repaymentInformation with user parameters
+     * @param errors               contains validation errors
+     * @param page                 number of the page, starting with 0
+     * @param size                 number of regular rates per page
+     * @return page of the repayment schedule
+     */
+    @GetMapping("/page")
+    public SchedulePage getRepaymentSchedulePage(@Valid final RepaymentInformation repaymentInformation, final Errors errors,
+                                                 @RequestParam(defaultValue = "0") final int page, @RequestParam(defaultValue = "60") final int size) {
+        if (errors.hasErrors() || RepaymentScheduleController.isInvalidCurrencyValue(repaymentInformation.getLoanAmount())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid repayment information");
+        }
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "page must not be negative and size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return SchedulePage.of(scheduleCache.computeRepaymentSchedule(repaymentInformation), page, size);
+    }
+
+    /**
+     * Handle get request for base path + "/api/repaymentSchedules/stored/{id}". Returns an issued repayment schedule as it was shown to the user.
+     *
+     * @param id id of the stored schedule
+     * @return stored schedule with its repayment information
+     */
+    @GetMapping("/stored/{id}")
+    public StoredSchedule getStoredSchedule(@PathVariable final String id) {
+        return scheduleStore.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "no repayment schedule with id " + id));
+    }
+
+    /**
+     * Handle post request for base path + "/api/repaymentSchedules/stored/{id}/events". Replaces the special repayments and changes of the debit interests of an issued
+     * repayment schedule and saves the changed schedule under a new id. The double calculation only recalculates the rates from the last checkpoint before the first
+     * changed event, the fixed-point calculation the whole schedule, see {@link ScheduleCalculation#recomputeRepaymentSchedule(RepaymentSchedule, RepaymentInformation, RepaymentInformation)}.
+     *
+     * @param id     id of the stored schedule
+     * @param events new events of the schedule
+     * @return changed schedule with its repayment information and new id
+     */
+    @PostMapping("/stored/{id}/events")
+    public StoredSchedule changeStoredScheduleEvents(@PathVariable final String id, @RequestBody final List<RepaymentEvent> events) {
+        StoredSchedule storedSchedule = getStoredSchedule(id);
+        RepaymentInformation previous = storedSchedule.getRepaymentInformation();
+        RepaymentInformation changed = new RepaymentInformation();
+        changed.setLoanAmount(previous.getLoanAmount());
+        changed.setDebitInterestInPercentage(previous.getDebitInterestInPercentage());
+        changed.setInitialRepaymentInPercentage(previous.getInitialRepaymentInPercentage());
+        changed.setDurationInYears(previous.getDurationInYears());
+        changed.setEvents(events);
+        List<String> errors = validator.validate(changed);
+        if (!errors.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.join(", ", errors));
+        }
+        return scheduleStore.save(changed, calculation.recomputeRepaymentSchedule(storedSchedule.getRepaymentSchedule(), previous, changed));
+    }
+
+    /**
+     * Handle get request for base path + "/api/repaymentSchedules/stored". Returns the latest issued repayment schedule of given parameters.
+     *
+     * @param repaymentInformation with user parameters
+     * @param errors               contains validation errors
+     * @return latest stored schedule of the parameters
+     */
+    @GetMapping("/stored")
+    public StoredSchedule getLatestStoredSchedule(@Valid final RepaymentInformation repaymentInformation, final Errors errors) {
+        if (errors.hasErrors()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid repayment information");
+        }
+        return scheduleStore.findLatestByInputHash(ScheduleStore.inputHash(repaymentInformation))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "no repayment schedule for given repayment information"));
+    }
+
+    /**
+     * Handle get request for base path + "/api/repaymentSchedules/cache". Returns the counters of the schedule cache.
+     *
+     * @return hits, misses, evictions and size of the cache
+     */
+    @GetMapping("/cache")
+    public Map<String, Long> getCacheStatistics() {
+        Map<String, Long> statistics = new LinkedHashMap<>();
+        statistics.put("hits", scheduleCache.getHitCount());
+        statistics.put("misses", scheduleCache.getMissCount());
+        statistics.put("evictions", scheduleCache.getEvictionCount());
+        statistics.put("size", scheduleCache.size());
+        return statistics;
+    }
+}
@@ -2,6 +2,9 @@ package de.hypoport.repaymentschedule;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+
+import java.time.Clock;
 
 /**
  * Is the configuration class for the repayment schedule web-application.
@@ -18,4 +21,14 @@ public class RepaymentScheduleApplication {
         SpringApplication.run(RepaymentScheduleApplication.class, args);
     }
 
+    /**
+     * Returns the clock which defines the current month of all calculations, cached schedules and cacheable pages. Tests replace it to move across a month boundary.
+     *
+     * @return system clock in the default time zone
+     */
+    @Bean
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+
 }
@@ -0,0 +1,99 @@
+package de.hypoport.repaymentschedule;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Calculates many repayment schedules in parallel. The calculations run on an own bounded pool, so a large batch does not occupy the request threads.
+ */
+@Service
+public class RepaymentScheduleBatchService {
+
+    private final RepaymentInformationValidator validator;
+    private final RepaymentScheduleCache scheduleCache;
+    private final ForkJoinPool pool;
+    private final int maxBatchSize;
+    private final ScheduleCalculation calculation;
+
+    /**
+     * Creates the service with its own calculation pool.
+     *
+     * @param validator     validator for the repayment information
+     * @param scheduleCache calculates and caches the full repayment schedules
+     * @param parallelism   number of calculation threads, 0 uses the number of available processors
+     * @param maxBatchSize  maximum number of repayment information per batch
+     * @param calculation   calculates the summaries in the configured mode
+     */
+    public RepaymentScheduleBatchService(final RepaymentInformationValidator validator, final RepaymentScheduleCache scheduleCache,
+                                         @Value("${repaymentschedule.batch.parallelism:0}") final int parallelism,
+                                         @Value("${repaymentschedule.batch.max-size:10000}") final int maxBatchSize, final ScheduleCalculation calculation) {
+        this.validator = validator;
+        this.scheduleCache = scheduleCache;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.maxBatchSize = maxBatchSize;
+        this.calculation = calculation;
+    }
+
+    /**
+     * Returns the maximum number of repayment information per batch.
+     *
+     * @return maximum batch size
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Validates and calculates all given repayment information. The results are in the same order as the input.
+     *
+     * @param allRepaymentInformation given parameters for calculation
+     * @param summaryOnly             if true only the summary of each schedule will be returned, which saves the rates but is still calculated month by month
+     * @return one result for each repayment information
+     */
+    public List<BatchItemResult> computeAll(final List<RepaymentInformation> allRepaymentInformation, final boolean summaryOnly) {
+        if (allRepaymentInformation.size() > maxBatchSize) {
+            throw new IllegalArgumentException("batch size " + allRepaymentInformation.size() + " exceeds maximum of " + maxBatchSize);
+        }
+        try {
+            return pool.submit(() -> IntStream.range(0, allRepaymentInformation.size())
+                    .parallel()
+                    .mapToObj(index -> compute(index, allRepaymentInformation.get(index), summaryOnly))
+                    .collect(Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("batch calculation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("batch calculation failed", e.getCause());
+        }
+    }
+
+    private BatchItemResult compute(final int index, final RepaymentInformation repaymentInformation, final boolean summaryOnly) {
+        BatchItemResult result = new BatchItemResult();
+        result.setIndex(index);
+        List<String> errors = validator.validate(repaymentInformation);
+        if (!errors.isEmpty()) {
+            result.setErrors(errors);
+            return result;
+        }
+        if (summaryOnly) {
+            result.setSummary(calculation.computeSummary(repaymentInformation));
+            return result;
+        }
+        RepaymentSchedule schedule = scheduleCache.computeRepaymentSchedule(repaymentInformation);
+        result.setSummary(RepaymentSummary.of(schedule));
+        result.setRepaymentSchedule(schedule);
+        return result;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,146 @@
+package de.hypoport.repaymentschedule;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Caches calculated repayment schedules by their {@link ScheduleCacheKey}. The cache is bounded by the total number of rates of all cached schedules and evicts by W-TinyLFU.
+ * The rates of a schedule do not depend on the current month, only their dates do. So a schedule calculated in an earlier month is moved to the current month on read.
+ * Cached schedules are shared and must not be changed. The schedules are calculated by the {@link ScheduleCalculation} of the configured mode.
+ */
+@Component
+public class RepaymentScheduleCache {
+
+    private final Cache<ScheduleCacheKey, RepaymentSchedule> cache;
+    private final Clock clock;
+    private final Function<RepaymentInformation, RepaymentSchedule> calculation;
+    private final Function<RepaymentInformation, ScheduleCacheKey> keys;
+
+    /**
+     * Creates the cache.
+     *
+     * @param maximumRates maximum number of rates of all cached schedules, 0 disables the cache
+     * @param calculation  calculation of the configured mode, decides the keys as well
+     */
+    @Autowired
+    public RepaymentScheduleCache(@Value("${repaymentschedule.cache.maximum-rates:500000}") final long maximumRates, final ScheduleCalculation calculation) {
+        this(maximumRates, ForkJoinPool.commonPool(), calculation.getClock(), calculation::computeRepaymentSchedule, calculation::key);
+    }
+
+    /**
+     * Creates the cache with given executor for maintenance work like evictions, which calculates by {@link RepaymentScheduleCalculator}.
+     *
+     * @param maximumRates maximum number of rates of all cached schedules, 0 disables the cache
+     * @param executor     executor for maintenance work
+     * @param clock        clock of the current month
+     */
+    RepaymentScheduleCache(final long maximumRates, final Executor executor, final Clock clock) {
+        this(maximumRates, executor, clock, ScheduleCalculation.ofDouble(clock)::computeRepaymentSchedule);
+    }
+
+    /**
+     * Creates the cache with given executor for maintenance work and given calculation.
+     *
+     * @param maximumRates maximum number of rates of all cached schedules, 0 disables the cache
+     * @param executor     executor for maintenance work
+     * @param clock        clock of the current month
+     * @param calculation  calculates a repayment schedule starting in the current month of the clock
+     */
+    RepaymentScheduleCache(final long maximumRates, final Executor executor, final Clock clock, final Function<RepaymentInformation, RepaymentSchedule> calculation) {
+        this(maximumRates, executor, clock, calculation, ScheduleCacheKey::of);
+    }
+
+    /**
+     * Creates the cache with given executor for maintenance work, given calculation and given keys.
+     *
+     * @param maximumRates maximum number of rates of all cached schedules, 0 disables the cache
+     * @param executor     executor for maintenance work
+     * @param clock        clock of the current month
+     * @param calculation  calculates a repayment schedule starting in the current month of the clock
+     * @param keys         creates the key of the repayment information, equal keys must lead to equal results of the calculation
+     */
+    RepaymentScheduleCache(final long maximumRates, final Executor executor, final Clock clock, final Function<RepaymentInformation, RepaymentSchedule> calculation,
+                           final Function<RepaymentInformation, ScheduleCacheKey> keys) {
+        this.clock = clock;
+        this.calculation = calculation;
+        this.keys = keys;
+        this.cache = Caffeine.newBuilder()
+                .executor(executor)
+                .maximumWeight(maximumRates)
+                .<ScheduleCacheKey, RepaymentSchedule>weigher((key, schedule) -> schedule.size())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the repayment schedule of given valid repayment information. It will be calculated if it is not cached yet.
+     *
+     * @param repaymentInformation valid repayment information
+     * @return repayment schedule starting in the current month of the clock
+     */
+    public RepaymentSchedule computeRepaymentSchedule(final RepaymentInformation repaymentInformation) {
+        ScheduleCacheKey key = keys.apply(repaymentInformation);
+        RepaymentSchedule schedule = cache.get(key, ignored -> calculation.apply(repaymentInformation));
+        int offset = EpochMonths.currentEpochMonth(clock) - schedule.getEpochMonth(0);
+        if (offset == 0) {
+            return schedule;
+        }
+        RepaymentSchedule rebased = schedule.shiftMonths(offset);
+        cache.asMap().replace(key, schedule, rebased); // later reads in this month do not need to move it again
+        return rebased;
+    }
+
+    /**
+     * Returns the number of cache hits.
+     *
+     * @return number of hits
+     */
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    /**
+     * Returns the number of cache misses, each miss leads to a calculation.
+     *
+     * @return number of misses
+     */
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    /**
+     * Returns the number of evicted schedules.
+     *
+     * @return number of evictions
+     */
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    /**
+     * Returns all statistics of the underlying cache.
+     *
+     * @return cache statistics
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Returns the approximate number of cached schedules.
+     *
+     * @return number of cached schedules
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+}
@@ -1,14 +1,14 @@
 package de.hypoport.repaymentschedule;
 
-import java.time.YearMonth;
-import java.util.ArrayList;
-import java.util.List;
+import java.time.Clock;
 
 /**
  * Calculates repayment schedules.
  */
 public class RepaymentScheduleCalculator {
 
+    private final static long[] NO_ACCUMULATION = new long[3];
+
     /**
      * Calculates a repayment plan by given {@link RepaymentInformation}. Each monthly entry is at the last day in a month.
      * The first monthly entry symbolizes a full repayment of given loan. Next month the regular repayment starts. At the end of the duration all values will be accumulated.
@@ -17,70 +17,391 @@ public class RepaymentScheduleCalculator {
      * @return calculated repayment schedule with monthly entries
      */
     public static RepaymentSchedule computeRepaymentSchedule(final RepaymentInformation repaymentInformation) {
-        RepaymentSchedule schedule = new RepaymentSchedule();
-        long annuityMonth = computeAnnuityMonth(repaymentInformation);
-        schedule.setDuration(repaymentInformation.getDurationInYears());
-        List<MonthlyEntry> allMonthlyEntries = new ArrayList<>();
+        return computeRepaymentSchedule(repaymentInformation, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Calculates a repayment plan like {@link #computeRepaymentSchedule(RepaymentInformation)}, starting in the current month of given clock.
+     *
+     * @param repaymentInformation given parameters for calculation
+     * @param clock                decides the month of the full payment
+     * @return calculated repayment schedule with monthly entries
+     */
+    public static RepaymentSchedule computeRepaymentSchedule(final RepaymentInformation repaymentInformation, final Clock clock) {
+        ColumnSink columns = new ColumnSink(repaymentInformation.getDurationInYears() * 12 + 2);
+        computeRepaymentSchedule(repaymentInformation, columns, clock);
+        return columns.toSchedule(repaymentInformation.getDurationInYears());
+    }
+
+    /**
+     * Calculates a repayment plan like {@link #computeRepaymentSchedule(RepaymentInformation)}, but passes each rate to given sink as soon as it is calculated instead of collecting them.
+     *
+     * @param repaymentInformation given parameters for calculation
+     * @param sink                 receives all rates in date order
+     */
+    public static void computeRepaymentSchedule(final RepaymentInformation repaymentInformation, final ScheduleSink sink) {
+        computeRepaymentSchedule(repaymentInformation, sink, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Calculates a repayment plan like {@link #computeRepaymentSchedule(RepaymentInformation, ScheduleSink)}, starting in the current month of given clock.
+     * The months are counted as epoch months and all values are primitive, so the calculation itself creates no objects. Dates for the epoch months can be looked up with
+     * {@link EpochMonths#atEndOfMonth(int)}.
+     *
+     * @param repaymentInformation given parameters for calculation
+     * @param sink                 receives all rates in date order
+     * @param clock                decides the month of the full payment
+     */
+    public static void computeRepaymentSchedule(final RepaymentInformation repaymentInformation, final ScheduleSink sink, final Clock clock) {
+        computeRepaymentSchedule(repaymentInformation, sink, EpochMonths.currentEpochMonth(clock));
+    }
+
+    /**
+     * Recalculates a repayment plan after its parameters were changed, e.g. a special repayment or a new debit interests was added. The rates before the first changed
+     * month are the same as before, so they are taken over from the previous plan and only the rates from the last checkpoint before the change on are calculated,
+     * see {@link RepaymentSchedule#getCheckpoint(int)}. If the loan amount, the debit interests or the initial repayment changed, the whole plan is calculated.
+     * The plan keeps the months of the previous plan.
+     *
+     * @param previousSchedule     repayment plan calculated for the previous parameters
+     * @param previousInformation  previous parameters
+     * @param repaymentInformation changed parameters
+     * @return recalculated repayment schedule, equal to a full calculation of the changed parameters
+     */
+    public static RepaymentSchedule recomputeRepaymentSchedule(final RepaymentSchedule previousSchedule, final RepaymentInformation previousInformation,
+                                                               final RepaymentInformation repaymentInformation) {
+        int months = repaymentInformation.getDurationInYears() * 12;
+        int previousMonths = previousInformation.getDurationInYears() * 12;
+        int initialMonth = previousSchedule.getEpochMonth(0);
+        ColumnSink columns = new ColumnSink(months + 2);
+        if (previousSchedule.size() != previousMonths + 2
+                || previousInformation.getLoanAmountInCent() != repaymentInformation.getLoanAmountInCent()
+                || Double.compare(previousInformation.getDebitInterestInPercentage() + 0.0, repaymentInformation.getDebitInterestInPercentage() + 0.0) != 0
+                || Double.compare(previousInformation.getInitialRepaymentInPercentage() + 0.0, repaymentInformation.getInitialRepaymentInPercentage() + 0.0) != 0) {
+            computeRepaymentSchedule(repaymentInformation, columns, initialMonth);
+            return columns.toSchedule(repaymentInformation.getDurationInYears());
+        }
+        EventTimeline events = EventTimeline.of(repaymentInformation);
+        int firstChange = Math.min(events.firstDifference(EventTimeline.of(previousInformation)), Math.min(months, previousMonths) + 1);
+        int checkpoint = (firstChange - 1) / RepaymentSchedule.CHECKPOINT_MONTHS;
+        int resumeIndex = checkpoint * RepaymentSchedule.CHECKPOINT_MONTHS;
+        for (int index = 0; index <= resumeIndex; index++) {
+            columns.accept(previousSchedule.getEpochMonth(index), previousSchedule.getAnnuityRateInCent(index), previousSchedule.getInterestsInCent(index),
+                    previousSchedule.getRepaymentInCent(index), previousSchedule.getRemainingLoanInCent(index));
+        }
+        computeRates(columns, initialMonth, months, computeAnnuityMonth(repaymentInformation), repaymentInformation.getDebitInterestInPercentage(), events,
+                resumeIndex + 1, -previousSchedule.getRemainingLoanInCent(resumeIndex), previousSchedule.getCheckpoint(checkpoint));
+        return columns.toSchedule(repaymentInformation.getDurationInYears());
+    }
+
+    private static void computeRepaymentSchedule(final RepaymentInformation repaymentInformation, final ScheduleSink sink, final int initialMonth) {
+        long loanAmount = repaymentInformation.getLoanAmountInCent();
+        double debitInterest = repaymentInformation.getDebitInterestInPercentage();
+        long annuityMonth = computeAnnuityMonth(loanAmount, debitInterest, repaymentInformation.getInitialRepaymentInPercentage());
+        int months = repaymentInformation.getDurationInYears() * 12;
         //first entry symbolised full payment of loan
-        allMonthlyEntries.add(calculateFullPaymentOfLoan(repaymentInformation));
-        //calculate first and last date
-        YearMonth initialDate = YearMonth.now();
-        YearMonth firstMonth = initialDate.plusMonths(1); // first repayment starts next month
-        YearMonth lastMonth = initialDate.plusMonths(1).plusYears(repaymentInformation.getDurationInYears());
-        // compute all payments
-        long accumulatedAnnuity = 0;
-        long accumulatedInterests = 0;
-        long accumulatedRepayment = 0;
-        long remainingLoan = repaymentInformation.getLoanAmountInCent();
-        //calculates all rates
-        Double debitInterestInPercentage = repaymentInformation.getDebitInterestInPercentage();
-        for (YearMonth month = firstMonth; month.isBefore(lastMonth); month = month.plusMonths(1)) {
-            long interestPortion = calculateDebitInterestMonth(remainingLoan, debitInterestInPercentage);
-            long repayment = annuityMonth - interestPortion;
-            remainingLoan -= repayment;
-
-            MonthlyEntry monthlyEntry = setMonthlyEntryValues(month, annuityMonth, interestPortion, repayment, remainingLoan);
-            allMonthlyEntries.add(monthlyEntry);
-
-            accumulatedAnnuity += annuityMonth;
-            accumulatedInterests += interestPortion;
-            accumulatedRepayment += repayment;
+        sink.accept(initialMonth, -loanAmount, 0, -loanAmount, -loanAmount);
+        computeRates(sink, initialMonth, months, annuityMonth, debitInterest, EventTimeline.of(repaymentInformation), 1, loanAmount, NO_ACCUMULATION);
+    }
+
+    /**
+     * Calculates the regular rates from given rate on and the last entry with the accumulated values. Between two events the rates are calculated in a tight loop,
+     * in the month of an event the special repayment is added to the annuity rate and a new debit interests is used from its interests on.
+     *
+     * @param sink          receives the rates
+     * @param initialMonth  epoch month of the full payment
+     * @param months        number of regular rates
+     * @param annuityMonth  monthly annuity rate in cent
+     * @param debitInterest debit interests of the repayment information
+     * @param events        special repayments and changes of the debit interests
+     * @param firstRate     index of the first calculated rate, 1 is the first regular rate
+     * @param loan          remaining loan in cent before the first calculated rate, positive
+     * @param accumulated   accumulated annuity rates, interests and repayments before the first calculated rate
+     */
+    private static void computeRates(final ScheduleSink sink, final int initialMonth, final int months, final long annuityMonth, final double debitInterest,
+                                     final EventTimeline events, final int firstRate, final long loan, final long[] accumulated) {
+        double interestMonth = monthlyInterestRate(events.debitInterestBefore(firstRate, debitInterest));
+        int position = events.positionFrom(firstRate);
+        long accumulatedAnnuity = accumulated[0];
+        long accumulatedInterests = accumulated[1];
+        long accumulatedRepayment = accumulated[2];
+        long remainingLoan = loan;
+        //calculates all rates, first repayment starts next month
+        int month = firstRate;
+        while (month <= months) {
+            int lastRegular = position < events.size() ? Math.min(events.month(position) - 1, months) : months;
+            for (; month <= lastRegular; month++) {
+                long interestPortion = roundInterest(remainingLoan, interestMonth);
+                long repayment = annuityMonth - interestPortion;
+                remainingLoan -= repayment;
+
+                sink.accept(initialMonth + month, annuityMonth, interestPortion, repayment, -remainingLoan);
+
+                accumulatedAnnuity += annuityMonth;
+                accumulatedInterests += interestPortion;
+                accumulatedRepayment += repayment;
+            }
+            if (month <= months) { // month of the next event
+                double changedDebitInterest = events.debitInterest(position);
+                if (!Double.isNaN(changedDebitInterest)) {
+                    interestMonth = monthlyInterestRate(changedDebitInterest);
+                }
+                long annuity = annuityMonth + events.specialRepaymentInCent(position);
+                long interestPortion = roundInterest(remainingLoan, interestMonth);
+                long repayment = annuity - interestPortion;
+                remainingLoan -= repayment;
+
+                sink.accept(initialMonth + month, annuity, interestPortion, repayment, -remainingLoan);
+
+                accumulatedAnnuity += annuity;
+                accumulatedInterests += interestPortion;
+                accumulatedRepayment += repayment;
+                month++;
+                position++;
+            }
         }
         //calculate last entry (interests end)
-        MonthlyEntry lastMonthlyEntry = setMonthlyEntryValues(lastMonth, accumulatedAnnuity, accumulatedInterests, accumulatedRepayment, remainingLoan);
-        allMonthlyEntries.add(lastMonthlyEntry);
-        schedule.setAllMonthlyEntries(allMonthlyEntries);
-        return schedule;
+        sink.accept(initialMonth + months + 1, accumulatedAnnuity, accumulatedInterests, accumulatedRepayment, -remainingLoan);
     }
 
-    private static MonthlyEntry setMonthlyEntryValues(YearMonth lastMonth, long accumulatedAnnuity, long accumulatedInterests, long accumulatedRepayment, long remainingLoan) {
-        MonthlyEntry monthlyEntry = new MonthlyEntry();
-        monthlyEntry.setDate(lastMonth.atEndOfMonth());
-        monthlyEntry.setAnnuityRateInCent(accumulatedAnnuity);
-        monthlyEntry.setInterestsInCent(accumulatedInterests);
-        monthlyEntry.setRepaymentInCent(accumulatedRepayment);
-        monthlyEntry.setRemainingLoanInCent(-remainingLoan);
-        return monthlyEntry;
+    /**
+     * Calculates the summary of the repayment plan by given {@link RepaymentInformation} without creating the plan. The summary contains the same values as the last entry of
+     * {@link #computeRepaymentSchedule(RepaymentInformation)}. Because the interests are rounded to cent each month, the remaining loan cannot be derived by the closed annuity
+     * formula without rounding differences, so only the remaining loan is stepped month by month with primitive values. All accumulated values are derived from it.
+     * With special repayments or changes of the debit interests the rates are calculated one by one without keeping them. Either way the cost is linear in the number
+     * of months, the summary only saves the allocation of the rates.
+     *
+     * @param repaymentInformation given parameters for calculation
+     * @return summary of the repayment plan
+     */
+    public static RepaymentSummary computeSummary(final RepaymentInformation repaymentInformation) {
+        return computeSummary(repaymentInformation, Clock.systemDefaultZone());
     }
 
-    private static MonthlyEntry calculateFullPaymentOfLoan(final RepaymentInformation information) {
-        MonthlyEntry fullRepayment = new MonthlyEntry();
-        fullRepayment.setDate(YearMonth.now().atEndOfMonth());
-        fullRepayment.setInterestsInCent(0);
-        fullRepayment.setRepaymentInCent(-information.getLoanAmountInCent());
-        fullRepayment.setAnnuityRateInCent(-information.getLoanAmountInCent());
-        fullRepayment.setRemainingLoanInCent(-information.getLoanAmountInCent());
-        return fullRepayment;
+    /**
+     * Calculates the summary like {@link #computeSummary(RepaymentInformation)}, with the full payment in the current month of given clock.
+     *
+     * @param repaymentInformation given parameters for calculation
+     * @param clock                decides the month of the full payment
+     * @return summary of the repayment plan
+     */
+    public static RepaymentSummary computeSummary(final RepaymentInformation repaymentInformation, final Clock clock) {
+        int months = repaymentInformation.getDurationInYears() * 12;
+        long annuityMonth = computeAnnuityMonth(repaymentInformation);
+        if (hasEvents(repaymentInformation)) {
+            RateCapture last = new RateCapture(months + 1);
+            computeRepaymentSchedule(repaymentInformation, last, clock);
+            RepaymentSummary summary = new RepaymentSummary();
+            summary.setDate(EpochMonths.atEndOfMonth(last.epochMonth));
+            summary.setAnnuityMonthInCent(annuityMonth);
+            summary.setAccumulatedAnnuityInCent(last.annuityRateInCent);
+            summary.setAccumulatedInterestsInCent(last.interestsInCent);
+            summary.setAccumulatedRepaymentInCent(last.repaymentInCent);
+            summary.setRemainingLoanInCent(last.remainingLoanInCent);
+            return summary;
+        }
+        long loanAmount = repaymentInformation.getLoanAmountInCent();
+        long remainingLoan = computeRemainingLoan(loanAmount, annuityMonth, repaymentInformation.getDebitInterestInPercentage(), months);
+        RepaymentSummary summary = new RepaymentSummary();
+        summary.setDate(EpochMonths.atEndOfMonth(EpochMonths.currentEpochMonth(clock) + months + 1));
+        summary.setAnnuityMonthInCent(annuityMonth);
+        summary.setAccumulatedAnnuityInCent(months * annuityMonth);
+        summary.setAccumulatedRepaymentInCent(loanAmount - remainingLoan);
+        summary.setAccumulatedInterestsInCent(months * annuityMonth - (loanAmount - remainingLoan)); // each annuity rate is interests plus repayment
+        summary.setRemainingLoanInCent(-remainingLoan);
+        return summary;
     }
 
-    private static long calculateDebitInterestMonth(final long loan, final double debitInterest) {
-        double interestMonth = (debitInterest / 100) / 12;
+    /**
+     * Calculates the summaries of one row of a scenario grid: the same loan, debit interests and initial repayment with different durations. The annuity and the monthly interest rate
+     * are computed once and the remaining loan is stepped only once up to the longest duration, so the cost is linear in the months of the longest duration. For each duration
+     * the monthly annuity, the accumulated interests and the remaining loan are stored in given array, with the same values as {@link #computeSummary(RepaymentInformation)}.
+     *
+     * @param loanAmountInCent  loan amount in cent
+     * @param debitInterest     debit interests in percentage
+     * @param initialRepayment  initial repayment in percentage
+     * @param durationsInMonths durations in ascending order
+     * @param target            receives three values for each duration
+     * @param offset            index of the first value in target
+     */
+    static void computeSummaries(final long loanAmountInCent, final double debitInterest, final double initialRepayment, final int[] durationsInMonths,
+                                 final long[] target, final int offset) {
+        long annuityMonth = computeAnnuityMonth(loanAmountInCent, debitInterest, initialRepayment);
+        double interestMonth = monthlyInterestRate(debitInterest);
+        long remainingLoan = loanAmountInCent;
+        int month = 0;
+        int index = offset;
+        for (int months : durationsInMonths) {
+            if (interestMonth == 0) {
+                remainingLoan = loanAmountInCent - months * annuityMonth;
+            } else {
+                for (; month < months; month++) {
+                    remainingLoan -= annuityMonth - roundInterest(remainingLoan, interestMonth);
+                }
+            }
+            target[index++] = annuityMonth;
+            target[index++] = months * annuityMonth - (loanAmountInCent - remainingLoan);
+            target[index++] = -remainingLoan;
+        }
+    }
+
+    /**
+     * Calculates a single entry of the repayment plan by given {@link RepaymentInformation} without creating the plan. The index is the same as in
+     * {@link RepaymentSchedule#getAllMonthlyEntries()}: 0 is the full payment of the loan, 1 is the first regular rate and the index after the last rate contains the accumulated values.
+     * The remaining loan is still stepped month by month up to the entry, so the cost is linear in the index, and linear in the duration with events or for the accumulated values.
+     *
+     * @param repaymentInformation given parameters for calculation
+     * @param monthIndex           index of the entry
+     * @return calculated monthly entry
+     * @throws IndexOutOfBoundsException if the index is outside of the repayment plan
+     */
+    public static MonthlyEntry entryAt(final RepaymentInformation repaymentInformation, final int monthIndex) {
+        return entryAt(repaymentInformation, monthIndex, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Calculates a single entry like {@link #entryAt(RepaymentInformation, int)}, with the full payment in the current month of given clock.
+     *
+     * @param repaymentInformation given parameters for calculation
+     * @param monthIndex           index of the entry
+     * @param clock                decides the month of the full payment
+     * @return calculated monthly entry
+     * @throws IndexOutOfBoundsException if the index is outside of the repayment plan
+     */
+    public static MonthlyEntry entryAt(final RepaymentInformation repaymentInformation, final int monthIndex, final Clock clock) {
+        int months = repaymentInformation.getDurationInYears() * 12;
+        if (monthIndex < 0 || monthIndex > months + 1) {
+            throw new IndexOutOfBoundsException("Index: " + monthIndex + ", Size: " + (months + 2));
+        }
+        MonthlyEntry entry = new MonthlyEntry();
+        entry.setDate(EpochMonths.atEndOfMonth(EpochMonths.currentEpochMonth(clock) + monthIndex));
+        long loanAmount = repaymentInformation.getLoanAmountInCent();
+        if (monthIndex == 0) {
+            entry.setAnnuityRateInCent(-loanAmount);
+            entry.setRepaymentInCent(-loanAmount);
+            entry.setRemainingLoanInCent(-loanAmount);
+            return entry;
+        }
+        if (hasEvents(repaymentInformation)) {
+            RateCapture rate = new RateCapture(monthIndex);
+            computeRepaymentSchedule(repaymentInformation, rate, clock);
+            entry.setAnnuityRateInCent(rate.annuityRateInCent);
+            entry.setInterestsInCent(rate.interestsInCent);
+            entry.setRepaymentInCent(rate.repaymentInCent);
+            entry.setRemainingLoanInCent(rate.remainingLoanInCent);
+            return entry;
+        }
+        if (monthIndex == months + 1) {
+            RepaymentSummary summary = computeSummary(repaymentInformation, clock);
+            entry.setAnnuityRateInCent(summary.getAccumulatedAnnuityInCent());
+            entry.setInterestsInCent(summary.getAccumulatedInterestsInCent());
+            entry.setRepaymentInCent(summary.getAccumulatedRepaymentInCent());
+            entry.setRemainingLoanInCent(summary.getRemainingLoanInCent());
+            return entry;
+        }
+        long annuityMonth = computeAnnuityMonth(repaymentInformation);
+        double debitInterest = repaymentInformation.getDebitInterestInPercentage();
+        long remainingLoan = computeRemainingLoan(loanAmount, annuityMonth, debitInterest, monthIndex - 1);
+        long interestPortion = calculateDebitInterestMonth(remainingLoan, debitInterest);
+        entry.setAnnuityRateInCent(annuityMonth);
+        entry.setInterestsInCent(interestPortion);
+        entry.setRepaymentInCent(annuityMonth - interestPortion);
+        entry.setRemainingLoanInCent(-(remainingLoan - annuityMonth + interestPortion));
+        return entry;
+    }
+
+    /**
+     * Calculates the remaining loan after given number of monthly rates with the same rounding as {@link #computeRepaymentSchedule(RepaymentInformation)}.
+     * The loan is stepped month by month, so the cost is linear in the months. Without interests no rounding happens, so the remaining loan is computed directly.
+     *
+     * @param loanAmountInCent loan amount in cent
+     * @param annuityMonth     monthly annuity rate in cent
+     * @param debitInterest    debit interests in percentage
+     * @param months           number of monthly rates
+     * @return remaining loan in cent, positive
+     */
+    static long computeRemainingLoan(final long loanAmountInCent, final long annuityMonth, final double debitInterest, final int months) {
+        double interestMonth = monthlyInterestRate(debitInterest);
+        if (interestMonth == 0) {
+            return loanAmountInCent - months * annuityMonth;
+        }
+        long remainingLoan = loanAmountInCent;
+        for (int month = 0; month < months; month++) {
+            remainingLoan -= annuityMonth - roundInterest(remainingLoan, interestMonth);
+        }
+        return remainingLoan;
+    }
+
+    /**
+     * Returns the monthly interest rate as fraction of given debit interests in percentage per year.
+     *
+     * @param debitInterest debit interests in percentage
+     * @return monthly interest rate
+     */
+    static double monthlyInterestRate(final double debitInterest) {
+        return (debitInterest / 100) / 12;
+    }
+
+    /**
+     * Returns the interests in cent for one month of given loan, rounded to cent.
+     *
+     * @param loan          loan in cent
+     * @param interestMonth monthly interest rate, see {@link #monthlyInterestRate(double)}
+     * @return interests in cent
+     */
+    static long roundInterest(final long loan, final double interestMonth) {
         return Math.round(loan * interestMonth);
     }
 
+    private static long calculateDebitInterestMonth(final long loan, final double debitInterest) {
+        return roundInterest(loan, monthlyInterestRate(debitInterest));
+    }
+
     private static long computeAnnuityMonth(final RepaymentInformation information) {
-        double debitInterest = information.getDebitInterestInPercentage();
-        double initialRepayment = information.getInitialRepaymentInPercentage();
-        return (long) ((debitInterest + initialRepayment) / 100 * information.getLoanAmountInCent()) / 12; // always shorten and receive the remaining amount at the end
+        return computeAnnuityMonth(information.getLoanAmountInCent(), information.getDebitInterestInPercentage(), information.getInitialRepaymentInPercentage());
+    }
+
+    /**
+     * Returns the monthly annuity rate in cent. It is always shortened, the remaining amount is received at the end.
+     *
+     * @param loanAmountInCent loan amount in cent
+     * @param debitInterest    debit interests in percentage
+     * @param initialRepayment initial repayment in percentage
+     * @return monthly annuity rate in cent
+     */
+    static long computeAnnuityMonth(final long loanAmountInCent, final double debitInterest, final double initialRepayment) {
+        return (long) ((debitInterest + initialRepayment) / 100 * loanAmountInCent) / 12; // always shorten and receive the remaining amount at the end
+    }
+
+    private static boolean hasEvents(final RepaymentInformation repaymentInformation) {
+        return repaymentInformation.getEvents() != null && !repaymentInformation.getEvents().isEmpty();
+    }
+
+    /**
+     * Keeps the values of the rate at one index and ignores all other rates.
+     */
+    private static class RateCapture implements ScheduleSink {
+
+        private final int capturedIndex;
+        private int index;
+        private int epochMonth;
+        private long annuityRateInCent;
+        private long interestsInCent;
+        private long repaymentInCent;
+        private long remainingLoanInCent;
+
+        private RateCapture(final int capturedIndex) {
+            this.capturedIndex = capturedIndex;
+        }
+
+        @Override
+        public void accept(final int epochMonth, final long annuityRateInCent, final long interestsInCent, final long repaymentInCent, final long remainingLoanInCent) {
+            if (index++ == capturedIndex) {
+                this.epochMonth = epochMonth;
+                this.annuityRateInCent = annuityRateInCent;
+                this.interestsInCent = interestsInCent;
+                this.repaymentInCent = repaymentInCent;
+                this.remainingLoanInCent = remainingLoanInCent;
+            }
+        }
     }
 }
@@ -1,13 +1,26 @@
 package de.hypoport.repaymentschedule;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.DigestUtils;
 import org.springframework.validation.Errors;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Simple controller which handle http-requests.
@@ -17,8 +30,34 @@ public class RepaymentScheduleController {
 
     private final static String USER_PARAMETER_KEY = "repaymentinformation";
     private final static String REPAYMENT_SCHEDULE_KEY = "repaymentSchedule";
+    private final static String REPAYMENT_PAGE_KEY = "repaymentPage";
+    private final static String SCHEDULE_ID_KEY = "scheduleId";
+    private final static String SCHEDULE_QUERY_KEY = "scheduleQuery";
     private final static String INDEX_HTML = "index.html";
-    private final static String REPAYMENT_SCHEDULE_HTML = "showRepaymentSchedule.html";
+
+    private final RepaymentScheduleCache scheduleCache;
+    private final ScheduleMetrics scheduleMetrics;
+    private final ScheduleStore scheduleStore;
+    private final int pageSize;
+    private final ScheduleCalculation calculation;
+
+    /**
+     * Creates the controller.
+     *
+     * @param scheduleCache   calculates and caches the repayment schedules
+     * @param scheduleMetrics records the phases of the requests
+     * @param scheduleStore   saves the issued repayment schedules
+     * @param pageSize        number of regular rates rendered per page
+     * @param calculation     calculation of the configured mode, the same as the one of the schedule cache
+     */
+    public RepaymentScheduleController(final RepaymentScheduleCache scheduleCache, final ScheduleMetrics scheduleMetrics, final ScheduleStore scheduleStore,
+                                       @Value("${repaymentschedule.page.size:60}") final int pageSize, final ScheduleCalculation calculation) {
+        this.scheduleCache = scheduleCache;
+        this.scheduleMetrics = scheduleMetrics;
+        this.scheduleStore = scheduleStore;
+        this.pageSize = pageSize;
+        this.calculation = calculation;
+    }
 
     /**
      * Handle get request for base path + "/repaymentSchedule" and delegates to the index.html page
@@ -34,36 +73,159 @@ public class RepaymentScheduleController {
 
     /**
      * Handle post request for base path + "/repaymentSchedule". If the input is valid the parameters will be passed to the repayment schedule calculator.
-     * The computed repayment plan will passed to the model object and than delegates to showRepaymentSchedule.html page.
+     * The computed repayment plan and the requested page of it will passed to the model object and than delegates to showRepaymentSchedule.html page.
+     * Each issued repayment plan is saved in the {@link ScheduleStore}, its id is passed to the model as well. A request which passes the id of a saved plan
+     * of the same parameters, like the button to show all rates, only navigates in that plan and does not save it again.
+     * Only the rates of the page are rendered, further pages are loaded by the page as json. If all rates are requested they are rendered on one page.
+     * The rates are written to the response while they are formatted, see {@link StreamingScheduleView}.
      *
      * @param repaymentInformation with user parameters
      * @param model                holder object
      * @param errors               contains validation errors
-     * @return showRepaymentSchedule.html page with created repayment schedule
+     * @param page                 number of the rendered page, starting with 0
+     * @param all                  if true all rates are rendered and the page is ignored
+     * @param scheduleId           id of the already saved plan of the parameters, null to save the plan
+     * @param request              current request
+     * @return streaming view of the showRepaymentSchedule.html page with created repayment schedule
      */
     @PostMapping("/repaymentSchedule")
-    public String createRepaymentSchedule(@ModelAttribute(USER_PARAMETER_KEY) @Valid final RepaymentInformation repaymentInformation, final Errors errors, final Model model) {
+    public String createRepaymentSchedule(@ModelAttribute(USER_PARAMETER_KEY) @Valid final RepaymentInformation repaymentInformation, final Errors errors, final Model model,
+                                          @RequestParam(defaultValue = "0") final int page, @RequestParam(defaultValue = "false") final boolean all,
+                                          @RequestParam(required = false) final String scheduleId, final HttpServletRequest request) {
         //Important that the ModelAttribute contains the given attribute name, otherwise it looks for the variable name "repaymentInformation"
-        if (errors.hasErrors() || isInvalidCurrencyValue(repaymentInformation.getLoanAmount())) {
+        boolean invalidCurrencyValue = !errors.hasFieldErrors("loanAmount") && isInvalidCurrencyValue(repaymentInformation.getLoanAmount());
+        scheduleMetrics.recordValidation(request, repaymentInformation, errors, invalidCurrencyValue);
+        if (errors.hasErrors() || invalidCurrencyValue) {
+            model.addAttribute(USER_PARAMETER_KEY, repaymentInformation);
+            return INDEX_HTML;
+        }
+        RepaymentSchedule repaymentSchedule = computeRepaymentSchedule(repaymentInformation, request);
+        model.addAttribute(SCHEDULE_ID_KEY, saveOnce(repaymentInformation, repaymentSchedule, scheduleId));
+        addPage(model, repaymentInformation, repaymentSchedule, page, all);
+        return StreamingScheduleView.VIEW_NAME;
+    }
+
+    /**
+     * Handle get request for base path + "/repaymentSchedule/view". Shows the repayment schedule of given parameters like the post request, but under a canonical url
+     * which browsers and proxies can cache. The page only depends on the parameters and the current month, so its strong ETag is derived from the {@link ScheduleCacheKey}
+     * and the current month, and a request with a matching If-None-Match header is answered with 304 before anything is calculated.
+     * The page may be cached until the next month starts, the schedule is not saved in the {@link ScheduleStore}.
+     *
+     * @param repaymentInformation with user parameters
+     * @param errors               contains validation errors
+     * @param model                holder object
+     * @param page                 number of the rendered page, starting with 0
+     * @param all                  if true all rates are rendered and the page is ignored
+     * @param webRequest           current request for the conditional check
+     * @param request              current request
+     * @param response             current response
+     * @return streaming view of the showRepaymentSchedule.html page, index.html for invalid parameters or null if not modified
+     */
+    @GetMapping("/repaymentSchedule/view")
+    public String viewRepaymentSchedule(@ModelAttribute(USER_PARAMETER_KEY) @Valid final RepaymentInformation repaymentInformation, final Errors errors, final Model model,
+                                        @RequestParam(defaultValue = "0") final int page, @RequestParam(defaultValue = "false") final boolean all,
+                                        final WebRequest webRequest, final HttpServletRequest request, final HttpServletResponse response) {
+        boolean invalidCurrencyValue = !errors.hasFieldErrors("loanAmount") && isInvalidCurrencyValue(repaymentInformation.getLoanAmount());
+        scheduleMetrics.recordValidation(request, repaymentInformation, errors, invalidCurrencyValue);
+        if (errors.hasErrors() || invalidCurrencyValue) {
             model.addAttribute(USER_PARAMETER_KEY, repaymentInformation);
             return INDEX_HTML;
         }
-        RepaymentSchedule repaymentSchedule = RepaymentScheduleCalculator.computeRepaymentSchedule(repaymentInformation);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.maxAge(EpochMonths.secondsUntilNextMonth(calculation.getClock()), TimeUnit.SECONDS).cachePublic().getHeaderValue());
+        if (webRequest.checkNotModified(viewETag(repaymentInformation, EpochMonths.currentEpochMonth(calculation.getClock()), page, all))) {
+            return null;
+        }
+        addPage(model, repaymentInformation, computeRepaymentSchedule(repaymentInformation, request), page, all);
+        return StreamingScheduleView.VIEW_NAME;
+    }
+
+    /**
+     * Returns the strong ETag of the viewed page of a repayment schedule. Equal parameters lead to the same key, see {@link ScheduleCacheKey}. The key contains the
+     * calculation mode, so a page cached by a client is calculated again after the mode was changed.
+     *
+     * @param repaymentInformation valid repayment information
+     * @param anchorMonth          epoch month of the full payment
+     * @param page                 number of the rendered page
+     * @param all                  true if all rates are rendered
+     * @return quoted ETag
+     */
+    private String viewETag(final RepaymentInformation repaymentInformation, final int anchorMonth, final int page, final boolean all) {
+        String view = calculation.key(repaymentInformation) + "@" + anchorMonth + (all ? "/all" : "/" + Math.max(0, page) + "/" + pageSize) + "#" + calculation.getMode();
+        return "\"" + DigestUtils.md5DigestAsHex(view.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Saves given repayment schedule unless given id belongs to a saved schedule of the same repayment information.
+     *
+     * @param repaymentInformation valid repayment information
+     * @param repaymentSchedule    calculated repayment schedule
+     * @param scheduleId           id passed by the page of a saved schedule, null if there is none
+     * @return id of the saved schedule
+     */
+    private String saveOnce(final RepaymentInformation repaymentInformation, final RepaymentSchedule repaymentSchedule, final String scheduleId) {
+        if (scheduleId != null) {
+            String inputHash = ScheduleStore.inputHash(repaymentInformation);
+            if (scheduleStore.findById(scheduleId).filter(storedSchedule -> inputHash.equals(storedSchedule.getInputHash())).isPresent()) {
+                return scheduleId;
+            }
+        }
+        return scheduleStore.save(repaymentInformation, repaymentSchedule).getId();
+    }
+
+    private RepaymentSchedule computeRepaymentSchedule(final RepaymentInformation repaymentInformation, final HttpServletRequest request) {
+        long calculationStart = scheduleMetrics.start();
+        RepaymentSchedule repaymentSchedule = scheduleCache.computeRepaymentSchedule(repaymentInformation);
+        scheduleMetrics.recordCalculation(request, calculationStart, repaymentInformation, repaymentSchedule);
+        return repaymentSchedule;
+    }
+
+    private void addPage(final Model model, final RepaymentInformation repaymentInformation, final RepaymentSchedule repaymentSchedule, final int page, final boolean all) {
         model.addAttribute(USER_PARAMETER_KEY, repaymentInformation);
         model.addAttribute(REPAYMENT_SCHEDULE_KEY, repaymentSchedule);
-        return REPAYMENT_SCHEDULE_HTML;
+        model.addAttribute(SCHEDULE_QUERY_KEY, toQuery(repaymentInformation));
+        if (all) {
+            model.addAttribute(REPAYMENT_PAGE_KEY, SchedulePage.withoutRates(repaymentSchedule, 0, Math.max(1, repaymentSchedule.size() - 2)));
+        } else {
+            model.addAttribute(REPAYMENT_PAGE_KEY, SchedulePage.withoutRates(repaymentSchedule, Math.max(0, page), pageSize));
+        }
+    }
+
+    /**
+     * Returns the parameters of given repayment information including its events as encoded query, used by the page for its link and to load further rates.
+     *
+     * @param repaymentInformation valid repayment information
+     * @return query without leading question mark
+     */
+    static String toQuery(final RepaymentInformation repaymentInformation) {
+        UriComponentsBuilder query = UriComponentsBuilder.newInstance()
+                .queryParam("loanAmount", repaymentInformation.getLoanAmount())
+                .queryParam("debitInterestInPercentage", repaymentInformation.getDebitInterestInPercentage())
+                .queryParam("initialRepaymentInPercentage", repaymentInformation.getInitialRepaymentInPercentage())
+                .queryParam("durationInYears", repaymentInformation.getDurationInYears());
+        List<RepaymentEvent> events = repaymentInformation.getEvents();
+        for (int index = 0; events != null && index < events.size(); index++) {
+            RepaymentEvent event = events.get(index);
+            String prefix = "events[" + index + "].";
+            query.queryParam(prefix + "month", event.getMonth());
+            if (event.getSpecialRepayment() != null) {
+                query.queryParam(prefix + "specialRepayment", event.getSpecialRepayment());
+            }
+            if (event.getDebitInterestInPercentage() != null) {
+                query.queryParam(prefix + "debitInterestInPercentage", event.getDebitInterestInPercentage());
+            }
+        }
+        return query.build().encode().getQuery();
     }
 
     /**
-     * If the given value has more than 2 decimals it returns true (for invalid value).
+     * If the given value has more than 2 decimals it returns true (for invalid value). The decimals are counted on the shortest representation of the double,
+     * so 100.25 is valid and large amounts like 12345678.9, which {@link String#valueOf(double)} writes with exponent, are counted correctly as well.
      *
      * @param currencyValue to check currency value
      * @return true if given value is invalid
      */
-    private boolean isInvalidCurrencyValue(final Double currencyValue) {
+    static boolean isInvalidCurrencyValue(final Double currencyValue) {
         //TODO create annotation or use pattern -> use spring bean validation (and create test suit)
-        String loanAsString = String.valueOf(currencyValue);
-        int index = loanAsString.indexOf(".");
-        return index != -1 && loanAsString.substring(index).length() > 2;
+        return currencyValue != null && !currencyValue.isNaN() && !currencyValue.isInfinite() && BigDecimal.valueOf(currencyValue).stripTrailingZeros().scale() > 2;
     }
 }
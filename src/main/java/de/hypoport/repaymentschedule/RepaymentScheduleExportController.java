@@ -0,0 +1,120 @@
+package de.hypoport.repaymentschedule;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.Errors;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Controller which exports repayment schedules as csv, ndjson or binary. Csv and ndjson rates are written to the response while they are calculated, no schedule is kept in memory.
+ * Binary schedules are encoded by {@link ScheduleCodec} one at a time.
+ */
+@RestController
+public class RepaymentScheduleExportController {
+
+    private final RepaymentInformationValidator validator;
+    private final ScheduleCalculation calculation;
+
+    /**
+     * Creates the controller.
+     *
+     * @param validator   validator for the repayment information of an input file
+     * @param calculation calculates the schedules in the configured mode
+     */
+    public RepaymentScheduleExportController(final RepaymentInformationValidator validator, final ScheduleCalculation calculation) {
+        this.validator = validator;
+        this.calculation = calculation;
+    }
+
+    /**
+     * Handle get request for base path + "/repaymentSchedule/export". Streams the repayment schedule of given parameters.
+     *
+     * @param repaymentInformation with user parameters
+     * @param errors               contains validation errors
+     * @param format               csv, ndjson or binary
+     * @return streamed repayment schedule
+     */
+    @GetMapping("/repaymentSchedule/export")
+    public ResponseEntity<StreamingResponseBody> exportRepaymentSchedule(@Valid final RepaymentInformation repaymentInformation, final Errors errors,
+                                                                         @RequestParam(defaultValue = "csv") final String format) {
+        if (errors.hasErrors() || RepaymentScheduleController.isInvalidCurrencyValue(repaymentInformation.getLoanAmount())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid repayment information");
+        }
+        ExportFormat exportFormat = parseFormat(format);
+        if (exportFormat == ExportFormat.BINARY) {
+            return ResponseEntity.ok().contentType(exportFormat.getMediaType())
+                    .body(out -> out.write(ScheduleCodec.encode(calculation.computeRepaymentSchedule(repaymentInformation))));
+        }
+        return ResponseEntity.ok().contentType(exportFormat.getMediaType()).body(out -> {
+            ScheduleExportWriter writer = new ScheduleExportWriter(out, exportFormat, false);
+            writer.writeHeader();
+            calculation.computeRepaymentSchedule(repaymentInformation, writer);
+            writer.flush();
+        });
+    }
+
+    /**
+     * Handle post request for base path + "/repaymentSchedule/export". Streams the repayment schedules of all loans of given csv file one after another.
+     * Each csv or ndjson row contains the index of its loan in the file, binary schedules are written in file order.
+     *
+     * @param file   csv file, see {@link RepaymentInformationCsvReader}
+     * @param format csv, ndjson or binary
+     * @return streamed repayment schedules
+     * @throws IOException if the file could not be read
+     */
+    @PostMapping("/repaymentSchedule/export")
+    public ResponseEntity<StreamingResponseBody> exportRepaymentSchedules(@RequestParam("file") final MultipartFile file,
+                                                                          @RequestParam(defaultValue = "csv") final String format) throws IOException {
+        ExportFormat exportFormat = parseFormat(format);
+        List<RepaymentInformation> allRepaymentInformation = readLoans(file);
+        for (int index = 0; index < allRepaymentInformation.size(); index++) {
+            List<String> errors = validator.validate(allRepaymentInformation.get(index));
+            if (!errors.isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "loan " + index + ": " + String.join(", ", errors));
+            }
+        }
+        if (exportFormat == ExportFormat.BINARY) {
+            return ResponseEntity.ok().contentType(exportFormat.getMediaType()).body(out -> {
+                for (RepaymentInformation repaymentInformation : allRepaymentInformation) {
+                    out.write(ScheduleCodec.encode(calculation.computeRepaymentSchedule(repaymentInformation)));
+                }
+            });
+        }
+        return ResponseEntity.ok().contentType(exportFormat.getMediaType()).body(out -> {
+            ScheduleExportWriter writer = new ScheduleExportWriter(out, exportFormat, true);
+            writer.writeHeader();
+            for (int index = 0; index < allRepaymentInformation.size(); index++) {
+                writer.setLoanIndex(index);
+                calculation.computeRepaymentSchedule(allRepaymentInformation.get(index), writer);
+                writer.flush();
+            }
+        });
+    }
+
+    private static List<RepaymentInformation> readLoans(final MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return RepaymentInformationCsvReader.read(in);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    private static ExportFormat parseFormat(final String format) {
+        try {
+            return ExportFormat.of(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+}
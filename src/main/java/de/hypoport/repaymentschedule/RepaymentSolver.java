@@ -0,0 +1,206 @@
+package de.hypoport.repaymentschedule;
+
+import java.time.Clock;
+import java.util.Optional;
+import java.util.function.IntPredicate;
+
+/**
+ * Finds the parameter of a repayment schedule which reaches a given target, e.g. the initial repayment which leaves at most 50,000 euro remaining loan after 10 years.
+ * Initial repayments are solved in steps of 0.01 percentage points. A closed annuity formula without rounding gives the first candidate, which is then bracketed and bisected.
+ * Each candidate is checked with the same cent rounding as the given {@link ScheduleCalculation}, so the answer is exact in its mode and a few evaluations are enough.
+ * Each evaluation steps the remaining loan month by month, so it costs as much as a summary, linear in the number of months.
+ * Special repayments and changes of the debit interests are not considered, the solved repayment information contains no events.
+ */
+public class RepaymentSolver {
+
+    private final static int MIN_REPAYMENT_IN_HUNDREDTHS = 100;
+    private final static int MAX_REPAYMENT_IN_HUNDREDTHS = 100 * 100;
+    private final static int MAX_DURATION_IN_YEARS = 60;
+
+    /**
+     * Solves like {@link #solveInitialRepaymentForRemainingLoan(RepaymentInformation, long, ScheduleCalculation)} with the double calculation and the system clock.
+     *
+     * @param repaymentInformation   loan amount, debit interests and duration, the initial repayment is ignored
+     * @param maxRemainingLoanInCent highest accepted remaining loan in cent
+     * @return repayment information with the initial repayment, empty if even 100% initial repayment leaves a higher remaining loan
+     */
+    public static Optional<SolverResult> solveInitialRepaymentForRemainingLoan(final RepaymentInformation repaymentInformation, final long maxRemainingLoanInCent) {
+        return solveInitialRepaymentForRemainingLoan(repaymentInformation, maxRemainingLoanInCent, ScheduleCalculation.ofDouble(Clock.systemDefaultZone()));
+    }
+
+    /**
+     * Finds the lowest initial repayment which leaves at most given remaining loan at the end of the duration.
+     *
+     * @param repaymentInformation   loan amount, debit interests and duration, the initial repayment is ignored
+     * @param maxRemainingLoanInCent highest accepted remaining loan in cent
+     * @param calculation            calculation of the candidates and of the summary
+     * @return repayment information with the initial repayment, empty if even 100% initial repayment leaves a higher remaining loan
+     */
+    public static Optional<SolverResult> solveInitialRepaymentForRemainingLoan(final RepaymentInformation repaymentInformation, final long maxRemainingLoanInCent, final ScheduleCalculation calculation) {
+        long loanAmount = calculation.toCent(repaymentInformation.getLoanAmount());
+        double debitInterest = repaymentInformation.getDebitInterestInPercentage();
+        int months = repaymentInformation.getDurationInYears() * 12;
+        // annuity of the closed formula: remaining loan = loan * q^n - annuity * (q^n - 1) / (q - 1)
+        double interestMonth = RepaymentScheduleCalculator.monthlyInterestRate(debitInterest);
+        double growth = Math.pow(1 + interestMonth, months);
+        double annuity = interestMonth == 0 ? (double) (loanAmount - maxRemainingLoanInCent) / months
+                : (loanAmount * growth - maxRemainingLoanInCent) * interestMonth / (growth - 1);
+        int estimate = (int) Math.ceil((annuity * 12 * 100 / loanAmount - debitInterest) * 100);
+
+        Search search = new Search(repayment -> calculation.computeRemainingLoan(loanAmount,
+                calculation.computeAnnuityMonth(loanAmount, debitInterest, toPercentage(repayment)), debitInterest, months) <= maxRemainingLoanInCent);
+        int repayment = search.findFirst(MIN_REPAYMENT_IN_HUNDREDTHS, MAX_REPAYMENT_IN_HUNDREDTHS, estimate);
+        if (repayment > MAX_REPAYMENT_IN_HUNDREDTHS) {
+            return Optional.empty();
+        }
+        return Optional.of(createResult(repaymentInformation, toPercentage(repayment), repaymentInformation.getDurationInYears(), search.evaluations, calculation));
+    }
+
+    /**
+     * Solves like {@link #solveInitialRepaymentForAnnuity(RepaymentInformation, long, ScheduleCalculation)} with the double calculation and the system clock.
+     *
+     * @param repaymentInformation  loan amount, debit interests and duration, the initial repayment is ignored
+     * @param maxAnnuityMonthInCent highest affordable monthly rate in cent
+     * @return repayment information with the initial repayment, empty if even 1% initial repayment leads to a higher rate
+     */
+    public static Optional<SolverResult> solveInitialRepaymentForAnnuity(final RepaymentInformation repaymentInformation, final long maxAnnuityMonthInCent) {
+        return solveInitialRepaymentForAnnuity(repaymentInformation, maxAnnuityMonthInCent, ScheduleCalculation.ofDouble(Clock.systemDefaultZone()));
+    }
+
+    /**
+     * Finds the highest initial repayment whose monthly annuity rate is at most given rate.
+     *
+     * @param repaymentInformation  loan amount, debit interests and duration, the initial repayment is ignored
+     * @param maxAnnuityMonthInCent highest affordable monthly rate in cent
+     * @param calculation           calculation of the candidates and of the summary
+     * @return repayment information with the initial repayment, empty if even 1% initial repayment leads to a higher rate
+     */
+    public static Optional<SolverResult> solveInitialRepaymentForAnnuity(final RepaymentInformation repaymentInformation, final long maxAnnuityMonthInCent, final ScheduleCalculation calculation) {
+        long loanAmount = calculation.toCent(repaymentInformation.getLoanAmount());
+        double debitInterest = repaymentInformation.getDebitInterestInPercentage();
+        // the annuity is truncated twice, so it exceeds the maximum from (debit interests + repayment) / 100 * loan >= 12 * (maximum + 1)
+        int estimate = (int) Math.floor(((maxAnnuityMonthInCent + 1) * 12 * 100.0 / loanAmount - debitInterest) * 100);
+
+        Search search = new Search(repayment ->
+                calculation.computeAnnuityMonth(loanAmount, debitInterest, toPercentage(repayment)) > maxAnnuityMonthInCent);
+        int firstTooHigh = search.findFirst(MIN_REPAYMENT_IN_HUNDREDTHS, MAX_REPAYMENT_IN_HUNDREDTHS, estimate);
+        if (firstTooHigh == MIN_REPAYMENT_IN_HUNDREDTHS) {
+            return Optional.empty();
+        }
+        return Optional.of(createResult(repaymentInformation, toPercentage(firstTooHigh - 1), repaymentInformation.getDurationInYears(), search.evaluations, calculation));
+    }
+
+    /**
+     * Solves like {@link #solveDurationForRemainingLoan(RepaymentInformation, long, ScheduleCalculation)} with the double calculation and the system clock.
+     *
+     * @param repaymentInformation   loan amount, debit interests and initial repayment, the duration is ignored
+     * @param maxRemainingLoanInCent highest accepted remaining loan in cent
+     * @return repayment information with the duration, empty if the remaining loan is higher even after 60 years
+     */
+    public static Optional<SolverResult> solveDurationForRemainingLoan(final RepaymentInformation repaymentInformation, final long maxRemainingLoanInCent) {
+        return solveDurationForRemainingLoan(repaymentInformation, maxRemainingLoanInCent, ScheduleCalculation.ofDouble(Clock.systemDefaultZone()));
+    }
+
+    /**
+     * Finds the shortest duration in years which leaves at most given remaining loan. The remaining loan is stepped once year by year up to the longest duration.
+     *
+     * @param repaymentInformation   loan amount, debit interests and initial repayment, the duration is ignored
+     * @param maxRemainingLoanInCent highest accepted remaining loan in cent
+     * @param calculation            calculation of the candidates and of the summary
+     * @return repayment information with the duration, empty if the remaining loan is higher even after 60 years
+     */
+    public static Optional<SolverResult> solveDurationForRemainingLoan(final RepaymentInformation repaymentInformation, final long maxRemainingLoanInCent, final ScheduleCalculation calculation) {
+        long loanAmount = calculation.toCent(repaymentInformation.getLoanAmount());
+        double debitInterest = repaymentInformation.getDebitInterestInPercentage();
+        long annuityMonth = calculation.computeAnnuityMonth(loanAmount, debitInterest, repaymentInformation.getInitialRepaymentInPercentage());
+        long remainingLoan = loanAmount;
+        for (int years = 1; years <= MAX_DURATION_IN_YEARS; years++) {
+            remainingLoan = calculation.computeRemainingLoan(remainingLoan, annuityMonth, debitInterest, 12);
+            if (remainingLoan <= maxRemainingLoanInCent) {
+                return Optional.of(createResult(repaymentInformation, repaymentInformation.getInitialRepaymentInPercentage(), years, 1, calculation));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static double toPercentage(final int hundredths) {
+        return hundredths / 100.0;
+    }
+
+    private static SolverResult createResult(final RepaymentInformation repaymentInformation, final double initialRepayment, final int durationInYears, final int evaluations,
+                                             final ScheduleCalculation calculation) {
+        RepaymentInformation solved = new RepaymentInformation();
+        solved.setLoanAmount(repaymentInformation.getLoanAmount());
+        solved.setDebitInterestInPercentage(repaymentInformation.getDebitInterestInPercentage());
+        solved.setInitialRepaymentInPercentage(initialRepayment);
+        solved.setDurationInYears(durationInYears);
+        SolverResult result = new SolverResult();
+        result.setRepaymentInformation(solved);
+        result.setSummary(calculation.computeSummary(solved));
+        result.setEvaluations(evaluations);
+        return result;
+    }
+
+    /**
+     * Finds the first value of a range for which a monotone condition holds and counts the evaluations of the condition.
+     */
+    private static class Search {
+
+        private final IntPredicate condition;
+        private int evaluations;
+
+        private Search(final IntPredicate condition) {
+            this.condition = condition;
+        }
+
+        /**
+         * Starts at the estimate and doubles the step until the first value is bracketed, then bisects the bracket.
+         *
+         * @param low      first value of the range
+         * @param high     last value of the range
+         * @param estimate expected first value
+         * @return first value for which the condition holds, high + 1 if it holds for no value
+         */
+        private int findFirst(final int low, final int high, final int estimate) {
+            int guess = Math.max(low, Math.min(high, estimate));
+            int holds;
+            int fails;
+            if (test(guess)) {
+                holds = guess;
+                fails = guess - 1;
+                for (int step = 2; fails >= low && test(fails); step *= 2) {
+                    holds = fails;
+                    fails = holds - step;
+                }
+                fails = Math.max(fails, low - 1);
+            } else {
+                fails = guess;
+                holds = guess + 1;
+                for (int step = 2; holds <= high && !test(holds); step *= 2) {
+                    fails = holds;
+                    holds = fails + step;
+                }
+                if (holds > high) {
+                    if (fails == high || !test(high)) {
+                        return high + 1;
+                    }
+                    holds = high;
+                }
+            }
+            while (holds - fails > 1) {
+                int middle = (holds + fails) >>> 1;
+                if (test(middle)) {
+                    holds = middle;
+                } else {
+                    fails = middle;
+                }
+            }
+            return holds;
+        }
+
+        private boolean test(final int value) {
+            evaluations++;
+            return condition.test(value);
+        }
+    }
+}
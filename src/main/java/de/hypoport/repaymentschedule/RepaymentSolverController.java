@@ -0,0 +1,87 @@
+package de.hypoport.repaymentschedule;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Controller which answers inverse questions with the {@link RepaymentSolver}, e.g. which initial repayment leads to a given remaining loan.
+ * The solved parameter of the repayment information is not needed and will be ignored.
+ */
+@RestController
+@RequestMapping("/api/repaymentSchedules/solve")
+public class RepaymentSolverController {
+
+    private final static String INITIAL_REPAYMENT = "initialRepaymentInPercentage";
+    private final static String DURATION = "durationInYears";
+
+    private final RepaymentInformationValidator validator;
+    private final ScheduleCalculation calculation;
+
+    /**
+     * Creates the controller.
+     *
+     * @param validator   validator for the given parameters
+     * @param calculation calculates the candidates and the summaries in the configured mode
+     */
+    public RepaymentSolverController(final RepaymentInformationValidator validator, final ScheduleCalculation calculation) {
+        this.validator = validator;
+        this.calculation = calculation;
+    }
+
+    /**
+     * Handle get request for base path + "/api/repaymentSchedules/solve/initialRepayment". Exactly one target has to be given: the lowest initial repayment for a maximum remaining loan
+     * or the highest initial repayment for a maximum monthly rate.
+     *
+     * @param repaymentInformation loan amount, debit interests and duration
+     * @param maxRemainingLoan     highest accepted remaining loan in euro
+     * @param maxAnnuityMonth      highest affordable monthly rate in euro
+     * @return repayment information with the initial repayment and the summary of its schedule
+     */
+    @GetMapping("/initialRepayment")
+    public SolverResult solveInitialRepayment(final RepaymentInformation repaymentInformation, @RequestParam(required = false) final Double maxRemainingLoan,
+                                              @RequestParam(required = false) final Double maxAnnuityMonth) {
+        validate(repaymentInformation, INITIAL_REPAYMENT);
+        if ((maxRemainingLoan == null) == (maxAnnuityMonth == null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "either maxRemainingLoan or maxAnnuityMonth is required");
+        }
+        Optional<SolverResult> result = maxRemainingLoan != null
+                ? RepaymentSolver.solveInitialRepaymentForRemainingLoan(repaymentInformation, toCent(maxRemainingLoan), calculation)
+                : RepaymentSolver.solveInitialRepaymentForAnnuity(repaymentInformation, toCent(maxAnnuityMonth), calculation);
+        return result.orElseThrow(() -> new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "no initial repayment between 1% and 100% reaches the target"));
+    }
+
+    /**
+     * Handle get request for base path + "/api/repaymentSchedules/solve/duration". Finds the shortest duration which leaves at most the given remaining loan.
+     *
+     * @param repaymentInformation loan amount, debit interests and initial repayment
+     * @param maxRemainingLoan     highest accepted remaining loan in euro
+     * @return repayment information with the duration and the summary of its schedule
+     */
+    @GetMapping("/duration")
+    public SolverResult solveDuration(final RepaymentInformation repaymentInformation, @RequestParam final Double maxRemainingLoan) {
+        validate(repaymentInformation, DURATION);
+        return RepaymentSolver.solveDurationForRemainingLoan(repaymentInformation, toCent(maxRemainingLoan), calculation)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "no duration up to 60 years reaches the target"));
+    }
+
+    private void validate(final RepaymentInformation repaymentInformation, final String solvedProperty) {
+        List<String> errors = validator.validateExcept(repaymentInformation, solvedProperty);
+        if (!errors.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.join(", ", errors));
+        }
+    }
+
+    private static long toCent(final Double euro) {
+        if (euro.isNaN() || euro < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "target must not be negative");
+        }
+        return Math.round(euro * 100);
+    }
+}
@@ -0,0 +1,142 @@
+package de.hypoport.repaymentschedule;
+
+import java.time.LocalDate;
+
+/**
+ * Represents the summary of a {@link RepaymentSchedule}. It contains the monthly annuity and the accumulated values at the end of the duration.
+ */
+public class RepaymentSummary {
+
+    private LocalDate date;
+    private long annuityMonthInCent;
+    private long accumulatedAnnuityInCent;
+    private long accumulatedInterestsInCent;
+    private long accumulatedRepaymentInCent;
+    private long remainingLoanInCent;
+
+    /**
+     * Returns the date of the interests end.
+     *
+     * @return interests end
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * Sets the date of the interests end.
+     *
+     * @param date interests end
+     */
+    public void setDate(final LocalDate date) {
+        this.date = date;
+    }
+
+    /**
+     * Returns the monthly annuity rate in cent.
+     *
+     * @return monthly annuity rate in cent
+     */
+    public long getAnnuityMonthInCent() {
+        return annuityMonthInCent;
+    }
+
+    /**
+     * Sets the monthly annuity rate in cent.
+     *
+     * @param annuityMonthInCent monthly annuity rate in cent
+     */
+    public void setAnnuityMonthInCent(final long annuityMonthInCent) {
+        this.annuityMonthInCent = annuityMonthInCent;
+    }
+
+    /**
+     * Returns the sum of all annuity rates in cent.
+     *
+     * @return accumulated annuity in cent
+     */
+    public long getAccumulatedAnnuityInCent() {
+        return accumulatedAnnuityInCent;
+    }
+
+    /**
+     * Sets the sum of all annuity rates in cent.
+     *
+     * @param accumulatedAnnuityInCent accumulated annuity in cent
+     */
+    public void setAccumulatedAnnuityInCent(final long accumulatedAnnuityInCent) {
+        this.accumulatedAnnuityInCent = accumulatedAnnuityInCent;
+    }
+
+    /**
+     * Returns the sum of all interests portions in cent.
+     *
+     * @return accumulated interests in cent
+     */
+    public long getAccumulatedInterestsInCent() {
+        return accumulatedInterestsInCent;
+    }
+
+    /**
+     * Sets the sum of all interests portions in cent.
+     *
+     * @param accumulatedInterestsInCent accumulated interests in cent
+     */
+    public void setAccumulatedInterestsInCent(final long accumulatedInterestsInCent) {
+        this.accumulatedInterestsInCent = accumulatedInterestsInCent;
+    }
+
+    /**
+     * Returns the sum of all repayment portions in cent.
+     *
+     * @return accumulated repayment in cent
+     */
+    public long getAccumulatedRepaymentInCent() {
+        return accumulatedRepaymentInCent;
+    }
+
+    /**
+     * Sets the sum of all repayment portions in cent.
+     *
+     * @param accumulatedRepaymentInCent accumulated repayment in cent
+     */
+    public void setAccumulatedRepaymentInCent(final long accumulatedRepaymentInCent) {
+        this.accumulatedRepaymentInCent = accumulatedRepaymentInCent;
+    }
+
+    /**
+     * Returns the remaining loan in cent at the interests end. Like in {@link MonthlyEntry} the remaining loan is negative.
+     *
+     * @return remaining loan in cent
+     */
+    public long getRemainingLoanInCent() {
+        return remainingLoanInCent;
+    }
+
+    /**
+     * Sets the remaining loan in cent at the interests end.
+     *
+     * @param remainingLoanInCent remaining loan in cent
+     */
+    public void setRemainingLoanInCent(final long remainingLoanInCent) {
+        this.remainingLoanInCent = remainingLoanInCent;
+    }
+
+    /**
+     * Creates the summary of given repayment schedule calculated by {@link RepaymentScheduleCalculator}.
+     *
+     * @param schedule calculated repayment schedule
+     * @return summary of the schedule
+     */
+    public static RepaymentSummary of(final RepaymentSchedule schedule) {
+        int last = schedule.size() - 1;
+        RepaymentSummary summary = new RepaymentSummary();
+        summary.setDate(schedule.getDate(last));
+        summary.setAnnuityMonthInCent(schedule.getAnnuityRateInCent(1)); // first regular rate, index 0 is the full payment of the loan
+        summary.setAccumulatedAnnuityInCent(schedule.getAnnuityRateInCent(last));
+        summary.setAccumulatedInterestsInCent(schedule.getInterestsInCent(last));
+        summary.setAccumulatedRepaymentInCent(schedule.getRepaymentInCent(last));
+        summary.setRemainingLoanInCent(schedule.getRemainingLoanInCent(last));
+        return summary;
+    }
+}
@@ -0,0 +1,93 @@
+package de.hypoport.repaymentschedule;
+
+/**
+ * Represents the expanded and validated axes of a {@link ScenarioGridRequest}. The cells are ordered by debit interests, then initial repayment, then duration.
+ */
+public class ScenarioGrid {
+
+    private final static int MAX_AXIS_VALUES = 10000;
+    private final static int MAX_DURATION_IN_YEARS = 60;
+
+    private final double loanAmount;
+    private final double[] debitInterests;
+    private final double[] initialRepayments;
+    private final int[] durationsInYears;
+
+    private ScenarioGrid(final double loanAmount, final double[] debitInterests, final double[] initialRepayments, final int[] durationsInYears) {
+        this.loanAmount = loanAmount;
+        this.debitInterests = debitInterests;
+        this.initialRepayments = initialRepayments;
+        this.durationsInYears = durationsInYears;
+    }
+
+    /**
+     * Expands the ranges of given request and checks each value against the same limits as {@link RepaymentInformation}.
+     *
+     * @param request bean validated request
+     * @return grid of the request
+     * @throws IllegalArgumentException if a range is empty, too large or contains an invalid value
+     */
+    public static ScenarioGrid of(final ScenarioGridRequest request) {
+        if (RepaymentScheduleController.isInvalidCurrencyValue(request.getLoanAmount())) {
+            throw new IllegalArgumentException("loan amount must not have more than two decimal places");
+        }
+        double[] initialRepayments = request.getInitialRepaymentInPercentage().values(MAX_AXIS_VALUES);
+        if (initialRepayments[0] < 1 || initialRepayments[initialRepayments.length - 1] > 100) {
+            throw new IllegalArgumentException("initial repayment must be between 1 and 100");
+        }
+        double[] durations = request.getDurationInYears().values(MAX_DURATION_IN_YEARS);
+        int[] durationsInYears = new int[durations.length];
+        for (int index = 0; index < durations.length; index++) {
+            if (durations[index] != Math.rint(durations[index]) || durations[index] < 1 || durations[index] > MAX_DURATION_IN_YEARS) {
+                throw new IllegalArgumentException("duration must be whole years between 1 and " + MAX_DURATION_IN_YEARS);
+            }
+            durationsInYears[index] = (int) durations[index];
+        }
+        return new ScenarioGrid(request.getLoanAmount(), request.getDebitInterestInPercentage().values(MAX_AXIS_VALUES), initialRepayments, durationsInYears);
+    }
+
+    /**
+     * Returns the number of cells.
+     *
+     * @return product of the number of values of all axes
+     */
+    public long getCellCount() {
+        return (long) debitInterests.length * initialRepayments.length * durationsInYears.length;
+    }
+
+    /**
+     * Returns the loan amount in euro.
+     *
+     * @return loan amount in euro
+     */
+    public double getLoanAmount() {
+        return loanAmount;
+    }
+
+    /**
+     * Returns the debit interests in percentage in ascending order.
+     *
+     * @return debit interests, must not be modified
+     */
+    public double[] getDebitInterests() {
+        return debitInterests;
+    }
+
+    /**
+     * Returns the initial repayments in percentage in ascending order.
+     *
+     * @return initial repayments, must not be modified
+     */
+    public double[] getInitialRepayments() {
+        return initialRepayments;
+    }
+
+    /**
+     * Returns the durations in years in ascending order.
+     *
+     * @return durations, must not be modified
+     */
+    public int[] getDurationsInYears() {
+        return durationsInYears;
+    }
+}
@@ -0,0 +1,96 @@
+package de.hypoport.repaymentschedule;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Symbolizes a request object for a scenario grid. The grid contains one cell for each combination of debit interests, initial repayment and duration of the given ranges.
+ */
+public class ScenarioGridRequest {
+
+    @Min(1)
+    @NotNull
+    private Double loanAmount;
+    @Valid
+    @NotNull
+    private ParameterRange debitInterestInPercentage;
+    @Valid
+    @NotNull
+    private ParameterRange initialRepaymentInPercentage;
+    @Valid
+    @NotNull
+    private ParameterRange durationInYears;
+
+    /**
+     * Returns the loan amount in euro, which is the same for all cells.
+     *
+     * @return loan amount in euro
+     */
+    public Double getLoanAmount() {
+        return loanAmount;
+    }
+
+    /**
+     * Sets the loan amount in euro.
+     *
+     * @param loanAmount loan amount in euro
+     */
+    public void setLoanAmount(final Double loanAmount) {
+        this.loanAmount = loanAmount;
+    }
+
+    /**
+     * Returns the range of debit interests in percentage.
+     *
+     * @return range of debit interests
+     */
+    public ParameterRange getDebitInterestInPercentage() {
+        return debitInterestInPercentage;
+    }
+
+    /**
+     * Sets the range of debit interests in percentage.
+     *
+     * @param debitInterestInPercentage range of debit interests
+     */
+    public void setDebitInterestInPercentage(final ParameterRange debitInterestInPercentage) {
+        this.debitInterestInPercentage = debitInterestInPercentage;
+    }
+
+    /**
+     * Returns the range of initial repayments in percentage.
+     *
+     * @return range of initial repayments
+     */
+    public ParameterRange getInitialRepaymentInPercentage() {
+        return initialRepaymentInPercentage;
+    }
+
+    /**
+     * Sets the range of initial repayments in percentage.
+     *
+     * @param initialRepaymentInPercentage range of initial repayments
+     */
+    public void setInitialRepaymentInPercentage(final ParameterRange initialRepaymentInPercentage) {
+        this.initialRepaymentInPercentage = initialRepaymentInPercentage;
+    }
+
+    /**
+     * Returns the range of durations in years.
+     *
+     * @return range of durations
+     */
+    public ParameterRange getDurationInYears() {
+        return durationInYears;
+    }
+
+    /**
+     * Sets the range of durations in years.
+     *
+     * @param durationInYears range of durations
+     */
+    public void setDurationInYears(final ParameterRange durationInYears) {
+        this.durationInYears = durationInYears;
+    }
+}
@@ -0,0 +1,148 @@
+package de.hypoport.repaymentschedule;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Calculates scenario grids. Each debit interest is calculated as one task on an own bounded pool, and the results are written as json in grid order as soon as they are available,
+ * so the first rows are sent while the others are still calculated.
+ */
+@Service
+public class ScenarioGridService {
+
+    private final static String[] METRICS = {"annuityMonthInCent", "accumulatedInterestsInCent", "remainingLoanInCent"};
+
+    private final ForkJoinPool pool;
+    private final long maxCells;
+    private final ScheduleCalculation calculation;
+
+    /**
+     * Creates the service with its own calculation pool.
+     *
+     * @param parallelism number of calculation threads, 0 uses the number of available processors
+     * @param maxCells    maximum number of cells per grid
+     * @param calculation calculates the cells in the configured mode
+     */
+    public ScenarioGridService(@Value("${repaymentschedule.grid.parallelism:0}") final int parallelism,
+                               @Value("${repaymentschedule.grid.max-cells:100000}") final long maxCells, final ScheduleCalculation calculation) {
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.maxCells = maxCells;
+        this.calculation = calculation;
+    }
+
+    /**
+     * Returns the maximum number of cells per grid.
+     *
+     * @return maximum number of cells
+     */
+    public long getMaxCells() {
+        return maxCells;
+    }
+
+    /**
+     * Calculates given grid and writes it as json object. Besides the axes it contains the names of the metrics and the cells as nested arrays
+     * cells[debitInterest][initialRepayment][duration][metric].
+     *
+     * @param grid grid to calculate
+     * @param out  receives the json object
+     * @throws IOException if writing failed
+     */
+    public void writeGrid(final ScenarioGrid grid, final OutputStream out) throws IOException {
+        if (grid.getCellCount() > maxCells) {
+            throw new IllegalArgumentException("grid of " + grid.getCellCount() + " cells exceeds maximum of " + maxCells);
+        }
+        int[] durationsInMonths = new int[grid.getDurationsInYears().length];
+        for (int index = 0; index < durationsInMonths.length; index++) {
+            durationsInMonths[index] = grid.getDurationsInYears()[index] * 12;
+        }
+        List<Future<long[]>> rows = new ArrayList<>();
+        for (double debitInterest : grid.getDebitInterests()) {
+            rows.add(pool.submit(() -> computeRows(grid, debitInterest, durationsInMonths)));
+        }
+        try {
+            StringBuilder json = new StringBuilder(4096);
+            writeAxes(grid, json);
+            for (int row = 0; row < rows.size(); row++) {
+                json.append(row == 0 ? "[" : ",[");
+                appendCells(rows.get(row).get(), grid.getInitialRepayments().length, durationsInMonths.length, json);
+                json.append(']');
+                out.write(json.toString().getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                json.setLength(0);
+            }
+            out.write("]}".getBytes(StandardCharsets.US_ASCII));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("grid calculation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("grid calculation failed", e.getCause());
+        } finally {
+            for (Future<long[]> row : rows) {
+                row.cancel(false); // stops the remaining calculations if the client is gone
+            }
+        }
+    }
+
+    private long[] computeRows(final ScenarioGrid grid, final double debitInterest, final int[] durationsInMonths) {
+        long loanAmountInCent = calculation.toCent(grid.getLoanAmount());
+        double[] initialRepayments = grid.getInitialRepayments();
+        int rowLength = durationsInMonths.length * METRICS.length;
+        long[] values = new long[initialRepayments.length * rowLength];
+        for (int index = 0; index < initialRepayments.length; index++) {
+            calculation.computeSummaries(loanAmountInCent, debitInterest, initialRepayments[index], durationsInMonths, values, index * rowLength);
+        }
+        return values;
+    }
+
+    private static void writeAxes(final ScenarioGrid grid, final StringBuilder json) {
+        json.append("{\"loanAmount\":").append(grid.getLoanAmount()).append(",\"debitInterestInPercentage\":[");
+        appendValues(grid.getDebitInterests(), json);
+        json.append("],\"initialRepaymentInPercentage\":[");
+        appendValues(grid.getInitialRepayments(), json);
+        json.append("],\"durationInYears\":[");
+        for (int index = 0; index < grid.getDurationsInYears().length; index++) {
+            json.append(index == 0 ? "" : ",").append(grid.getDurationsInYears()[index]);
+        }
+        json.append("],\"metrics\":[");
+        for (int index = 0; index < METRICS.length; index++) {
+            json.append(index == 0 ? "\"" : ",\"").append(METRICS[index]).append('"');
+        }
+        json.append("],\"cells\":[");
+    }
+
+    private static void appendValues(final double[] values, final StringBuilder json) {
+        for (int index = 0; index < values.length; index++) {
+            json.append(index == 0 ? "" : ",").append(values[index]);
+        }
+    }
+
+    private static void appendCells(final long[] values, final int initialRepayments, final int durations, final StringBuilder json) {
+        int index = 0;
+        for (int repayment = 0; repayment < initialRepayments; repayment++) {
+            json.append(repayment == 0 ? "[" : ",[");
+            for (int duration = 0; duration < durations; duration++) {
+                json.append(duration == 0 ? "[" : ",[");
+                for (int metric = 0; metric < METRICS.length; metric++) {
+                    json.append(metric == 0 ? "" : ",").append(values[index++]);
+                }
+                json.append(']');
+            }
+            json.append(']');
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,80 @@
+package de.hypoport.repaymentschedule;
+
+/**
+ * Identifies the result of a repayment schedule calculation. Two {@link RepaymentInformation} with the same key lead to the same rates.
+ * The loan amount is normalized to cent like in the calculation, the percentages are compared exactly because every bit takes part in the calculation.
+ * The events are normalized by {@link EventTimeline}.
+ */
+public final class ScheduleCacheKey {
+
+    private final long loanAmountInCent;
+    private final double debitInterestInPercentage;
+    private final double initialRepaymentInPercentage;
+    private final int durationInYears;
+    private final EventTimeline events;
+
+    private ScheduleCacheKey(final long loanAmountInCent, final double debitInterestInPercentage, final double initialRepaymentInPercentage, final int durationInYears,
+                             final EventTimeline events) {
+        this.loanAmountInCent = loanAmountInCent;
+        this.debitInterestInPercentage = debitInterestInPercentage + 0.0; // -0.0 and 0.0 lead to the same rates
+        this.initialRepaymentInPercentage = initialRepaymentInPercentage + 0.0;
+        this.durationInYears = durationInYears;
+        this.events = events;
+    }
+
+    /**
+     * Creates the key of given valid repayment information.
+     *
+     * @param repaymentInformation valid repayment information
+     * @return key of the repayment information
+     */
+    public static ScheduleCacheKey of(final RepaymentInformation repaymentInformation) {
+        return new ScheduleCacheKey(repaymentInformation.getLoanAmountInCent(), repaymentInformation.getDebitInterestInPercentage(),
+                repaymentInformation.getInitialRepaymentInPercentage(), repaymentInformation.getDurationInYears(),
+                EventTimeline.of(repaymentInformation));
+    }
+
+    /**
+     * Creates the key of given valid repayment information for the fixed-point calculation, which rounds the amounts to cent instead of truncating them.
+     * Amounts which are truncated to the same cent can lead to different rates there.
+     *
+     * @param repaymentInformation valid repayment information
+     * @return key of the repayment information
+     */
+    public static ScheduleCacheKey ofFixedPoint(final RepaymentInformation repaymentInformation) {
+        return new ScheduleCacheKey(FixedPointRepaymentCalculator.toCent(repaymentInformation.getLoanAmount()), repaymentInformation.getDebitInterestInPercentage(),
+                repaymentInformation.getInitialRepaymentInPercentage(), repaymentInformation.getDurationInYears(),
+                EventTimeline.ofRoundedCents(repaymentInformation));
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ScheduleCacheKey)) {
+            return false;
+        }
+        ScheduleCacheKey key = (ScheduleCacheKey) other;
+        return loanAmountInCent == key.loanAmountInCent
+                && Double.compare(debitInterestInPercentage, key.debitInterestInPercentage) == 0
+                && Double.compare(initialRepaymentInPercentage, key.initialRepaymentInPercentage) == 0
+                && durationInYears == key.durationInYears
+                && events.equals(key.events);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Long.hashCode(loanAmountInCent);
+        result = 31 * result + Double.hashCode(debitInterestInPercentage);
+        result = 31 * result + Double.hashCode(initialRepaymentInPercentage);
+        result = 31 * result + durationInYears;
+        return 31 * result + events.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        String key = loanAmountInCent + "/" + debitInterestInPercentage + "/" + initialRepaymentInPercentage + "/" + durationInYears;
+        return events.size() == 0 ? key : key + "/" + events; // keys without events stay the same as before events existed
+    }
+}
@@ -0,0 +1,213 @@
+package de.hypoport.repaymentschedule;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.RoundingMode;
+import java.time.Clock;
+
+/**
+ * Calculates repayment schedules in the configured mode: by {@link RepaymentScheduleCalculator} with truncated cents and double interests, or by
+ * {@link FixedPointRepaymentCalculator} with rounded cents and exact interests. Every path which calculates rates uses this component, so a loan has the same cents
+ * in the page, the exports, the batches, the grids, the solver and the portfolio jobs. All schedules start in the current month of the clock.
+ */
+@Component
+public class ScheduleCalculation {
+
+    /**
+     * Name of the double calculation, see {@link #getMode()}.
+     */
+    public final static String DOUBLE_MODE = "double";
+
+    private final FixedPointRepaymentCalculator fixedPoint;
+    private final Clock clock;
+
+    /**
+     * Creates the calculation of the configured mode.
+     *
+     * @param fixedPoint       true calculates by {@link FixedPointRepaymentCalculator}
+     * @param interestRounding rounding of the interests of the fixed-point calculation
+     * @param annuityRounding  rounding of the annuity rate of the fixed-point calculation
+     * @param clock            clock of the current month
+     */
+    @Autowired
+    public ScheduleCalculation(@Value("${repaymentschedule.calculation.fixed-point:false}") final boolean fixedPoint,
+                               @Value("${repaymentschedule.calculation.interest-rounding:HALF_UP}") final RoundingMode interestRounding,
+                               @Value("${repaymentschedule.calculation.annuity-rounding:DOWN}") final RoundingMode annuityRounding,
+                               final Clock clock) {
+        this(fixedPoint ? new FixedPointRepaymentCalculator(interestRounding, annuityRounding) : null, clock);
+    }
+
+    private ScheduleCalculation(final FixedPointRepaymentCalculator fixedPoint, final Clock clock) {
+        this.fixedPoint = fixedPoint;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns a calculation by {@link RepaymentScheduleCalculator}.
+     *
+     * @param clock clock of the current month
+     * @return double calculation
+     */
+    public static ScheduleCalculation ofDouble(final Clock clock) {
+        return new ScheduleCalculation(null, clock);
+    }
+
+    /**
+     * Returns a calculation by given fixed-point calculator.
+     *
+     * @param calculator fixed-point calculator with its rounding modes
+     * @param clock      clock of the current month
+     * @return fixed-point calculation
+     */
+    public static ScheduleCalculation ofFixedPoint(final FixedPointRepaymentCalculator calculator, final Clock clock) {
+        return new ScheduleCalculation(calculator, clock);
+    }
+
+    /**
+     * Returns whether the schedules are calculated by {@link FixedPointRepaymentCalculator}.
+     *
+     * @return true for the fixed-point calculation
+     */
+    public boolean isFixedPoint() {
+        return fixedPoint != null;
+    }
+
+    /**
+     * Returns the name of the mode with its rounding modes, e.g. "fixed-point:HALF_UP:DOWN". Schedules of different modes can differ in single cents.
+     *
+     * @return name of the mode
+     */
+    public String getMode() {
+        return fixedPoint == null ? DOUBLE_MODE : fixedPoint.toString();
+    }
+
+    /**
+     * Returns the clock of the current month.
+     *
+     * @return clock
+     */
+    public Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * Converts an amount in euro to cent like the calculation does: truncated by the double calculation, rounded by the fixed-point calculation.
+     *
+     * @param amount amount in euro
+     * @return amount in cent
+     */
+    public long toCent(final double amount) {
+        return fixedPoint == null ? (long) (amount * 100) : FixedPointRepaymentCalculator.toCent(amount);
+    }
+
+    /**
+     * Returns the cache key of given repayment information. Repayment information with equal keys lead to the same rates in this mode.
+     *
+     * @param repaymentInformation valid repayment information
+     * @return cache key
+     */
+    public ScheduleCacheKey key(final RepaymentInformation repaymentInformation) {
+        return fixedPoint == null ? ScheduleCacheKey.of(repaymentInformation) : ScheduleCacheKey.ofFixedPoint(repaymentInformation);
+    }
+
+    /**
+     * Calculates the repayment plan of given repayment information.
+     *
+     * @param repaymentInformation valid repayment information
+     * @return calculated repayment schedule starting in the current month
+     */
+    public RepaymentSchedule computeRepaymentSchedule(final RepaymentInformation repaymentInformation) {
+        return fixedPoint == null ? RepaymentScheduleCalculator.computeRepaymentSchedule(repaymentInformation, clock)
+                : fixedPoint.computeRepaymentSchedule(repaymentInformation, clock);
+    }
+
+    /**
+     * Calculates the repayment plan of given repayment information and passes each rate to given sink instead of collecting them.
+     *
+     * @param repaymentInformation valid repayment information
+     * @param sink                 receives all rates in date order
+     */
+    public void computeRepaymentSchedule(final RepaymentInformation repaymentInformation, final ScheduleSink sink) {
+        if (fixedPoint == null) {
+            RepaymentScheduleCalculator.computeRepaymentSchedule(repaymentInformation, sink, clock);
+        } else {
+            fixedPoint.computeRepaymentSchedule(repaymentInformation, sink, clock);
+        }
+    }
+
+    /**
+     * Recalculates a repayment plan after its events were changed. The double calculation takes over the rates before the first change, the fixed-point calculation
+     * calculates the whole plan. The plan keeps the months of the previous plan.
+     *
+     * @param previousSchedule     repayment plan calculated for the previous parameters in this mode
+     * @param previousInformation  previous parameters
+     * @param repaymentInformation changed parameters
+     * @return recalculated repayment schedule, equal to a full calculation of the changed parameters
+     */
+    public RepaymentSchedule recomputeRepaymentSchedule(final RepaymentSchedule previousSchedule, final RepaymentInformation previousInformation,
+                                                        final RepaymentInformation repaymentInformation) {
+        return fixedPoint == null ? RepaymentScheduleCalculator.recomputeRepaymentSchedule(previousSchedule, previousInformation, repaymentInformation)
+                : fixedPoint.recomputeRepaymentSchedule(previousSchedule, repaymentInformation);
+    }
+
+    /**
+     * Calculates the summary of the repayment plan of given repayment information. The rates are still calculated month by month, so the cost is linear in the number
+     * of months like a full calculation.
+     *
+     * @param repaymentInformation valid repayment information
+     * @return summary of the repayment plan
+     */
+    public RepaymentSummary computeSummary(final RepaymentInformation repaymentInformation) {
+        return fixedPoint == null ? RepaymentScheduleCalculator.computeSummary(repaymentInformation, clock) : fixedPoint.computeSummary(repaymentInformation, clock);
+    }
+
+    /**
+     * Calculates the monthly annuity, the accumulated interests and the remaining loan of the same loan for several durations, like one row of a scenario grid.
+     *
+     * @param loanAmountInCent  loan amount in cent, see {@link #toCent(double)}
+     * @param debitInterest     debit interests in percentage
+     * @param initialRepayment  initial repayment in percentage
+     * @param durationsInMonths durations in ascending order
+     * @param target            receives three values for each duration
+     * @param offset            index of the first value in target
+     */
+    public void computeSummaries(final long loanAmountInCent, final double debitInterest, final double initialRepayment, final int[] durationsInMonths,
+                                 final long[] target, final int offset) {
+        if (fixedPoint == null) {
+            RepaymentScheduleCalculator.computeSummaries(loanAmountInCent, debitInterest, initialRepayment, durationsInMonths, target, offset);
+        } else {
+            fixedPoint.computeSummaries(loanAmountInCent, FixedPointRepaymentCalculator.toRateUnits(debitInterest), FixedPointRepaymentCalculator.toRateUnits(initialRepayment),
+                    durationsInMonths, target, offset);
+        }
+    }
+
+    /**
+     * Returns the monthly annuity rate in cent.
+     *
+     * @param loanAmountInCent loan amount in cent, see {@link #toCent(double)}
+     * @param debitInterest    debit interests in percentage
+     * @param initialRepayment initial repayment in percentage
+     * @return monthly annuity rate in cent
+     */
+    public long computeAnnuityMonth(final long loanAmountInCent, final double debitInterest, final double initialRepayment) {
+        return fixedPoint == null ? RepaymentScheduleCalculator.computeAnnuityMonth(loanAmountInCent, debitInterest, initialRepayment)
+                : fixedPoint.computeAnnuityMonth(loanAmountInCent, FixedPointRepaymentCalculator.toRateUnits(debitInterest),
+                FixedPointRepaymentCalculator.toRateUnits(initialRepayment));
+    }
+
+    /**
+     * Calculates the remaining loan after given number of monthly rates without events. The loan is stepped month by month.
+     *
+     * @param loanInCent    remaining loan before the first rate in cent
+     * @param annuityMonth  monthly annuity rate in cent, see {@link #computeAnnuityMonth(long, double, double)}
+     * @param debitInterest debit interests in percentage
+     * @param months        number of monthly rates
+     * @return remaining loan in cent, positive
+     */
+    public long computeRemainingLoan(final long loanInCent, final long annuityMonth, final double debitInterest, final int months) {
+        return fixedPoint == null ? RepaymentScheduleCalculator.computeRemainingLoan(loanInCent, annuityMonth, debitInterest, months)
+                : fixedPoint.computeRemainingLoan(loanInCent, annuityMonth, FixedPointRepaymentCalculator.toRateUnits(debitInterest), months);
+    }
+}
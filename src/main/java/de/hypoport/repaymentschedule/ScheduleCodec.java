@@ -0,0 +1,214 @@
+package de.hypoport.repaymentschedule;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Encodes repayment schedules in a compact, versioned binary format for archival and transfer, and decodes them again.
+ * <p>
+ * The header contains the magic number "RSSC" (4 bytes), the version (1 byte), flags (1 byte), the duration in years, the first epoch month and the number of rates.
+ * If the months are consecutive no further months are stored, otherwise each rate starts with the zig-zag varint delta to the previous month. If all regular rates,
+ * which are the rates between the first and the last, have the same annuity, it is stored once in the header and only the first and last rate contain an annuity.
+ * Otherwise each rate contains the delta to the previous annuity. The other values are stored as zig-zag varint delta to the value predicted from the previous rate:
+ * interests by the previous interests, repayment by annuity minus interests and remaining loan by the previous remaining loan plus repayment. For calculated
+ * schedules most rates need three bytes.
+ */
+public final class ScheduleCodec {
+
+    /**
+     * Magic number at the start of each encoded schedule, "RSSC".
+     */
+    public final static int MAGIC = 0x52535343;
+    /**
+     * Current version of the format.
+     */
+    public final static byte VERSION = 1;
+
+    private final static int FLAG_CONSTANT_ANNUITY = 1;
+    private final static int FLAG_CONSECUTIVE_MONTHS = 2;
+    private final static int HEADER_SIZE = 4 + 1 + 1 + 3 * 5 + 10;
+    private final static int MAX_RATE_SIZE = 5 + 4 * 10;
+    private final static int MIN_RATE_SIZE = 3;
+    private final static int MAX_RATES = 60 * 12 + 2; // full payment, regular rates of the longest duration and the accumulated rate
+
+    private ScheduleCodec() {
+    }
+
+    /**
+     * Encodes given repayment schedule.
+     *
+     * @param schedule repayment schedule
+     * @return encoded schedule
+     */
+    public static byte[] encode(final RepaymentSchedule schedule) {
+        int size = schedule.size();
+        boolean constantAnnuity = isConstantAnnuity(schedule);
+        boolean consecutiveMonths = isConsecutiveMonths(schedule);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + size * MAX_RATE_SIZE);
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.put((byte) ((constantAnnuity ? FLAG_CONSTANT_ANNUITY : 0) | (consecutiveMonths ? FLAG_CONSECUTIVE_MONTHS : 0)));
+        putVarint(buffer, schedule.getDuration());
+        putVarint(buffer, zigZag(size == 0 ? 0 : schedule.getEpochMonth(0)));
+        putVarint(buffer, size);
+        if (constantAnnuity) {
+            putVarint(buffer, zigZag(schedule.getAnnuityRateInCent(1)));
+        }
+        long annuity = 0;
+        long interests = 0;
+        long remainingLoan = 0;
+        for (int index = 0; index < size; index++) {
+            if (!consecutiveMonths && index > 0) {
+                putVarint(buffer, zigZag(schedule.getEpochMonth(index) - schedule.getEpochMonth(index - 1)));
+            }
+            long nextAnnuity = schedule.getAnnuityRateInCent(index);
+            if (!constantAnnuity) {
+                putVarint(buffer, zigZag(nextAnnuity - annuity));
+            } else if (index == 0 || index == size - 1) {
+                putVarint(buffer, zigZag(nextAnnuity));
+            }
+            annuity = nextAnnuity;
+            long nextInterests = schedule.getInterestsInCent(index);
+            putVarint(buffer, zigZag(nextInterests - interests));
+            interests = nextInterests;
+            long repayment = schedule.getRepaymentInCent(index);
+            putVarint(buffer, zigZag(repayment - (annuity - interests)));
+            long nextRemainingLoan = schedule.getRemainingLoanInCent(index);
+            putVarint(buffer, zigZag(nextRemainingLoan - (remainingLoan + repayment)));
+            remainingLoan = nextRemainingLoan;
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * Decodes one repayment schedule from given buffer. The position of the buffer is moved behind the schedule, so several schedules can be read one after another.
+     *
+     * @param buffer encoded schedule
+     * @return decoded repayment schedule
+     * @throws IllegalArgumentException if the buffer does not start with a supported schedule or its number of rates is invalid or does not fit into the buffer
+     */
+    public static RepaymentSchedule decode(final ByteBuffer buffer) {
+        ByteBuffer header = buffer.duplicate();
+        readHeader(header);
+        getVarint(header); // duration
+        getVarint(header); // first month
+        ColumnSink columns = new ColumnSink(readSize(header));
+        int duration = decode(buffer, columns);
+        return columns.toSchedule(duration);
+    }
+
+    /**
+     * Decodes one repayment schedule from given buffer and passes each rate to given sink. The values are read directly from the buffer, which may also be a direct
+     * or memory mapped buffer, without copying it or creating objects. The position of the buffer is moved behind the schedule.
+     *
+     * @param buffer encoded schedule
+     * @param sink   receives all rates in stored order
+     * @return duration in years
+     * @throws IllegalArgumentException if the buffer does not start with a supported schedule or its number of rates is invalid or does not fit into the buffer
+     */
+    public static int decode(final ByteBuffer buffer, final ScheduleSink sink) {
+        int flags = readHeader(buffer);
+        int duration = (int) getVarint(buffer);
+        int month = (int) unZigZag(getVarint(buffer));
+        int size = readSize(buffer);
+        boolean consecutiveMonths = (flags & FLAG_CONSECUTIVE_MONTHS) != 0;
+        boolean constantAnnuity = (flags & FLAG_CONSTANT_ANNUITY) != 0;
+        long regularAnnuity = constantAnnuity ? unZigZag(getVarint(buffer)) : 0;
+        long annuity = 0;
+        long interests = 0;
+        long remainingLoan = 0;
+        for (int index = 0; index < size; index++) {
+            if (index > 0) {
+                month += consecutiveMonths ? 1 : (int) unZigZag(getVarint(buffer));
+            }
+            if (!constantAnnuity) {
+                annuity += unZigZag(getVarint(buffer));
+            } else if (index == 0 || index == size - 1) {
+                annuity = unZigZag(getVarint(buffer));
+            } else {
+                annuity = regularAnnuity;
+            }
+            interests += unZigZag(getVarint(buffer));
+            long repayment = annuity - interests + unZigZag(getVarint(buffer));
+            remainingLoan += repayment + unZigZag(getVarint(buffer));
+            sink.accept(month, annuity, interests, repayment, remainingLoan);
+        }
+        return duration;
+    }
+
+    private static int readHeader(final ByteBuffer buffer) {
+        if (buffer.remaining() < 6 || buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("no encoded repayment schedule");
+        }
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("unsupported schedule format version " + version);
+        }
+        return buffer.get();
+    }
+
+    /**
+     * Reads the number of rates and checks it before anything is allocated for them: no schedule is longer than the longest duration and each rate needs at least
+     * {@value #MIN_RATE_SIZE} bytes behind the header.
+     */
+    private static int readSize(final ByteBuffer buffer) {
+        long size = getVarint(buffer);
+        if (size < 0 || size > MAX_RATES) {
+            throw new IllegalArgumentException("invalid number of rates " + size);
+        }
+        if (size * MIN_RATE_SIZE > buffer.remaining()) {
+            throw new IllegalArgumentException("truncated schedule, " + size + " rates need at least " + size * MIN_RATE_SIZE + " bytes but " + buffer.remaining() + " remain");
+        }
+        return (int) size;
+    }
+
+    private static boolean isConstantAnnuity(final RepaymentSchedule schedule) {
+        if (schedule.size() < 3) {
+            return false;
+        }
+        for (int index = 2; index < schedule.size() - 1; index++) {
+            if (schedule.getAnnuityRateInCent(index) != schedule.getAnnuityRateInCent(1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isConsecutiveMonths(final RepaymentSchedule schedule) {
+        for (int index = 1; index < schedule.size(); index++) {
+            if (schedule.getEpochMonth(index) != schedule.getEpochMonth(index - 1) + 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long zigZag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void putVarint(final ByteBuffer buffer, final long value) {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            buffer.put((byte) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        buffer.put((byte) remaining);
+    }
+
+    private static long getVarint(final ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte next = buffer.get();
+            value |= (long) (next & 0x7F) << shift;
+            if (next >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("varint is longer than 10 bytes");
+    }
+}
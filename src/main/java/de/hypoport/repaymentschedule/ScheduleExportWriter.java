@@ -0,0 +1,174 @@
+package de.hypoport.repaymentschedule;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+
+/**
+ * Writes the rates of repayment schedules as csv or ndjson to an output stream while they are calculated. The rows are formatted into an own byte buffer,
+ * so no objects are created per rate. Several schedules can be written one after another, each row contains the index of its schedule if requested.
+ */
+public class ScheduleExportWriter implements ScheduleSink {
+
+    private final static int BUFFER_SIZE = 8192;
+    private final static int MAX_ROW_LENGTH = 256;
+    private final static int[] POWERS_OF_TEN = {1, 10, 100, 1000};
+    private final static String CSV_HEADER = "date,remainingLoanInCent,interestsInCent,repaymentInCent,annuityRateInCent\n";
+
+    private final OutputStream out;
+    private final ExportFormat format;
+    private final boolean withLoanIndex;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final byte[] digits = new byte[20];
+    private int position;
+    private int loanIndex;
+
+    /**
+     * Creates a writer for given output stream.
+     *
+     * @param out           target of the rows
+     * @param format        export format
+     * @param withLoanIndex if true each row starts with the index of its schedule
+     * @throws IllegalArgumentException if the format is no text format
+     */
+    public ScheduleExportWriter(final OutputStream out, final ExportFormat format, final boolean withLoanIndex) {
+        if (format == ExportFormat.BINARY) {
+            throw new IllegalArgumentException("binary schedules are written by " + ScheduleCodec.class.getSimpleName());
+        }
+        this.out = out;
+        this.format = format;
+        this.withLoanIndex = withLoanIndex;
+    }
+
+    /**
+     * Writes the header line if the format has one.
+     */
+    public void writeHeader() {
+        if (format == ExportFormat.CSV) {
+            if (withLoanIndex) {
+                writeAscii("loan,");
+            }
+            writeAscii(CSV_HEADER);
+        }
+    }
+
+    /**
+     * Sets the index of the schedule whose rates are written next.
+     *
+     * @param loanIndex index of the schedule
+     */
+    public void setLoanIndex(final int loanIndex) {
+        this.loanIndex = loanIndex;
+    }
+
+    @Override
+    public void accept(final int epochMonth, final long annuityRateInCent, final long interestsInCent, final long repaymentInCent, final long remainingLoanInCent) {
+        if (buffer.length - position < MAX_ROW_LENGTH) {
+            flushBuffer();
+        }
+        if (format == ExportFormat.CSV) {
+            if (withLoanIndex) {
+                writeLong(loanIndex);
+                writeByte(',');
+            }
+            writeDate(epochMonth);
+            writeByte(',');
+            writeLong(remainingLoanInCent);
+            writeByte(',');
+            writeLong(interestsInCent);
+            writeByte(',');
+            writeLong(repaymentInCent);
+            writeByte(',');
+            writeLong(annuityRateInCent);
+        } else {
+            writeByte('{');
+            if (withLoanIndex) {
+                writeAscii("\"loan\":");
+                writeLong(loanIndex);
+                writeByte(',');
+            }
+            writeAscii("\"date\":\"");
+            writeDate(epochMonth);
+            writeAscii("\",\"remainingLoanInCent\":");
+            writeLong(remainingLoanInCent);
+            writeAscii(",\"interestsInCent\":");
+            writeLong(interestsInCent);
+            writeAscii(",\"repaymentInCent\":");
+            writeLong(repaymentInCent);
+            writeAscii(",\"annuityRateInCent\":");
+            writeLong(annuityRateInCent);
+            writeByte('}');
+        }
+        writeByte('\n');
+    }
+
+    /**
+     * Writes all buffered rows and flushes the output stream, so the rows are sent to the client.
+     */
+    public void flush() {
+        flushBuffer();
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeDate(final int epochMonth) {
+        LocalDate date = EpochMonths.atEndOfMonth(epochMonth); // each rate is at the last day in a month
+        writePadded(date.getYear(), 4);
+        writeByte('-');
+        writePadded(date.getMonthValue(), 2);
+        writeByte('-');
+        writePadded(date.getDayOfMonth(), 2);
+    }
+
+    private void writePadded(final int value, final int width) {
+        for (int divisor = POWERS_OF_TEN[width - 1]; divisor > 0; divisor /= 10) {
+            writeByte('0' + (value / divisor) % 10);
+        }
+    }
+
+    private void writeLong(final long value) {
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+        long remaining = value;
+        if (remaining < 0) {
+            writeByte('-');
+            remaining = -remaining;
+        }
+        int length = 0;
+        do {
+            digits[length++] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining > 0);
+        while (length > 0) {
+            buffer[position++] = digits[--length];
+        }
+    }
+
+    private void writeAscii(final String text) {
+        for (int index = 0; index < text.length(); index++) {
+            if (position == buffer.length) {
+                flushBuffer();
+            }
+            writeByte(text.charAt(index));
+        }
+    }
+
+    private void writeByte(final int value) {
+        buffer[position++] = (byte) value;
+    }
+
+    private void flushBuffer() {
+        try {
+            out.write(buffer, 0, position);
+            position = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
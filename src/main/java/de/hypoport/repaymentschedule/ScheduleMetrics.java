@@ -0,0 +1,185 @@
+package de.hypoport.repaymentschedule;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records the time of the phases of a repayment schedule request: validation (including the binding of the parameters), calculation and rendering of the page.
+ * The timers are tagged by duration bucket of the repayment schedule and publish percentile histograms. As interceptor it measures the rendering, which happens after the controller returned.
+ * If disabled or no meter registry exists all methods return immediately, the calculation itself is never instrumented.
+ */
+@Component
+public class ScheduleMetrics implements HandlerInterceptor {
+
+    private final static String[] DURATION_BUCKETS = {"1-10", "11-20", "21-40", "41-60"};
+    private final static String REQUEST_START_ATTRIBUTE = ScheduleMetrics.class.getName() + ".requestStart";
+    private final static String RENDERING_BUCKET_ATTRIBUTE = ScheduleMetrics.class.getName() + ".renderingBucket";
+    private final static String RENDERING_START_ATTRIBUTE = ScheduleMetrics.class.getName() + ".renderingStart";
+
+    private final boolean enabled;
+    private final MeterRegistry registry;
+    private final Timer[] validationTimers = new Timer[DURATION_BUCKETS.length];
+    private final Timer[] calculationTimers = new Timer[DURATION_BUCKETS.length];
+    private final Timer[] renderingTimers = new Timer[DURATION_BUCKETS.length];
+    private final ConcurrentMap<String, Counter> rejectionCounters = new ConcurrentHashMap<>();
+    private final AtomicInteger lastEntryCount = new AtomicInteger();
+
+    /**
+     * Creates the metrics and registers all meters.
+     *
+     * @param registryProvider provides the meter registry, metrics are disabled without registry
+     * @param scheduleCache    cache whose counters are published
+     * @param admissionFilter  filter whose in-flight and rejected requests are published
+     * @param enabled          false disables all metrics
+     */
+    public ScheduleMetrics(final ObjectProvider<MeterRegistry> registryProvider, final RepaymentScheduleCache scheduleCache,
+                           final AdmissionFilter admissionFilter, @Value("${repaymentschedule.metrics.enabled:true}") final boolean enabled) {
+        this.registry = registryProvider.getIfAvailable();
+        this.enabled = enabled && registry != null;
+        if (!this.enabled) {
+            return;
+        }
+        for (int bucket = 0; bucket < DURATION_BUCKETS.length; bucket++) {
+            validationTimers[bucket] = createTimer("repaymentschedule.validation", "Binding and validation of the repayment information", bucket);
+            calculationTimers[bucket] = createTimer("repaymentschedule.calculation", "Calculation of the repayment schedule", bucket);
+            renderingTimers[bucket] = createTimer("repaymentschedule.rendering", "Rendering of the repayment schedule page", bucket);
+        }
+        Gauge.builder("repaymentschedule.entries", lastEntryCount, AtomicInteger::get)
+                .description("Number of entries of the last calculated repayment schedule")
+                .register(registry);
+        FunctionCounter.builder("repaymentschedule.cache.hits", scheduleCache, RepaymentScheduleCache::getHitCount).register(registry);
+        FunctionCounter.builder("repaymentschedule.cache.misses", scheduleCache, RepaymentScheduleCache::getMissCount).register(registry);
+        FunctionCounter.builder("repaymentschedule.cache.evictions", scheduleCache, RepaymentScheduleCache::getEvictionCount).register(registry);
+        Gauge.builder("repaymentschedule.admission.in-flight", admissionFilter, AdmissionFilter::getInFlightCount)
+                .description("Number of repayment schedule requests handled at the moment")
+                .register(registry);
+        Gauge.builder("repaymentschedule.admission.waiting", admissionFilter, AdmissionFilter::getWaitingCount)
+                .description("Number of repayment schedule requests waiting for admission")
+                .register(registry);
+        FunctionCounter.builder("repaymentschedule.admission.rejections", admissionFilter, AdmissionFilter::getRejectedCount)
+                .description("Repayment schedule requests rejected because of saturation or deadline")
+                .register(registry);
+    }
+
+    /**
+     * Returns the start time for a timer.
+     *
+     * @return current time in nanoseconds or 0 if disabled
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the validation of given repayment information. The time is measured from the start of the request handling, because binding and validation happen before the controller method.
+     * Each rejected field is counted.
+     *
+     * @param request              current request
+     * @param repaymentInformation validated repayment information
+     * @param errors               validation errors
+     * @param invalidCurrencyValue true if the loan amount was rejected as currency value
+     */
+    public void recordValidation(final HttpServletRequest request, final RepaymentInformation repaymentInformation, final Errors errors, final boolean invalidCurrencyValue) {
+        if (!enabled) {
+            return;
+        }
+        Object requestStart = request.getAttribute(REQUEST_START_ATTRIBUTE);
+        if (requestStart != null) {
+            validationTimers[durationBucket(repaymentInformation)].record(System.nanoTime() - (Long) requestStart, TimeUnit.NANOSECONDS);
+        }
+        for (FieldError error : errors.getFieldErrors()) {
+            countRejection(error.getField());
+        }
+        if (invalidCurrencyValue) {
+            countRejection("loanAmount");
+        }
+    }
+
+    /**
+     * Records the calculation of given repayment schedule and marks the request for measuring the rendering.
+     *
+     * @param request              current request
+     * @param start                start time, see {@link #start()}
+     * @param repaymentInformation parameters of the calculation
+     * @param repaymentSchedule    calculated repayment schedule
+     */
+    public void recordCalculation(final HttpServletRequest request, final long start, final RepaymentInformation repaymentInformation, final RepaymentSchedule repaymentSchedule) {
+        if (!enabled) {
+            return;
+        }
+        int bucket = durationBucket(repaymentInformation);
+        calculationTimers[bucket].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        lastEntryCount.set(repaymentSchedule.size());
+        request.setAttribute(RENDERING_BUCKET_ATTRIBUTE, bucket);
+    }
+
+    @Override
+    public boolean preHandle(final HttpServletRequest request, final HttpServletResponse response, final Object handler) {
+        if (enabled) {
+            request.setAttribute(REQUEST_START_ATTRIBUTE, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void postHandle(final HttpServletRequest request, final HttpServletResponse response, final Object handler, final ModelAndView modelAndView) {
+        if (enabled && request.getAttribute(RENDERING_BUCKET_ATTRIBUTE) != null) {
+            request.setAttribute(RENDERING_START_ATTRIBUTE, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterCompletion(final HttpServletRequest request, final HttpServletResponse response, final Object handler, final Exception ex) {
+        if (!enabled) {
+            return;
+        }
+        Object renderingStart = request.getAttribute(RENDERING_START_ATTRIBUTE);
+        if (renderingStart != null) {
+            int bucket = (Integer) request.getAttribute(RENDERING_BUCKET_ATTRIBUTE);
+            renderingTimers[bucket].record(System.nanoTime() - (Long) renderingStart, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void countRejection(final String field) {
+        rejectionCounters.computeIfAbsent(field, name -> Counter.builder("repaymentschedule.validation.rejections")
+                .description("Rejected repayment information by field")
+                .tag("field", name)
+                .register(registry)).increment();
+    }
+
+    private Timer createTimer(final String name, final String description, final int bucket) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("duration", DURATION_BUCKETS[bucket])
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static int durationBucket(final RepaymentInformation repaymentInformation) {
+        Integer durationInYears = repaymentInformation.getDurationInYears();
+        if (durationInYears == null || durationInYears <= 10) {
+            return 0;
+        }
+        if (durationInYears <= 20) {
+            return 1;
+        }
+        return durationInYears <= 40 ? 2 : 3;
+    }
+}
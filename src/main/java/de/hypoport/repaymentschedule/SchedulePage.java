@@ -0,0 +1,158 @@
+package de.hypoport.repaymentschedule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents a slice of the regular monthly rates of a {@link RepaymentSchedule} together with the full payment of the loan and the accumulated values.
+ * All values are formatted for display, so rendering a page does not depend on the duration of the schedule.
+ */
+public class SchedulePage {
+
+    private final int page;
+    private final int size;
+    private final int totalRates;
+    private final FormattedEntry fullPayment;
+    private final FormattedEntry accumulated;
+    private final List<FormattedEntry> rates;
+
+    private SchedulePage(final int page, final int size, final int totalRates, final FormattedEntry fullPayment, final FormattedEntry accumulated, final List<FormattedEntry> rates) {
+        this.page = page;
+        this.size = size;
+        this.totalRates = totalRates;
+        this.fullPayment = fullPayment;
+        this.accumulated = accumulated;
+        this.rates = rates;
+    }
+
+    /**
+     * Creates the page of given repayment schedule calculated by {@link RepaymentScheduleCalculator}. A page after the last rate is empty.
+     *
+     * @param schedule repayment schedule
+     * @param page     number of the page, starting with 0
+     * @param size     number of regular rates per page
+     * @return page of the repayment schedule
+     */
+    public static SchedulePage of(final RepaymentSchedule schedule, final int page, final int size) {
+        return of(schedule, page, size, true);
+    }
+
+    /**
+     * Creates the page of given repayment schedule without formatting its regular rates. The rates are written by {@link StreamingScheduleView}
+     * between {@link #getFirstIndex()} and {@link #getEndIndex()}.
+     *
+     * @param schedule repayment schedule
+     * @param page     number of the page, starting with 0
+     * @param size     number of regular rates per page
+     * @return page of the repayment schedule with an empty list of rates
+     */
+    public static SchedulePage withoutRates(final RepaymentSchedule schedule, final int page, final int size) {
+        return of(schedule, page, size, false);
+    }
+
+    private static SchedulePage of(final RepaymentSchedule schedule, final int page, final int size, final boolean formatRates) {
+        if (page < 0 || size < 1) {
+            throw new IllegalArgumentException("page must not be negative and size must be positive");
+        }
+        int last = schedule.size() - 1; // index 0 is the full payment of the loan, the last index contains the accumulated values
+        int totalRates = last - 1;
+        List<FormattedEntry> rates = new ArrayList<>();
+        SchedulePage schedulePage = new SchedulePage(page, size, totalRates, new FormattedEntry(schedule, 0), new FormattedEntry(schedule, last), rates);
+        if (formatRates) {
+            for (int index = schedulePage.getFirstIndex(); index < schedulePage.getEndIndex(); index++) {
+                rates.add(new FormattedEntry(schedule, index));
+            }
+        }
+        return schedulePage;
+    }
+
+    /**
+     * Returns the number of this page, starting with 0.
+     *
+     * @return page number
+     */
+    public int getPage() {
+        return page;
+    }
+
+    /**
+     * Returns the number of regular rates per page.
+     *
+     * @return page size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the number of regular rates of the whole schedule.
+     *
+     * @return number of regular rates
+     */
+    public int getTotalRates() {
+        return totalRates;
+    }
+
+    /**
+     * Returns the index of the first regular rate of this page in the repayment schedule.
+     *
+     * @return index of the first rate, equal to the end index if the page is empty
+     */
+    public int getFirstIndex() {
+        return (int) Math.min(1 + (long) page * size, totalRates + 1);
+    }
+
+    /**
+     * Returns the index after the last regular rate of this page in the repayment schedule.
+     *
+     * @return exclusive end index of the rates
+     */
+    public int getEndIndex() {
+        return (int) Math.min(totalRates + 1L, getFirstIndex() + (long) size);
+    }
+
+    /**
+     * Returns the number of pages of the whole schedule.
+     *
+     * @return number of pages
+     */
+    public int getTotalPages() {
+        return (totalRates + size - 1) / size;
+    }
+
+    /**
+     * Returns true if there is no page after this page.
+     *
+     * @return true if there are no more rates
+     */
+    public boolean isLastPage() {
+        return page + 1 >= getTotalPages();
+    }
+
+    /**
+     * Returns the first entry which symbolizes the full payment of the loan.
+     *
+     * @return full payment of the loan
+     */
+    public FormattedEntry getFullPayment() {
+        return fullPayment;
+    }
+
+    /**
+     * Returns the last entry with the accumulated values at the interests end.
+     *
+     * @return accumulated values
+     */
+    public FormattedEntry getAccumulated() {
+        return accumulated;
+    }
+
+    /**
+     * Returns the regular rates of this page ordered by date.
+     *
+     * @return rates of this page
+     */
+    public List<FormattedEntry> getRates() {
+        return rates;
+    }
+}
@@ -0,0 +1,20 @@
+package de.hypoport.repaymentschedule;
+
+/**
+ * Receives the rates of a repayment schedule in date order while they are calculated by {@link RepaymentScheduleCalculator}.
+ * The values have the same meaning and sign as in {@link MonthlyEntry}.
+ */
+@FunctionalInterface
+public interface ScheduleSink {
+
+    /**
+     * Receives the next rate of the repayment schedule.
+     *
+     * @param epochMonth          month of the rate, see {@link EpochMonths}
+     * @param annuityRateInCent   annuity rate in cent
+     * @param interestsInCent     interests portion in cent
+     * @param repaymentInCent     repayment portion in cent
+     * @param remainingLoanInCent remaining loan in cent
+     */
+    void accept(int epochMonth, long annuityRateInCent, long interestsInCent, long repaymentInCent, long remainingLoanInCent);
+}
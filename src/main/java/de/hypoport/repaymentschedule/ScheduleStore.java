@@ -0,0 +1,270 @@
+package de.hypoport.repaymentschedule;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves calculated repayment schedules with their repayment information in the embedded database, so they can be looked up later by id or by their input.
+ * Saving only queues the schedule, a background thread writes the queued schedules in batches, so the request does not wait for the disk.
+ * Schedules which are not written yet are found by the lookups as well. A batch which could not be written stays pending and is written again after a growing delay. The schedules are stored encoded by {@link ScheduleCodec}, the events of the repayment information
+ * in the normalized form of {@link EventTimeline}.
+ */
+@Component
+public class ScheduleStore {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ScheduleStore.class);
+    // merge instead of insert, so a batch which was written in part before it failed can be written again
+    private final static String MERGE = "MERGE INTO repayment_schedule (id, input_hash, loan_amount_in_cent, debit_interest_in_percentage, "
+            + "initial_repayment_in_percentage, duration_in_years, created_at, schedule, events) KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private final static String SELECT = "SELECT id, input_hash, loan_amount_in_cent, debit_interest_in_percentage, initial_repayment_in_percentage, "
+            + "duration_in_years, created_at, schedule, events FROM repayment_schedule ";
+    private final static char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<StoredSchedule> queue;
+    private final ConcurrentMap<String, StoredSchedule> pendingById = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, StoredSchedule> pendingByInputHash = new ConcurrentHashMap<>();
+    private final int batchSize;
+    private final long retryInitialMillis;
+    private final long retryMaxMillis;
+    private final Object writeLock = new Object();
+    private final List<StoredSchedule> unwritten = new ArrayList<>(); // guarded by writeLock
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    /**
+     * Creates the store and starts the writer thread.
+     *
+     * @param jdbcTemplate  access to the embedded database
+     * @param queueCapacity maximum number of schedules waiting to be written
+     * @param batchSize          maximum number of schedules written in one batch
+     * @param retryInitialMillis delay before a failed batch is written again, doubled after each further failure
+     * @param retryMaxMillis     maximum delay before a failed batch is written again
+     */
+    public ScheduleStore(final JdbcTemplate jdbcTemplate, @Value("${repaymentschedule.store.queue-capacity:10000}") final int queueCapacity,
+                         @Value("${repaymentschedule.store.batch-size:500}") final int batchSize,
+                         @Value("${repaymentschedule.store.retry-initial-millis:100}") final long retryInitialMillis,
+                         @Value("${repaymentschedule.store.retry-max-millis:10000}") final long retryMaxMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.retryInitialMillis = retryInitialMillis;
+        this.retryMaxMillis = retryMaxMillis;
+        this.writer = new Thread(this::writeQueued, "schedule-store-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Returns the hash of given repayment information. Repayment information which lead to the same rates have the same hash, see {@link ScheduleCacheKey}.
+     *
+     * @param repaymentInformation valid repayment information
+     * @return SHA-256 of the repayment information as hex string
+     */
+    public static String inputHash(final RepaymentInformation repaymentInformation) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(ScheduleCacheKey.of(repaymentInformation).toString().getBytes(StandardCharsets.UTF_8));
+            char[] hex = new char[hash.length * 2];
+            for (int index = 0; index < hash.length; index++) {
+                hex[index * 2] = HEX_DIGITS[(hash[index] >> 4) & 0xF];
+                hex[index * 2 + 1] = HEX_DIGITS[hash[index] & 0xF];
+            }
+            return new String(hex);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Saves given repayment schedule under a new id. The schedule is written in the background. If the queue is full, the schedule is written immediately.
+     *
+     * @throws org.springframework.dao.DataAccessException if the queue is full and the schedule could not be written
+     * @param repaymentInformation valid repayment information of the schedule
+     * @param repaymentSchedule    calculated repayment schedule
+     * @return saved schedule with its id
+     */
+    public StoredSchedule save(final RepaymentInformation repaymentInformation, final RepaymentSchedule repaymentSchedule) {
+        StoredSchedule storedSchedule = new StoredSchedule();
+        storedSchedule.setId(UUID.randomUUID().toString());
+        storedSchedule.setInputHash(inputHash(repaymentInformation));
+        storedSchedule.setCreatedAt(Instant.now().truncatedTo(ChronoUnit.MILLIS)); // same precision as in the database
+        storedSchedule.setRepaymentInformation(repaymentInformation);
+        storedSchedule.setRepaymentSchedule(repaymentSchedule);
+        pendingById.put(storedSchedule.getId(), storedSchedule);
+        pendingByInputHash.put(storedSchedule.getInputHash(), storedSchedule);
+        if (!queue.offer(storedSchedule)) {
+            try {
+                write(Collections.singletonList(storedSchedule));
+            } catch (RuntimeException e) {
+                removePending(storedSchedule);
+                throw e;
+            }
+        }
+        return storedSchedule;
+    }
+
+    /**
+     * Returns the schedule saved under given id.
+     *
+     * @param id id of the schedule
+     * @return saved schedule or empty if no schedule has the id
+     */
+    public Optional<StoredSchedule> findById(final String id) {
+        StoredSchedule pending = pendingById.get(id);
+        if (pending != null) {
+            return Optional.of(pending);
+        }
+        return jdbcTemplate.query(SELECT + "WHERE id = ?", new StoredScheduleMapper(), id).stream().findFirst();
+    }
+
+    /**
+     * Returns the latest schedule saved for repayment information with given hash.
+     *
+     * @param inputHash hash of the repayment information, see {@link #inputHash(RepaymentInformation)}
+     * @return latest saved schedule or empty if no schedule was saved for the hash
+     */
+    public Optional<StoredSchedule> findLatestByInputHash(final String inputHash) {
+        StoredSchedule pending = pendingByInputHash.get(inputHash);
+        if (pending != null) {
+            return Optional.of(pending);
+        }
+        return jdbcTemplate.query(SELECT + "WHERE input_hash = ? ORDER BY created_at DESC LIMIT 1", new StoredScheduleMapper(), inputHash).stream().findFirst();
+    }
+
+    /**
+     * Writes all queued schedules and waits until a batch written in the background is finished.
+     *
+     * @throws org.springframework.dao.DataAccessException if a batch could not be written, its schedules stay pending and are written again later
+     */
+    public void flush() {
+        synchronized (writeLock) {
+            while (!unwritten.isEmpty() || queue.drainTo(unwritten, batchSize) > 0) {
+                write(unwritten);
+                unwritten.clear();
+            }
+        }
+    }
+
+    /**
+     * Stops the writer thread and writes the remaining schedules.
+     *
+     * @throws InterruptedException if interrupted while waiting for the writer thread
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        writer.join();
+        flush();
+    }
+
+    private void writeQueued() {
+        long retryMillis = retryInitialMillis;
+        while (running) {
+            int size = 0;
+            try {
+                synchronized (writeLock) { // a schedule taken from the queue is written before flush can continue
+                    if (unwritten.isEmpty()) {
+                        StoredSchedule first = queue.poll(100, TimeUnit.MILLISECONDS);
+                        if (first == null) {
+                            continue;
+                        }
+                        unwritten.add(first);
+                        queue.drainTo(unwritten, batchSize - 1);
+                    }
+                    size = unwritten.size();
+                    write(unwritten);
+                    unwritten.clear();
+                }
+                retryMillis = retryInitialMillis;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOGGER.error("could not write {} repayment schedules, trying again in {} ms", size, retryMillis, e);
+                try {
+                    Thread.sleep(retryMillis); // outside of the lock, so flush can try itself
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                retryMillis = Math.min(retryMillis * 2, retryMaxMillis);
+            }
+        }
+    }
+
+    /**
+     * Writes given schedules in one batch. The schedules are removed from the pending ones only if the batch was written.
+     * Amounts are written as rounded cents, so a valid amount with at most two decimal places is read back as the same double. Truncated cents would read
+     * 1024.1 back as 1024.09.
+     */
+    private void write(final List<StoredSchedule> batch) {
+        jdbcTemplate.batchUpdate(MERGE, batch, batch.size(), (statement, storedSchedule) -> {
+            RepaymentInformation repaymentInformation = storedSchedule.getRepaymentInformation();
+            statement.setString(1, storedSchedule.getId());
+            statement.setString(2, storedSchedule.getInputHash());
+            statement.setLong(3, FixedPointRepaymentCalculator.toCent(repaymentInformation.getLoanAmount()));
+            statement.setDouble(4, repaymentInformation.getDebitInterestInPercentage());
+            statement.setDouble(5, repaymentInformation.getInitialRepaymentInPercentage());
+            statement.setInt(6, repaymentInformation.getDurationInYears());
+            statement.setTimestamp(7, Timestamp.from(storedSchedule.getCreatedAt()));
+            statement.setBytes(8, ScheduleCodec.encode(storedSchedule.getRepaymentSchedule()));
+            statement.setString(9, EventTimeline.ofRoundedCents(repaymentInformation).toString());
+        });
+        for (StoredSchedule storedSchedule : batch) {
+            removePending(storedSchedule);
+        }
+    }
+
+    private void removePending(final StoredSchedule storedSchedule) {
+        pendingById.remove(storedSchedule.getId());
+        pendingByInputHash.remove(storedSchedule.getInputHash(), storedSchedule);
+    }
+
+    /**
+     * Creates a {@link StoredSchedule} of a row of the repayment_schedule table.
+     */
+    private static class StoredScheduleMapper implements RowMapper<StoredSchedule> {
+
+        @Override
+        public StoredSchedule mapRow(final ResultSet resultSet, final int rowNumber) throws SQLException {
+            RepaymentInformation repaymentInformation = new RepaymentInformation();
+            repaymentInformation.setLoanAmount(resultSet.getLong("loan_amount_in_cent") / 100.0);
+            repaymentInformation.setDebitInterestInPercentage(resultSet.getDouble("debit_interest_in_percentage"));
+            repaymentInformation.setInitialRepaymentInPercentage(resultSet.getDouble("initial_repayment_in_percentage"));
+            repaymentInformation.setDurationInYears(resultSet.getInt("duration_in_years"));
+            repaymentInformation.setEvents(EventTimeline.parse(resultSet.getString("events")).toEvents());
+            StoredSchedule storedSchedule = new StoredSchedule();
+            storedSchedule.setId(resultSet.getString("id"));
+            storedSchedule.setInputHash(resultSet.getString("input_hash"));
+            storedSchedule.setCreatedAt(resultSet.getTimestamp("created_at").toInstant());
+            storedSchedule.setRepaymentInformation(repaymentInformation);
+            storedSchedule.setRepaymentSchedule(ScheduleCodec.decode(ByteBuffer.wrap(resultSet.getBytes("schedule"))));
+            return storedSchedule;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package de.hypoport.repaymentschedule;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Locale;
+
+/**
+ * Warms up the application before it reports to be ready: after the start it sends requests with different durations to the repayment schedule page, the cacheable view
+ * and the page api of its own port. So the controllers of lazily initialized beans are created, the templates are parsed and cached and the calculation is compiled by the
+ * JIT before the first user request arrives.
+ * <p>
+ * As health indicator it reports OUT_OF_SERVICE until the warm-up is done, so a load balancer checking /actuator/health sends no traffic to a cold instance. If configured
+ * the application exits after the warm-up, which is used by the training run of the class-data-sharing archive, see scripts/build-cds-archive.sh.
+ */
+@Component
+@Lazy(false)
+public class ScheduleWarmup implements ApplicationListener<ApplicationReadyEvent>, HealthIndicator {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ScheduleWarmup.class);
+    private final static int MAX_DURATION_IN_YEARS = 60;
+    private final static int TIMEOUT_MILLIS = 10000;
+
+    private final boolean enabled;
+    private final int requests;
+    private final boolean exit;
+    private volatile boolean done;
+
+    /**
+     * Creates the warm-up.
+     *
+     * @param enabled  false reports ready immediately without warm-up
+     * @param requests number of requests per warmed up url
+     * @param exit     true exits the application after the warm-up
+     */
+    public ScheduleWarmup(@Value("${repaymentschedule.warmup.enabled:false}") final boolean enabled, @Value("${repaymentschedule.warmup.requests:60}") final int requests,
+                          @Value("${repaymentschedule.warmup.exit:false}") final boolean exit) {
+        this.enabled = enabled;
+        this.requests = requests;
+        this.exit = exit;
+        this.done = !enabled;
+    }
+
+    /**
+     * Starts the warm-up in an own thread, so the start of the application is not delayed. Without embedded web server the warm-up is skipped.
+     *
+     * @param event ready event of the application
+     */
+    @Override
+    public void onApplicationEvent(final ApplicationReadyEvent event) {
+        if (!enabled) {
+            return;
+        }
+        ApplicationContext context = event.getApplicationContext();
+        if (!(context instanceof WebServerApplicationContext) || ((WebServerApplicationContext) context).getWebServer() == null) {
+            done = true;
+            return;
+        }
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        Thread thread = new Thread(() -> {
+            warmUp(port);
+            if (exit) {
+                System.exit(SpringApplication.exit(context));
+            }
+        }, "schedule-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Reports OUT_OF_SERVICE while the warm-up is running.
+     *
+     * @return health of the warm-up
+     */
+    @Override
+    public Health health() {
+        return done ? Health.up().build() : Health.outOfService().withDetail("warmup", "running").build();
+    }
+
+    /**
+     * Returns whether the warm-up is done or disabled.
+     *
+     * @return true if the application is warmed up
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Sends the warm-up requests to given local port. A failed request is logged and ends the warm-up, the application is reported ready anyway.
+     *
+     * @param port port of the embedded web server
+     */
+    void warmUp(final int port) {
+        long start = System.nanoTime();
+        try {
+            request(port, "/repaymentSchedule");
+            for (int request = 0; request < requests; request++) {
+                String parameters = String.format(Locale.ROOT, "loanAmount=%d&debitInterestInPercentage=%.2f&initialRepaymentInPercentage=%d&durationInYears=%d",
+                        100000 + 1000 * (request % 10), 1 + (request % 7) * 0.5, 1 + request % 3, 1 + request % MAX_DURATION_IN_YEARS);
+                request(port, "/repaymentSchedule/view?" + parameters + (request % 4 == 0 ? "&all=true" : ""));
+                request(port, "/api/repaymentSchedules/page?" + parameters + "&page=" + request % 2);
+            }
+            LOGGER.info("warm-up with {} requests done in {} ms", 1 + 2 * requests, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            LOGGER.warn("warm-up failed", e);
+        } finally {
+            done = true;
+        }
+    }
+
+    private static void request(final int port, final String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http", "localhost", port, path).openConnection();
+        connection.setConnectTimeout(TIMEOUT_MILLIS);
+        connection.setReadTimeout(TIMEOUT_MILLIS);
+        try {
+            int status = connection.getResponseCode();
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("status " + status + " for " + path);
+            }
+            byte[] buffer = new byte[8192];
+            try (InputStream in = connection.getInputStream()) {
+                while (in.read(buffer) >= 0) {
+                    // the response is only read to render it completely
+                }
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package de.hypoport.repaymentschedule;
+
+/**
+ * Represents the answer of the {@link RepaymentSolver}: the completed repayment information and the summary of its repayment schedule.
+ */
+public class SolverResult {
+
+    private RepaymentInformation repaymentInformation;
+    private RepaymentSummary summary;
+    private int evaluations;
+
+    /**
+     * Returns the repayment information with the solved parameter.
+     *
+     * @return complete repayment information
+     */
+    public RepaymentInformation getRepaymentInformation() {
+        return repaymentInformation;
+    }
+
+    /**
+     * Sets the repayment information with the solved parameter.
+     *
+     * @param repaymentInformation complete repayment information
+     */
+    public void setRepaymentInformation(final RepaymentInformation repaymentInformation) {
+        this.repaymentInformation = repaymentInformation;
+    }
+
+    /**
+     * Returns the summary of the repayment schedule of the solved repayment information.
+     *
+     * @return summary of the repayment schedule
+     */
+    public RepaymentSummary getSummary() {
+        return summary;
+    }
+
+    /**
+     * Sets the summary of the repayment schedule of the solved repayment information.
+     *
+     * @param summary summary of the repayment schedule
+     */
+    public void setSummary(final RepaymentSummary summary) {
+        this.summary = summary;
+    }
+
+    /**
+     * Returns the number of evaluated candidates until the solution was found.
+     *
+     * @return number of evaluations
+     */
+    public int getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * Sets the number of evaluated candidates until the solution was found.
+     *
+     * @param evaluations number of evaluations
+     */
+    public void setEvaluations(final int evaluations) {
+        this.evaluations = evaluations;
+    }
+}
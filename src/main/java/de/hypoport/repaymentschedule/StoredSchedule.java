@@ -0,0 +1,105 @@
+package de.hypoport.repaymentschedule;
+
+import java.time.Instant;
+
+/**
+ * Represents a repayment schedule saved by the {@link ScheduleStore} together with the repayment information it was calculated of.
+ */
+public class StoredSchedule {
+
+    private String id;
+    private String inputHash;
+    private Instant createdAt;
+    private RepaymentInformation repaymentInformation;
+    private RepaymentSchedule repaymentSchedule;
+
+    /**
+     * Returns the id under which the schedule is stored.
+     *
+     * @return id
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Sets the id under which the schedule is stored.
+     *
+     * @param id id
+     */
+    public void setId(final String id) {
+        this.id = id;
+    }
+
+    /**
+     * Returns the hash of the repayment information, see {@link ScheduleStore#inputHash(RepaymentInformation)}.
+     *
+     * @return hash of the repayment information
+     */
+    public String getInputHash() {
+        return inputHash;
+    }
+
+    /**
+     * Sets the hash of the repayment information.
+     *
+     * @param inputHash hash of the repayment information
+     */
+    public void setInputHash(final String inputHash) {
+        this.inputHash = inputHash;
+    }
+
+    /**
+     * Returns the time the schedule was saved.
+     *
+     * @return creation time
+     */
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Sets the time the schedule was saved.
+     *
+     * @param createdAt creation time
+     */
+    public void setCreatedAt(final Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Returns the repayment information the schedule was calculated of.
+     *
+     * @return repayment information
+     */
+    public RepaymentInformation getRepaymentInformation() {
+        return repaymentInformation;
+    }
+
+    /**
+     * Sets the repayment information the schedule was calculated of.
+     *
+     * @param repaymentInformation repayment information
+     */
+    public void setRepaymentInformation(final RepaymentInformation repaymentInformation) {
+        this.repaymentInformation = repaymentInformation;
+    }
+
+    /**
+     * Returns the stored repayment schedule.
+     *
+     * @return repayment schedule
+     */
+    public RepaymentSchedule getRepaymentSchedule() {
+        return repaymentSchedule;
+    }
+
+    /**
+     * Sets the stored repayment schedule.
+     *
+     * @param repaymentSchedule repayment schedule
+     */
+    public void setRepaymentSchedule(final RepaymentSchedule repaymentSchedule) {
+        this.repaymentSchedule = repaymentSchedule;
+    }
+}
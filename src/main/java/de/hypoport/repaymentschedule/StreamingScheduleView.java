@@ -0,0 +1,128 @@
+package de.hypoport.repaymentschedule;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.View;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.PrintWriter;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Renders the page of a repayment schedule with the regular rates written straight to the response. Thymeleaf only renders the layout of showRepaymentSchedule.html
+ * with a marker instead of the rates, so its costs do not depend on the number of rates. The part before the marker is sent first, then the rates are formatted
+ * by {@link CentFormatter} into one reused buffer and flushed in chunks, so the browser shows the first rates while the rest is still formatted.
+ * The response has no content length and is sent chunked.
+ */
+@Component(StreamingScheduleView.VIEW_NAME)
+public class StreamingScheduleView implements View {
+
+    /**
+     * Name of the view, resolved by the bean name view resolver.
+     */
+    public final static String VIEW_NAME = "streamedRepaymentSchedule";
+
+    private final static String TEMPLATE = "showRepaymentSchedule.html";
+    private final static String REPAYMENT_SCHEDULE_KEY = "repaymentSchedule";
+    private final static String REPAYMENT_PAGE_KEY = "repaymentPage";
+    private final static String RATE_ROWS_KEY = "rateRows";
+    private final static String RATE_ROWS_MARKER = "<!--rateRows-->";
+    private final static String CONTENT_TYPE = "text/html;charset=UTF-8";
+    private final static int MAX_ROW_LENGTH = 160;
+
+    private final ITemplateEngine templateEngine;
+    private final int rowsPerFlush;
+
+    /**
+     * Creates the view.
+     *
+     * @param templateEngine renders the layout of the page
+     * @param rowsPerFlush   number of rates sent to the client at once
+     */
+    public StreamingScheduleView(final ITemplateEngine templateEngine, @Value("${repaymentschedule.page.rows-per-flush:120}") final int rowsPerFlush) {
+        this.templateEngine = templateEngine;
+        this.rowsPerFlush = Math.max(1, rowsPerFlush);
+    }
+
+    @Override
+    public String getContentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public void render(final Map<String, ?> model, final HttpServletRequest request, final HttpServletResponse response) throws Exception {
+        RepaymentSchedule schedule = (RepaymentSchedule) model.get(REPAYMENT_SCHEDULE_KEY);
+        SchedulePage page = (SchedulePage) model.get(REPAYMENT_PAGE_KEY);
+        Map<String, Object> variables = new HashMap<>(model);
+        variables.put(RATE_ROWS_KEY, RATE_ROWS_MARKER);
+        String layout = templateEngine.process(TEMPLATE, new WebContext(request, response, request.getServletContext(), RequestContextUtils.getLocale(request), variables));
+        int marker = layout.indexOf(RATE_ROWS_MARKER);
+        if (marker < 0) {
+            throw new IllegalStateException(TEMPLATE + " contains no marker for the rates");
+        }
+
+        response.setContentType(CONTENT_TYPE);
+        PrintWriter writer = response.getWriter();
+        writer.write(layout, 0, marker);
+        writer.flush();
+        StringBuilder rows = new StringBuilder(rowsPerFlush * MAX_ROW_LENGTH);
+        char[] chunk = new char[rows.capacity()];
+        int rowCount = 0;
+        for (int index = page.getFirstIndex(); index < page.getEndIndex(); index++) {
+            appendRow(rows, schedule, index);
+            if (++rowCount == rowsPerFlush) {
+                writeChunk(writer, rows, chunk);
+                rowCount = 0;
+            }
+        }
+        writeChunk(writer, rows, chunk);
+        int rest = marker + RATE_ROWS_MARKER.length();
+        writer.write(layout, rest, layout.length() - rest);
+        writer.flush();
+    }
+
+    /**
+     * Appends one rate as table row in the same form as the full payment row of the template.
+     *
+     * @param rows     target of the row
+     * @param schedule repayment schedule
+     * @param index    index of the rate
+     */
+    private static void appendRow(final StringBuilder rows, final RepaymentSchedule schedule, final int index) {
+        rows.append("<tr><td>");
+        appendDate(rows, EpochMonths.atEndOfMonth(schedule.getEpochMonth(index)));
+        rows.append("</td><td><span>");
+        CentFormatter.append(rows, schedule.getRemainingLoanInCent(index)).append("</span>€</td><td><span>");
+        CentFormatter.append(rows, schedule.getInterestsInCent(index)).append("</span>€</td><td><span>");
+        CentFormatter.append(rows, schedule.getRepaymentInCent(index)).append("</span>€</td><td><span>");
+        CentFormatter.append(rows, schedule.getAnnuityRateInCent(index)).append("</span>€</td></tr>\n");
+    }
+
+    /**
+     * Appends a date in ISO format like {@link LocalDate#toString()} for years with four digits.
+     */
+    private static void appendDate(final StringBuilder rows, final LocalDate date) {
+        rows.append(date.getYear()).append('-');
+        appendTwoDigits(rows, date.getMonthValue()).append('-');
+        appendTwoDigits(rows, date.getDayOfMonth());
+    }
+
+    private static StringBuilder appendTwoDigits(final StringBuilder rows, final int value) {
+        return rows.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    private static void writeChunk(final PrintWriter writer, final StringBuilder rows, final char[] chunk) {
+        int length = rows.length();
+        char[] target = length <= chunk.length ? chunk : new char[length];
+        rows.getChars(0, length, target, 0);
+        writer.write(target, 0, length);
+        writer.flush();
+        rows.setLength(0);
+    }
+}
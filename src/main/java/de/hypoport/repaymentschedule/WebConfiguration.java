@@ -0,0 +1,43 @@
+package de.hypoport.repaymentschedule;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Configures the web layer of the repayment schedule application.
+ */
+@Configuration
+public class WebConfiguration implements WebMvcConfigurer {
+
+    private final ScheduleMetrics scheduleMetrics;
+
+    /**
+     * Creates the configuration.
+     *
+     * @param scheduleMetrics measures the phases of repayment schedule requests
+     */
+    public WebConfiguration(final ScheduleMetrics scheduleMetrics) {
+        this.scheduleMetrics = scheduleMetrics;
+    }
+
+    @Override
+    public void addInterceptors(final InterceptorRegistry registry) {
+        registry.addInterceptor(scheduleMetrics).addPathPatterns("/repaymentSchedule", "/repaymentSchedule/view");
+    }
+
+    /**
+     * Registers the admission filter for all requests which calculate repayment schedules. Static resources and the actuator endpoints are always admitted.
+     *
+     * @param admissionFilter limits the number of calculations at the same time
+     * @return registration of the filter
+     */
+    @Bean
+    public FilterRegistrationBean<AdmissionFilter> admissionFilterRegistration(final AdmissionFilter admissionFilter) {
+        FilterRegistrationBean<AdmissionFilter> registration = new FilterRegistrationBean<>(admissionFilter);
+        registration.addUrlPatterns("/repaymentSchedule", "/repaymentSchedule/*", "/api/repaymentSchedules", "/api/repaymentSchedules/*");
+        return registration;
+    }
+}
@@ -0,0 +1,17 @@
+CREATE TABLE IF NOT EXISTS repayment_schedule
+(
+    id                              VARCHAR(36) PRIMARY KEY,
+    input_hash                      CHAR(64)    NOT NULL,
+    loan_amount_in_cent             BIGINT      NOT NULL,
+    debit_interest_in_percentage    DOUBLE      NOT NULL,
+    initial_repayment_in_percentage DOUBLE      NOT NULL,
+    duration_in_years               INT         NOT NULL,
+    created_at                      TIMESTAMP   NOT NULL,
+    schedule                        VARBINARY   NOT NULL,
+    events                          VARCHAR     DEFAULT '' NOT NULL
+);
+
+-- databases created before the events were stored
+ALTER TABLE repayment_schedule ADD COLUMN IF NOT EXISTS events VARCHAR DEFAULT '' NOT NULL;
+
+CREATE INDEX IF NOT EXISTS repayment_schedule_input_hash ON repayment_schedule (input_hash, created_at);
@@ -0,0 +1,184 @@
+package de.hypoport.repaymentschedule;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that the {@link AdmissionFilter} rejects requests beyond its limits before their handling starts and returns the permits of synchronous and asynchronous requests.
+ */
+public class AdmissionFilterTest {
+
+    /**
+     * With one permit and no waiting requests a second request is rejected immediately with Retry-After, and admitted again once the first request has finished.
+     *
+     * @throws Exception
+     */
+    @Test
+    void saturated_RejectedWithRetryAfter() throws Exception {
+        AdmissionFilter filter = new AdmissionFilter(true, 1, 0, 1000, 3, 200);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        MockHttpServletResponse blockedResponse = new MockHttpServletResponse();
+        Thread blocked = new Thread(() -> filter(filter, blockedResponse, new BlockingServlet(started, finish)));
+        blocked.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CountingServlet servlet = new CountingServlet();
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter(filter, rejected, servlet);
+        assertEquals(503, rejected.getStatus());
+        assertEquals("3", rejected.getHeader("Retry-After"));
+        assertEquals(0, servlet.calls.get());
+        assertEquals(1, filter.getRejectedCount());
+
+        finish.countDown();
+        blocked.join();
+        assertEquals(200, blockedResponse.getStatus());
+        assertEquals(0, filter.getInFlightCount());
+        MockHttpServletResponse admitted = new MockHttpServletResponse();
+        filter(filter, admitted, servlet);
+        assertEquals(200, admitted.getStatus());
+        assertEquals(1, servlet.calls.get());
+    }
+
+    /**
+     * A waiting request which gets no permit until its deadline is rejected without being handled.
+     *
+     * @throws Exception
+     */
+    @Test
+    void deadlineExceeded_WorkNotStarted() throws Exception {
+        AdmissionFilter filter = new AdmissionFilter(true, 1, 10, 50, 1, 200);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        Thread blocked = new Thread(() -> filter(filter, new MockHttpServletResponse(), new BlockingServlet(started, finish)));
+        blocked.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CountingServlet servlet = new CountingServlet();
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        long start = System.nanoTime();
+        filter(filter, rejected, servlet);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(503, rejected.getStatus());
+        assertEquals(0, servlet.calls.get());
+        assertEquals(0, filter.getWaitingCount());
+
+        finish.countDown();
+        blocked.join();
+    }
+
+    /**
+     * An asynchronous request keeps its permit after the filter returned, until the response is complete.
+     */
+    @Test
+    void asyncRequest_PermitHeldUntilComplete() {
+        AdmissionFilter filter = new AdmissionFilter(true, 1, 0, 1000, 1, 200);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/repaymentSchedule/export");
+        request.setAsyncSupported(true);
+        AsyncContext[] asyncContext = new AsyncContext[1];
+        MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(final HttpServletRequest request, final HttpServletResponse response) {
+                asyncContext[0] = request.startAsync();
+            }
+        });
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        assertEquals(1, filter.getInFlightCount());
+
+        asyncContext[0].complete();
+        assertEquals(0, filter.getInFlightCount());
+    }
+
+    /**
+     * A disabled filter admits all requests.
+     */
+    @Test
+    void disabled_AllAdmitted() {
+        AdmissionFilter filter = new AdmissionFilter(false, 1, 0, 0, 1, 200);
+        CountingServlet servlet = new CountingServlet();
+        for (int request = 0; request < 3; request++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter(filter, response, servlet);
+            assertEquals(200, response.getStatus());
+        }
+        assertEquals(3, servlet.calls.get());
+    }
+
+    /**
+     * Handled and waiting requests have to leave a request thread to reject further requests. The queue is reduced to fit, the default in-flight limit takes
+     * at most half of the threads, and an in-flight limit without free thread is refused.
+     */
+    @Test
+    void limits_StayBelowRequestThreads() {
+        AdmissionFilter reduced = new AdmissionFilter(true, 128, 100, 2000, 1, 200);
+        assertEquals(128, reduced.getMaxInFlight());
+        assertEquals(71, reduced.getMaxQueued());
+
+        AdmissionFilter unchanged = new AdmissionFilter(true, 4, 100, 2000, 1, 200);
+        assertEquals(100, unchanged.getMaxQueued());
+
+        AdmissionFilter defaultInFlight = new AdmissionFilter(true, 0, 100, 2000, 1, 4);
+        assertEquals(Math.min(2 * Runtime.getRuntime().availableProcessors(), 2), defaultInFlight.getMaxInFlight());
+        assertEquals(3 - defaultInFlight.getMaxInFlight(), defaultInFlight.getMaxQueued());
+
+        assertThrows(IllegalArgumentException.class, () -> new AdmissionFilter(true, 200, 0, 2000, 1, 200));
+    }
+
+    private static void filter(final AdmissionFilter filter, final MockHttpServletResponse response, final HttpServlet servlet) {
+        try {
+            filter.doFilter(new MockHttpServletRequest("GET", "/repaymentSchedule"), response, new MockFilterChain(servlet));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class CountingServlet extends HttpServlet {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        protected void doGet(final HttpServletRequest request, final HttpServletResponse response) {
+            calls.incrementAndGet();
+        }
+    }
+
+    private static class BlockingServlet extends HttpServlet {
+
+        private final CountDownLatch started;
+        private final CountDownLatch finish;
+
+        BlockingServlet(final CountDownLatch started, final CountDownLatch finish) {
+            this.started = started;
+            this.finish = finish;
+        }
+
+        @Override
+        protected void doGet(final HttpServletRequest request, final HttpServletResponse response) {
+            started.countDown();
+            try {
+                finish.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
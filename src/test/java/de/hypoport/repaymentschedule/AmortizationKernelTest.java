@@ -0,0 +1,51 @@
+package de.hypoport.repaymentschedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests the {@link AmortizationKernel} against {@link RepaymentScheduleCalculator}.
+ */
+public class AmortizationKernelTest {
+
+    /**
+     * Calculates the summaries of random loans with different durations in blocks of several sizes, so full blocks, partial blocks and the scalar rest are used.
+     * Each summary has to equal the summary of the calculator bit by bit.
+     */
+    @Test
+    void computeSummaries_MatchCalculator() {
+        Random random = new Random(17);
+        int count = 1003;
+        long[] loanAmounts = new long[count];
+        double[] debitInterests = new double[count];
+        double[] initialRepayments = new double[count];
+        int[] durations = new int[count];
+        RepaymentInformation[] repaymentInformations = new RepaymentInformation[count];
+        for (int index = 0; index < count; index++) {
+            debitInterests[index] = random.nextInt(1000) / 100.0;
+            initialRepayments[index] = 1 + random.nextInt(900) / 100.0;
+            durations[index] = (1 + random.nextInt(60)) * 12;
+            repaymentInformations[index] = new RepaymentInformation();
+            repaymentInformations[index].setLoanAmount((100 + (long) (random.nextDouble() * 100_000_000)) / 100.0);
+            repaymentInformations[index].setDebitInterestInPercentage(debitInterests[index]);
+            repaymentInformations[index].setInitialRepaymentInPercentage(initialRepayments[index]);
+            repaymentInformations[index].setDurationInYears(durations[index] / 12);
+            loanAmounts[index] = repaymentInformations[index].getLoanAmountInCent(); // truncated like the calculator
+        }
+
+        for (int lanes : new int[]{1, 3, 8, AmortizationKernel.DEFAULT_LANES}) {
+            long[] summaries = new long[count * 3];
+            new AmortizationKernel(lanes).computeSummaries(count, loanAmounts, debitInterests, initialRepayments, durations, summaries);
+            for (int index = 0; index < count; index++) {
+                RepaymentSummary summary = RepaymentScheduleCalculator.computeSummary(repaymentInformations[index]);
+                String loan = "lanes " + lanes + ", loan " + index;
+                assertEquals(summary.getAnnuityMonthInCent(), summaries[index * 3], loan);
+                assertEquals(summary.getAccumulatedInterestsInCent(), summaries[index * 3 + 1], loan);
+                assertEquals(summary.getRemainingLoanInCent(), summaries[index * 3 + 2], loan);
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package de.hypoport.repaymentschedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests the {@link FixedPointRepaymentCalculator} and {@link FixedPointMath} with random values against a BigDecimal reference. The random generators are seeded,
+ * so a failure can be reproduced.
+ */
+public class FixedPointRepaymentCalculatorTest {
+
+    private final static Clock CLOCK = Clock.fixed(Instant.parse("2019-12-15T10:00:00Z"), ZoneOffset.UTC);
+    private final static BigDecimal MONTHLY_PERCENT = BigDecimal.valueOf(12 * 100);
+    private final static RoundingMode[] ROUNDING_MODES = {RoundingMode.UP, RoundingMode.DOWN, RoundingMode.CEILING, RoundingMode.FLOOR, RoundingMode.HALF_UP,
+            RoundingMode.HALF_DOWN, RoundingMode.HALF_EVEN};
+
+    /**
+     * The 128 bit product and the rounded quotient have to equal BigInteger and BigDecimal for random factors of all magnitudes and all rounding modes.
+     */
+    @Test
+    void multiplyDivide_MatchesBigDecimal() {
+        Random random = new Random(16);
+        for (int run = 0; run < 20000; run++) {
+            long x = random.nextLong() >> random.nextInt(64);
+            long y = random.nextLong() >> random.nextInt(64);
+            long divisor = Math.max(1, random.nextLong() >>> random.nextInt(64));
+            BigInteger product = BigInteger.valueOf(x).multiply(BigInteger.valueOf(y));
+            assertEquals(product.shiftRight(64).longValue(), FixedPointMath.multiplyHigh(x, y));
+
+            RoundingMode roundingMode = ROUNDING_MODES[run % ROUNDING_MODES.length];
+            BigInteger expected = new BigDecimal(product).divide(BigDecimal.valueOf(divisor), 0, roundingMode).toBigInteger();
+            if (expected.bitLength() < 64) {
+                assertEquals(expected.longValue(), FixedPointMath.multiplyDivide(x, y, divisor, roundingMode), x + " * " + y + " / " + divisor + " " + roundingMode);
+            } else {
+                assertThrows(ArithmeticException.class, () -> FixedPointMath.multiplyDivide(x, y, divisor, roundingMode));
+            }
+        }
+        assertEquals(6, FixedPointMath.multiplyDivide(4, 3, 2, RoundingMode.UNNECESSARY));
+        assertThrows(ArithmeticException.class, () -> FixedPointMath.multiplyDivide(5, 3, 2, RoundingMode.UNNECESSARY));
+    }
+
+    /**
+     * Calculates random repayment schedules with random rounding modes, loans up to 10^13 euro and events. Each rate has to equal the BigDecimal reference.
+     */
+    @Test
+    void computeRepaymentSchedule_MatchesBigDecimal() {
+        Random random = new Random(2019);
+        for (int run = 0; run < 500; run++) {
+            long loanAmountInCent = 1 + (long) (random.nextDouble() * Math.pow(10, 1 + random.nextInt(15)));
+            RepaymentInformation repaymentInformation = new RepaymentInformation();
+            repaymentInformation.setLoanAmount(loanAmountInCent / 100.0);
+            repaymentInformation.setDebitInterestInPercentage(randomPercentage(random, 15));
+            repaymentInformation.setInitialRepaymentInPercentage(1 + randomPercentage(random, 10));
+            repaymentInformation.setDurationInYears(1 + random.nextInt(60));
+            List<RepaymentEvent> events = new ArrayList<>();
+            for (int event = random.nextInt(3); event > 0; event--) {
+                events.add(new RepaymentEvent(1 + random.nextInt(repaymentInformation.getDurationInYears() * 12),
+                        random.nextBoolean() ? random.nextInt(1000000) / 100.0 : null, random.nextBoolean() ? randomPercentage(random, 15) : null));
+            }
+            repaymentInformation.setEvents(events);
+            RoundingMode interestRounding = ROUNDING_MODES[random.nextInt(ROUNDING_MODES.length)];
+            RoundingMode annuityRounding = ROUNDING_MODES[random.nextInt(ROUNDING_MODES.length)];
+
+            assertEquals(loanAmountInCent, FixedPointRepaymentCalculator.toCent(repaymentInformation.getLoanAmount()));
+            RepaymentSchedule schedule = new FixedPointRepaymentCalculator(interestRounding, annuityRounding).computeRepaymentSchedule(repaymentInformation, CLOCK);
+            long[][] expected = computeReference(repaymentInformation, interestRounding, annuityRounding);
+            assertEquals(expected.length, schedule.size());
+            for (int index = 0; index < expected.length; index++) {
+                String rate = "run " + run + ", rate " + index;
+                assertEquals(expected[index][0], schedule.getAnnuityRateInCent(index), rate);
+                assertEquals(expected[index][1], schedule.getInterestsInCent(index), rate);
+                assertEquals(expected[index][2], schedule.getRepaymentInCent(index), rate);
+                assertEquals(expected[index][3], schedule.getRemainingLoanInCent(index), rate);
+            }
+        }
+    }
+
+    /**
+     * With the default rounding the example of the task has to equal the double calculation, and cent values which are no exact double must not lose a cent.
+     */
+    @Test
+    void defaultRounding_MatchesDoubleCalculation() {
+        RepaymentInformation repaymentInformation = new RepaymentInformation();
+        repaymentInformation.setLoanAmount(100000.0);
+        repaymentInformation.setDebitInterestInPercentage(2.12);
+        repaymentInformation.setInitialRepaymentInPercentage(2.0);
+        repaymentInformation.setDurationInYears(10);
+
+        RepaymentSchedule schedule = FixedPointRepaymentCalculator.DEFAULT.computeRepaymentSchedule(repaymentInformation, CLOCK);
+        RepaymentSchedule doubleSchedule = RepaymentScheduleCalculator.computeRepaymentSchedule(repaymentInformation, CLOCK);
+        for (int index = 0; index < schedule.size(); index++) {
+            assertEquals(doubleSchedule.getInterestsInCent(index), schedule.getInterestsInCent(index));
+            assertEquals(doubleSchedule.getRemainingLoanInCent(index), schedule.getRemainingLoanInCent(index));
+        }
+        RepaymentSummary summary = FixedPointRepaymentCalculator.DEFAULT.computeSummary(repaymentInformation, CLOCK);
+        assertEquals(34333, summary.getAnnuityMonthInCent());
+        assertEquals(-7774414, summary.getRemainingLoanInCent());
+
+        repaymentInformation.setLoanAmount(0.29);
+        repaymentInformation.setEvents(Collections.singletonList(new RepaymentEvent(1, 0.29, null)));
+        assertEquals(29, FixedPointRepaymentCalculator.toCent(repaymentInformation.getLoanAmount()));
+        RepaymentSchedule centSchedule = FixedPointRepaymentCalculator.DEFAULT.computeRepaymentSchedule(repaymentInformation, CLOCK);
+        assertEquals(-29, centSchedule.getRemainingLoanInCent(0));
+        assertEquals(29, centSchedule.getAnnuityRateInCent(1) - FixedPointRepaymentCalculator.DEFAULT.computeAnnuityMonth(29,
+                FixedPointRepaymentCalculator.toRateUnits(2.12), FixedPointRepaymentCalculator.toRateUnits(2.0)));
+    }
+
+    private static double randomPercentage(final Random random, final int maximum) {
+        return random.nextInt(maximum * (int) FixedPointRepaymentCalculator.RATE_UNITS_PER_PERCENT) / (double) FixedPointRepaymentCalculator.RATE_UNITS_PER_PERCENT;
+    }
+
+    private static long[][] computeReference(final RepaymentInformation repaymentInformation, final RoundingMode interestRounding, final RoundingMode annuityRounding) {
+        int months = repaymentInformation.getDurationInYears() * 12;
+        BigDecimal loanAmount = BigDecimal.valueOf(repaymentInformation.getLoanAmount()).movePointRight(2);
+        BigDecimal debitInterest = BigDecimal.valueOf(repaymentInformation.getDebitInterestInPercentage());
+        BigDecimal annuityMonth = debitInterest.add(BigDecimal.valueOf(repaymentInformation.getInitialRepaymentInPercentage())).multiply(loanAmount)
+                .divide(MONTHLY_PERCENT, 0, annuityRounding);
+        long[][] rates = new long[months + 2][];
+        rates[0] = new long[]{-loanAmount.longValueExact(), 0, -loanAmount.longValueExact(), -loanAmount.longValueExact()};
+        BigDecimal remainingLoan = loanAmount;
+        BigDecimal accumulatedAnnuity = BigDecimal.ZERO;
+        BigDecimal accumulatedInterests = BigDecimal.ZERO;
+        for (int month = 1; month <= months; month++) {
+            BigDecimal annuity = annuityMonth;
+            for (RepaymentEvent event : repaymentInformation.getEvents()) {
+                if (event.getMonth() == month) {
+                    if (event.getSpecialRepayment() != null) {
+                        annuity = annuity.add(BigDecimal.valueOf(event.getSpecialRepayment()).movePointRight(2));
+                    }
+                    if (event.getDebitInterestInPercentage() != null) {
+                        debitInterest = BigDecimal.valueOf(event.getDebitInterestInPercentage());
+                    }
+                }
+            }
+            BigDecimal interests = remainingLoan.multiply(debitInterest).divide(MONTHLY_PERCENT, 0, interestRounding);
+            BigDecimal repayment = annuity.subtract(interests);
+            remainingLoan = remainingLoan.subtract(repayment);
+            accumulatedAnnuity = accumulatedAnnuity.add(annuity);
+            accumulatedInterests = accumulatedInterests.add(interests);
+            rates[month] = new long[]{annuity.longValueExact(), interests.longValueExact(), repayment.longValueExact(), remainingLoan.negate().longValueExact()};
+        }
+        rates[months + 1] = new long[]{accumulatedAnnuity.longValueExact(), accumulatedInterests.longValueExact(),
+                accumulatedAnnuity.subtract(accumulatedInterests).longValueExact(), remainingLoan.negate().longValueExact()};
+        return rates;
+    }
+}
@@ -0,0 +1,154 @@
+package de.hypoport.repaymentschedule;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the {@link PortfolioCashFlowEngine} against the sums of the schedules calculated by {@link RepaymentScheduleCalculator}.
+ */
+public class PortfolioCashFlowEngineTest {
+
+    private final static String[] LOANS = {"100000,2.12,2,10", "1000,4,3,20", "250000.55,3.75,1,60", "50000,0,5,30", "12345.67,1.99,2.5,15", "0.5,2,2,10"};
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Aggregates a binary loan file with different numbers of threads and lanes.
+     *
+     * @throws IOException
+     */
+    @Test
+    void aggregateBinaryFile() throws IOException {
+        Path file = directory.resolve("loans.bin");
+        PortfolioLoanFile.write(file, createValidLoans());
+
+        for (int threads = 1; threads <= 4; threads++) {
+            assertCashFlow(new PortfolioCashFlowEngine(threads).aggregate(file), 0);
+        }
+        for (int lanes : new int[]{1, 2, 4}) {
+            assertCashFlow(new PortfolioCashFlowEngine(1, lanes).aggregate(file), 0);
+        }
+        Clock march2020 = Clock.fixed(Instant.parse("2020-03-15T12:00:00Z"), ZoneOffset.UTC);
+        assertEquals(EpochMonths.toEpochMonth(YearMonth.of(2020, 3)), new PortfolioCashFlowEngine(2, 4, march2020).aggregate(file).getStartEpochMonth());
+    }
+
+    /**
+     * Aggregates a csv loan file with header, comments and an invalid loan with different numbers of threads.
+     *
+     * @throws IOException
+     */
+    @Test
+    void aggregateCsvFile() throws IOException {
+        Path file = directory.resolve("loans.csv");
+        StringBuilder content = new StringBuilder("loanAmount,debitInterest,initialRepayment,durationInYears\n# portfolio\n");
+        for (String loan : LOANS) {
+            content.append(loan).append("\r\n");
+        }
+        Files.write(file, content.toString().getBytes(StandardCharsets.US_ASCII));
+
+        for (int threads = 1; threads <= 4; threads++) {
+            assertCashFlow(new PortfolioCashFlowEngine(threads).aggregate(file), 1);
+        }
+    }
+
+    /**
+     * Aggregates a csv loan file whose loan amounts have trailing zeros or too many decimals. Amounts with more than two decimal places are skipped like the page
+     * rejects them.
+     *
+     * @throws IOException
+     */
+    @Test
+    void aggregateCsvFile_SkipsInvalidCurrencyValues() throws IOException {
+        Path file = directory.resolve("loans.csv");
+        Files.write(file, "100000.000,2.12,2,10\n1000.555,4,3,20\n1000.5,4,3,20\n".getBytes(StandardCharsets.US_ASCII));
+
+        PortfolioCashFlow cashFlow = new PortfolioCashFlowEngine(1).aggregate(file);
+        assertEquals(2, cashFlow.getLoanCount());
+        assertEquals(1, cashFlow.getSkippedLoans());
+    }
+
+    /**
+     * A header is only skipped in the first line. Later lines which are no four numbers have to be rejected with their line number, whichever thread reads them.
+     *
+     * @throws IOException
+     */
+    @Test
+    void aggregateCsvFile_RejectsMalformedLines() throws IOException {
+        StringBuilder loans = new StringBuilder();
+        for (String loan : LOANS) {
+            loans.append(loan).append("\n");
+        }
+        assertRejected(loans + "loanAmount,debitInterest,initialRepayment,durationInYears\n", "line 7: ");
+        assertRejected("# portfolio\n" + loans + "100000,2.x,2,10\n", "line 8: invalid number '2.x'");
+        assertRejected(loans + "\n100000,2.12,2\n", "line 8: expected 4 values but was 3");
+    }
+
+    private void assertRejected(final String content, final String expectedMessage) throws IOException {
+        Path file = directory.resolve("malformed.csv");
+        Files.write(file, content.getBytes(StandardCharsets.US_ASCII));
+        for (int threads = 1; threads <= 4; threads++) {
+            PortfolioCashFlowEngine engine = new PortfolioCashFlowEngine(threads);
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> engine.aggregate(file));
+            assertTrue(exception.getMessage().startsWith(expectedMessage), exception.getMessage());
+        }
+    }
+
+    private static void assertCashFlow(final PortfolioCashFlow cashFlow, final long skippedLoans) {
+        List<RepaymentInformation> loans = createValidLoans();
+        assertEquals(loans.size(), cashFlow.getLoanCount());
+        assertEquals(skippedLoans, cashFlow.getSkippedLoans());
+        long[] interests = new long[cashFlow.getMonths()];
+        long[] repayments = new long[cashFlow.getMonths()];
+        long[] remainingLoans = new long[cashFlow.getMonths()];
+        long[] dueRemainingLoans = new long[cashFlow.getMonths()];
+        for (RepaymentInformation loan : loans) {
+            RepaymentSchedule schedule = RepaymentScheduleCalculator.computeRepaymentSchedule(loan);
+            int last = schedule.size() - 1;
+            remainingLoans[0] -= schedule.getRemainingLoanInCent(0);
+            for (int month = 1; month < last; month++) {
+                interests[month] += schedule.getInterestsInCent(month);
+                repayments[month] += schedule.getRepaymentInCent(month);
+                remainingLoans[month] -= schedule.getRemainingLoanInCent(month);
+            }
+            dueRemainingLoans[last] -= schedule.getRemainingLoanInCent(last);
+        }
+        for (int month = 0; month < cashFlow.getMonths(); month++) {
+            assertEquals(interests[month], cashFlow.getInterestsInCent(month));
+            assertEquals(repayments[month], cashFlow.getRepaymentsInCent(month));
+            assertEquals(remainingLoans[month], cashFlow.getRemainingLoansInCent(month));
+            assertEquals(dueRemainingLoans[month], cashFlow.getDueRemainingLoansInCent(month));
+        }
+    }
+
+    private static List<RepaymentInformation> createValidLoans() {
+        List<RepaymentInformation> loans = new ArrayList<>();
+        for (String loan : LOANS) {
+            String[] values = loan.split(",");
+            RepaymentInformation information = new RepaymentInformation();
+            information.setLoanAmount(Double.valueOf(values[0]));
+            information.setDebitInterestInPercentage(Double.valueOf(values[1]));
+            information.setInitialRepaymentInPercentage(Double.valueOf(values[2]));
+            information.setDurationInYears(Integer.valueOf(values[3]));
+            if (information.getLoanAmount() >= 1) {
+                loans.add(information);
+            }
+        }
+        return loans;
+    }
+}
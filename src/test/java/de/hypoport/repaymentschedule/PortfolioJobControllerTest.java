@@ -0,0 +1,99 @@
+package de.hypoport.repaymentschedule;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests the {@link PortfolioJobController}.
+ */
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(controllers = PortfolioJobController.class)
+@Import({PortfolioJobService.class, RepaymentInformationValidator.class, RepaymentScheduleCache.class, ScheduleCalculation.class, ScheduleMetrics.class})
+public class PortfolioJobControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    /**
+     * Submits a file with two loans, polls the job until it is completed, downloads the result and deletes the job.
+     *
+     * @throws Exception
+     */
+    @Test
+    void submitPollAndDownload() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "loans.csv", "text/csv", "100000,2.12,2,10\n1000,4,3,1\n".getBytes());
+        String id = JsonPath.read(mockMvc.perform(multipart("/api/jobs").file(file).param("chunkSize", "1"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.state").value("VALIDATING"))
+                .andReturn().getResponse().getContentAsString(), "$.id");
+
+        assertEquals("COMPLETED", awaitEnd(id));
+        mockMvc.perform(get("/api/jobs/" + id))
+                .andExpect(jsonPath("$.loanCount").value(2))
+                .andExpect(jsonPath("$.chunkCount").value(2));
+
+        MvcResult result = mockMvc.perform(get("/api/jobs/" + id + "/result")).andExpect(request().asyncStarted()).andReturn();
+        String[] lines = mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString().split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("0,34333,1894374,-7774414", lines[1]);
+
+        mockMvc.perform(delete("/api/jobs/" + id)).andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/jobs/" + id)).andExpect(status().isNotFound());
+    }
+
+    /**
+     * Expects the location of a new job, a failed job for an invalid file, 400 for an invalid chunk size and 404 for an unknown job, also when it is deleted.
+     *
+     * @throws Exception
+     */
+    @Test
+    void invalidRequests() throws Exception {
+        String location = mockMvc.perform(multipart("/api/jobs").file(new MockMultipartFile("file", "loans.csv", "text/csv", "1000,4,3,1\n".getBytes())))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", containsString("/api/jobs/")))
+                .andReturn().getResponse().getHeader("Location");
+        mockMvc.perform(get(location)).andExpect(status().isOk());
+
+        for (String invalidFile : new String[]{"1000,4,0.5,1\n", "1000,4\n"}) {
+            String id = JsonPath.read(mockMvc.perform(multipart("/api/jobs").file(new MockMultipartFile("file", "loans.csv", "text/csv", invalidFile.getBytes())))
+                    .andExpect(status().isAccepted())
+                    .andReturn().getResponse().getContentAsString(), "$.id");
+            assertEquals("FAILED", awaitEnd(id));
+            mockMvc.perform(get("/api/jobs/" + id + "/result")).andExpect(status().isConflict());
+        }
+        mockMvc.perform(multipart("/api/jobs").file(new MockMultipartFile("file", "loans.csv", "text/csv", "1000,4,3,1\n".getBytes())).param("chunkSize", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/jobs/unknown")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/jobs/unknown/result")).andExpect(status().isNotFound());
+        mockMvc.perform(delete("/api/jobs/unknown")).andExpect(status().isNotFound());
+    }
+
+    private String awaitEnd(final String id) throws Exception {
+        String state = "VALIDATING";
+        for (int attempt = 0; attempt < 500 && !"COMPLETED".equals(state) && !"FAILED".equals(state); attempt++) {
+            Thread.sleep(10);
+            state = JsonPath.read(mockMvc.perform(get("/api/jobs/" + id)).andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(), "$.state");
+        }
+        return state;
+    }
+}
@@ -0,0 +1,295 @@
+package de.hypoport.repaymentschedule;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the {@link PortfolioJobService} against the summaries of {@link RepaymentScheduleCalculator} and the resumption of unfinished jobs.
+ */
+public class PortfolioJobServiceTest {
+
+    private final static String[] LOANS = {"100000,2.12,2,10", "1000,4,3,20", "250000.5,3.75,1,60", "50000,0,5,30", "12345.6,1.99,2.5,15",
+            "80000,3,2,25", "1500,1,10,5"};
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Calculates a job in chunks of three loans. Each line of the result has to equal the summary of its loan.
+     *
+     * @throws Exception
+     */
+    @Test
+    void submit_ResultEqualsSummaries() throws Exception {
+        PortfolioJobService service = createService();
+        try {
+            PortfolioJob job = service.submit(csv(), 3);
+            assertEquals(PortfolioJob.State.VALIDATING, job.getState());
+            assertEquals(0.0, job.getProgress());
+
+            PortfolioJob completed = awaitCompletion(service, job.getId());
+            assertEquals(7, completed.getLoanCount());
+            assertEquals(3, completed.getChunkCount());
+            assertEquals(3, completed.getCompletedChunks());
+            assertEquals(1.0, completed.getProgress());
+            assertResult(service, job.getId());
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    /**
+     * In fixed-point mode each line of the result has to equal the fixed-point summary of its loan.
+     * A job converted in fixed-point mode has to fail when it is resumed in double mode.
+     *
+     * @throws Exception
+     */
+    @Test
+    void submit_FixedPointResultEqualsFixedPointSummaries() throws Exception {
+        ScheduleCalculation fixedPoint = ScheduleCalculation.ofFixedPoint(new FixedPointRepaymentCalculator(RoundingMode.HALF_EVEN, RoundingMode.DOWN), Clock.systemDefaultZone());
+        PortfolioJobService service = createService(fixedPoint);
+        String id;
+        try {
+            id = awaitCompletion(service, service.submit(csv(), 3).getId()).getId();
+            assertResult(service, id, fixedPoint);
+        } finally {
+            service.shutdown();
+        }
+        Path jobDirectory = directory.resolve(id);
+        Files.delete(jobDirectory.resolve("chunk-000001.csv"));
+        Properties state = new Properties();
+        try (InputStream in = Files.newInputStream(jobDirectory.resolve("job.properties"))) {
+            state.load(in);
+        }
+        assertEquals("fixed-point:HALF_EVEN:DOWN", state.getProperty("mode"));
+        state.setProperty("state", PortfolioJob.State.QUEUED.name());
+        try (OutputStream out = Files.newOutputStream(jobDirectory.resolve("job.properties"))) {
+            state.store(out, null);
+        }
+
+        PortfolioJobService restarted = createService();
+        try {
+            PortfolioJob job = awaitEnd(restarted, id);
+            assertEquals(PortfolioJob.State.FAILED, job.getState());
+            assertTrue(job.getError().contains("calculation mode changed"));
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    /**
+     * A file with an invalid loan is accepted, its job fails during the validation and keeps no loans. An invalid chunk size is rejected without leaving a job behind.
+     *
+     * @throws Exception
+     */
+    @Test
+    void submit_InvalidLoanFailsJob() throws Exception {
+        PortfolioJobService service = createService();
+        try {
+            assertThrows(IllegalArgumentException.class, () -> service.submit(csv(), 0));
+            try (Stream<Path> jobDirectories = Files.list(directory)) {
+                assertEquals(0, jobDirectories.count());
+            }
+
+            String id = service.submit(new ByteArrayInputStream("100000,2.12,2,10\n100000,2.12,0.5,10\n".getBytes(StandardCharsets.US_ASCII)), null).getId();
+            PortfolioJob job = awaitEnd(service, id);
+            assertEquals(PortfolioJob.State.FAILED, job.getState());
+            assertTrue(job.getError().startsWith("loan 1: "), job.getError());
+            assertFalse(Files.exists(directory.resolve(id).resolve("loans.bin")));
+            assertFalse(Files.exists(directory.resolve(id).resolve("upload.csv")));
+            assertThrows(IllegalStateException.class, () -> service.writeResult(id, new ByteArrayOutputStream()));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    /**
+     * Simulates a node which stopped while a job was running: one chunk is missing and the state is not completed. A new service has to calculate only the missing chunk.
+     *
+     * @throws Exception
+     */
+    @Test
+    void restart_ResumesMissingChunks() throws Exception {
+        PortfolioJobService service = createService();
+        String id = service.submit(csv(), 3).getId();
+        awaitCompletion(service, id);
+        service.shutdown();
+
+        Path jobDirectory = directory.resolve(id);
+        Path firstChunk = jobDirectory.resolve("chunk-000000.csv");
+        FileTime firstChunkTime = FileTime.fromMillis(1000);
+        Files.setLastModifiedTime(firstChunk, firstChunkTime);
+        Files.delete(jobDirectory.resolve("chunk-000001.csv"));
+        Properties state = new Properties();
+        try (InputStream in = Files.newInputStream(jobDirectory.resolve("job.properties"))) {
+            state.load(in);
+        }
+        state.setProperty("state", PortfolioJob.State.QUEUED.name());
+        try (OutputStream out = Files.newOutputStream(jobDirectory.resolve("job.properties"))) {
+            state.store(out, null);
+        }
+
+        PortfolioJobService restarted = createService();
+        try {
+            PortfolioJob job = awaitCompletion(restarted, id);
+            assertEquals(3, job.getCompletedChunks());
+            assertEquals(firstChunkTime, Files.getLastModifiedTime(firstChunk));
+            assertResult(restarted, id);
+            assertFalse(restarted.getJob("unknown").isPresent());
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    /**
+     * A finished job has to be deleted with its files, an unknown job is not deleted.
+     *
+     * @throws Exception
+     */
+    @Test
+    void delete_RemovesFinishedJob() throws Exception {
+        PortfolioJobService service = createService();
+        try {
+            String id = awaitCompletion(service, service.submit(csv(), 3).getId()).getId();
+            assertTrue(service.delete(id));
+            assertFalse(service.getJob(id).isPresent());
+            assertFalse(Files.exists(directory.resolve(id)));
+            assertFalse(service.delete(id));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    /**
+     * Finished jobs have to be removed once their retention has passed: on start and when the next job is submitted.
+     *
+     * @throws Exception
+     */
+    @Test
+    void retention_RemovesExpiredJobs() throws Exception {
+        PortfolioJobService service = createService();
+        String first = awaitCompletion(service, service.submit(csv(), 3).getId()).getId();
+        service.shutdown();
+
+        Clock dayLater = Clock.offset(Clock.systemDefaultZone(), Duration.ofHours(24));
+        PortfolioJobService restarted = createService(ScheduleCalculation.ofDouble(dayLater));
+        try {
+            assertFalse(restarted.getJob(first).isPresent());
+            assertFalse(Files.exists(directory.resolve(first)));
+        } finally {
+            restarted.shutdown();
+        }
+
+        MutableClock clock = new MutableClock();
+        PortfolioJobService running = createService(ScheduleCalculation.ofDouble(clock));
+        try {
+            String second = awaitCompletion(running, running.submit(csv(), 3).getId()).getId();
+            clock.offset = Duration.ofHours(23);
+            awaitCompletion(running, running.submit(csv(), 3).getId());
+            assertTrue(running.getJob(second).isPresent());
+            clock.offset = Duration.ofHours(24);
+            awaitCompletion(running, running.submit(csv(), 3).getId());
+            assertFalse(running.getJob(second).isPresent());
+            assertFalse(Files.exists(directory.resolve(second)));
+        } finally {
+            running.shutdown();
+        }
+    }
+
+    private PortfolioJobService createService() {
+        return createService(ScheduleCalculation.ofDouble(Clock.systemDefaultZone()));
+    }
+
+    private PortfolioJobService createService(final ScheduleCalculation calculation) {
+        return new PortfolioJobService(new RepaymentInformationValidator(Validation.buildDefaultValidatorFactory().getValidator()), calculation, directory.toString(), 50000, 2, 24);
+    }
+
+    private static InputStream csv() {
+        return new ByteArrayInputStream(("loanAmount,debitInterest,initialRepayment,durationInYears\n" + String.join("\n", LOANS)).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static PortfolioJob awaitCompletion(final PortfolioJobService service, final String id) throws InterruptedException {
+        PortfolioJob job = awaitEnd(service, id);
+        assertEquals(PortfolioJob.State.COMPLETED, job.getState(), job.getError());
+        return job;
+    }
+
+    private static PortfolioJob awaitEnd(final PortfolioJobService service, final String id) throws InterruptedException {
+        for (int attempt = 0; attempt < 500; attempt++) {
+            PortfolioJob job = service.getJob(id).orElseThrow(IllegalStateException::new);
+            if (job.getState() == PortfolioJob.State.COMPLETED || job.getState() == PortfolioJob.State.FAILED) {
+                return job;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("job " + id + " has not ended");
+    }
+
+    private static void assertResult(final PortfolioJobService service, final String id) throws IOException {
+        assertResult(service, id, ScheduleCalculation.ofDouble(Clock.systemDefaultZone()));
+    }
+
+    private static void assertResult(final PortfolioJobService service, final String id, final ScheduleCalculation calculation) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.writeResult(id, out);
+        String[] lines = new String(out.toByteArray(), StandardCharsets.US_ASCII).split("\n");
+        assertEquals(1 + LOANS.length, lines.length);
+        assertEquals("loan,annuityMonthInCent,accumulatedInterestsInCent,remainingLoanInCent", lines[0]);
+        for (int loan = 0; loan < LOANS.length; loan++) {
+            String[] values = LOANS[loan].split(",");
+            RepaymentInformation repaymentInformation = new RepaymentInformation();
+            repaymentInformation.setLoanAmount(Double.valueOf(values[0]));
+            repaymentInformation.setDebitInterestInPercentage(Double.valueOf(values[1]));
+            repaymentInformation.setInitialRepaymentInPercentage(Double.valueOf(values[2]));
+            repaymentInformation.setDurationInYears(Integer.valueOf(values[3]));
+            RepaymentSummary summary = calculation.computeSummary(repaymentInformation);
+            assertEquals(loan + "," + summary.getAnnuityMonthInCent() + "," + summary.getAccumulatedInterestsInCent() + "," + summary.getRemainingLoanInCent(), lines[loan + 1]);
+        }
+    }
+
+    /**
+     * Clock which runs with the system clock shifted by a changeable offset.
+     */
+    private static class MutableClock extends Clock {
+
+        private volatile Duration offset = Duration.ZERO;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.systemDefault();
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.now().plus(offset);
+        }
+    }
+}
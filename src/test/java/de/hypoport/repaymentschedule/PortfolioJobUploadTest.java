@@ -0,0 +1,67 @@
+package de.hypoport.repaymentschedule;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Uploads a portfolio file larger than the default multipart limit of 1MB through the embedded Tomcat on a random port.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class PortfolioJobUploadTest {
+
+    private final static String LOAN = "250000.5,3.75,1,60\n";
+    private final static int LOAN_COUNT = 100_000;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    /**
+     * A file of about 2MB has to be accepted with 202 and calculated completely.
+     *
+     * @throws InterruptedException
+     */
+    @Test
+    void largeUpload_AcceptedAndCompleted() throws InterruptedException {
+        StringBuilder csv = new StringBuilder(LOAN.length() * LOAN_COUNT);
+        for (int loan = 0; loan < LOAN_COUNT; loan++) {
+            csv.append(LOAN);
+        }
+        byte[] content = csv.toString().getBytes(StandardCharsets.US_ASCII);
+        assertTrue(content.length > 1024 * 1024);
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("file", new ByteArrayResource(content) {
+            @Override
+            public String getFilename() {
+                return "loans.csv";
+            }
+        });
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+
+        ResponseEntity<PortfolioJob> accepted = restTemplate.postForEntity("/api/jobs", new HttpEntity<>(body, headers), PortfolioJob.class);
+        assertEquals(HttpStatus.ACCEPTED, accepted.getStatusCode());
+
+        PortfolioJob job = accepted.getBody();
+        for (int attempt = 0; attempt < 1000 && job.getState() != PortfolioJob.State.COMPLETED && job.getState() != PortfolioJob.State.FAILED; attempt++) {
+            Thread.sleep(10);
+            job = restTemplate.getForObject(accepted.getHeaders().getLocation(), PortfolioJob.class);
+        }
+        assertEquals(PortfolioJob.State.COMPLETED, job.getState(), job.getError());
+        assertEquals(LOAN_COUNT, job.getLoanCount());
+    }
+}
@@ -0,0 +1,210 @@
+package de.hypoport.repaymentschedule;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests the {@link RepaymentScheduleApiController}.
+ */
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(controllers = RepaymentScheduleApiController.class, properties = {"repaymentschedule.batch.max-size=3", "repaymentschedule.grid.max-cells=100"})
+@Import({RepaymentScheduleBatchService.class, ScenarioGridService.class, RepaymentInformationValidator.class, RepaymentScheduleCache.class, ScheduleCalculation.class, ScheduleMetrics.class})
+public class RepaymentScheduleApiControllerTest {
+
+    private final static String VALID = "{\"loanAmount\":100000,\"debitInterestInPercentage\":2.12,\"initialRepaymentInPercentage\":2,\"durationInYears\":10}";
+    private final static String INVALID = "{\"loanAmount\":0,\"debitInterestInPercentage\":2.12,\"initialRepaymentInPercentage\":2,\"durationInYears\":10}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ScheduleStore scheduleStore;
+
+    /**
+     * Tests a batch with valid and invalid repayment information. Expects the results in input order and validation errors only for the invalid one.
+     *
+     * @throws Exception
+     */
+    @Test
+    void batchRequest_ResultsInInputOrder() throws Exception {
+        mockMvc.perform(post("/api/repaymentSchedules/batch").contentType(MediaType.APPLICATION_JSON).content("[" + VALID + "," + INVALID + "," + VALID + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].index").value(0))
+                .andExpect(jsonPath("$[0].summary.annuityMonthInCent").value(34333))
+                .andExpect(jsonPath("$[0].summary.remainingLoanInCent").value(-7774414))
+                .andExpect(jsonPath("$[0].repaymentSchedule.allMonthlyEntries", hasSize(122)))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].errors", hasSize(1)))
+                .andExpect(jsonPath("$[1].summary").doesNotExist())
+                .andExpect(jsonPath("$[2].index").value(2));
+    }
+
+    /**
+     * Tests a batch in summary mode. Expects no full schedules.
+     *
+     * @throws Exception
+     */
+    @Test
+    void batchRequest_SummaryOnly() throws Exception {
+        mockMvc.perform(post("/api/repaymentSchedules/batch").param("summaryOnly", "true").contentType(MediaType.APPLICATION_JSON).content("[" + VALID + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].summary.accumulatedInterestsInCent").value(1894374))
+                .andExpect(jsonPath("$[0].repaymentSchedule").doesNotExist());
+    }
+
+    /**
+     * Tests a batch which exceeds the configured maximum size.
+     *
+     * @throws Exception
+     */
+    @Test
+    void batchRequest_TooLarge() throws Exception {
+        mockMvc.perform(post("/api/repaymentSchedules/batch").contentType(MediaType.APPLICATION_JSON).content("[" + VALID + "," + VALID + "," + VALID + "," + VALID + "]"))
+                .andExpect(status().isPayloadTooLarge());
+    }
+
+    /**
+     * Tests loading a page of formatted rates.
+     *
+     * @throws Exception
+     */
+    @Test
+    void pageRequest_FormattedRates() throws Exception {
+        mockMvc.perform(get("/api/repaymentSchedules/page").param("loanAmount", "100000").param("debitInterestInPercentage", "2.12")
+                .param("initialRepaymentInPercentage", "2").param("durationInYears", "10").param("page", "1").param("size", "12"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rates", hasSize(12)))
+                .andExpect(jsonPath("$.totalPages").value(10))
+                .andExpect(jsonPath("$.lastPage").value(false))
+                .andExpect(jsonPath("$.accumulated.remainingLoan").value("-77744.14"));
+    }
+
+    /**
+     * Tests a scenario grid. Expects the axes with decimal steps and the summary of the example from the task in its cell.
+     *
+     * @throws Exception
+     */
+    @Test
+    void gridRequest_SummaryMetrics() throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/repaymentSchedules/grid").contentType(MediaType.APPLICATION_JSON).content(grid("2", "2.2", "0.06", "5")))
+                .andExpect(request().asyncStarted()).andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.debitInterestInPercentage", hasSize(4)))
+                .andExpect(jsonPath("$.debitInterestInPercentage[2]").value(2.12))
+                .andExpect(jsonPath("$.durationInYears[1]").value(10))
+                .andExpect(jsonPath("$.cells", hasSize(4)))
+                .andExpect(jsonPath("$.cells[2]", hasSize(2)))
+                .andExpect(jsonPath("$.cells[2][0][1][0]").value(34333))
+                .andExpect(jsonPath("$.cells[2][0][1][1]").value(1894374))
+                .andExpect(jsonPath("$.cells[2][0][1][2]").value(-7774414));
+    }
+
+    /**
+     * Tests scenario grids with a duration which is no whole year and with more cells than configured.
+     *
+     * @throws Exception
+     */
+    @Test
+    void gridRequest_Invalid() throws Exception {
+        mockMvc.perform(post("/api/repaymentSchedules/grid").contentType(MediaType.APPLICATION_JSON).content(grid("2", "2.2", "0.06", "2.5")))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/repaymentSchedules/grid").contentType(MediaType.APPLICATION_JSON).content(grid("1", "5", "0.05", "5")))
+                .andExpect(status().isPayloadTooLarge());
+    }
+
+    private static String grid(final String debitInterestFrom, final String debitInterestTo, final String debitInterestStep, final String durationStep) {
+        return "{\"loanAmount\":100000,"
+                + "\"debitInterestInPercentage\":{\"from\":" + debitInterestFrom + ",\"to\":" + debitInterestTo + ",\"step\":" + debitInterestStep + "},"
+                + "\"initialRepaymentInPercentage\":{\"from\":2,\"to\":3,\"step\":1},"
+                + "\"durationInYears\":{\"from\":5,\"to\":10,\"step\":" + durationStep + "}}";
+    }
+
+    /**
+     * Tests the lookup of stored schedules by id and by repayment information.
+     *
+     * @throws Exception
+     */
+    @Test
+    void storedRequest_ByIdAndInput() throws Exception {
+        RepaymentInformation repaymentInformation = new RepaymentInformation();
+        repaymentInformation.setLoanAmount(100000.0);
+        repaymentInformation.setDebitInterestInPercentage(2.12);
+        repaymentInformation.setInitialRepaymentInPercentage(2.0);
+        repaymentInformation.setDurationInYears(10);
+        StoredSchedule storedSchedule = new StoredSchedule();
+        storedSchedule.setId("stored-id");
+        storedSchedule.setRepaymentInformation(repaymentInformation);
+        given(scheduleStore.findById(anyString())).willReturn(Optional.empty());
+        given(scheduleStore.findById("stored-id")).willReturn(Optional.of(storedSchedule));
+        given(scheduleStore.findLatestByInputHash(ScheduleStore.inputHash(repaymentInformation))).willReturn(Optional.of(storedSchedule));
+
+        mockMvc.perform(get("/api/repaymentSchedules/stored/stored-id"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.repaymentInformation.durationInYears").value(10));
+        mockMvc.perform(get("/api/repaymentSchedules/stored/unknown"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/repaymentSchedules/stored").param("loanAmount", "100000.00").param("debitInterestInPercentage", "2.12")
+                .param("initialRepaymentInPercentage", "2").param("durationInYears", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value("stored-id"));
+    }
+
+    /**
+     * Tests changing the events of a stored schedule. Expects the recalculated schedule to be saved with the new events and events after the duration to be rejected.
+     *
+     * @throws Exception
+     */
+    @Test
+    void storedEventsRequest_SavesChangedSchedule() throws Exception {
+        RepaymentInformation repaymentInformation = new RepaymentInformation();
+        repaymentInformation.setLoanAmount(100000.0);
+        repaymentInformation.setDebitInterestInPercentage(2.12);
+        repaymentInformation.setInitialRepaymentInPercentage(2.0);
+        repaymentInformation.setDurationInYears(10);
+        StoredSchedule storedSchedule = new StoredSchedule();
+        storedSchedule.setId("stored-id");
+        storedSchedule.setRepaymentInformation(repaymentInformation);
+        storedSchedule.setRepaymentSchedule(RepaymentScheduleCalculator.computeRepaymentSchedule(repaymentInformation));
+        given(scheduleStore.findById("stored-id")).willReturn(Optional.of(storedSchedule));
+        given(scheduleStore.save(any(), any())).willAnswer(invocation -> {
+            StoredSchedule saved = new StoredSchedule();
+            saved.setId("changed-id");
+            saved.setRepaymentInformation(invocation.getArgument(0));
+            saved.setRepaymentSchedule(invocation.getArgument(1));
+            return saved;
+        });
+
+        mockMvc.perform(post("/api/repaymentSchedules/stored/stored-id/events").contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"month\":12,\"specialRepayment\":5000}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value("changed-id"))
+                .andExpect(jsonPath("$.repaymentInformation.events", hasSize(1)))
+                .andExpect(jsonPath("$.repaymentSchedule.allMonthlyEntries[12].annuityRateInCent").value(534333));
+        mockMvc.perform(post("/api/repaymentSchedules/stored/stored-id/events").contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"month\":121,\"specialRepayment\":5000}]"))
+                .andExpect(status().isBadRequest());
+    }
+}
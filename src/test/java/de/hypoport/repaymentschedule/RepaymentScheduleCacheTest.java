@@ -0,0 +1,151 @@
+package de.hypoport.repaymentschedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Tests the {@link RepaymentScheduleCache}.
+ */
+public class RepaymentScheduleCacheTest {
+
+    /**
+     * Equal repayment information has to be calculated only once.
+     */
+    @Test
+    void equalRepaymentInformation_CalculatedOnce() {
+        RepaymentScheduleCache cache = new RepaymentScheduleCache(1000, Runnable::run, Clock.systemDefaultZone());
+
+        RepaymentSchedule first = cache.computeRepaymentSchedule(createRepaymentInformation(100000.0, 10));
+        RepaymentSchedule second = cache.computeRepaymentSchedule(createRepaymentInformation(100000.001, 10)); // same amount in cent
+
+        assertSame(first, second);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    /**
+     * Schedules have to be evicted if the maximum number of rates is exceeded.
+     */
+    @Test
+    void maximumRatesExceeded_Evicts() {
+        RepaymentScheduleCache cache = new RepaymentScheduleCache(200, Runnable::run, Clock.systemDefaultZone());
+
+        cache.computeRepaymentSchedule(createRepaymentInformation(100000.0, 10)); // 122 rates
+        cache.computeRepaymentSchedule(createRepaymentInformation(200000.0, 10));
+
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * A schedule cached in January has to be moved to February when the clock passes the month boundary, without a new calculation. Later reads in February get the moved schedule.
+     */
+    @Test
+    void monthBoundary_MovesCachedSchedule() {
+        MutableClock clock = new MutableClock(Instant.parse("2020-01-31T23:59:00Z"));
+        RepaymentScheduleCache cache = new RepaymentScheduleCache(1000, Runnable::run, clock);
+
+        RepaymentSchedule january = cache.computeRepaymentSchedule(createRepaymentInformation(100000.0, 10));
+        assertEquals(EpochMonths.toEpochMonth(YearMonth.of(2020, 1)), january.getEpochMonth(0));
+
+        clock.instant = Instant.parse("2020-02-01T00:01:00Z");
+        RepaymentSchedule february = cache.computeRepaymentSchedule(createRepaymentInformation(100000.0, 10));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(EpochMonths.toEpochMonth(YearMonth.of(2020, 2)), february.getEpochMonth(0));
+        assertEquals(LocalDate.of(2020, 3, 31), february.getDate(1));
+        for (int index = 0; index < january.size(); index++) {
+            assertEquals(january.getRemainingLoanInCent(index), february.getRemainingLoanInCent(index));
+        }
+        assertSame(february, cache.computeRepaymentSchedule(createRepaymentInformation(100000.0, 10)));
+        assertEquals(january.getEpochMonth(0) + 1,
+                RepaymentScheduleCalculator.computeRepaymentSchedule(createRepaymentInformation(100000.0, 10), clock).getEpochMonth(0));
+    }
+
+    /**
+     * Moving a schedule must only change its dates.
+     */
+    @Test
+    void shiftMonths_KeepsValues() {
+        RepaymentSchedule schedule = RepaymentScheduleCalculator.computeRepaymentSchedule(createRepaymentInformation(100000.0, 10));
+
+        RepaymentSchedule shifted = schedule.shiftMonths(-3);
+
+        assertEquals(schedule.size(), shifted.size());
+        for (int index = 0; index < schedule.size(); index++) {
+            assertEquals(schedule.getEpochMonth(index) - 3, shifted.getEpochMonth(index));
+            assertEquals(schedule.getRemainingLoanInCent(index), shifted.getRemainingLoanInCent(index));
+            assertEquals(schedule.getAnnuityRateInCent(index), shifted.getAnnuityRateInCent(index));
+        }
+    }
+
+    /**
+     * Events have to be part of the key. Events in another order or split within a month lead to the same key, keys without events stay unchanged.
+     */
+    @Test
+    void events_PartOfKey() {
+        RepaymentInformation withoutEvents = createRepaymentInformation(100000.0, 10);
+        RepaymentInformation events = createRepaymentInformation(100000.0, 10);
+        events.setEvents(Arrays.asList(new RepaymentEvent(24, null, 3.0), new RepaymentEvent(12, 1000.0, null), new RepaymentEvent(12, 500.0, null)));
+        RepaymentInformation sameEvents = createRepaymentInformation(100000.0, 10);
+        sameEvents.setEvents(Arrays.asList(new RepaymentEvent(12, 1500.0, null), new RepaymentEvent(24, 0.0, 3.0)));
+        RepaymentInformation otherEvents = createRepaymentInformation(100000.0, 10);
+        otherEvents.setEvents(Collections.singletonList(new RepaymentEvent(12, 1500.0, null)));
+
+        assertEquals("10000000/2.12/2.0/10", ScheduleCacheKey.of(withoutEvents).toString());
+        assertEquals("10000000/2.12/2.0/10/12:150000:;24:0:3.0", ScheduleCacheKey.of(events).toString());
+        assertEquals(ScheduleCacheKey.of(events), ScheduleCacheKey.of(sameEvents));
+        assertEquals(ScheduleCacheKey.of(events).hashCode(), ScheduleCacheKey.of(sameEvents).hashCode());
+        assertNotEquals(ScheduleCacheKey.of(events), ScheduleCacheKey.of(otherEvents));
+        assertNotEquals(ScheduleCacheKey.of(withoutEvents), ScheduleCacheKey.of(otherEvents));
+    }
+
+    /**
+     * Clock in UTC whose instant is set by the test.
+     */
+    private static class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(final Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            throw new UnsupportedOperationException("the zone of the test clock is fixed");
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+
+    private static RepaymentInformation createRepaymentInformation(final double loanAmount, final int durationInYears) {
+        RepaymentInformation repaymentInformation = new RepaymentInformation();
+        repaymentInformation.setLoanAmount(loanAmount);
+        repaymentInformation.setDebitInterestInPercentage(2.12);
+        repaymentInformation.setInitialRepaymentInPercentage(2.0);
+        repaymentInformation.setDurationInYears(durationInYears);
+        return repaymentInformation;
+    }
+}
@@ -3,9 +3,16 @@ package de.hypoport.repaymentschedule;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 /**
@@ -68,4 +75,204 @@ public class RepaymentScheduleCalculatorTest {
         assertEquals(lastMonthlyEntry.getRepaymentInCent(), 22255.86 * IN_CENT);
         assertEquals(lastMonthlyEntry.getRemainingLoanInCent(), -77744.14 * IN_CENT);
     }
+
+    /**
+     * Calculates summaries and single entries without schedule and compares them with the entries of the full repayment schedule.
+     */
+    @Test
+    void testSummaryAndEntryAtMatchSchedule() {
+        double[][] allParameters = {{100000.0, 2.12, 2.0, 10}, {1000.0, 4.0, 3.0, 20}, {250000.55, 3.75, 1.0, 60}, {50000.0, 0.0, 5.0, 30}, {0.29, 9.99, 100.0, 1}};
+        for (double[] values : allParameters) {
+            RepaymentInformation parameters = new RepaymentInformation();
+            parameters.setLoanAmount(values[0]);
+            parameters.setDebitInterestInPercentage(values[1]);
+            parameters.setInitialRepaymentInPercentage(values[2]);
+            parameters.setDurationInYears((int) values[3]);
+            RepaymentSchedule schedule = RepaymentScheduleCalculator.computeRepaymentSchedule(parameters);
+            int last = schedule.size() - 1;
+
+            RepaymentSummary summary = RepaymentScheduleCalculator.computeSummary(parameters);
+            assertEquals(schedule.getDate(last), summary.getDate());
+            assertEquals(schedule.getAnnuityRateInCent(1), summary.getAnnuityMonthInCent());
+            assertEquals(schedule.getAnnuityRateInCent(last), summary.getAccumulatedAnnuityInCent());
+            assertEquals(schedule.getInterestsInCent(last), summary.getAccumulatedInterestsInCent());
+            assertEquals(schedule.getRepaymentInCent(last), summary.getAccumulatedRepaymentInCent());
+            assertEquals(schedule.getRemainingLoanInCent(last), summary.getRemainingLoanInCent());
+
+            for (int index = 0; index < schedule.size(); index++) {
+                MonthlyEntry entry = RepaymentScheduleCalculator.entryAt(parameters, index);
+                assertEquals(schedule.getDate(index), entry.getDate());
+                assertEquals(schedule.getAnnuityRateInCent(index), entry.getAnnuityRateInCent());
+                assertEquals(schedule.getInterestsInCent(index), entry.getInterestsInCent());
+                assertEquals(schedule.getRepaymentInCent(index), entry.getRepaymentInCent());
+                assertEquals(schedule.getRemainingLoanInCent(index), entry.getRemainingLoanInCent());
+            }
+        }
+    }
+
+    /**
+     * Calculates the summaries of grid rows with several durations and compares them with the summaries of single calculations.
+     */
+    @Test
+    void testComputeSummariesMatchSummary() {
+        int[] durationsInMonths = {12, 60, 120, 360, 720};
+        long[] values = new long[durationsInMonths.length * 3];
+        double[][] allParameters = {{100000.0, 2.12, 2.0}, {250000.55, 3.75, 1.0}, {50000.0, 0.0, 5.0}, {0.29, 9.99, 100.0}};
+        for (double[] row : allParameters) {
+            RepaymentInformation parameters = new RepaymentInformation();
+            parameters.setLoanAmount(row[0]);
+            parameters.setDebitInterestInPercentage(row[1]);
+            parameters.setInitialRepaymentInPercentage(row[2]);
+            RepaymentScheduleCalculator.computeSummaries(parameters.getLoanAmountInCent(), row[1], row[2], durationsInMonths, values, 0);
+
+            for (int index = 0; index < durationsInMonths.length; index++) {
+                parameters.setDurationInYears(durationsInMonths[index] / 12);
+                RepaymentSummary summary = RepaymentScheduleCalculator.computeSummary(parameters);
+                assertEquals(summary.getAnnuityMonthInCent(), values[index * 3]);
+                assertEquals(summary.getAccumulatedInterestsInCent(), values[index * 3 + 1]);
+                assertEquals(summary.getRemainingLoanInCent(), values[index * 3 + 2]);
+            }
+        }
+    }
+
+    /**
+     * Calculates a repayment schedule with a fixed clock over a leap year. Expects the dates to follow the clock and the values to equal a calculation with the system clock.
+     */
+    @Test
+    void testFixedClock() {
+        RepaymentInformation parameters = new RepaymentInformation();
+        parameters.setLoanAmount(100000.0);
+        parameters.setDebitInterestInPercentage(2.12);
+        parameters.setInitialRepaymentInPercentage(2.0);
+        parameters.setDurationInYears(1);
+        Clock clock = Clock.fixed(Instant.parse("2019-12-15T10:00:00Z"), ZoneOffset.UTC);
+
+        RepaymentSchedule schedule = RepaymentScheduleCalculator.computeRepaymentSchedule(parameters, clock);
+        RepaymentSchedule current = RepaymentScheduleCalculator.computeRepaymentSchedule(parameters);
+        assertEquals(LocalDate.of(2019, 12, 31), schedule.getDate(0));
+        assertEquals(LocalDate.of(2020, 2, 29), schedule.getDate(2));
+        assertEquals(LocalDate.of(2021, 1, 31), schedule.getDate(13));
+        for (int index = 0; index < schedule.size(); index++) {
+            assertEquals(current.getRemainingLoanInCent(index), schedule.getRemainingLoanInCent(index));
+            assertEquals(current.getInterestsInCent(index), schedule.getInterestsInCent(index));
+        }
+        assertEquals(LocalDate.of(2021, 1, 31), RepaymentScheduleCalculator.computeSummary(parameters, clock).getDate());
+        assertEquals(LocalDate.of(2020, 2, 29), RepaymentScheduleCalculator.entryAt(parameters, 2, clock).getDate());
+        assertEquals(LocalDate.of(1969, 12, 31), EpochMonths.atEndOfMonth(-1));
+        assertEquals(LocalDate.of(2200, 2, 28), EpochMonths.atEndOfMonth(EpochMonths.toEpochMonth(YearMonth.of(2200, 2))));
+    }
+
+    /**
+     * Calculates a repayment schedule with a special repayment and a new debit interests. Expects the special repayment in the annuity rate of its month, the new debit interests
+     * from its month on and summary and single entries to match the schedule.
+     */
+    @Test
+    void testEvents() {
+        Clock clock = Clock.fixed(Instant.parse("2019-12-15T10:00:00Z"), ZoneOffset.UTC);
+        RepaymentInformation parameters = createParameters(100000.0, 10);
+        RepaymentSchedule withoutEvents = RepaymentScheduleCalculator.computeRepaymentSchedule(parameters, clock);
+        parameters.setEvents(Arrays.asList(new RepaymentEvent(25, null, 3.0), new RepaymentEvent(12, 5000.0, null), new RepaymentEvent(12, 0.5, null)));
+
+        RepaymentSchedule schedule = RepaymentScheduleCalculator.computeRepaymentSchedule(parameters, clock);
+        assertEquals(withoutEvents.getRemainingLoanInCent(11), schedule.getRemainingLoanInCent(11));
+        assertEquals(34333 + 500050, schedule.getAnnuityRateInCent(12));
+        assertEquals(withoutEvents.getRemainingLoanInCent(12) + 500050, schedule.getRemainingLoanInCent(12));
+        assertEquals(34333, schedule.getAnnuityRateInCent(13));
+        assertEquals(Math.round(-schedule.getRemainingLoanInCent(24) * 0.03 / 12), schedule.getInterestsInCent(25));
+
+        int last = schedule.size() - 1;
+        RepaymentSummary summary = RepaymentScheduleCalculator.computeSummary(parameters, clock);
+        assertEquals(schedule.getDate(last), summary.getDate());
+        assertEquals(34333, summary.getAnnuityMonthInCent());
+        assertEquals(120 * 34333 + 500050, summary.getAccumulatedAnnuityInCent());
+        assertEquals(schedule.getInterestsInCent(last), summary.getAccumulatedInterestsInCent());
+        assertEquals(schedule.getRepaymentInCent(last), summary.getAccumulatedRepaymentInCent());
+        assertEquals(schedule.getRemainingLoanInCent(last), summary.getRemainingLoanInCent());
+        for (int index : new int[]{0, 12, 25, last}) {
+            MonthlyEntry entry = RepaymentScheduleCalculator.entryAt(parameters, index, clock);
+            assertEquals(schedule.getInterestsInCent(index), entry.getInterestsInCent());
+            assertEquals(schedule.getRemainingLoanInCent(index), entry.getRemainingLoanInCent());
+        }
+    }
+
+    /**
+     * Recalculates a 40 year schedule after late events were changed, the duration was shortened and the debit interests were changed. Expects each result and its checkpoints
+     * to equal a full calculation.
+     */
+    @Test
+    void testRecomputeMatchesFullCalculation() {
+        Clock clock = Clock.fixed(Instant.parse("2019-12-15T10:00:00Z"), ZoneOffset.UTC);
+        RepaymentInformation previous = createParameters(250000.55, 40);
+        previous.setEvents(Collections.singletonList(new RepaymentEvent(400, 10000.0, null)));
+        RepaymentSchedule previousSchedule = RepaymentScheduleCalculator.computeRepaymentSchedule(previous, clock);
+
+        RepaymentInformation laterEvent = createParameters(250000.55, 40);
+        laterEvent.setEvents(Arrays.asList(new RepaymentEvent(400, 10000.0, null), new RepaymentEvent(450, 20000.0, 4.5)));
+        RepaymentInformation shorter = createParameters(250000.55, 35);
+        shorter.setEvents(previous.getEvents());
+        RepaymentInformation otherInterests = createParameters(250000.55, 40);
+        otherInterests.setDebitInterestInPercentage(3.0);
+        RepaymentInformation withoutEvents = createParameters(250000.55, 40);
+
+        for (RepaymentInformation changed : Arrays.asList(laterEvent, shorter, otherInterests, withoutEvents)) {
+            RepaymentSchedule expected = RepaymentScheduleCalculator.computeRepaymentSchedule(changed, clock);
+            RepaymentSchedule recomputed = RepaymentScheduleCalculator.recomputeRepaymentSchedule(previousSchedule, previous, changed);
+            assertEquals(expected.size(), recomputed.size());
+            for (int index = 0; index < expected.size(); index++) {
+                assertEquals(expected.getEpochMonth(index), recomputed.getEpochMonth(index));
+                assertEquals(expected.getAnnuityRateInCent(index), recomputed.getAnnuityRateInCent(index));
+                assertEquals(expected.getInterestsInCent(index), recomputed.getInterestsInCent(index));
+                assertEquals(expected.getRepaymentInCent(index), recomputed.getRepaymentInCent(index));
+                assertEquals(expected.getRemainingLoanInCent(index), recomputed.getRemainingLoanInCent(index));
+            }
+            for (int checkpoint = 0; checkpoint < RepaymentSchedule.checkpointCount(expected.size()); checkpoint++) {
+                assertArrayEquals(expected.getCheckpoint(checkpoint), recomputed.getCheckpoint(checkpoint));
+            }
+        }
+    }
+
+    /**
+     * The checkpoints recorded during the calculation have to equal the checkpoints computed of the rates.
+     */
+    @Test
+    void testCheckpoints() {
+        RepaymentSchedule schedule = RepaymentScheduleCalculator.computeRepaymentSchedule(createParameters(100000.0, 10));
+        RepaymentSchedule copy = RepaymentSchedule.fromMonthlyEntries(10, schedule.getAllMonthlyEntries());
+
+        assertEquals(11, RepaymentSchedule.checkpointCount(schedule.size()));
+        assertArrayEquals(new long[3], schedule.getCheckpoint(0));
+        assertArrayEquals(new long[]{12 * 34333, 12 * 34333 - (10000000 + schedule.getRemainingLoanInCent(12)),
+                10000000 + schedule.getRemainingLoanInCent(12)}, schedule.getCheckpoint(1));
+        for (int checkpoint = 0; checkpoint < 11; checkpoint++) {
+            assertArrayEquals(schedule.getCheckpoint(checkpoint), copy.getCheckpoint(checkpoint));
+        }
+        assertArrayEquals(new long[]{schedule.getAnnuityRateInCent(121), schedule.getInterestsInCent(121), schedule.getRepaymentInCent(121)}, schedule.getCheckpoint(10));
+    }
+
+    /**
+     * The double calculation truncates amounts to cent. Schedules and input hashes stored before the fixed-point calculation existed have to stay the same,
+     * so 19.99 (1998.9999999999998 cent) stays 1998 cent.
+     */
+    @Test
+    void testCentTruncation() {
+        RepaymentInformation parameters = createParameters(19.99, 10);
+        assertEquals("8cf3ab0fb6df54bfdec78db1a82a1581144c9b41d0c6be1c6f052c9d0fac99ee", ScheduleStore.inputHash(parameters));
+        parameters.setEvents(Collections.singletonList(new RepaymentEvent(12, 19.99, null)));
+        assertEquals("35674ebb538a0a2218f072d7836c3f15535b27861c4718313fa6549ea3b3ae0b", ScheduleStore.inputHash(parameters));
+
+        RepaymentSchedule schedule = RepaymentScheduleCalculator.computeRepaymentSchedule(parameters);
+        long annuityMonth = RepaymentScheduleCalculator.computeAnnuityMonth(1998, 2.12, 2.0);
+        assertEquals(-1998, schedule.getRemainingLoanInCent(0));
+        assertEquals(annuityMonth, schedule.getAnnuityRateInCent(11));
+        assertEquals(annuityMonth + 1998, schedule.getAnnuityRateInCent(12));
+    }
+
+    private static RepaymentInformation createParameters(final double loanAmount, final int durationInYears) {
+        RepaymentInformation parameters = new RepaymentInformation();
+        parameters.setLoanAmount(loanAmount);
+        parameters.setDebitInterestInPercentage(2.12);
+        parameters.setInitialRepaymentInPercentage(2.0);
+        parameters.setDurationInYears(durationInYears);
+        return parameters;
+    }
 }
@@ -5,13 +5,31 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.util.Assert;
 
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -19,15 +37,23 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  */
 @ExtendWith(SpringExtension.class)
 @WebMvcTest(controllers = RepaymentScheduleController.class)
+@Import({RepaymentScheduleCache.class, ScheduleCalculation.class, ScheduleMetrics.class, StreamingScheduleView.class})
 public class RepaymentScheduleControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
+    @MockBean
+    private ScheduleStore scheduleStore;
+
     private RepaymentInformation repaymentInformation;
 
     @BeforeEach
     void setUp() {
+        StoredSchedule storedSchedule = new StoredSchedule();
+        storedSchedule.setId("stored-id");
+        given(scheduleStore.save(any(), any())).willReturn(storedSchedule);
+
         repaymentInformation = new RepaymentInformation();
         repaymentInformation.setDurationInYears(20);
         repaymentInformation.setInitialRepaymentInPercentage(3.0);
@@ -35,6 +61,20 @@ public class RepaymentScheduleControllerTest {
         repaymentInformation.setLoanAmount(1000.0);
     }
 
+    /**
+     * Amounts with up to two decimal places have to be valid currency values, also large amounts which are written with exponent. More decimals are invalid.
+     */
+    @Test
+    void isInvalidCurrencyValue_AtMostTwoDecimals() {
+        for (double valid : new double[]{1000.0, 100.2, 100.25, 250000.55, 12345678.9, 99999999.99}) {
+            assertFalse(RepaymentScheduleController.isInvalidCurrencyValue(valid), String.valueOf(valid));
+        }
+        for (double invalid : new double[]{100.255, 0.001, 12345678.901}) {
+            assertTrue(RepaymentScheduleController.isInvalidCurrencyValue(invalid), String.valueOf(invalid));
+        }
+        assertFalse(RepaymentScheduleController.isInvalidCurrencyValue(null));
+    }
+
     /**
      * Tests a valid get request for basePath + /repaymentSchedule. Expects that the view name is index.html and the holding object contains a dto.
      *
@@ -49,7 +89,7 @@ public class RepaymentScheduleControllerTest {
     }
 
     /**
-     * Tests a valid post request for basePath + /repaymentSchedule. Expects the html page showRepaymentSchedule.html, the passed dto object and the repayment plan.
+     * Tests a valid post request for basePath + /repaymentSchedule. Expects the streaming view of showRepaymentSchedule.html, the passed dto object, the repayment plan and the id of the saved plan.
      *
      * @throws Exception
      */
@@ -57,8 +97,111 @@ public class RepaymentScheduleControllerTest {
     void validPostRequest_ShowRepaymentSchedule() throws Exception {
         ResultActions perform = mockMvc.perform(post("/repaymentSchedule").flashAttr("repaymentinformation", repaymentInformation));
         perform.andExpect(status().isOk())
-                .andExpect(mvcResult -> mvcResult.getModelAndView().getViewName().equals("showRepaymentSchedule.html"))
+                .andExpect(mvcResult -> mvcResult.getModelAndView().getViewName().equals(StreamingScheduleView.VIEW_NAME))
                 .andExpect(mvcResult -> Assert.notNull(mvcResult.getModelAndView().getModel().get("repaymentinformation"), "should contain a dto"))
-                .andExpect(mvcResult -> Assert.notNull(mvcResult.getModelAndView().getModel().get("repaymentSchedule"), "should contain a repayment schedule"));
+                .andExpect(mvcResult -> Assert.notNull(mvcResult.getModelAndView().getModel().get("repaymentSchedule"), "should contain a repayment schedule"))
+                .andExpect(mvcResult -> Assert.notNull(mvcResult.getModelAndView().getModel().get("repaymentPage"), "should contain the rendered page"))
+                .andExpect(mvcResult -> Assert.isTrue("stored-id".equals(mvcResult.getModelAndView().getModel().get("scheduleId")), "should contain the id of the saved plan"));
+    }
+
+    /**
+     * Tests that the rates are written into the table of the page in the form of the template rows, one page by default and all rates if requested.
+     *
+     * @throws Exception
+     */
+    @Test
+    void postRequest_RatesStreamedIntoTable() throws Exception {
+        RepaymentSchedule schedule = RepaymentScheduleCalculator.computeRepaymentSchedule(repaymentInformation);
+        String firstRate = "<tr><td>" + schedule.getDate(1) + "</td><td><span>" + CentFormatter.format(schedule.getRemainingLoanInCent(1)) + "</span>€</td><td><span>"
+                + CentFormatter.format(schedule.getInterestsInCent(1)) + "</span>€</td><td><span>" + CentFormatter.format(schedule.getRepaymentInCent(1))
+                + "</span>€</td><td><span>" + CentFormatter.format(schedule.getAnnuityRateInCent(1)) + "</span>€</td></tr>";
+
+        String page = mockMvc.perform(post("/repaymentSchedule").flashAttr("repaymentinformation", repaymentInformation))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/html;charset=UTF-8"))
+                .andExpect(content().string(containsString("<h1 class=\"my-4\">Tilgungsplan</h1>")))
+                .andExpect(content().string(containsString(firstRate)))
+                .andExpect(content().string(containsString("</tfoot>")))
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(60, page.split("</span>€</td></tr>", -1).length - 1);
+        assertEquals(page.indexOf("<tbody"), page.lastIndexOf("<tbody"));
+
+        String allRates = mockMvc.perform(post("/repaymentSchedule").flashAttr("repaymentinformation", repaymentInformation).param("all", "true"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(240, allRates.split("</span>€</td></tr>", -1).length - 1);
+        assertEquals(-1, allRates.indexOf("Weitere Raten laden"));
+    }
+
+    /**
+     * Tests that the link and the button to show all rates keep the events, and that showing all rates of a saved plan does not save it again.
+     *
+     * @throws Exception
+     */
+    @Test
+    void showAll_KeepsEventsAndSavedPlan() throws Exception {
+        repaymentInformation.setEvents(Collections.singletonList(new RepaymentEvent(12, 500.0, 3.5)));
+        String page = mockMvc.perform(post("/repaymentSchedule").flashAttr("repaymentinformation", repaymentInformation))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("name=\"events[0].month\" value=\"12\"")))
+                .andExpect(content().string(containsString("name=\"events[0].specialRepayment\" value=\"500.0\"")))
+                .andExpect(content().string(containsString("name=\"events[0].debitInterestInPercentage\" value=\"3.5\"")))
+                .andExpect(content().string(containsString("name=\"scheduleId\" value=\"stored-id\"")))
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(page.contains("/repaymentSchedule/view?loanAmount=1000.0&amp;debitInterestInPercentage=4.0&amp;initialRepaymentInPercentage=3.0&amp;durationInYears=20"
+                + "&amp;events%5B0%5D.month=12&amp;events%5B0%5D.specialRepayment=500.0&amp;events%5B0%5D.debitInterestInPercentage=3.5\""));
+        verify(scheduleStore, times(1)).save(any(), any());
+
+        StoredSchedule storedSchedule = new StoredSchedule();
+        storedSchedule.setId("stored-id");
+        storedSchedule.setInputHash(ScheduleStore.inputHash(repaymentInformation));
+        given(scheduleStore.findById("stored-id")).willReturn(Optional.of(storedSchedule));
+        String allRates = mockMvc.perform(post("/repaymentSchedule").flashAttr("repaymentinformation", repaymentInformation)
+                .param("all", "true").param("scheduleId", "stored-id"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Plannummer: <span>stored-id</span>")))
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(240, allRates.split("</span>€</td></tr>", -1).length - 1);
+        verify(scheduleStore, times(1)).save(any(), any());
+
+        RepaymentInformation otherInformation = new RepaymentInformation();
+        otherInformation.setLoanAmount(2000.0);
+        otherInformation.setDebitInterestInPercentage(4.0);
+        otherInformation.setInitialRepaymentInPercentage(3.0);
+        otherInformation.setDurationInYears(20);
+        mockMvc.perform(post("/repaymentSchedule").flashAttr("repaymentinformation", otherInformation).param("scheduleId", "stored-id"))
+                .andExpect(status().isOk());
+        verify(scheduleStore, times(2)).save(any(), any());
+    }
+
+    /**
+     * Tests the cacheable get request for basePath + /repaymentSchedule/view. Expects a strong ETag and a max age, a 304 for a matching If-None-Match header
+     * and another ETag for other parameters. The viewed schedule is not saved, so all rates are shown by the view as well.
+     *
+     * @throws Exception
+     */
+    @Test
+    void viewRequest_ConditionalWithETag() throws Exception {
+        String eTag = mockMvc.perform(get("/repaymentSchedule/view").param("loanAmount", "1000").param("debitInterestInPercentage", "4")
+                .param("initialRepaymentInPercentage", "3").param("durationInYears", "20"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", startsWith("\"")))
+                .andExpect(header().string("Cache-Control", startsWith("max-age=")))
+                .andExpect(header().string("Cache-Control", containsString("public")))
+                .andExpect(content().string(containsString("</span>€</td></tr>")))
+                .andExpect(content().string(containsString("durationInYears=20&amp;all=true\">Alle Raten anzeigen</a>")))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/repaymentSchedule/view").param("loanAmount", "1000.00").param("debitInterestInPercentage", "4.0")
+                .param("initialRepaymentInPercentage", "3").param("durationInYears", "20").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/repaymentSchedule/view").param("loanAmount", "1000").param("debitInterestInPercentage", "4")
+                .param("initialRepaymentInPercentage", "3").param("durationInYears", "21").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(eTag)));
+        verify(scheduleStore, never()).save(any(), any());
     }
 }
@@ -0,0 +1,104 @@
+package de.hypoport.repaymentschedule;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.ByteBuffer;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests the {@link RepaymentScheduleExportController}.
+ */
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(controllers = RepaymentScheduleExportController.class)
+@Import({RepaymentInformationValidator.class, RepaymentScheduleCache.class, ScheduleCalculation.class, ScheduleMetrics.class})
+public class RepaymentScheduleExportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    /**
+     * Tests a csv export of the example from the task. Expects a header line and one line for each rate.
+     *
+     * @throws Exception
+     */
+    @Test
+    void exportCsv() throws Exception {
+        MvcResult result = mockMvc.perform(get("/repaymentSchedule/export")
+                .param("loanAmount", "100000").param("debitInterestInPercentage", "2.12")
+                .param("initialRepaymentInPercentage", "2").param("durationInYears", "10"))
+                .andExpect(request().asyncStarted()).andReturn();
+        String[] lines = mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString().split("\n");
+
+        assertEquals(1 + 10 * 12 + 2, lines.length);
+        assertEquals("date,remainingLoanInCent,interestsInCent,repaymentInCent,annuityRateInCent", lines[0]);
+        assertEquals(YearMonth.now().plusMonths(1).atEndOfMonth() + ",-9983334,17667,16666,34333", lines[2]);
+        assertEquals(YearMonth.now().plusYears(10).plusMonths(1).atEndOfMonth() + ",-7774414,1894374,2225586,4119960", lines[lines.length - 1]);
+    }
+
+    /**
+     * Tests a ndjson export of a csv file with two loans. Expects the rates of both loans one after another.
+     *
+     * @throws Exception
+     */
+    @Test
+    void exportNdjsonOfFile() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "loans.csv", "text/csv",
+                "loanAmount,debitInterest,initialRepayment,durationInYears\n100000,2.12,2,10\n1000,4,3,1\n".getBytes());
+        MvcResult result = mockMvc.perform(multipart("/repaymentSchedule/export").file(file).param("format", "ndjson"))
+                .andExpect(request().asyncStarted()).andReturn();
+        String[] lines = mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString().split("\n");
+
+        assertEquals(10 * 12 + 2 + 12 + 2, lines.length);
+        assertEquals("{\"loan\":0,\"date\":\"" + YearMonth.now().atEndOfMonth() + "\",\"remainingLoanInCent\":-10000000,\"interestsInCent\":0,"
+                + "\"repaymentInCent\":-10000000,\"annuityRateInCent\":-10000000}", lines[0]);
+        assertTrue(lines[lines.length - 1].startsWith("{\"loan\":1,"));
+    }
+
+    /**
+     * Tests a binary export. Expects the same schedule as calculated directly.
+     *
+     * @throws Exception
+     */
+    @Test
+    void exportBinary() throws Exception {
+        MvcResult result = mockMvc.perform(get("/repaymentSchedule/export").param("format", "binary")
+                .param("loanAmount", "100000").param("debitInterestInPercentage", "2.12")
+                .param("initialRepaymentInPercentage", "2").param("durationInYears", "10"))
+                .andExpect(request().asyncStarted()).andReturn();
+        byte[] content = mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk()).andReturn().getResponse().getContentAsByteArray();
+        RepaymentSchedule schedule = ScheduleCodec.decode(ByteBuffer.wrap(content));
+
+        assertEquals(10 * 12 + 2, schedule.size());
+        assertEquals(YearMonth.now().plusYears(10).plusMonths(1).atEndOfMonth(), schedule.getDate(schedule.size() - 1));
+        assertEquals(-7774414, schedule.getRemainingLoanInCent(schedule.size() - 1));
+        assertEquals(34333, schedule.getAnnuityRateInCent(1));
+    }
+
+    /**
+     * Tests an export with invalid parameters.
+     *
+     * @throws Exception
+     */
+    @Test
+    void exportInvalid() throws Exception {
+        mockMvc.perform(get("/repaymentSchedule/export").param("loanAmount", "0").param("debitInterestInPercentage", "2.12")
+                .param("initialRepaymentInPercentage", "2").param("durationInYears", "10"))
+                .andExpect(status().isBadRequest());
+    }
+}
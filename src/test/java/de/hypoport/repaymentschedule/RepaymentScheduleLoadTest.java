@@ -0,0 +1,415 @@
+package de.hypoport.repaymentschedule;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load test of the repayment schedule page through the embedded Tomcat on a random port. It is tagged with loadtest and only runs in the loadtest profile,
+ * see docs/load-test.md.
+ * <p>
+ * The mix phase sends a weighted mix of GET and POST requests with short and long durations and invalid parameters from a fixed number of threads, each thread sends its
+ * next request when the last one is answered. The reference phase then sends one short GET request after the other from a single thread, its median is the speed
+ * of the machine in this run. The latency percentiles of the mix are compared as multiples of the reference with src/test/resources/loadtest-baseline.json, and the
+ * throughput per thread in reference requests, so the baseline holds for faster and slower machines.
+ * The overload phase sends the same mix at a fixed rate of twice the throughput of the mix phase, the latency is measured from the planned send time. With admission control
+ * the surplus has to be rejected with 503 while the admitted requests keep the throughput and a bounded latency.
+ * <p>
+ * All values are written to a json report, a failed gate fails the test after the report is written.
+ */
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class RepaymentScheduleLoadTest {
+
+    private final static String BASELINE_RESOURCE = "/loadtest-baseline.json";
+    private final static Path BASELINE_FILE = Paths.get("src/test/resources/loadtest-baseline.json");
+    private final static int TIMEOUT_MILLIS = 30000;
+    private final static long SEED = 20191017;
+    private final static String REFERENCE_PARAMETERS = "loanAmount=100000&debitInterestInPercentage=2.12&initialRepaymentInPercentage=2&durationInYears=10";
+    private final static String[] INVALID_PARAMETERS = {
+            "loanAmount=100000.125&debitInterestInPercentage=2.12&initialRepaymentInPercentage=2&durationInYears=10",
+            "loanAmount=100000&debitInterestInPercentage=2.12&initialRepaymentInPercentage=0.5&durationInYears=10",
+            "loanAmount=100000&debitInterestInPercentage=2.12&initialRepaymentInPercentage=2&durationInYears=61",
+            "loanAmount=abc&debitInterestInPercentage=2.12&initialRepaymentInPercentage=2&durationInYears=10",
+            "debitInterestInPercentage=2.12&initialRepaymentInPercentage=2"};
+
+    static {
+        // the overload phase has many connections open at the same time, without keep-alive the local ports are used up
+        System.setProperty("http.maxConnections", "1024");
+    }
+
+    private final int threads = (int) property("threads", 2 * Runtime.getRuntime().availableProcessors());
+    private final int warmupSeconds = (int) property("warmup-seconds", 5);
+    private final int durationSeconds = (int) property("duration-seconds", 15);
+    private final int referenceSeconds = (int) property("reference-seconds", 3);
+    private final double thresholdPercent = property("threshold-percent", 50);
+    private final double thresholdMillis = property("threshold-millis", 2);
+    private final double overloadFactor = property("overload-factor", 2);
+    private final int overloadConnections = (int) property("overload-connections", 256);
+    private final double overloadMinThroughputRatio = property("overload-min-throughput-ratio", 0.7);
+    private final double overloadLatencySlackMillis = property("overload-latency-slack-millis", 1000);
+    private final boolean writeBaseline = Boolean.getBoolean("loadtest.write-baseline");
+    private final Path report = Paths.get(System.getProperty("loadtest.report", "target/loadtest-report.json"));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${repaymentschedule.admission.queue-timeout-millis}")
+    private long queueTimeoutMillis;
+
+    /**
+     * Requests of the mix with their share of all requests.
+     */
+    private enum Scenario {
+        GET_SHORT("get-short", 30, false, 1, 10),
+        GET_LONG("get-long", 15, false, 41, 60),
+        POST_SHORT("post-short", 30, true, 1, 10),
+        POST_LONG("post-long", 15, true, 41, 60),
+        INVALID("invalid", 10, false, 1, 60);
+
+        private final static int TOTAL_WEIGHT = 100;
+
+        private final String name;
+        private final int weight;
+        private final boolean post;
+        private final int minDurationInYears;
+        private final int maxDurationInYears;
+
+        Scenario(final String name, final int weight, final boolean post, final int minDurationInYears, final int maxDurationInYears) {
+            this.name = name;
+            this.weight = weight;
+            this.post = post;
+            this.minDurationInYears = minDurationInYears;
+            this.maxDurationInYears = maxDurationInYears;
+        }
+
+        static Scenario next(final Random random) {
+            int value = random.nextInt(TOTAL_WEIGHT);
+            for (Scenario scenario : values()) {
+                value -= scenario.weight;
+                if (value < 0) {
+                    return scenario;
+                }
+            }
+            throw new IllegalStateException("weights do not sum up to " + TOTAL_WEIGHT);
+        }
+
+        boolean isPost(final Random random) {
+            return this == INVALID ? random.nextBoolean() : post;
+        }
+
+        String parameters(final Random random) {
+            if (this == INVALID) {
+                return INVALID_PARAMETERS[random.nextInt(INVALID_PARAMETERS.length)];
+            }
+            return String.format(Locale.ROOT, "loanAmount=%d&debitInterestInPercentage=%.2f&initialRepaymentInPercentage=%d&durationInYears=%d",
+                    10000 + 1000 * random.nextInt(491), 0.5 + random.nextInt(500) / 100.0, 1 + random.nextInt(5),
+                    minDurationInYears + random.nextInt(maxDurationInYears - minDurationInYears + 1));
+        }
+    }
+
+    /**
+     * Runs the mix and the overload phase, writes the report and checks the gates.
+     *
+     * @throws Exception
+     */
+    @Test
+    void mixAndOverload_WithinBaseline() throws Exception {
+        List<String> failures = new ArrayList<>();
+        Map<String, Object> mix = runMix(failures);
+        double mixThroughput = (Double) mix.get("throughputPerSecond");
+        double referenceMillis = runReference();
+        Map<String, Object> relative = relative(mix, referenceMillis);
+        Map<String, Object> overload = runOverload(mixThroughput, failures);
+
+        if (writeBaseline) {
+            Files.write(BASELINE_FILE, objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(relative));
+        } else {
+            compareWithBaseline(mix, referenceMillis, failures);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("threads", threads);
+        result.put("warmupSeconds", warmupSeconds);
+        result.put("durationSeconds", durationSeconds);
+        result.put("mix", mix);
+        result.put("relative", relative);
+        result.put("overload", overload);
+        result.put("failures", failures);
+        if (report.getParent() != null) {
+            Files.createDirectories(report.getParent());
+        }
+        Files.write(report, objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(result));
+        assertTrue(failures.isEmpty(), String.join("\n", failures));
+    }
+
+    /**
+     * Sends the mix from a fixed number of threads during warm-up and duration. Only the requests started after the warm-up are recorded. Every request of the mix has to be
+     * answered with 200, invalid parameters show the form again.
+     */
+    private Map<String, Object> runMix(final List<String> failures) throws InterruptedException {
+        Map<Scenario, Recorder> recorders = new EnumMap<>(Scenario.class);
+        Map<Scenario, LongAdder> errors = new EnumMap<>(Scenario.class);
+        for (Scenario scenario : Scenario.values()) {
+            recorders.put(scenario, new Recorder(3));
+            errors.put(scenario, new LongAdder());
+        }
+        long measureStart = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureStart + TimeUnit.SECONDS.toNanos(durationSeconds);
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        for (int worker = 0; worker < threads; worker++) {
+            Random random = new Random(SEED + worker);
+            workers.execute(() -> {
+                while (System.nanoTime() < end) {
+                    Scenario scenario = Scenario.next(random);
+                    long start = System.nanoTime();
+                    int status = send(scenario.isPost(random), scenario.parameters(random));
+                    if (start >= measureStart) {
+                        recorders.get(scenario).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                        if (status != HttpURLConnection.HTTP_OK) {
+                            errors.get(scenario).increment();
+                        }
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(warmupSeconds + durationSeconds + TIMEOUT_MILLIS / 1000, TimeUnit.SECONDS);
+
+        Map<String, Object> scenarios = new LinkedHashMap<>();
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+        for (Scenario scenario : Scenario.values()) {
+            Histogram histogram = recorders.get(scenario).getIntervalHistogram();
+            long scenarioErrors = errors.get(scenario).sum();
+            scenarios.put(scenario.name, summarize(histogram, scenarioErrors));
+            total.add(histogram);
+            totalErrors += scenarioErrors;
+            if (scenarioErrors > 0) {
+                failures.add(String.format(Locale.ROOT, "mix: %d of %d %s requests were not answered with 200", scenarioErrors, histogram.getTotalCount(), scenario.name));
+            }
+        }
+        scenarios.put("total", summarize(total, totalErrors));
+        Map<String, Object> mix = new LinkedHashMap<>();
+        mix.put("throughputPerSecond", (double) total.getTotalCount() / durationSeconds);
+        mix.put("scenarios", scenarios);
+        return mix;
+    }
+
+    /**
+     * Sends the same short GET request from one thread, one after the other, and returns the median latency. The warm-up of the mix has compiled the path already.
+     */
+    private double runReference() {
+        Histogram histogram = new Histogram(3);
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(referenceSeconds);
+        while (System.nanoTime() < end) {
+            long start = System.nanoTime();
+            send(false, REFERENCE_PARAMETERS);
+            histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        }
+        return millis(histogram, 50);
+    }
+
+    /**
+     * Returns the values of the mix which are compared with the baseline relative to the reference: p50 and p99 of each scenario as multiple of the reference,
+     * and the throughput per thread as share of the reference throughput of one thread.
+     */
+    private Map<String, Object> relative(final Map<String, Object> mix, final double referenceMillis) {
+        JsonNode current = objectMapper.valueToTree(mix);
+        Map<String, Object> scenarios = new LinkedHashMap<>();
+        for (Iterator<Map.Entry<String, JsonNode>> fields = current.path("scenarios").fields(); fields.hasNext(); ) {
+            Map.Entry<String, JsonNode> scenario = fields.next();
+            Map<String, Object> ratios = new LinkedHashMap<>();
+            ratios.put("p50", scenario.getValue().path("p50Millis").asDouble() / referenceMillis);
+            ratios.put("p99", scenario.getValue().path("p99Millis").asDouble() / referenceMillis);
+            scenarios.put(scenario.getKey(), ratios);
+        }
+        Map<String, Object> relative = new LinkedHashMap<>();
+        relative.put("referenceMillis", referenceMillis);
+        relative.put("throughputPerThread", current.path("throughputPerSecond").asDouble() * referenceMillis / 1000 / threads);
+        relative.put("scenarios", scenarios);
+        return relative;
+    }
+
+    /**
+     * Sends the mix at a fixed rate of the overload factor times the throughput of the mix phase. A request which could not be sent at its planned time because all connections
+     * are busy is measured from its planned time. Only 200 and 503 are expected.
+     */
+    private Map<String, Object> runOverload(final double mixThroughput, final List<String> failures) throws InterruptedException {
+        double rate = overloadFactor * mixThroughput;
+        long requests = (long) (rate * durationSeconds);
+        Recorder admitted = new Recorder(3);
+        LongAdder rejected = new LongAdder();
+        LongAdder errors = new LongAdder();
+        long start = System.nanoTime();
+        AtomicLong lastCompletion = new AtomicLong(start);
+        Random random = new Random(SEED);
+        ExecutorService connections = Executors.newFixedThreadPool(overloadConnections);
+        for (long request = 0; request < requests; request++) {
+            long planned = start + (long) (request * 1e9 / rate);
+            long delay = planned - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            Scenario scenario = Scenario.next(random);
+            boolean post = scenario.isPost(random);
+            String parameters = scenario.parameters(random);
+            connections.execute(() -> {
+                int status = send(post, parameters);
+                long completion = System.nanoTime();
+                lastCompletion.accumulateAndGet(completion, Math::max);
+                if (status == HttpURLConnection.HTTP_OK) {
+                    admitted.recordValue(TimeUnit.NANOSECONDS.toMicros(completion - planned));
+                } else if (status == HttpURLConnection.HTTP_UNAVAILABLE) {
+                    rejected.increment();
+                } else {
+                    errors.increment();
+                }
+            });
+        }
+        connections.shutdown();
+        connections.awaitTermination(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        Histogram histogram = admitted.getIntervalHistogram();
+        double seconds = (lastCompletion.get() - start) / 1e9;
+        double throughput = seconds > 0 ? histogram.getTotalCount() / seconds : 0;
+        Map<String, Object> overload = new LinkedHashMap<>();
+        overload.put("targetRatePerSecond", rate);
+        overload.put("throughputPerSecond", throughput);
+        overload.put("rejected", rejected.sum());
+        overload.putAll(summarize(histogram, errors.sum()));
+
+        if (errors.sum() > 0) {
+            failures.add(String.format(Locale.ROOT, "overload: %d requests were answered with neither 200 nor 503", errors.sum()));
+        }
+        if (throughput < overloadMinThroughputRatio * mixThroughput) {
+            failures.add(String.format(Locale.ROOT, "overload: throughput %.1f/s dropped below %.0f%% of the mix throughput %.1f/s", throughput,
+                    100 * overloadMinThroughputRatio, mixThroughput));
+        }
+        double maxP99Millis = queueTimeoutMillis + overloadLatencySlackMillis;
+        if (millis(histogram, 99) > maxP99Millis) {
+            failures.add(String.format(Locale.ROOT, "overload: p99 of admitted requests %.1f ms exceeds %.1f ms", millis(histogram, 99), maxP99Millis));
+        }
+        return overload;
+    }
+
+    /**
+     * Compares p50 and p99 of each scenario and the throughput with the baseline, which holds them relative to the reference, see {@link #relative(Map, double)}.
+     * The baseline is converted with the reference of this run. A latency may grow by the threshold in percent plus the threshold in milliseconds,
+     * the throughput may shrink by the threshold in percent.
+     */
+    private void compareWithBaseline(final Map<String, Object> mix, final double referenceMillis, final List<String> failures) throws IOException {
+        JsonNode baseline;
+        try (InputStream in = RepaymentScheduleLoadTest.class.getResourceAsStream(BASELINE_RESOURCE)) {
+            if (in == null) {
+                failures.add("no baseline " + BASELINE_RESOURCE + ", write one with -Dloadtest.write-baseline=true");
+                return;
+            }
+            baseline = objectMapper.readTree(in);
+        }
+        JsonNode current = objectMapper.valueToTree(mix);
+        double minThroughput = baseline.path("throughputPerThread").asDouble() * threads * 1000 / referenceMillis * (1 - thresholdPercent / 100);
+        if (current.path("throughputPerSecond").asDouble() < minThroughput) {
+            failures.add(String.format(Locale.ROOT, "mix: throughput %.1f/s below %.1f/s", current.path("throughputPerSecond").asDouble(), minThroughput));
+        }
+        for (Iterator<Map.Entry<String, JsonNode>> scenarios = baseline.path("scenarios").fields(); scenarios.hasNext(); ) {
+            Map.Entry<String, JsonNode> scenario = scenarios.next();
+            for (String percentile : new String[]{"p50", "p99"}) {
+                double limit = scenario.getValue().path(percentile).asDouble() * referenceMillis * (1 + thresholdPercent / 100) + thresholdMillis;
+                double value = current.path("scenarios").path(scenario.getKey()).path(percentile + "Millis").asDouble();
+                if (value > limit) {
+                    failures.add(String.format(Locale.ROOT, "mix: %s %s %.2f ms exceeds %.2f ms", scenario.getKey(), percentile, value, limit));
+                }
+            }
+        }
+    }
+
+    private static Map<String, Object> summarize(final Histogram histogram, final long errors) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", histogram.getTotalCount());
+        summary.put("errors", errors);
+        summary.put("p50Millis", millis(histogram, 50));
+        summary.put("p99Millis", millis(histogram, 99));
+        summary.put("p999Millis", millis(histogram, 99.9));
+        summary.put("maxMillis", histogram.getMaxValue() / 1000.0);
+        return summary;
+    }
+
+    private static double millis(final Histogram histogram, final double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static double property(final String name, final double defaultValue) {
+        String value = System.getProperty("loadtest." + name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    /**
+     * Sends a request to the repayment schedule page and reads the response completely, so the connection is kept alive.
+     *
+     * @return status of the response, -1 if the request failed
+     */
+    private int send(final boolean post, final String parameters) {
+        try {
+            URL url = new URL("http", "localhost", port, post ? "/repaymentSchedule" : "/repaymentSchedule/view?" + parameters);
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setConnectTimeout(TIMEOUT_MILLIS);
+            connection.setReadTimeout(TIMEOUT_MILLIS);
+            if (post) {
+                connection.setRequestMethod("POST");
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(parameters.getBytes(StandardCharsets.US_ASCII));
+                }
+            }
+            int status = connection.getResponseCode();
+            InputStream body = status < HttpURLConnection.HTTP_BAD_REQUEST ? connection.getInputStream() : connection.getErrorStream();
+            if (body != null) {
+                try (InputStream in = body) {
+                    byte[] buffer = new byte[8192];
+                    while (in.read(buffer) >= 0) {
+                        // the response is only read to receive it completely
+                    }
+                }
+            }
+            return status;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
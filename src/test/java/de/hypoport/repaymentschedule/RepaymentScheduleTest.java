@@ -0,0 +1,88 @@
+package de.hypoport.repaymentschedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests the column storage of {@link RepaymentSchedule}.
+ */
+public class RepaymentScheduleTest {
+
+    /**
+     * Unordered columns have to be ordered by date at construction.
+     */
+    @Test
+    void constructor_OrdersColumnsByDate() {
+        int january2020 = EpochMonths.toEpochMonth(YearMonth.of(2020, 1));
+        RepaymentSchedule schedule = new RepaymentSchedule(1,
+                new int[]{january2020 + 2, january2020, january2020 + 1},
+                new long[]{3, 1, 2}, new long[]{30, 10, 20}, new long[]{300, 100, 200}, new long[]{3000, 1000, 2000});
+
+        assertEquals(3, schedule.size());
+        for (int index = 0; index < schedule.size(); index++) {
+            assertEquals(january2020 + index, schedule.getEpochMonth(index));
+            assertEquals(index + 1, schedule.getRemainingLoanInCent(index));
+            assertEquals((index + 1) * 10, schedule.getInterestsInCent(index));
+            assertEquals((index + 1) * 100, schedule.getRepaymentInCent(index));
+            assertEquals((index + 1) * 1000, schedule.getAnnuityRateInCent(index));
+        }
+        assertEquals(LocalDate.of(2020, 3, 31), schedule.getDate(2));
+    }
+
+    /**
+     * Monthly entries have to be copied ordered by date and returned as read-only views.
+     */
+    @Test
+    void fromMonthlyEntries_ReturnsOrderedReadOnlyViews() {
+        List<MonthlyEntry> entries = new ArrayList<>();
+        entries.add(createMonthlyEntry(YearMonth.of(2020, 2), 2));
+        entries.add(createMonthlyEntry(YearMonth.of(2020, 1), 1));
+        RepaymentSchedule schedule = RepaymentSchedule.fromMonthlyEntries(1, entries);
+        entries.get(0).setRemainingLoanInCent(99);
+
+        List<MonthlyEntry> allMonthlyEntries = schedule.getAllMonthlyEntries();
+        assertEquals(2, allMonthlyEntries.size());
+        assertEquals(LocalDate.of(2020, 1, 31), allMonthlyEntries.get(0).getDate());
+        assertEquals(1, allMonthlyEntries.get(0).getRemainingLoanInCent());
+        assertEquals(LocalDate.of(2020, 2, 29), allMonthlyEntries.get(1).getDate());
+        assertEquals(2, allMonthlyEntries.get(1).getRemainingLoanInCent());
+        assertThrows(UnsupportedOperationException.class, () -> allMonthlyEntries.get(0).setRemainingLoanInCent(0));
+        assertThrows(UnsupportedOperationException.class, () -> Collections.reverse(allMonthlyEntries));
+        assertThrows(UnsupportedOperationException.class, () -> allMonthlyEntries.add(allMonthlyEntries.get(0)));
+    }
+
+    /**
+     * The flyweight iteration has to visit all rates in date order.
+     */
+    @Test
+    void forEachMonthlyEntry_VisitsAllRatesInOrder() {
+        RepaymentInformation information = new RepaymentInformation();
+        information.setLoanAmount(100000.0);
+        information.setDurationInYears(10);
+        information.setDebitInterestInPercentage(2.12);
+        information.setInitialRepaymentInPercentage(2.0);
+        RepaymentSchedule schedule = RepaymentScheduleCalculator.computeRepaymentSchedule(information);
+
+        List<Long> remainingLoans = new ArrayList<>();
+        schedule.forEachMonthlyEntry(entry -> remainingLoans.add(entry.getRemainingLoanInCent()));
+        assertEquals(10 * 12 + 2, remainingLoans.size());
+        for (int index = 0; index < schedule.size(); index++) {
+            assertEquals(schedule.getRemainingLoanInCent(index), remainingLoans.get(index).longValue());
+        }
+    }
+
+    private static MonthlyEntry createMonthlyEntry(final YearMonth month, final long remainingLoanInCent) {
+        MonthlyEntry entry = new MonthlyEntry();
+        entry.setDate(month.atEndOfMonth());
+        entry.setRemainingLoanInCent(remainingLoanInCent);
+        return entry;
+    }
+}
@@ -0,0 +1,70 @@
+package de.hypoport.repaymentschedule;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests the {@link RepaymentSolverController}.
+ */
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(controllers = RepaymentSolverController.class)
+@Import({RepaymentInformationValidator.class, RepaymentScheduleCache.class, ScheduleCalculation.class, ScheduleMetrics.class})
+public class RepaymentSolverControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    /**
+     * Solves the initial repayment of the example from the task for its remaining loan. Expects the initial repayment of the example.
+     *
+     * @throws Exception
+     */
+    @Test
+    void solveInitialRepayment_ForRemainingLoan() throws Exception {
+        mockMvc.perform(get("/api/repaymentSchedules/solve/initialRepayment").param("loanAmount", "100000").param("debitInterestInPercentage", "2.12")
+                .param("durationInYears", "10").param("maxRemainingLoan", "77744.14"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.repaymentInformation.initialRepaymentInPercentage").value(2.0))
+                .andExpect(jsonPath("$.summary.remainingLoanInCent").value(-7774414));
+    }
+
+    /**
+     * Solves the duration of the example from the task for a remaining loan of 50,000 euro.
+     *
+     * @throws Exception
+     */
+    @Test
+    void solveDuration_ForRemainingLoan() throws Exception {
+        mockMvc.perform(get("/api/repaymentSchedules/solve/duration").param("loanAmount", "100000").param("debitInterestInPercentage", "2.12")
+                .param("initialRepaymentInPercentage", "2").param("maxRemainingLoan", "50000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.repaymentInformation.durationInYears").value(21));
+    }
+
+    /**
+     * Tests requests without or with both targets and with an unreachable target.
+     *
+     * @throws Exception
+     */
+    @Test
+    void solveInitialRepayment_InvalidTargets() throws Exception {
+        mockMvc.perform(get("/api/repaymentSchedules/solve/initialRepayment").param("loanAmount", "100000").param("debitInterestInPercentage", "2.12")
+                .param("durationInYears", "10"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/repaymentSchedules/solve/initialRepayment").param("loanAmount", "100000").param("debitInterestInPercentage", "2.12")
+                .param("durationInYears", "10").param("maxRemainingLoan", "50000").param("maxAnnuityMonth", "800"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/repaymentSchedules/solve/initialRepayment").param("loanAmount", "100000").param("debitInterestInPercentage", "2.12")
+                .param("durationInYears", "10").param("maxAnnuityMonth", "1"))
+                .andExpect(status().isUnprocessableEntity());
+    }
+}
@@ -0,0 +1,92 @@
+package de.hypoport.repaymentschedule;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the {@link RepaymentSolver} against the calculation of the neighbouring parameters.
+ */
+public class RepaymentSolverTest {
+
+    private final static double[][] LOANS = {{100000.0, 2.12, 10}, {250000.55, 3.75, 30}, {50000.0, 0.0, 5}, {1000.0, 9.99, 1}, {400000.0, 1.0, 20}};
+
+    /**
+     * The solved initial repayment has to reach the remaining loan, 0.01 less must not reach it.
+     */
+    @Test
+    void solveInitialRepaymentForRemainingLoan() {
+        for (double[] loan : LOANS) {
+            for (double share : new double[]{0, 0.1, 0.5, 0.9}) {
+                RepaymentInformation repaymentInformation = createRepaymentInformation(loan);
+                long maxRemainingLoan = (long) (repaymentInformation.getLoanAmountInCent() * share);
+                SolverResult result = RepaymentSolver.solveInitialRepaymentForRemainingLoan(repaymentInformation, maxRemainingLoan).orElse(null);
+                if (result == null) {
+                    assertTrue(remainingLoan(repaymentInformation, 100.0) > maxRemainingLoan);
+                    continue;
+                }
+                double initialRepayment = result.getRepaymentInformation().getInitialRepaymentInPercentage();
+                assertEquals(-remainingLoan(repaymentInformation, initialRepayment), result.getSummary().getRemainingLoanInCent());
+                assertTrue(remainingLoan(repaymentInformation, initialRepayment) <= maxRemainingLoan);
+                if (initialRepayment > 1) {
+                    assertTrue(remainingLoan(repaymentInformation, Math.round(initialRepayment * 100 - 1) / 100.0) > maxRemainingLoan);
+                }
+                assertTrue(result.getEvaluations() <= 4, "evaluations: " + result.getEvaluations());
+            }
+        }
+    }
+
+    /**
+     * The solved initial repayment has to keep the monthly rate, 0.01 more must exceed it.
+     */
+    @Test
+    void solveInitialRepaymentForAnnuity() {
+        for (double[] loan : LOANS) {
+            RepaymentInformation repaymentInformation = createRepaymentInformation(loan);
+            long maxAnnuity = RepaymentScheduleCalculator.computeAnnuityMonth(repaymentInformation.getLoanAmountInCent(), loan[1], 3.33) + 7;
+            SolverResult result = RepaymentSolver.solveInitialRepaymentForAnnuity(repaymentInformation, maxAnnuity).orElseThrow(IllegalStateException::new);
+
+            double initialRepayment = result.getRepaymentInformation().getInitialRepaymentInPercentage();
+            assertTrue(result.getSummary().getAnnuityMonthInCent() <= maxAnnuity);
+            assertTrue(RepaymentScheduleCalculator.computeAnnuityMonth(repaymentInformation.getLoanAmountInCent(), loan[1], Math.round(initialRepayment * 100 + 1) / 100.0) > maxAnnuity);
+            assertTrue(result.getEvaluations() <= 4, "evaluations: " + result.getEvaluations());
+        }
+        assertFalse(RepaymentSolver.solveInitialRepaymentForAnnuity(createRepaymentInformation(LOANS[0]), 100).isPresent());
+    }
+
+    /**
+     * The solved duration has to reach the remaining loan, one year less must not reach it.
+     */
+    @Test
+    void solveDurationForRemainingLoan() {
+        RepaymentInformation repaymentInformation = createRepaymentInformation(LOANS[0]);
+        repaymentInformation.setInitialRepaymentInPercentage(2.0);
+        SolverResult result = RepaymentSolver.solveDurationForRemainingLoan(repaymentInformation, 5000000).orElseThrow(IllegalStateException::new);
+
+        int durationInYears = result.getRepaymentInformation().getDurationInYears();
+        assertTrue(-result.getSummary().getRemainingLoanInCent() <= 5000000);
+        repaymentInformation.setDurationInYears(durationInYears - 1);
+        assertTrue(-RepaymentScheduleCalculator.computeSummary(repaymentInformation).getRemainingLoanInCent() > 5000000);
+        repaymentInformation.setInitialRepaymentInPercentage(0.0);
+        assertFalse(RepaymentSolver.solveDurationForRemainingLoan(repaymentInformation, 0).isPresent());
+    }
+
+    private static long remainingLoan(final RepaymentInformation repaymentInformation, final double initialRepayment) {
+        RepaymentInformation candidate = new RepaymentInformation();
+        candidate.setLoanAmount(repaymentInformation.getLoanAmount());
+        candidate.setDebitInterestInPercentage(repaymentInformation.getDebitInterestInPercentage());
+        candidate.setInitialRepaymentInPercentage(initialRepayment);
+        candidate.setDurationInYears(repaymentInformation.getDurationInYears());
+        return -RepaymentScheduleCalculator.computeSummary(candidate).getRemainingLoanInCent();
+    }
+
+    private static RepaymentInformation createRepaymentInformation(final double[] loan) {
+        RepaymentInformation repaymentInformation = new RepaymentInformation();
+        repaymentInformation.setLoanAmount(loan[0]);
+        repaymentInformation.setDebitInterestInPercentage(loan[1]);
+        repaymentInformation.setDurationInYears((int) loan[2]);
+        return repaymentInformation;
+    }
+}
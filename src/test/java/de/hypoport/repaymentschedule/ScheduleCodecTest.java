@@ -0,0 +1,117 @@
+package de.hypoport.repaymentschedule;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.YearMonth;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the {@link ScheduleCodec}.
+ */
+public class ScheduleCodecTest {
+
+    /**
+     * Encodes calculated schedules, including one without interests and one shifted schedule, and decodes them from one direct buffer.
+     */
+    @Test
+    void encodeAndDecode_CalculatedSchedules() {
+        RepaymentSchedule[] schedules = {
+                RepaymentScheduleCalculator.computeRepaymentSchedule(createRepaymentInformation(100000.0, 2.12, 2.0, 10)),
+                RepaymentScheduleCalculator.computeRepaymentSchedule(createRepaymentInformation(250000.55, 3.75, 1.0, 60)),
+                RepaymentScheduleCalculator.computeRepaymentSchedule(createRepaymentInformation(50000.0, 0.0, 5.0, 30)).shiftMonths(-600)};
+        ByteBuffer buffer = ByteBuffer.allocateDirect(100000);
+        for (RepaymentSchedule schedule : schedules) {
+            buffer.put(ScheduleCodec.encode(schedule));
+        }
+        buffer.flip();
+
+        for (RepaymentSchedule schedule : schedules) {
+            assertSameSchedule(schedule, ScheduleCodec.decode(buffer));
+        }
+        assertFalse(buffer.hasRemaining());
+    }
+
+    /**
+     * Encodes a schedule with gaps between the months and changing annuity rates.
+     */
+    @Test
+    void encodeAndDecode_IrregularSchedule() {
+        int january2020 = EpochMonths.toEpochMonth(YearMonth.of(2020, 1));
+        RepaymentSchedule schedule = new RepaymentSchedule(2,
+                new int[]{january2020, january2020 + 1, january2020 + 5, january2020 + 6},
+                new long[]{-1000, -900, -850, Long.MIN_VALUE}, new long[]{0, 5, 4, Long.MAX_VALUE}, new long[]{-1000, 100, 50, 1}, new long[]{-1000, 105, 54, -3});
+
+        assertSameSchedule(schedule, ScheduleCodec.decode(ByteBuffer.wrap(ScheduleCodec.encode(schedule))));
+        assertSameSchedule(new RepaymentSchedule(), ScheduleCodec.decode(ByteBuffer.wrap(ScheduleCodec.encode(new RepaymentSchedule()))));
+    }
+
+    /**
+     * The encoded schedule has to be at least ten times smaller than its json.
+     *
+     * @throws Exception
+     */
+    @Test
+    void encode_MuchSmallerThanJson() throws Exception {
+        RepaymentSchedule schedule = RepaymentScheduleCalculator.computeRepaymentSchedule(createRepaymentInformation(100000.0, 2.12, 2.0, 30));
+        int jsonSize = new ObjectMapper().findAndRegisterModules().writeValueAsBytes(schedule).length;
+
+        assertTrue(ScheduleCodec.encode(schedule).length * 10 < jsonSize);
+    }
+
+    /**
+     * Decoding of data with unknown magic number or version has to fail.
+     */
+    @Test
+    void decode_Unsupported() {
+        byte[] encoded = ScheduleCodec.encode(new RepaymentSchedule());
+        encoded[4] = 2;
+        assertThrows(IllegalArgumentException.class, () -> ScheduleCodec.decode(ByteBuffer.wrap(encoded)));
+        assertThrows(IllegalArgumentException.class, () -> ScheduleCodec.decode(ByteBuffer.wrap(new byte[]{'{', '}'})));
+    }
+
+    /**
+     * Decoding of a truncated schedule or of a header with more rates than the longest schedule has to fail before the rates are allocated.
+     */
+    @Test
+    void decode_InvalidSize() {
+        byte[] encoded = ScheduleCodec.encode(RepaymentScheduleCalculator.computeRepaymentSchedule(createRepaymentInformation(100000.0, 2.12, 2.0, 60)));
+        assertEquals(60 * 12 + 2, ScheduleCodec.decode(ByteBuffer.wrap(encoded)).size());
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length / 2);
+        assertThrows(IllegalArgumentException.class, () -> ScheduleCodec.decode(ByteBuffer.wrap(truncated)));
+        assertThrows(IllegalArgumentException.class, () -> ScheduleCodec.decode(ByteBuffer.wrap(truncated), (month, annuity, interests, repayment, remainingLoan) -> {
+        }));
+
+        byte[] oversized = new byte[1 << 20];
+        System.arraycopy(new byte[]{0x52, 0x53, 0x53, 0x43, ScheduleCodec.VERSION, 0, 1, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x7F}, 0, oversized, 0, 12);
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> ScheduleCodec.decode(ByteBuffer.wrap(oversized)));
+        assertEquals("invalid number of rates " + 0xFFFFFFF, exception.getMessage());
+    }
+
+    private static void assertSameSchedule(final RepaymentSchedule expected, final RepaymentSchedule actual) {
+        assertEquals(expected.getDuration(), actual.getDuration());
+        assertEquals(expected.size(), actual.size());
+        for (int index = 0; index < expected.size(); index++) {
+            assertEquals(expected.getEpochMonth(index), actual.getEpochMonth(index));
+            assertEquals(expected.getAnnuityRateInCent(index), actual.getAnnuityRateInCent(index));
+            assertEquals(expected.getInterestsInCent(index), actual.getInterestsInCent(index));
+            assertEquals(expected.getRepaymentInCent(index), actual.getRepaymentInCent(index));
+            assertEquals(expected.getRemainingLoanInCent(index), actual.getRemainingLoanInCent(index));
+        }
+    }
+
+    private static RepaymentInformation createRepaymentInformation(final double loanAmount, final double debitInterest, final double initialRepayment, final int durationInYears) {
+        RepaymentInformation repaymentInformation = new RepaymentInformation();
+        repaymentInformation.setLoanAmount(loanAmount);
+        repaymentInformation.setDebitInterestInPercentage(debitInterest);
+        repaymentInformation.setInitialRepaymentInPercentage(initialRepayment);
+        repaymentInformation.setDurationInYears(durationInYears);
+        return repaymentInformation;
+    }
+}
@@ -0,0 +1,49 @@
+package de.hypoport.repaymentschedule;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests that the phases of repayment schedule requests are published at the prometheus endpoint.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ScheduleMetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    /**
+     * Sends a valid and an invalid request and expects timers, rejection counter and entry gauge in the prometheus output.
+     *
+     * @throws Exception
+     */
+    @Test
+    void requests_PublishedAsPrometheusMetrics() throws Exception {
+        mockMvc.perform(post("/repaymentSchedule").param("loanAmount", "100000").param("debitInterestInPercentage", "2.12")
+                .param("initialRepaymentInPercentage", "2").param("durationInYears", "10"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/repaymentSchedule").param("loanAmount", "100000").param("debitInterestInPercentage", "2.12")
+                .param("initialRepaymentInPercentage", "2").param("durationInYears", "61"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("repaymentschedule_validation_seconds_count{duration=\"1-10\",} 1.0")))
+                .andExpect(content().string(containsString("repaymentschedule_calculation_seconds_count{duration=\"1-10\",} 1.0")))
+                .andExpect(content().string(containsString("repaymentschedule_rendering_seconds_count{duration=\"1-10\",} 1.0")))
+                .andExpect(content().string(containsString("repaymentschedule_calculation_seconds_bucket{duration=\"1-10\"")))
+                .andExpect(content().string(containsString("repaymentschedule_validation_rejections_total{field=\"durationInYears\",} 1.0")))
+                .andExpect(content().string(containsString("repaymentschedule_entries 122.0")))
+                .andExpect(content().string(containsString("repaymentschedule_admission_rejections_total 0.0")));
+    }
+}
@@ -0,0 +1,63 @@
+package de.hypoport.repaymentschedule;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the {@link SchedulePage} and the {@link CentFormatter}.
+ */
+public class SchedulePageTest {
+
+    /**
+     * Amounts in cent have to be formatted as euro with two decimals.
+     */
+    @Test
+    void format_TwoDecimals() {
+        assertEquals("0.00", CentFormatter.format(0));
+        assertEquals("0.05", CentFormatter.format(5));
+        assertEquals("-0.05", CentFormatter.format(-5));
+        assertEquals("343.33", CentFormatter.format(34333));
+        assertEquals("-99833.34", CentFormatter.format(-9983334));
+        assertEquals("-10000000.00", CentFormatter.format(-1000000000));
+    }
+
+    /**
+     * A page has to contain only its slice of regular rates, but always the full payment and the accumulated values.
+     */
+    @Test
+    void of_SliceOfRegularRates() {
+        RepaymentInformation information = new RepaymentInformation();
+        information.setLoanAmount(100000.0);
+        information.setDurationInYears(10);
+        information.setDebitInterestInPercentage(2.12);
+        information.setInitialRepaymentInPercentage(2.0);
+        RepaymentSchedule schedule = RepaymentScheduleCalculator.computeRepaymentSchedule(information);
+
+        SchedulePage first = SchedulePage.of(schedule, 0, 50);
+        assertEquals(120, first.getTotalRates());
+        assertEquals(3, first.getTotalPages());
+        assertFalse(first.isLastPage());
+        assertEquals(50, first.getRates().size());
+        assertEquals("-100000.00", first.getFullPayment().getRemainingLoan());
+        assertEquals("-99833.34", first.getRates().get(0).getRemainingLoan());
+        assertEquals("176.67", first.getRates().get(0).getInterests());
+        assertEquals("41199.60", first.getAccumulated().getAnnuityRate());
+
+        SchedulePage last = SchedulePage.of(schedule, 2, 50);
+        assertTrue(last.isLastPage());
+        assertEquals(20, last.getRates().size());
+        assertEquals("-77744.14", last.getRates().get(19).getRemainingLoan());
+        assertEquals(schedule.getDate(120).toString(), last.getRates().get(19).getDate());
+
+        assertEquals(0, SchedulePage.of(schedule, 3, 50).getRates().size());
+
+        SchedulePage withoutRates = SchedulePage.withoutRates(schedule, 2, 50);
+        assertEquals(0, withoutRates.getRates().size());
+        assertEquals(101, withoutRates.getFirstIndex());
+        assertEquals(121, withoutRates.getEndIndex());
+        assertEquals(withoutRates.getEndIndex(), SchedulePage.withoutRates(schedule, 3, 50).getFirstIndex());
+    }
+}
@@ -0,0 +1,202 @@
+package de.hypoport.repaymentschedule;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests the {@link ScheduleStore} on the embedded database. The writer thread uses own transactions, so the tests run without transaction.
+ */
+@JdbcTest
+@Import(ScheduleStore.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ScheduleStoreTest {
+
+    @Autowired
+    private ScheduleStore scheduleStore;
+
+    @Autowired
+    private DataSource dataSource;
+
+    /**
+     * A saved schedule has to be found by id before and after it was written.
+     */
+    @Test
+    void save_FoundByIdBeforeAndAfterWrite() {
+        RepaymentInformation repaymentInformation = createRepaymentInformation(100000.0);
+        RepaymentSchedule schedule = RepaymentScheduleCalculator.computeRepaymentSchedule(repaymentInformation);
+        StoredSchedule saved = scheduleStore.save(repaymentInformation, schedule);
+        assertEquals(saved.getId(), scheduleStore.findById(saved.getId()).map(StoredSchedule::getId).orElse(null));
+
+        scheduleStore.flush();
+        StoredSchedule loaded = scheduleStore.findById(saved.getId()).orElseThrow(IllegalStateException::new);
+
+        assertEquals(saved.getInputHash(), loaded.getInputHash());
+        assertEquals(saved.getCreatedAt(), loaded.getCreatedAt());
+        assertEquals(100000.0, loaded.getRepaymentInformation().getLoanAmount());
+        assertEquals(2.12, loaded.getRepaymentInformation().getDebitInterestInPercentage());
+        assertEquals(10, loaded.getRepaymentInformation().getDurationInYears());
+        assertEquals(schedule.size(), loaded.getRepaymentSchedule().size());
+        for (int index = 0; index < schedule.size(); index++) {
+            assertEquals(schedule.getEpochMonth(index), loaded.getRepaymentSchedule().getEpochMonth(index));
+            assertEquals(schedule.getRemainingLoanInCent(index), loaded.getRepaymentSchedule().getRemainingLoanInCent(index));
+        }
+        assertFalse(scheduleStore.findById(UUID.randomUUID().toString()).isPresent());
+    }
+
+    /**
+     * The lookup by input has to return the latest schedule of equal repayment information.
+     */
+    @Test
+    void findLatestByInputHash_ReturnsLatest() {
+        RepaymentInformation repaymentInformation = createRepaymentInformation(250000.55);
+        scheduleStore.save(repaymentInformation, RepaymentScheduleCalculator.computeRepaymentSchedule(repaymentInformation));
+        scheduleStore.flush();
+        StoredSchedule latest = scheduleStore.save(repaymentInformation, RepaymentScheduleCalculator.computeRepaymentSchedule(repaymentInformation));
+        scheduleStore.save(createRepaymentInformation(250000.56), RepaymentScheduleCalculator.computeRepaymentSchedule(createRepaymentInformation(250000.56)));
+        scheduleStore.flush();
+
+        String inputHash = ScheduleStore.inputHash(createRepaymentInformation(250000.55));
+        assertEquals(latest.getId(), scheduleStore.findLatestByInputHash(inputHash).map(StoredSchedule::getId).orElse(null));
+    }
+
+    /**
+     * The events of a saved schedule have to be loaded again and lead to the same input hash.
+     */
+    @Test
+    void save_KeepsEvents() {
+        RepaymentInformation repaymentInformation = createRepaymentInformation(100000.0);
+        repaymentInformation.setEvents(Arrays.asList(new RepaymentEvent(24, 5000.0, null), new RepaymentEvent(60, null, 3.5)));
+        StoredSchedule saved = scheduleStore.save(repaymentInformation, RepaymentScheduleCalculator.computeRepaymentSchedule(repaymentInformation));
+        scheduleStore.flush();
+
+        StoredSchedule loaded = scheduleStore.findById(saved.getId()).orElseThrow(IllegalStateException::new);
+        assertEquals(2, loaded.getRepaymentInformation().getEvents().size());
+        assertEquals(5000.0, loaded.getRepaymentInformation().getEvents().get(0).getSpecialRepayment());
+        assertEquals(3.5, loaded.getRepaymentInformation().getEvents().get(1).getDebitInterestInPercentage());
+        assertEquals(saved.getInputHash(), ScheduleStore.inputHash(loaded.getRepaymentInformation()));
+    }
+
+    /**
+     * Amounts whose cents are no exact doubles, like 1024.1 * 100 = 102409.99999999999, have to be loaded unchanged after they were written.
+     */
+    @Test
+    void save_WrittenAmountsLoadedUnchanged() {
+        for (double amount : new double[]{1024.1, 2.3, 0.29, 250000.55}) {
+            RepaymentInformation repaymentInformation = createRepaymentInformation(amount);
+            repaymentInformation.setEvents(Arrays.asList(new RepaymentEvent(12, amount, null)));
+            StoredSchedule saved = scheduleStore.save(repaymentInformation, RepaymentScheduleCalculator.computeRepaymentSchedule(repaymentInformation));
+            scheduleStore.flush();
+
+            RepaymentInformation loaded = scheduleStore.findById(saved.getId()).orElseThrow(IllegalStateException::new).getRepaymentInformation();
+            assertEquals(amount, loaded.getLoanAmount());
+            assertEquals(amount, loaded.getEvents().get(0).getSpecialRepayment());
+            assertEquals(repaymentInformation.getLoanAmountInCent(), loaded.getLoanAmountInCent());
+            assertEquals(saved.getInputHash(), ScheduleStore.inputHash(loaded));
+        }
+    }
+
+    /**
+     * Recalculating a written schedule with changed events from its loaded information has to lead to the same rates as a full calculation,
+     * like changing the events of a stored schedule does.
+     */
+    @Test
+    void save_WrittenScheduleRecomputedLikeFullCalculation() {
+        RepaymentInformation repaymentInformation = createRepaymentInformation(1024.1);
+        StoredSchedule saved = scheduleStore.save(repaymentInformation, RepaymentScheduleCalculator.computeRepaymentSchedule(repaymentInformation));
+        scheduleStore.flush();
+        StoredSchedule loaded = scheduleStore.findById(saved.getId()).orElseThrow(IllegalStateException::new);
+        RepaymentInformation changed = createRepaymentInformation(loaded.getRepaymentInformation().getLoanAmount());
+        changed.setEvents(Arrays.asList(new RepaymentEvent(60, 100.0, null)));
+
+        RepaymentSchedule expected = RepaymentScheduleCalculator.computeRepaymentSchedule(changed);
+        RepaymentSchedule recomputed = RepaymentScheduleCalculator.recomputeRepaymentSchedule(loaded.getRepaymentSchedule(), loaded.getRepaymentInformation(), changed);
+        assertEquals(expected.size(), recomputed.size());
+        for (int index = 0; index < expected.size(); index++) {
+            assertEquals(expected.getAnnuityRateInCent(index), recomputed.getAnnuityRateInCent(index));
+            assertEquals(expected.getInterestsInCent(index), recomputed.getInterestsInCent(index));
+            assertEquals(expected.getRepaymentInCent(index), recomputed.getRepaymentInCent(index));
+            assertEquals(expected.getRemainingLoanInCent(index), recomputed.getRemainingLoanInCent(index));
+        }
+    }
+
+    /**
+     * A schedule which could not be written has to stay pending and has to be written by the writer thread when the database is available again.
+     *
+     * @throws InterruptedException
+     */
+    @Test
+    void save_FailedWriteStaysPendingAndIsRetried() throws InterruptedException {
+        FailingDataSource failingDataSource = new FailingDataSource(dataSource);
+        ScheduleStore failingStore = new ScheduleStore(new JdbcTemplate(failingDataSource), 10, 10, 10, 20);
+        try {
+            RepaymentInformation repaymentInformation = createRepaymentInformation(300000.5);
+            StoredSchedule saved = failingStore.save(repaymentInformation, RepaymentScheduleCalculator.computeRepaymentSchedule(repaymentInformation));
+
+            assertThrows(DataAccessException.class, failingStore::flush);
+            assertEquals(saved.getId(), failingStore.findById(saved.getId()).map(StoredSchedule::getId).orElse(null));
+            assertEquals(saved.getId(), failingStore.findLatestByInputHash(saved.getInputHash()).map(StoredSchedule::getId).orElse(null));
+
+            failingDataSource.failing = false;
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            for (int attempt = 0; attempt < 500 && countRows(jdbcTemplate, saved.getId()) == 0; attempt++) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, countRows(jdbcTemplate, saved.getId()));
+            failingStore.flush();
+            assertEquals(1, countRows(jdbcTemplate, saved.getId()));
+        } finally {
+            failingDataSource.failing = false;
+            failingStore.close();
+        }
+    }
+
+    private static int countRows(final JdbcTemplate jdbcTemplate, final String id) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM repayment_schedule WHERE id = ?", Integer.class, id);
+    }
+
+    private static RepaymentInformation createRepaymentInformation(final double loanAmount) {
+        RepaymentInformation repaymentInformation = new RepaymentInformation();
+        repaymentInformation.setLoanAmount(loanAmount);
+        repaymentInformation.setDebitInterestInPercentage(2.12);
+        repaymentInformation.setInitialRepaymentInPercentage(2.0);
+        repaymentInformation.setDurationInYears(10);
+        return repaymentInformation;
+    }
+
+    /**
+     * Data source which refuses connections while failing is set.
+     */
+    private static class FailingDataSource extends DelegatingDataSource {
+
+        private volatile boolean failing = true;
+
+        FailingDataSource(final DataSource targetDataSource) {
+            super(targetDataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (failing) {
+                throw new SQLException("database not available");
+            }
+            return super.getConnection();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package de.hypoport.repaymentschedule;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the {@link ScheduleWarmup} with lazy bean initialization like the faststart profile on a random port.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.main.lazy-initialization=true", "repaymentschedule.warmup.enabled=true", "repaymentschedule.warmup.requests=5"})
+public class ScheduleWarmupTest {
+
+    @Autowired
+    private ScheduleWarmup warmup;
+
+    @Autowired
+    private RepaymentScheduleCache scheduleCache;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    /**
+     * The warm-up requests have to be calculated by the lazily created controllers. The health has to be UP after the warm-up.
+     *
+     * @throws InterruptedException
+     */
+    @Test
+    void warmUp_ReportsUpWhenDone() throws InterruptedException {
+        for (int attempt = 0; attempt < 1000 && !warmup.isDone(); attempt++) {
+            Thread.sleep(10);
+        }
+        assertTrue(warmup.isDone());
+        assertEquals(Status.UP, warmup.health().getStatus());
+        assertTrue(scheduleCache.getMissCount() > 0);
+        assertEquals(HttpStatus.OK, restTemplate.getForEntity("/actuator/health", String.class).getStatusCode());
+    }
+
+    /**
+     * Without warm-up the health is UP at once, a running warm-up reports OUT_OF_SERVICE.
+     */
+    @Test
+    void health_OutOfServiceUntilDone() {
+        assertEquals(Status.UP, new ScheduleWarmup(false, 5, false).health().getStatus());
+        assertEquals(Status.OUT_OF_SERVICE, new ScheduleWarmup(true, 5, false).health().getStatus());
+    }
+}